@@ -30,7 +30,7 @@ export default function ArticlesIndexPage() {
   } = useBackend(
     // Stryker disable next-line all : don't test internal caching of React Query
     ["/api/articles/all"],
-    { method: "GET", url: "/api/articles/all" },
+    { method: "GET", url: "/api/articles/all", params: { unpaged: true } },
     [],
   );
 
@@ -16,7 +16,7 @@ export default function HelpRequestIndexPage() {
   } = useBackend(
     // Stryker disable next-line all : don't test internal caching of React Query
     ["/api/helprequests/all"],
-    { method: "GET", url: "/api/helprequests/all" },
+    { method: "GET", url: "/api/helprequests/all", params: { unpaged: true } },
     // Stryker disable next-line all : don't test default value of empty list
     [],
   );
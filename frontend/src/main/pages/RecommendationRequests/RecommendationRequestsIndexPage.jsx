@@ -30,7 +30,11 @@ export default function RecommendationRequestsIndexPage() {
   } = useBackend(
     // Stryker disable next-line all : don't test internal caching of React Query
     ["/api/recommendationrequests/all"],
-    { method: "GET", url: "/api/recommendationrequests/all" },
+    {
+      method: "GET",
+      url: "/api/recommendationrequests/all",
+      params: { unpaged: true },
+    },
     // Stryker disable next-line all : don't test default value of empty list
     [],
   );
@@ -16,7 +16,7 @@ export default function RestaurantIndexPage() {
   } = useBackend(
     // Stryker disable next-line all : don't test internal caching of React Query
     ["/api/restaurants/all"],
-    { method: "GET", url: "/api/restaurants/all" },
+    { method: "GET", url: "/api/restaurants/all", params: { unpaged: true } },
     // Stryker disable next-line all : don't test default value of empty list
     [],
   );
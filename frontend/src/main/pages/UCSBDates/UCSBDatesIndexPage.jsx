@@ -30,7 +30,7 @@ export default function UCSBDatesIndexPage() {
   } = useBackend(
     // Stryker disable next-line all : don't test internal caching of React Query
     ["/api/ucsbdates/all"],
-    { method: "GET", url: "/api/ucsbdates/all" },
+    { method: "GET", url: "/api/ucsbdates/all", params: { unpaged: true } },
     [],
   );
 
@@ -16,7 +16,11 @@ export default function UCSBDiningCommonsMenuItemIndexPage() {
   } = useBackend(
     // Stryker disable next-line all : don't test internal caching of React Query
     ["/api/ucsb-dining-commons-menu-items/all"],
-    { method: "GET", url: "/api/ucsb-dining-commons-menu-items/all" },
+    {
+      method: "GET",
+      url: "/api/ucsb-dining-commons-menu-items/all",
+      params: { unpaged: true },
+    },
     // Stryker disable next-line all : don't test default value of empty list
     [],
   );
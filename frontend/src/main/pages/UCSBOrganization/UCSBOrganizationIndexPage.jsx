@@ -16,7 +16,11 @@ export default function UCSBOrganizationIndexPage() {
   } = useBackend(
     // Stryker disable next-line all : don't test internal caching of React Query
     ["/api/ucsborganization/all"],
-    { method: "GET", url: "/api/ucsborganization/all" },
+    {
+      method: "GET",
+      url: "/api/ucsborganization/all",
+      params: { unpaged: true },
+    },
     // Stryker disable next-line all : don't test default value of empty list
     [],
   );
@@ -93,6 +93,8 @@ describe("ArticlesIndexPage tests", () => {
         screen.getByTestId(`${testId}-cell-row-0-col-id`),
       ).toHaveTextContent("1");
     });
+    const request = axiosMock.history.get.find((r) => r.url.endsWith("/all"));
+    expect(request.params).toEqual({ unpaged: true });
     expect(screen.getByTestId(`${testId}-cell-row-1-col-id`)).toHaveTextContent(
       "2",
     );
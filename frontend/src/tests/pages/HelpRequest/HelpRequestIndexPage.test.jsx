@@ -91,6 +91,8 @@ describe("HelpRequestIndexPage tests", () => {
         screen.getByTestId(`${testId}-cell-row-0-col-id`),
       ).toHaveTextContent("2");
     });
+    const request = axiosMock.history.get.find((r) => r.url.endsWith("/all"));
+    expect(request.params).toEqual({ unpaged: true });
     expect(screen.getByTestId(`${testId}-cell-row-1-col-id`)).toHaveTextContent(
       "3",
     );
@@ -0,0 +1,45 @@
+package edu.ucsb.cs156.example.services.jobs;
+
+import edu.ucsb.cs156.example.ExampleApplication;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Starts the application for a benchmark: the integration profile, so that jobs are stored in an
+ * in-memory H2 database, with logging turned down so that it does not swamp what is measured.
+ */
+final class JobBenchmarkApp {
+  private JobBenchmarkApp() {}
+
+  /**
+   * @param properties application properties for this benchmark, e.g. "app.jobs.log.mode" and
+   *     "buffered"; they override the defaults
+   * @return the running application; close it in the benchmark's trial teardown
+   */
+  static ConfigurableApplicationContext start(String... properties) {
+    Map<String, String> args = new LinkedHashMap<>();
+    args.put("server.port", "0");
+    // the integration profile logs every SQL statement
+    args.put("logging.level.root", "WARN");
+    args.put("logging.level.sql", "WARN");
+    args.put("logging.level.org.hibernate.type.descriptor.sql.BasicBinder", "WARN");
+    // the application closes the database when it stops, not the JVM's shutdown hook
+    args.put("spring.datasource.url", "jdbc:h2:mem:benchmark;DB_CLOSE_ON_EXIT=FALSE");
+    // jobs are launched much faster than they run; none should be turned away
+    args.put("app.jobs.executor.queueCapacity", "1000000");
+    args.put("app.jobs.quotas.maxConcurrentPerUser", "0");
+    args.put("app.jobs.quotas.launchesPerMinute", "0");
+    for (int i = 0; i + 1 < properties.length; i += 2) {
+      args.put(properties[i], properties[i + 1]);
+    }
+    // as command line arguments, so that they override application-integration.properties
+    return new SpringApplicationBuilder(ExampleApplication.class)
+        .profiles("integration")
+        .run(
+            args.entrySet().stream()
+                .map(arg -> "--" + arg.getKey() + "=" + arg.getValue())
+                .toArray(String[]::new));
+  }
+}
@@ -0,0 +1,74 @@
+package edu.ucsb.cs156.example.services.jobs;
+
+import edu.ucsb.cs156.example.entities.Job;
+import edu.ucsb.cs156.example.entities.JobStatus;
+import edu.ucsb.cs156.example.jobs.TestJob;
+import edu.ucsb.cs156.example.repositories.JobsRepository;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * End-to-end latency of a job: from {@link JobService#runAsJob} until the jobs table shows it
+ * finished, for each executor thread type and app.jobs.log.mode. The job is a TestJob that logs two
+ * lines and does not sleep.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JobCompletionBenchmark {
+  private static final List<JobStatus> DONE = List.of(JobStatus.COMPLETE, JobStatus.ERROR);
+
+  /** How long to wait between looks at the job's status */
+  private static final long POLL_NANOS = 20_000;
+
+  @Param({"platform", "virtual"})
+  public String threads;
+
+  @Param({"sync", "buffered"})
+  public String logMode;
+
+  private ConfigurableApplicationContext app;
+  private JobService jobService;
+  private JobsRepository jobsRepository;
+
+  private final TestJob job = TestJob.builder().build();
+
+  @Setup(Level.Trial)
+  public void startApp() {
+    app = JobBenchmarkApp.start("app.jobs.executor.threads", threads, "app.jobs.log.mode", logMode);
+    jobService = app.getBean(JobService.class);
+    jobsRepository = app.getBean(JobsRepository.class);
+  }
+
+  @Benchmark
+  public Job runToCompletion() {
+    Job launched = jobService.runAsJob(job);
+    while (!jobsRepository.existsByIdAndStatusIn(launched.getId(), DONE)) {
+      LockSupport.parkNanos(POLL_NANOS);
+    }
+    return launched;
+  }
+
+  @TearDown(Level.Trial)
+  public void stopApp() {
+    app.close();
+  }
+}
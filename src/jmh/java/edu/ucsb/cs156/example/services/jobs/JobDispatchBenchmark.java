@@ -0,0 +1,62 @@
+package edu.ucsb.cs156.example.services.jobs;
+
+import edu.ucsb.cs156.example.entities.Job;
+import edu.ucsb.cs156.example.jobs.TestJob;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Latency of {@link JobService#runAsJob}: the time from a launch until the caller has the job back,
+ * not until the job runs. In "memory" queue mode that is saving the job and handing it to the
+ * priority lanes; in "database" mode, saving it as "queued" for a JobQueueWorker to claim.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JobDispatchBenchmark {
+  @Param({"platform", "virtual"})
+  public String threads;
+
+  @Param({"memory", "database"})
+  public String queueMode;
+
+  private ConfigurableApplicationContext app;
+  private JobService jobService;
+
+  /** Serializable, so that it can be queued in the database */
+  private final TestJob job = TestJob.builder().build();
+
+  @Setup(Level.Trial)
+  public void startApp() {
+    app =
+        JobBenchmarkApp.start(
+            "app.jobs.executor.threads", threads, "app.jobs.queue.mode", queueMode);
+    jobService = app.getBean(JobService.class);
+  }
+
+  @Benchmark
+  public Job runAsJob() {
+    return jobService.runAsJob(job);
+  }
+
+  @TearDown(Level.Trial)
+  public void stopApp() {
+    app.close();
+  }
+}
@@ -0,0 +1,111 @@
+package edu.ucsb.cs156.example.services.jobs;
+
+import edu.ucsb.cs156.example.entities.Job;
+import edu.ucsb.cs156.example.entities.JobStatus;
+import edu.ucsb.cs156.example.repositories.JobsRepository;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.util.FileSystemUtils;
+
+/**
+ * Time for a job whose log already has {@code lines} lines to log {@value #BATCH} more with {@link
+ * JobContext#log}, in each app.jobs.log.mode and app.jobs.log.store. In "sync" mode every line is
+ * written at once, which with the "database" store saves the whole log, so the cost grows with the
+ * log, while the "file" store appends a gzip member to the job's segment file; in "buffered" mode
+ * lines are only appended to the job's JobLogBuffer, and the JobLogFlusher writes them in the
+ * background.
+ *
+ * <p>Each batch starts from a fresh job. Its lines are short, so that 100000 of them, plus the
+ * batch, still fit in the 1 MB log column.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, batchSize = JobLogBenchmark.BATCH)
+@Measurement(iterations = 10, batchSize = JobLogBenchmark.BATCH)
+@Fork(1)
+public class JobLogBenchmark {
+  static final int BATCH = 1000;
+
+  @Param({"10", "1000", "100000"})
+  public int lines;
+
+  @Param({"sync", "buffered"})
+  public String mode;
+
+  @Param({"database", "file"})
+  public String store;
+
+  private ConfigurableApplicationContext app;
+  private JobsRepository jobsRepository;
+  private JobLogFlusher jobLogFlusher;
+  private JobLogStore jobLogStore;
+  private Path logDir;
+
+  private JobLogBuffer logBuffer;
+  private JobContext context;
+
+  @Setup(Level.Trial)
+  public void startApp() throws IOException {
+    logDir = Files.createTempDirectory("job-logs");
+    app =
+        JobBenchmarkApp.start(
+            "app.jobs.log.mode",
+            mode,
+            "app.jobs.log.store",
+            store,
+            "app.jobs.log.dir",
+            logDir.toString());
+    jobsRepository = app.getBean(JobsRepository.class);
+    jobLogFlusher = app.getBean(JobLogFlusher.class);
+    jobLogStore = app.getBean(JobLogStore.class);
+  }
+
+  @Setup(Level.Iteration)
+  public void newJob() {
+    StringBuilder log = new StringBuilder();
+    for (int i = 0; i < lines; i++) {
+      log.append(i == 0 ? "" : "\n").append(i);
+    }
+    Job job = jobsRepository.save(Job.builder().status(JobStatus.RUNNING).build());
+    if (lines > 0) {
+      jobLogStore.append(job, log.toString());
+    }
+    logBuffer = "buffered".equals(mode) ? jobLogFlusher.register(job) : null;
+    context = new JobContext(jobLogStore, job, logBuffer, null, null);
+  }
+
+  @Benchmark
+  public void log() {
+    context.log("one more line");
+  }
+
+  @TearDown(Level.Iteration)
+  public void finishJob() {
+    if (logBuffer != null) {
+      jobLogFlusher.close(logBuffer);
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void stopApp() throws IOException {
+    app.close();
+    FileSystemUtils.deleteRecursively(logDir);
+  }
+}
@@ -0,0 +1,36 @@
+package edu.ucsb.cs156.example.config;
+
+import edu.ucsb.cs156.example.services.jobs.FileJobArtifactStore;
+import edu.ucsb.cs156.example.services.jobs.JobArtifactStore;
+import java.nio.file.Path;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * The `JobArtifactStoreConfig` class chooses where the files that jobs produce are kept.
+ *
+ * <p>By default they are files under {@code app.jobs.artifacts.dir} on this node's disk, which only
+ * works when every node shares the directory (or there is only one node). Another JobArtifactStore,
+ * e.g. an object store, would be chosen here.
+ */
+@Configuration
+@Slf4j
+public class JobArtifactStoreConfig {
+
+  @Value("${app.jobs.artifacts.dir:artifacts/jobs}")
+  private String dir;
+
+  /**
+   * The store used by JobArtifacts.
+   *
+   * @return a store of files under app.jobs.artifacts.dir
+   */
+  @Bean
+  public JobArtifactStore jobArtifactStore() {
+    Path path = Path.of(dir).toAbsolutePath();
+    log.info("jobArtifactStore: file, dir={}", path);
+    return new FileJobArtifactStore(path);
+  }
+}
@@ -0,0 +1,76 @@
+package edu.ucsb.cs156.example.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * The `JobExecutorConfig` class defines the executor that runs jobs submitted through JobService,
+ * so that a burst of job launches cannot starve the default Spring task executor.
+ *
+ * <p>Settings (all under {@code app.jobs.executor}):
+ *
+ * <ul>
+ *   <li>{@code threads}: "platform" (default) or "virtual"; virtual threads suit I/O-bound jobs
+ *   <li>{@code maxConcurrency}: how many jobs may run at once on platform threads
+ *   <li>{@code virtualMaxConcurrency}: how many jobs may run at once on virtual threads. A blocked
+ *       virtual thread does not hold a carrier thread, so this can be far higher than
+ *       maxConcurrency, letting I/O-bound jobs scale past the platform-thread count; it still caps
+ *       what the jobs themselves use, e.g. database connections
+ *   <li>{@code queueCapacity}: how many jobs may wait for a worker
+ *   <li>{@code overloadPolicy}: "queue" (default) lets jobs wait in the queue and reports their
+ *       position; "reject" refuses a job as soon as every worker is busy. Either way, a job that
+ *       does not fit is refused and the launch endpoint answers 503.
+ * </ul>
+ */
+@Configuration
+@Slf4j
+public class JobExecutorConfig {
+
+  public static final String JOB_EXECUTOR = "jobExecutor";
+
+  @Value("${app.jobs.executor.threads:platform}")
+  private String threads;
+
+  @Value("${app.jobs.executor.maxConcurrency:4}")
+  private int maxConcurrency;
+
+  @Value("${app.jobs.executor.virtualMaxConcurrency:256}")
+  private int virtualMaxConcurrency;
+
+  @Value("${app.jobs.executor.queueCapacity:100}")
+  private int queueCapacity;
+
+  @Value("${app.jobs.executor.overloadPolicy:queue}")
+  private String overloadPolicy;
+
+  /**
+   * The executor used by {@code @Async(JobExecutorConfig.JOB_EXECUTOR)} in JobService.
+   *
+   * @return a bounded executor configured from the app.jobs.executor properties
+   */
+  @Bean(name = JOB_EXECUTOR)
+  public ThreadPoolTaskExecutor jobExecutor() {
+    boolean virtual = "virtual".equalsIgnoreCase(threads);
+    boolean reject = "reject".equalsIgnoreCase(overloadPolicy);
+    int concurrency = virtual ? virtualMaxConcurrency : maxConcurrency;
+
+    ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+    executor.setThreadNamePrefix("job-");
+    executor.setCorePoolSize(concurrency);
+    executor.setMaxPoolSize(concurrency);
+    executor.setQueueCapacity(reject ? 0 : queueCapacity);
+    executor.setVirtualThreads(virtual);
+    executor.setWaitForTasksToCompleteOnShutdown(false);
+
+    log.info(
+        "jobExecutor: threads={}, maxConcurrency={}, queueCapacity={}, overloadPolicy={}",
+        virtual ? "virtual" : "platform",
+        concurrency,
+        reject ? 0 : queueCapacity,
+        reject ? "reject" : "queue");
+    return executor;
+  }
+}
@@ -0,0 +1,58 @@
+package edu.ucsb.cs156.example.config;
+
+import edu.ucsb.cs156.example.repositories.JobsRepository;
+import edu.ucsb.cs156.example.services.jobs.DatabaseJobLogStore;
+import edu.ucsb.cs156.example.services.jobs.FileJobLogStore;
+import edu.ucsb.cs156.example.services.jobs.JobLogStore;
+import java.nio.file.Path;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * The `JobLogStoreConfig` class chooses where job logs are kept.
+ *
+ * <p>Settings (all under {@code app.jobs.log}):
+ *
+ * <ul>
+ *   <li>{@code store}: "database" (default) keeps each log in the log column of its job; "file"
+ *       keeps logs as gzip segment files on this node's disk, which suits jobs that log a lot but
+ *       only works when every node shares the directory (or there is only one node); its logs are
+ *       always buffered, whatever {@code mode} says
+ *   <li>{@code dir}: the directory for the "file" store
+ *   <li>{@code segmentBytes}: the size at which the "file" store starts a new segment file
+ * </ul>
+ */
+@Configuration
+@Slf4j
+public class JobLogStoreConfig {
+
+  @Autowired private JobsRepository jobsRepository;
+
+  @Value("${app.jobs.log.store:database}")
+  private String store;
+
+  @Value("${app.jobs.log.dir:logs/jobs}")
+  private String dir;
+
+  @Value("${app.jobs.log.segmentBytes:1048576}")
+  private long segmentBytes;
+
+  /**
+   * The store used by JobService, JobLogReader, JobLogStreamer and JobRetention.
+   *
+   * @return the store configured by app.jobs.log.store
+   */
+  @Bean
+  public JobLogStore jobLogStore() {
+    if ("file".equalsIgnoreCase(store)) {
+      Path path = Path.of(dir).toAbsolutePath();
+      log.info("jobLogStore: file, dir={}, segmentBytes={}", path, segmentBytes);
+      return new FileJobLogStore(jobsRepository, path, Math.max(1, segmentBytes));
+    }
+    log.info("jobLogStore: database");
+    return new DatabaseJobLogStore(jobsRepository);
+  }
+}
@@ -0,0 +1,30 @@
+package edu.ucsb.cs156.example.config;
+
+import java.time.ZonedDateTime;
+import java.util.Optional;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.auditing.DateTimeProvider;
+import org.springframework.data.jpa.repository.config.EnableJpaAuditing;
+
+/**
+ * Turns on JPA auditing, so that fields annotated with {@code @CreatedDate} and
+ * {@code @LastModifiedDate} (e.g. Job.createdAt) are filled in when an entity is saved.
+ *
+ * <p>This is a separate class rather than an annotation on ExampleApplication so that
+ * {@code @WebMvcTest} controller tests, which have no JPA metamodel, do not pick it up.
+ */
+@Configuration
+@EnableJpaAuditing(dateTimeProviderRef = "auditingDateTimeProvider")
+public class JpaAuditingConfig {
+
+  /**
+   * The default provider supplies LocalDateTime, which cannot be stored in ZonedDateTime fields.
+   *
+   * @return a provider of the current time as a ZonedDateTime
+   */
+  @Bean
+  public DateTimeProvider auditingDateTimeProvider() {
+    return () -> Optional.of(ZonedDateTime.now());
+  }
+}
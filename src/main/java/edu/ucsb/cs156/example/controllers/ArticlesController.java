@@ -3,12 +3,18 @@ package edu.ucsb.cs156.example.controllers;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import edu.ucsb.cs156.example.entities.Articles;
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.models.KeysetPage;
 import edu.ucsb.cs156.example.repositories.ArticlesRepository;
+import edu.ucsb.cs156.example.services.JsonArrayStreamer;
+import edu.ucsb.cs156.example.services.KeysetPager;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
+import java.io.IOException;
 import java.time.LocalDateTime;
+import java.util.List;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
@@ -30,17 +36,44 @@ import org.springframework.web.bind.annotation.RestController;
 public class ArticlesController extends ApiController {
   @Autowired ArticlesRepository articlesRepository;
 
+  @Autowired KeysetPager keysetPager;
+
+  @Autowired JsonArrayStreamer jsonArrayStreamer;
+
+  /**
+   * List articles, one page at a time
+   *
+   * @param sort properties to sort by, e.g. "-title"; by id if empty
+   * @param after the next cursor of the previous page, or null for the first page
+   * @param limit the most articles to return
+   * @return a page of Articles
+   */
+  @Operation(summary = "List articles, one page at a time", description = KeysetPager.DESCRIPTION)
+  @PreAuthorize("hasRole('ROLE_USER')")
+  @GetMapping("/all")
+  public KeysetPage<Articles> articlesPage(
+      @Parameter(name = "sort", description = KeysetPager.SORT_DESCRIPTION)
+          @RequestParam(required = false)
+          List<String> sort,
+      @Parameter(name = "after", description = KeysetPager.AFTER_DESCRIPTION)
+          @RequestParam(required = false)
+          String after,
+      @Parameter(name = "limit", description = KeysetPager.LIMIT_DESCRIPTION)
+          @RequestParam(defaultValue = "50")
+          int limit) {
+    return keysetPager.page(articlesRepository, Articles.class, sort, after, limit);
+  }
+
   /**
    * List all articles
    *
-   * @return an iterable of Articles
+   * @param response the response to stream the articles to, as a JSON array
    */
   @Operation(summary = "List all articles")
   @PreAuthorize("hasRole('ROLE_USER')")
-  @GetMapping("/all")
-  public Iterable<Articles> allArticles() {
-    Iterable<Articles> articles = articlesRepository.findAll();
-    return articles;
+  @GetMapping(value = "/all", params = "unpaged=true")
+  public void allArticles(HttpServletResponse response) throws IOException {
+    jsonArrayStreamer.writeAll(articlesRepository, response);
   }
 
   /**
@@ -82,7 +115,8 @@ public class ArticlesController extends ApiController {
       @Parameter(
               name = "dateAdded",
               description =
-                  "date (in iso format, e.g. YYYY-mm-ddTHH:MM:SS; see https://en.wikipedia.org/wiki/ISO_8601)")
+                  "date (in iso format, e.g. YYYY-mm-ddTHH:MM:SS; see"
+                      + " https://en.wikipedia.org/wiki/ISO_8601)")
           @RequestParam("dateAdded")
           @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
           LocalDateTime dateAdded)
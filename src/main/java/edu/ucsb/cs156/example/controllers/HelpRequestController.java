@@ -3,12 +3,18 @@ package edu.ucsb.cs156.example.controllers;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import edu.ucsb.cs156.example.entities.HelpRequest;
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.models.KeysetPage;
 import edu.ucsb.cs156.example.repositories.HelpRequestRepository;
+import edu.ucsb.cs156.example.services.JsonArrayStreamer;
+import edu.ucsb.cs156.example.services.KeysetPager;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
+import java.io.IOException;
 import java.time.LocalDateTime;
+import java.util.List;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
@@ -31,17 +37,46 @@ public class HelpRequestController extends ApiController {
 
   @Autowired HelpRequestRepository helpRequestRepository;
 
+  @Autowired KeysetPager keysetPager;
+
+  @Autowired JsonArrayStreamer jsonArrayStreamer;
+
+  /**
+   * List help requests, one page at a time
+   *
+   * @param sort properties to sort by, e.g. "-requestTime"; by id if empty
+   * @param after the next cursor of the previous page, or null for the first page
+   * @param limit the most help requests to return
+   * @return a page of HelpRequest
+   */
+  @Operation(
+      summary = "List help requests, one page at a time",
+      description = KeysetPager.DESCRIPTION)
+  @PreAuthorize("hasRole('ROLE_USER')")
+  @GetMapping("/all")
+  public KeysetPage<HelpRequest> helpRequestsPage(
+      @Parameter(name = "sort", description = KeysetPager.SORT_DESCRIPTION)
+          @RequestParam(required = false)
+          List<String> sort,
+      @Parameter(name = "after", description = KeysetPager.AFTER_DESCRIPTION)
+          @RequestParam(required = false)
+          String after,
+      @Parameter(name = "limit", description = KeysetPager.LIMIT_DESCRIPTION)
+          @RequestParam(defaultValue = "50")
+          int limit) {
+    return keysetPager.page(helpRequestRepository, HelpRequest.class, sort, after, limit);
+  }
+
   /**
    * List all Help Requests
    *
-   * @return an iterable of HelpRequest
+   * @param response the response to stream the help requests to, as a JSON array
    */
   @Operation(summary = "List all help requests")
   @PreAuthorize("hasRole('ROLE_USER')")
-  @GetMapping("/all")
-  public Iterable<HelpRequest> allHelpRequests() {
-    Iterable<HelpRequest> requests = helpRequestRepository.findAll();
-    return requests;
+  @GetMapping(value = "/all", params = "unpaged=true")
+  public void allHelpRequests(HttpServletResponse response) throws IOException {
+    jsonArrayStreamer.writeAll(helpRequestRepository, response);
   }
 
   /**
@@ -81,7 +116,8 @@ public class HelpRequestController extends ApiController {
       @Parameter(
               name = "requestTime",
               description =
-                  "date (in iso format, e.g. YYYY-mm-ddTHH:MM:SS; see https://en.wikipedia.org/wiki/ISO_8601)")
+                  "date (in iso format, e.g. YYYY-mm-ddTHH:MM:SS; see"
+                      + " https://en.wikipedia.org/wiki/ISO_8601)")
           @RequestParam("requestTime")
           @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
           LocalDateTime requestTime)
@@ -0,0 +1,211 @@
+package edu.ucsb.cs156.example.controllers;
+
+import edu.ucsb.cs156.example.entities.JobPriority;
+import edu.ucsb.cs156.example.entities.JobSchedule;
+import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.errors.InvalidJobScheduleException;
+import edu.ucsb.cs156.example.models.KeysetPage;
+import edu.ucsb.cs156.example.repositories.JobSchedulesRepository;
+import edu.ucsb.cs156.example.services.JsonArrayStreamer;
+import edu.ucsb.cs156.example.services.KeysetPager;
+import edu.ucsb.cs156.example.services.jobs.JobScheduler;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+
+/** This is a REST controller for recurring jobs, which JobScheduler launches on a cron schedule */
+@Tag(name = "Job Schedules")
+@RequestMapping("/api/jobs/schedules")
+@RestController
+@Slf4j
+public class JobSchedulesController extends ApiController {
+
+  @Autowired JobSchedulesRepository jobSchedulesRepository;
+
+  @Autowired KeysetPager keysetPager;
+
+  @Autowired JsonArrayStreamer jsonArrayStreamer;
+
+  @Autowired JobScheduler jobScheduler;
+
+  /**
+   * List job schedules, one page at a time
+   *
+   * @param sort properties to sort by, e.g. "-nextRunAt"; by id if empty
+   * @param after the next cursor of the previous page, or null for the first page
+   * @param limit the most job schedules to return
+   * @return a page of JobSchedule
+   */
+  @Operation(
+      summary = "List job schedules, one page at a time",
+      description = KeysetPager.DESCRIPTION)
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @GetMapping("/all")
+  public KeysetPage<JobSchedule> jobSchedulesPage(
+      @Parameter(name = "sort", description = KeysetPager.SORT_DESCRIPTION)
+          @RequestParam(required = false)
+          List<String> sort,
+      @Parameter(name = "after", description = KeysetPager.AFTER_DESCRIPTION)
+          @RequestParam(required = false)
+          String after,
+      @Parameter(name = "limit", description = KeysetPager.LIMIT_DESCRIPTION)
+          @RequestParam(defaultValue = "50")
+          int limit) {
+    return keysetPager.page(jobSchedulesRepository, JobSchedule.class, sort, after, limit);
+  }
+
+  /**
+   * List all job schedules
+   *
+   * @param response the response to stream the job schedules to, as a JSON array
+   */
+  @Operation(summary = "List all job schedules")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @GetMapping(value = "/all", params = "unpaged=true")
+  public void allJobSchedules(HttpServletResponse response) throws IOException {
+    jsonArrayStreamer.writeAll(jobSchedulesRepository, response);
+  }
+
+  /**
+   * Get a single job schedule by id
+   *
+   * @param id the id of the schedule
+   * @return a JobSchedule
+   */
+  @Operation(summary = "Get a single job schedule")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @GetMapping("")
+  public JobSchedule getById(@Parameter(name = "id") @RequestParam Long id) {
+    return jobSchedulesRepository
+        .findById(id)
+        .orElseThrow(() -> new EntityNotFoundException(JobSchedule.class, id));
+  }
+
+  /**
+   * Create a new job schedule
+   *
+   * @param name a name for the schedule
+   * @param jobType the JobContextConsumer class to run
+   * @param jobParams the job's fields as JSON
+   * @param cron when to run the job
+   * @param enabled whether the schedule runs
+   * @param priority the lane its jobs wait in for a worker
+   * @param timeoutMs timeout for each run
+   * @return the saved schedule
+   */
+  @Operation(summary = "Create a new job schedule")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @PostMapping("/post")
+  public JobSchedule postJobSchedule(
+      @Parameter(name = "name") @RequestParam String name,
+      @Parameter(
+              name = "jobType",
+              description = "JobContextConsumer class, e.g. edu.ucsb.cs156.example.jobs.TestJob")
+          @RequestParam
+          String jobType,
+      @Parameter(
+              name = "jobParams",
+              description = "the job's fields as JSON, e.g. {\"sleepMs\":10}")
+          @RequestParam(defaultValue = "{}")
+          String jobParams,
+      @Parameter(
+              name = "cron",
+              description =
+                  "second minute hour day-of-month month day-of-week, e.g. \"0 */15 * * * *\", or"
+                      + " a macro such as @daily; in the server's time zone")
+          @RequestParam
+          String cron,
+      @Parameter(name = "enabled") @RequestParam(defaultValue = "true") boolean enabled,
+      @Parameter(name = "priority", description = "INTERACTIVE, NORMAL or BULK")
+          @RequestParam(defaultValue = "NORMAL")
+          JobPriority priority,
+      @Parameter(name = "timeoutMs", description = "stop each run with status timeout after this")
+          @RequestParam(required = false)
+          Long timeoutMs) {
+
+    JobSchedule schedule =
+        JobSchedule.builder()
+            .name(name)
+            .jobType(jobType)
+            .jobParams(jobParams)
+            .cron(cron)
+            .enabled(enabled)
+            .priority(priority)
+            .timeoutMs(timeoutMs)
+            .build();
+
+    return jobScheduler.save(schedule);
+  }
+
+  /**
+   * Delete a job schedule. Jobs it has already launched are not affected.
+   *
+   * @param id the id of the schedule to delete
+   * @return a message indicating the schedule was deleted
+   */
+  @Operation(summary = "Delete a job schedule")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @DeleteMapping("")
+  public Object deleteJobSchedule(@Parameter(name = "id") @RequestParam Long id) {
+    JobSchedule schedule =
+        jobSchedulesRepository
+            .findById(id)
+            .orElseThrow(() -> new EntityNotFoundException(JobSchedule.class, id));
+
+    jobSchedulesRepository.delete(schedule);
+    return genericMessage("JobSchedule with id %s deleted".formatted(id));
+  }
+
+  /**
+   * Update a job schedule; its next run is worked out again from the (new) cron expression
+   *
+   * @param id id of the schedule to update
+   * @param incoming the new schedule; its last run, next run and skipped runs are ignored
+   * @return the updated schedule
+   */
+  @Operation(summary = "Update a job schedule")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @PutMapping("")
+  public JobSchedule updateJobSchedule(
+      @Parameter(name = "id") @RequestParam Long id, @RequestBody JobSchedule incoming) {
+
+    JobSchedule schedule =
+        jobSchedulesRepository
+            .findById(id)
+            .orElseThrow(() -> new EntityNotFoundException(JobSchedule.class, id));
+
+    schedule.setName(incoming.getName());
+    schedule.setJobType(incoming.getJobType());
+    schedule.setJobParams(incoming.getJobParams());
+    schedule.setCron(incoming.getCron());
+    schedule.setEnabled(incoming.getEnabled());
+    schedule.setPriority(incoming.getPriority());
+    schedule.setTimeoutMs(incoming.getTimeoutMs());
+
+    return jobScheduler.save(schedule);
+  }
+
+  @ExceptionHandler({InvalidJobScheduleException.class})
+  @ResponseStatus(HttpStatus.BAD_REQUEST)
+  public Object handleInvalidJobScheduleException(InvalidJobScheduleException e) {
+    return Map.of("type", e.getClass().getSimpleName(), "message", e.getMessage());
+  }
+}
@@ -3,49 +3,181 @@ package edu.ucsb.cs156.example.controllers;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import edu.ucsb.cs156.example.entities.Job;
+import edu.ucsb.cs156.example.entities.JobArtifact;
+import edu.ucsb.cs156.example.entities.JobPriority;
+import edu.ucsb.cs156.example.entities.JobStatus;
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.errors.InvalidIdempotencyKeyException;
+import edu.ucsb.cs156.example.errors.InvalidJobStatusException;
+import edu.ucsb.cs156.example.errors.JobQuotaExceededException;
+import edu.ucsb.cs156.example.errors.JobRejectedException;
 import edu.ucsb.cs156.example.jobs.TestJob;
+import edu.ucsb.cs156.example.models.JobExecutorStats;
+import edu.ucsb.cs156.example.models.JobLogPage;
+import edu.ucsb.cs156.example.models.JobLogSearchResult;
+import edu.ucsb.cs156.example.models.JobMetricsSummary;
+import edu.ucsb.cs156.example.models.JobProgress;
+import edu.ucsb.cs156.example.models.JobSummary;
+import edu.ucsb.cs156.example.models.JobSummaryPage;
 import edu.ucsb.cs156.example.repositories.JobsRepository;
+import edu.ucsb.cs156.example.services.jobs.JobArtifacts;
+import edu.ucsb.cs156.example.services.jobs.JobLogFilter;
+import edu.ucsb.cs156.example.services.jobs.JobLogIndex;
+import edu.ucsb.cs156.example.services.jobs.JobLogLevel;
+import edu.ucsb.cs156.example.services.jobs.JobLogReader;
+import edu.ucsb.cs156.example.services.jobs.JobLogStreamer;
+import edu.ucsb.cs156.example.services.jobs.JobMetrics;
+import edu.ucsb.cs156.example.services.jobs.JobPipeline;
+import edu.ucsb.cs156.example.services.jobs.JobRetention;
 import edu.ucsb.cs156.example.services.jobs.JobService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.time.Instant;
+import java.util.List;
 import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.Resource;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.util.StreamUtils;
 import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 @Tag(name = "Jobs")
 @RequestMapping("/api/jobs")
 @RestController
 @Slf4j
 public class JobsController extends ApiController {
+  private static final int MAX_PAGE_SIZE = 500;
+
+  /** Most lines a log search returns for each job; each one is read from the log */
+  private static final int MAX_SNIPPETS = 20;
+
+  /** A single range, e.g. "bytes=0-499", "bytes=500-" or "bytes=-500" (the last 500) */
+  private static final Pattern BYTE_RANGE = Pattern.compile("bytes=(\\d*)-(\\d*)");
+
+  /**
+   * A single range of a log, in characters, e.g. "chars=0-499". Log offsets count characters, not
+   * the bytes of the UTF-8 response, so log ranges use their own unit rather than "bytes".
+   */
+  private static final Pattern CHAR_RANGE = Pattern.compile("chars=(\\d*)-(\\d*)");
+
+  /** Set by Tomcat when its connector can send files itself; see its DefaultServlet */
+  static final String SENDFILE_SUPPORTED = "org.apache.tomcat.sendfile.support";
+
+  static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+  static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+  static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
   @Autowired private JobsRepository jobsRepository;
 
   @Autowired private JobService jobService;
 
+  @Autowired private JobLogStreamer jobLogStreamer;
+
+  @Autowired private JobLogReader jobLogReader;
+
+  @Autowired private JobLogIndex jobLogIndex;
+
+  @Autowired private JobArtifacts jobArtifacts;
+
+  @Autowired private JobMetrics jobMetrics;
+
+  @Autowired private JobRetention jobRetention;
+
   @Autowired ObjectMapper mapper;
 
-  @Operation(summary = "List all jobs")
+  @Operation(
+      summary = "List jobs, newest first, one page at a time",
+      description =
+          "Returns summaries without logs. Pass the returned `next` cursor as `after` to get the"
+              + " following page; `next` is null on the last page.")
   @PreAuthorize("hasRole('ROLE_ADMIN')")
   @GetMapping("/all")
-  public Iterable<Job> allJobs() {
-    Iterable<Job> jobs = jobsRepository.findAll();
-    return jobs;
+  public JobSummaryPage allJobs(
+      @Parameter(name = "status", description = "only list jobs with one of these statuses")
+          @RequestParam(required = false)
+          List<String> status,
+      @Parameter(name = "after", description = "cursor from the previous page")
+          @RequestParam(required = false)
+          String after,
+      @Parameter(name = "limit", description = "page size (at most " + MAX_PAGE_SIZE + ")")
+          @RequestParam(defaultValue = "50")
+          int limit) {
+    List<JobStatus> statuses = status == null ? null : status.stream().map(this::toStatus).toList();
+    return jobService.getJobSummaries(statuses, after, Math.min(Math.max(1, limit), MAX_PAGE_SIZE));
+  }
+
+  private JobStatus toStatus(String status) {
+    try {
+      return JobStatus.fromValue(status);
+    } catch (IllegalArgumentException e) {
+      throw new InvalidJobStatusException(status);
+    }
+  }
+
+  @Operation(
+      summary = "Count jobs by status",
+      description =
+          "Returns the number of jobs with each status (0 for statuses no job has), from one"
+              + " grouped query.")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @GetMapping("/counts")
+  public Map<String, Long> getJobCounts() {
+    return jobService.getStatusCounts();
+  }
+
+  @Operation(summary = "Get a job's summary (status, times, log size) without its log")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @GetMapping("/summary")
+  public JobSummary getJobSummary(
+      @Parameter(name = "id", description = "ID of the job") @RequestParam Long id) {
+    return jobService.getJobSummary(id);
+  }
+
+  @Operation(
+      summary = "Get a job's progress and counters, without its log",
+      description =
+          "Cheap enough to poll for a progress bar. Progress reported by a running job is written"
+              + " every app.jobs.progress.flushIntervalMs, so it may be that far behind.")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @GetMapping("/progress")
+  public JobProgress getJobProgress(
+      @Parameter(name = "id", description = "ID of the job") @RequestParam Long id) {
+    return jobsRepository
+        .findProgressById(id)
+        .orElseThrow(() -> new EntityNotFoundException(Job.class, id));
   }
 
   @Operation(summary = "Delete all job records")
   @PreAuthorize("hasRole('ROLE_ADMIN')")
   @DeleteMapping("/all")
   public Map<String, String> deleteAllJobs() {
-    jobsRepository.deleteAll();
+    jobRetention.deleteAll();
     return Map.of("message", "All jobs deleted");
   }
 
@@ -66,29 +198,394 @@ public class JobsController extends ApiController {
   @PreAuthorize("hasRole('ROLE_ADMIN')")
   @DeleteMapping("")
   public Map<String, String> deleteAllJobs(@Parameter(name = "id") @RequestParam Long id) {
-    if (!jobsRepository.existsById(id)) {
+    if (!jobRetention.delete(id)) {
       return Map.of("message", String.format("Job with id %d not found", id));
     }
-    jobsRepository.deleteById(id);
     return Map.of("message", String.format("Job with id %d deleted", id));
   }
 
-  @Operation(summary = "Launch Test Job (click fail if you want to test exception handling)")
+  @Operation(
+      summary = "Launch Test Job (click fail if you want to test exception handling)",
+      description =
+          "Send an Idempotency-Key header to make retries safe: within"
+              + " app.jobs.idempotency.windowMs, a launch by the same user with the same key and"
+              + " parameters returns the job the first one started instead of starting another.")
   @PreAuthorize("hasRole('ROLE_ADMIN')")
   @PostMapping("/launch/testjob")
   public Job launchTestJob(
       @Parameter(name = "fail") @RequestParam Boolean fail,
-      @Parameter(name = "sleepMs") @RequestParam Integer sleepMs) {
+      @Parameter(name = "sleepMs") @RequestParam Integer sleepMs,
+      @Parameter(name = "artifactBytes", description = "size of a test.txt artifact to write")
+          @RequestParam(defaultValue = "0")
+          int artifactBytes,
+      @Parameter(
+              name = "priority",
+              description = "INTERACTIVE, NORMAL or BULK: the lane the job waits in for a worker")
+          @RequestParam(defaultValue = "NORMAL")
+          JobPriority priority,
+      @Parameter(name = "timeoutMs", description = "stop the job with status timeout after this")
+          @RequestParam(required = false)
+          Long timeoutMs,
+      @Parameter(name = "Idempotency-Key", description = "e.g. a UUID generated by the client")
+          @RequestHeader(value = "Idempotency-Key", required = false)
+          String idempotencyKey) {
+
+    TestJob testJob =
+        TestJob.builder().fail(fail).sleepMs(sleepMs).artifactBytes(artifactBytes).build();
+    return jobService.runAsJob(testJob, priority, timeoutMs, idempotencyKey);
+  }
+
+  @Operation(
+      summary = "Launch Test Pipeline",
+      description =
+          "Runs test jobs as a pipeline: import, then reindex and thumbnails in parallel, then"
+              + " export. Name a step in failStep to see the steps after it skipped.")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @PostMapping("/launch/testpipeline")
+  public Job launchTestPipeline(
+      @Parameter(name = "sleepMs", description = "how long each step runs")
+          @RequestParam(defaultValue = "1000")
+          Integer sleepMs,
+      @Parameter(name = "failStep", description = "import, reindex, thumbnails or export")
+          @RequestParam(required = false)
+          String failStep,
+      @Parameter(
+              name = "priority",
+              description = "INTERACTIVE, NORMAL or BULK: the lane the steps wait in for a worker")
+          @RequestParam(defaultValue = "NORMAL")
+          JobPriority priority) {
+
+    JobPipeline pipeline = new JobPipeline("testpipeline");
+    pipeline.step("import", testStep("import", sleepMs, failStep));
+    pipeline.step("reindex", testStep("reindex", sleepMs, failStep), "import");
+    pipeline.step("thumbnails", testStep("thumbnails", sleepMs, failStep), "import");
+    pipeline.step("export", testStep("export", sleepMs, failStep), "reindex", "thumbnails");
+    return jobService.runPipeline(pipeline, priority);
+  }
 
-    TestJob testJob = TestJob.builder().fail(fail).sleepMs(sleepMs).build();
-    return jobService.runAsJob(testJob);
+  private static TestJob testStep(String name, int sleepMs, String failStep) {
+    return TestJob.builder().fail(name.equals(failStep)).sleepMs(sleepMs).build();
+  }
+
+  @Operation(
+      summary = "List the step jobs of a pipeline, in the order they were added to it",
+      description = "Returns summaries without logs, as /all does.")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @GetMapping("/steps")
+  public List<JobSummary> getPipelineSteps(
+      @Parameter(name = "id", description = "ID of the pipeline's job") @RequestParam Long id) {
+    return jobService.getPipelineSteps(id);
+  }
+
+  @Operation(
+      summary = "Cancel a queued, pending or running job; it is recorded with status cancelled",
+      description = "Cancelling a pending pipeline step skips the steps that depend on it.")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @PostMapping("/cancel")
+  public ResponseEntity<Object> cancelJob(@Parameter(name = "id") @RequestParam Long id) {
+    if (!jobService.cancel(id)) {
+      return ResponseEntity.status(HttpStatus.CONFLICT)
+          .body(genericMessage("Job with id %d has already finished".formatted(id)));
+    }
+    return ResponseEntity.ok(genericMessage("Job with id %d cancelled".formatted(id)));
+  }
+
+  @Operation(
+      summary = "Search every job's log",
+      description =
+          "Returns the jobs whose logs contain every word of `q` (ignoring case and punctuation),"
+              + " newest first, each with up to `snippets` of the lines the words appear on. Pass"
+              + " the last jobId returned as `before` to get the next page; `since` and `until`"
+              + " limit the search to jobs created in that window. Uses the log search index"
+              + " rather than reading the logs, so a job that logged more distinct words than"
+              + " app.jobs.log.index.maxTokensPerJob is not found by the words past that limit.")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @GetMapping("/logs/search")
+  public List<JobLogSearchResult> searchJobLogs(
+      @Parameter(name = "q", description = "words to look for, e.g. Fail!") @RequestParam String q,
+      @Parameter(name = "before", description = "only jobs with a smaller id than this")
+          @RequestParam(required = false)
+          Long before,
+      @Parameter(name = "since", description = "only jobs created at or after this instant")
+          @RequestParam(required = false)
+          Instant since,
+      @Parameter(name = "until", description = "only jobs created before this instant")
+          @RequestParam(required = false)
+          Instant until,
+      @Parameter(name = "jobs", description = "most jobs to return (at most " + MAX_PAGE_SIZE + ")")
+          @RequestParam(defaultValue = "20")
+          int jobs,
+      @Parameter(
+              name = "snippets",
+              description = "most lines to return for each job (at most " + MAX_SNIPPETS + ")")
+          @RequestParam(defaultValue = "3")
+          int snippets) {
+    return jobLogIndex.search(
+        q,
+        before,
+        since,
+        until,
+        Math.min(Math.max(1, jobs), MAX_PAGE_SIZE),
+        Math.min(Math.max(1, snippets), MAX_SNIPPETS));
   }
 
-  @Operation(summary = "Get long job logs")
+  @Operation(
+      summary = "Get long job logs, or part of them",
+      description =
+          "With no parameters, returns the whole log. Otherwise returns one page: the last `tail`"
+              + " lines; `lines` lines starting at line number `line` or at character `offset`; or"
+              + " `limit` characters starting at `offset`. A `Range: chars=` header is also"
+              + " accepted (Accept-Ranges: chars). Offsets count characters. The X-Log-Total-Size"
+              + " and X-Log-Next-Offset headers give the size of the whole log and the offset of"
+              + " the next page. With `level`, `since`, `until` or `contains`, the log is filtered"
+              + " on the server: only matching lines are returned, at most `lines` of them,"
+              + " scanning from `offset`; X-Log-Next-Offset is where to continue the scan.")
   @PreAuthorize("hasRole('ROLE_ADMIN')")
   @GetMapping("/logs/{id}")
-  public String getJobLogs(@Parameter(name = "id", description = "Job ID") @PathVariable Long id) {
+  public ResponseEntity<String> getJobLogs(
+      @Parameter(name = "id", description = "Job ID") @PathVariable Long id,
+      @Parameter(name = "offset", description = "character offset to start at")
+          @RequestParam(required = false)
+          Long offset,
+      @Parameter(name = "limit", description = "maximum number of characters")
+          @RequestParam(required = false)
+          Long limit,
+      @Parameter(name = "line", description = "line number to start at, counting from 0")
+          @RequestParam(required = false)
+          Long line,
+      @Parameter(name = "lines", description = "maximum number of lines")
+          @RequestParam(required = false)
+          Integer lines,
+      @Parameter(name = "tail", description = "return only the last N lines")
+          @RequestParam(required = false)
+          Integer tail,
+      @Parameter(
+              name = "level",
+              description = "only records at this level or above; ctx.log lines count as INFO")
+          @RequestParam(required = false)
+          JobLogLevel level,
+      @Parameter(name = "since", description = "only records logged at or after this instant")
+          @RequestParam(required = false)
+          Instant since,
+      @Parameter(name = "until", description = "only records logged before this instant")
+          @RequestParam(required = false)
+          Instant until,
+      @Parameter(name = "contains", description = "only lines containing this text")
+          @RequestParam(required = false)
+          String contains,
+      @Parameter(hidden = true) @RequestHeader(value = HttpHeaders.RANGE, required = false)
+          String range) {
+
+    long start = offset == null ? 0 : offset;
+    Matcher charRange = range == null ? null : CHAR_RANGE.matcher(range);
+    JobLogPage page;
+    JobLogFilter filter = new JobLogFilter(level, since, until, contains);
+    if (!filter.isEmpty()) {
+      page = jobLogReader.readMatching(id, start, filter, lines);
+    } else if (tail != null) {
+      page = jobLogReader.readTail(id, tail);
+    } else if (line != null) {
+      page = jobLogReader.readLinesAt(id, line, lines, limit);
+    } else if (lines != null) {
+      page = jobLogReader.readLines(id, start, lines, limit);
+    } else if (offset != null || limit != null) {
+      page = jobLogReader.readRange(id, start, limit == null ? null : start + limit);
+    } else if (charRange != null && charRange.matches()) {
+      return getJobLogRange(id, charRange);
+    } else {
+      page = jobLogReader.readAll(id);
+    }
+    return ResponseEntity.ok().headers(pageHeaders(page)).body(page.getText());
+  }
+
+  private ResponseEntity<String> getJobLogRange(Long id, Matcher m) {
+    long total = jobLogReader.getSize(id);
+    long[] bounds = rangeBounds(m, total);
+    long start = bounds[0];
+    long end = bounds[1];
+    if (start >= end) {
+      return ResponseEntity.status(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE)
+          .header(HttpHeaders.CONTENT_RANGE, "chars */" + total)
+          .build();
+    }
+    JobLogPage page = jobLogReader.readRange(id, start, end);
+    return ResponseEntity.status(HttpStatus.PARTIAL_CONTENT)
+        .headers(pageHeaders(page))
+        .header(
+            HttpHeaders.CONTENT_RANGE,
+            "chars %d-%d/%d".formatted(page.getStartOffset(), page.getNextOffset() - 1, total))
+        .body(page.getText());
+  }
+
+  /**
+   * @param m a match of BYTE_RANGE or CHAR_RANGE
+   * @param total the size of what the range is of
+   * @return the start and end (exclusive) of the range, clamped to the size; start is not before
+   *     end if the range cannot be satisfied
+   */
+  private static long[] rangeBounds(Matcher m, long total) {
+    if (m.group(1).isEmpty()) {
+      // suffix range: the last N
+      long suffix = m.group(2).isEmpty() ? 0 : rangePosition(m.group(2));
+      return new long[] {Math.max(0, total - suffix), total};
+    }
+    long start = rangePosition(m.group(1));
+    long end = m.group(2).isEmpty() ? total : Math.min(total - 1, rangePosition(m.group(2))) + 1;
+    return new long[] {start, end};
+  }
+
+  /**
+   * @param digits a position in a Range header
+   * @return the position, or Long.MAX_VALUE if it is too large for a long; that is past the end of
+   *     anything, so such a range is answered with 416 rather than a NumberFormatException
+   */
+  private static long rangePosition(String digits) {
+    try {
+      return Long.parseLong(digits);
+    } catch (NumberFormatException e) {
+      return Long.MAX_VALUE;
+    }
+  }
+
+  private static HttpHeaders pageHeaders(JobLogPage page) {
+    HttpHeaders headers = new HttpHeaders();
+    headers.set(HttpHeaders.ACCEPT_RANGES, "chars");
+    headers.set("X-Log-Total-Size", Long.toString(page.getTotalSize()));
+    headers.set("X-Log-Start-Offset", Long.toString(page.getStartOffset()));
+    headers.set("X-Log-Next-Offset", Long.toString(page.getNextOffset()));
+    return headers;
+  }
+
+  @Operation(
+      summary =
+          "Stream job log lines as Server-Sent Events; send Last-Event-ID to resume after a line")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @GetMapping(value = "/logs/{id}/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+  public SseEmitter streamJobLogs(
+      @Parameter(name = "id", description = "Job ID") @PathVariable Long id,
+      @Parameter(name = "Last-Event-ID", description = "number of the last line already received")
+          @RequestHeader(value = "Last-Event-ID", required = false)
+          Long lastEventId) {
+
+    return jobLogStreamer.stream(id, lastEventId == null ? 0 : Math.max(0, lastEventId));
+  }
+
+  @Operation(summary = "List the files a job has produced, by name")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @GetMapping("/{id}/artifacts")
+  public List<JobArtifact> getJobArtifacts(
+      @Parameter(name = "id", description = "Job ID") @PathVariable Long id) {
+    return jobArtifacts.list(id);
+  }
+
+  @Operation(
+      summary = "Download a file a job has produced",
+      description =
+          "Streams the file from the artifact store without loading it into memory; on Tomcat a"
+              + " file on disk is handed to the connector to send (sendfile). A single"
+              + " `Range: bytes=` range is supported, e.g. to resume a download.")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @GetMapping("/{id}/artifacts/{name}")
+  public void downloadJobArtifact(
+      @Parameter(name = "id", description = "Job ID") @PathVariable Long id,
+      @Parameter(name = "name", description = "the artifact's name") @PathVariable String name,
+      @Parameter(hidden = true) @RequestHeader(value = HttpHeaders.RANGE, required = false)
+          String range,
+      HttpServletRequest request,
+      HttpServletResponse response)
+      throws IOException {
+
+    JobArtifact artifact = jobArtifacts.get(id, name);
+    Resource resource = jobArtifacts.open(artifact);
+    long total = resource.contentLength();
+    long start = 0;
+    long end = total;
+    response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+    Matcher byteRange = range == null ? null : BYTE_RANGE.matcher(range);
+    if (byteRange != null && byteRange.matches()) {
+      long[] bounds = rangeBounds(byteRange, total);
+      start = bounds[0];
+      end = bounds[1];
+      if (start >= end) {
+        response.setStatus(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value());
+        response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + total);
+        return;
+      }
+      response.setStatus(HttpStatus.PARTIAL_CONTENT.value());
+      response.setHeader(
+          HttpHeaders.CONTENT_RANGE, "bytes %d-%d/%d".formatted(start, end - 1, total));
+    }
+    response.setContentType(artifact.getContentType());
+    response.setHeader(
+        HttpHeaders.CONTENT_DISPOSITION,
+        ContentDisposition.attachment().filename(artifact.getName()).build().toString());
+    response.setContentLengthLong(end - start);
+
+    if (resource.isFile() && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORTED))) {
+      // Tomcat sends the file once this returns, from the page cache straight to the socket
+      request.setAttribute(SENDFILE_FILENAME, resource.getFile().getAbsolutePath());
+      request.setAttribute(SENDFILE_START, start);
+      request.setAttribute(SENDFILE_END, end);
+    } else if (resource.isFile()) {
+      try (FileChannel file = FileChannel.open(resource.getFile().toPath())) {
+        WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+        long position = start;
+        while (position < end) {
+          long sent = file.transferTo(position, end - position, out);
+          if (sent <= 0) {
+            // the file was cut short since its length was read
+            break;
+          }
+          position += sent;
+        }
+      }
+    } else {
+      try (InputStream in = resource.getInputStream()) {
+        StreamUtils.copyRange(in, response.getOutputStream(), start, end - 1);
+      }
+    }
+  }
+
+  @Operation(summary = "Get job executor statistics (active workers, queue depth)")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @GetMapping("/executor")
+  public JobExecutorStats getExecutorStats() {
+    return jobService.getExecutorStats();
+  }
+
+  @Operation(
+      summary =
+          "Get job counts and queue wait / run time statistics per job class (also scraped as"
+              + " Prometheus metrics from /actuator/prometheus)")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @GetMapping("/metrics")
+  public JobMetricsSummary getJobMetrics() {
+    return jobMetrics.getSummary();
+  }
+
+  @ExceptionHandler({InvalidJobStatusException.class})
+  @ResponseStatus(HttpStatus.BAD_REQUEST)
+  public Object handleInvalidJobStatusException(InvalidJobStatusException e) {
+    return Map.of("type", e.getClass().getSimpleName(), "message", e.getMessage());
+  }
+
+  @ExceptionHandler({InvalidIdempotencyKeyException.class})
+  @ResponseStatus(HttpStatus.UNPROCESSABLE_ENTITY)
+  public Object handleInvalidIdempotencyKeyException(InvalidIdempotencyKeyException e) {
+    return Map.of("type", e.getClass().getSimpleName(), "message", e.getMessage());
+  }
+
+  @ExceptionHandler({JobRejectedException.class})
+  public ResponseEntity<Object> handleJobRejectedException(JobRejectedException e) {
+    return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+        .header(HttpHeaders.RETRY_AFTER, "5")
+        .body(Map.of("type", e.getClass().getSimpleName(), "message", e.getMessage()));
+  }
 
-    return jobService.getJobLogs(id);
+  @ExceptionHandler({JobQuotaExceededException.class})
+  public ResponseEntity<Object> handleJobQuotaExceededException(JobQuotaExceededException e) {
+    return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+        .header(HttpHeaders.RETRY_AFTER, Long.toString(e.getRetryAfterSeconds()))
+        .body(Map.of("type", e.getClass().getSimpleName(), "message", e.getMessage()));
   }
 }
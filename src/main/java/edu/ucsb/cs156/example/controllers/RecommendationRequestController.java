@@ -3,12 +3,18 @@ package edu.ucsb.cs156.example.controllers;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import edu.ucsb.cs156.example.entities.RecommendationRequest;
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.models.KeysetPage;
 import edu.ucsb.cs156.example.repositories.RecommendationRequestRepository;
+import edu.ucsb.cs156.example.services.JsonArrayStreamer;
+import edu.ucsb.cs156.example.services.KeysetPager;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
+import java.io.IOException;
 import java.time.LocalDateTime;
+import java.util.List;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
@@ -30,12 +36,42 @@ public class RecommendationRequestController extends ApiController {
 
   @Autowired RecommendationRequestRepository recommendationRequestRepository;
 
-  @Operation(summary = "List all recommendation requests")
+  @Autowired KeysetPager keysetPager;
+
+  @Autowired JsonArrayStreamer jsonArrayStreamer;
+
+  /**
+   * List recommendation requests, one page at a time
+   *
+   * @param sort properties to sort by, e.g. "-dateNeeded"; by id if empty
+   * @param after the next cursor of the previous page, or null for the first page
+   * @param limit the most recommendation requests to return
+   * @return a page of RecommendationRequest
+   */
+  @Operation(
+      summary = "List recommendation requests, one page at a time",
+      description = KeysetPager.DESCRIPTION)
   @PreAuthorize("hasRole('ROLE_USER')")
   @GetMapping("/all")
-  public Iterable<RecommendationRequest> allRecommendationRequests() {
-    Iterable<RecommendationRequest> requests = recommendationRequestRepository.findAll();
-    return requests;
+  public KeysetPage<RecommendationRequest> recommendationRequestsPage(
+      @Parameter(name = "sort", description = KeysetPager.SORT_DESCRIPTION)
+          @RequestParam(required = false)
+          List<String> sort,
+      @Parameter(name = "after", description = KeysetPager.AFTER_DESCRIPTION)
+          @RequestParam(required = false)
+          String after,
+      @Parameter(name = "limit", description = KeysetPager.LIMIT_DESCRIPTION)
+          @RequestParam(defaultValue = "50")
+          int limit) {
+    return keysetPager.page(
+        recommendationRequestRepository, RecommendationRequest.class, sort, after, limit);
+  }
+
+  @Operation(summary = "List all recommendation requests")
+  @PreAuthorize("hasRole('ROLE_USER')")
+  @GetMapping(value = "/all", params = "unpaged=true")
+  public void allRecommendationRequests(HttpServletResponse response) throws IOException {
+    jsonArrayStreamer.writeAll(recommendationRequestRepository, response);
   }
 
   @Operation(summary = "Create a new recommendation request")
@@ -121,4 +157,4 @@ public class RecommendationRequestController extends ApiController {
     recommendationRequestRepository.delete(recommendationRequest);
     return genericMessage("record %s deleted".formatted(id));
   }
-}
\ No newline at end of file
+}
@@ -2,11 +2,17 @@ package edu.ucsb.cs156.example.controllers;
 
 import edu.ucsb.cs156.example.entities.Restaurant;
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.models.KeysetPage;
 import edu.ucsb.cs156.example.repositories.RestaurantRepository;
+import edu.ucsb.cs156.example.services.JsonArrayStreamer;
+import edu.ucsb.cs156.example.services.KeysetPager;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
+import java.io.IOException;
+import java.util.List;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.DeleteMapping;
@@ -26,17 +32,46 @@ public class RestaurantsController extends ApiController {
 
   @Autowired RestaurantRepository restaurantRepository;
 
+  @Autowired KeysetPager keysetPager;
+
+  @Autowired JsonArrayStreamer jsonArrayStreamer;
+
+  /**
+   * List restaurants, one page at a time
+   *
+   * @param sort properties to sort by, e.g. "-name"; by id if empty
+   * @param after the next cursor of the previous page, or null for the first page
+   * @param limit the most restaurants to return
+   * @return a page of Restaurant
+   */
+  @Operation(
+      summary = "List restaurants, one page at a time",
+      description = KeysetPager.DESCRIPTION)
+  @PreAuthorize("hasRole('ROLE_USER')")
+  @GetMapping("/all")
+  public KeysetPage<Restaurant> restaurantsPage(
+      @Parameter(name = "sort", description = KeysetPager.SORT_DESCRIPTION)
+          @RequestParam(required = false)
+          List<String> sort,
+      @Parameter(name = "after", description = KeysetPager.AFTER_DESCRIPTION)
+          @RequestParam(required = false)
+          String after,
+      @Parameter(name = "limit", description = KeysetPager.LIMIT_DESCRIPTION)
+          @RequestParam(defaultValue = "50")
+          int limit) {
+    return keysetPager.page(restaurantRepository, Restaurant.class, sort, after, limit);
+  }
+
   /**
    * This method returns a list of all restaurants.
    *
-   * @return a list of all restaurants
+   * @param response the response to stream the restaurants to, as a JSON array
    */
   @Operation(summary = "List all restaurants")
   @PreAuthorize("hasRole('ROLE_USER')")
-  @GetMapping("/all")
-  public Iterable<Restaurant> allRestaurants() {
-    Iterable<Restaurant> restaurants = restaurantRepository.findAll();
-    return restaurants;
+  @GetMapping(value = "/all", params = "unpaged=true")
+  public void allRestaurants(HttpServletResponse response) throws IOException {
+    jsonArrayStreamer.writeAll(restaurantRepository, response);
   }
 
   /**
@@ -3,12 +3,18 @@ package edu.ucsb.cs156.example.controllers;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import edu.ucsb.cs156.example.entities.UCSBDate;
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.models.KeysetPage;
 import edu.ucsb.cs156.example.repositories.UCSBDateRepository;
+import edu.ucsb.cs156.example.services.JsonArrayStreamer;
+import edu.ucsb.cs156.example.services.KeysetPager;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
+import java.io.IOException;
 import java.time.LocalDateTime;
+import java.util.List;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
@@ -31,17 +37,44 @@ public class UCSBDatesController extends ApiController {
 
   @Autowired UCSBDateRepository ucsbDateRepository;
 
+  @Autowired KeysetPager keysetPager;
+
+  @Autowired JsonArrayStreamer jsonArrayStreamer;
+
+  /**
+   * List ucsb dates, one page at a time
+   *
+   * @param sort properties to sort by, e.g. "-localDateTime"; by id if empty
+   * @param after the next cursor of the previous page, or null for the first page
+   * @param limit the most ucsb dates to return
+   * @return a page of UCSBDate
+   */
+  @Operation(summary = "List ucsb dates, one page at a time", description = KeysetPager.DESCRIPTION)
+  @PreAuthorize("hasRole('ROLE_USER')")
+  @GetMapping("/all")
+  public KeysetPage<UCSBDate> ucsbDatesPage(
+      @Parameter(name = "sort", description = KeysetPager.SORT_DESCRIPTION)
+          @RequestParam(required = false)
+          List<String> sort,
+      @Parameter(name = "after", description = KeysetPager.AFTER_DESCRIPTION)
+          @RequestParam(required = false)
+          String after,
+      @Parameter(name = "limit", description = KeysetPager.LIMIT_DESCRIPTION)
+          @RequestParam(defaultValue = "50")
+          int limit) {
+    return keysetPager.page(ucsbDateRepository, UCSBDate.class, sort, after, limit);
+  }
+
   /**
    * List all UCSB dates
    *
-   * @return an iterable of UCSBDate
+   * @param response the response to stream the dates to, as a JSON array
    */
   @Operation(summary = "List all ucsb dates")
   @PreAuthorize("hasRole('ROLE_USER')")
-  @GetMapping("/all")
-  public Iterable<UCSBDate> allUCSBDates() {
-    Iterable<UCSBDate> dates = ucsbDateRepository.findAll();
-    return dates;
+  @GetMapping(value = "/all", params = "unpaged=true")
+  public void allUCSBDates(HttpServletResponse response) throws IOException {
+    jsonArrayStreamer.writeAll(ucsbDateRepository, response);
   }
 
   /**
@@ -79,7 +112,8 @@ public class UCSBDatesController extends ApiController {
       @Parameter(
               name = "localDateTime",
               description =
-                  "date (in iso format, e.g. YYYY-mm-ddTHH:MM:SS; see https://en.wikipedia.org/wiki/ISO_8601)")
+                  "date (in iso format, e.g. YYYY-mm-ddTHH:MM:SS; see"
+                      + " https://en.wikipedia.org/wiki/ISO_8601)")
           @RequestParam("localDateTime")
           @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
           LocalDateTime localDateTime)
@@ -2,11 +2,17 @@ package edu.ucsb.cs156.example.controllers;
 
 import edu.ucsb.cs156.example.entities.UCSBDiningCommons;
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.models.KeysetPage;
 import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsRepository;
+import edu.ucsb.cs156.example.services.JsonArrayStreamer;
+import edu.ucsb.cs156.example.services.KeysetPager;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
+import java.io.IOException;
+import java.util.List;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -28,17 +34,47 @@ public class UCSBDiningCommonsController extends ApiController {
 
   @Autowired UCSBDiningCommonsRepository ucsbDiningCommonsRepository;
 
+  @Autowired KeysetPager keysetPager;
+
+  @Autowired JsonArrayStreamer jsonArrayStreamer;
+
+  /**
+   * List ucsb dining commons, one page at a time
+   *
+   * @param sort properties to sort by, e.g. "-name"; by id if empty
+   * @param after the next cursor of the previous page, or null for the first page
+   * @param limit the most ucsb dining commons to return
+   * @return a page of UCSBDiningCommons
+   */
+  @Operation(
+      summary = "List ucsb dining commons, one page at a time",
+      description = KeysetPager.DESCRIPTION)
+  @PreAuthorize("hasRole('ROLE_USER')")
+  @GetMapping("/all")
+  public KeysetPage<UCSBDiningCommons> commonsPage(
+      @Parameter(name = "sort", description = KeysetPager.SORT_DESCRIPTION)
+          @RequestParam(required = false)
+          List<String> sort,
+      @Parameter(name = "after", description = KeysetPager.AFTER_DESCRIPTION)
+          @RequestParam(required = false)
+          String after,
+      @Parameter(name = "limit", description = KeysetPager.LIMIT_DESCRIPTION)
+          @RequestParam(defaultValue = "50")
+          int limit) {
+    return keysetPager.page(
+        ucsbDiningCommonsRepository, UCSBDiningCommons.class, sort, after, limit);
+  }
+
   /**
    * THis method returns a list of all ucsbdiningcommons.
    *
-   * @return a list of all ucsbdiningcommons
+   * @param response the response to stream the dining commons to, as a JSON array
    */
   @Operation(summary = "List all ucsb dining commons")
   @PreAuthorize("hasRole('ROLE_USER')")
-  @GetMapping("/all")
-  public Iterable<UCSBDiningCommons> allCommonss() {
-    Iterable<UCSBDiningCommons> commons = ucsbDiningCommonsRepository.findAll();
-    return commons;
+  @GetMapping(value = "/all", params = "unpaged=true")
+  public void allCommonss(HttpServletResponse response) throws IOException {
+    jsonArrayStreamer.writeAll(ucsbDiningCommonsRepository, response);
   }
 
   /**
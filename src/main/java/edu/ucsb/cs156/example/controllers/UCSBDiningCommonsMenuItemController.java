@@ -3,11 +3,17 @@ package edu.ucsb.cs156.example.controllers;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import edu.ucsb.cs156.example.entities.UCSBDiningCommonsMenuItem;
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.models.KeysetPage;
 import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsMenuItemRepository;
+import edu.ucsb.cs156.example.services.JsonArrayStreamer;
+import edu.ucsb.cs156.example.services.KeysetPager;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
+import java.io.IOException;
+import java.util.List;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -28,12 +34,42 @@ public class UCSBDiningCommonsMenuItemController extends ApiController {
 
   @Autowired UCSBDiningCommonsMenuItemRepository ucsbDiningCommonsMenuItemRepository;
 
-  @Operation(summary = "Get all UCSBDiningCommonsMenuItems")
+  @Autowired KeysetPager keysetPager;
+
+  @Autowired JsonArrayStreamer jsonArrayStreamer;
+
+  /**
+   * List UCSBDiningCommonsMenuItems, one page at a time
+   *
+   * @param sort properties to sort by, e.g. "-station"; by id if empty
+   * @param after the next cursor of the previous page, or null for the first page
+   * @param limit the most UCSBDiningCommonsMenuItems to return
+   * @return a page of UCSBDiningCommonsMenuItem
+   */
+  @Operation(
+      summary = "List UCSBDiningCommonsMenuItems, one page at a time",
+      description = KeysetPager.DESCRIPTION)
   @PreAuthorize("hasRole('ROLE_USER')")
   @GetMapping("/all")
-  public Iterable<UCSBDiningCommonsMenuItem> allUCSBDiningCommonsMenuItems() {
-    Iterable<UCSBDiningCommonsMenuItem> items = ucsbDiningCommonsMenuItemRepository.findAll();
-    return items;
+  public KeysetPage<UCSBDiningCommonsMenuItem> ucsbDiningCommonsMenuItemsPage(
+      @Parameter(name = "sort", description = KeysetPager.SORT_DESCRIPTION)
+          @RequestParam(required = false)
+          List<String> sort,
+      @Parameter(name = "after", description = KeysetPager.AFTER_DESCRIPTION)
+          @RequestParam(required = false)
+          String after,
+      @Parameter(name = "limit", description = KeysetPager.LIMIT_DESCRIPTION)
+          @RequestParam(defaultValue = "50")
+          int limit) {
+    return keysetPager.page(
+        ucsbDiningCommonsMenuItemRepository, UCSBDiningCommonsMenuItem.class, sort, after, limit);
+  }
+
+  @Operation(summary = "Get all UCSBDiningCommonsMenuItems")
+  @PreAuthorize("hasRole('ROLE_USER')")
+  @GetMapping(value = "/all", params = "unpaged=true")
+  public void allUCSBDiningCommonsMenuItems(HttpServletResponse response) throws IOException {
+    jsonArrayStreamer.writeAll(ucsbDiningCommonsMenuItemRepository, response);
   }
 
   @Operation(summary = "Get a single UCSBDiningCommonsMenuItem by id")
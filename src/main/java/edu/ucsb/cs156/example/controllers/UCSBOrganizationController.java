@@ -2,11 +2,17 @@ package edu.ucsb.cs156.example.controllers;
 
 import edu.ucsb.cs156.example.entities.UCSBOrganization;
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.models.KeysetPage;
 import edu.ucsb.cs156.example.repositories.UCSBOrganizationRepository;
+import edu.ucsb.cs156.example.services.JsonArrayStreamer;
+import edu.ucsb.cs156.example.services.KeysetPager;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
+import java.io.IOException;
+import java.util.List;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -28,17 +34,46 @@ public class UCSBOrganizationController extends ApiController {
 
   @Autowired UCSBOrganizationRepository ucsbOrganizationRepository;
 
+  @Autowired KeysetPager keysetPager;
+
+  @Autowired JsonArrayStreamer jsonArrayStreamer;
+
+  /**
+   * List organizations, one page at a time
+   *
+   * @param sort properties to sort by, e.g. "-orgTranslationShort"; by id if empty
+   * @param after the next cursor of the previous page, or null for the first page
+   * @param limit the most organizations to return
+   * @return a page of UCSBOrganization
+   */
+  @Operation(
+      summary = "List organizations, one page at a time",
+      description = KeysetPager.DESCRIPTION)
+  @PreAuthorize("hasRole('ROLE_USER')")
+  @GetMapping("/all")
+  public KeysetPage<UCSBOrganization> ucsbOrganizationsPage(
+      @Parameter(name = "sort", description = KeysetPager.SORT_DESCRIPTION)
+          @RequestParam(required = false)
+          List<String> sort,
+      @Parameter(name = "after", description = KeysetPager.AFTER_DESCRIPTION)
+          @RequestParam(required = false)
+          String after,
+      @Parameter(name = "limit", description = KeysetPager.LIMIT_DESCRIPTION)
+          @RequestParam(defaultValue = "50")
+          int limit) {
+    return keysetPager.page(ucsbOrganizationRepository, UCSBOrganization.class, sort, after, limit);
+  }
+
   /**
    * List all UCSB Organizations
    *
-   * @return an iterable of UCSBOrganization
+   * @param response the response to stream the organizations to, as a JSON array
    */
   @Operation(summary = "List all organizations")
   @PreAuthorize("hasRole('ROLE_USER')")
-  @GetMapping("/all")
-  public Iterable<UCSBOrganization> allUCSBOrganizations() {
-    Iterable<UCSBOrganization> organizations = ucsbOrganizationRepository.findAll();
-    return organizations;
+  @GetMapping(value = "/all", params = "unpaged=true")
+  public void allUCSBOrganizations(HttpServletResponse response) throws IOException {
+    jsonArrayStreamer.writeAll(ucsbOrganizationRepository, response);
   }
 
   /**
@@ -27,12 +27,78 @@ public class Job {
   @CreatedDate private ZonedDateTime createdAt;
   @LastModifiedDate private ZonedDateTime updatedAt;
 
-  private String status;
+  // Only changed through JobService.transition (or the repository's conditional UPDATEs), which
+  // check that the job's life cycle allows the change. Indexed, for the queue and per-status
+  // counts.
+  @Convert(converter = JobStatus.DatabaseConverter.class)
+  @Column(length = 16)
+  private JobStatus status;
+
+  // Set for jobs that go through the database-backed queue: the JobContextConsumer class and its
+  // JSON-serialized fields, so that any node can rebuild and run the job
+  private String jobType;
+
+  @Column(length = 4096)
+  private String jobParams;
+
+  // Lease held by the worker running the job; renewed by JobQueue while the worker is alive.
+  // Excluded from equals since the heartbeat updates the lease while the job is running.
+  @EqualsAndHashCode.Exclude private String lockedBy;
+  @EqualsAndHashCode.Exclude private ZonedDateTime leaseExpiresAt;
+
+  private int attempts;
+
+  // Lane the job waits in for a worker; see JobLanes
+  @Enumerated(EnumType.STRING)
+  @Builder.Default
+  private JobPriority priority = JobPriority.NORMAL;
+
+  // Set on launch: the job is cancelled with status "timeout" if it runs longer than this
+  private Long timeoutMs;
+
+  // Set on launches with an Idempotency-Key header; unique for each createdBy user, so that only
+  // one launch by a user with a key can insert a job, whichever node it reaches. See
+  // JobIdempotency.
+  private String idempotencyKey;
+
+  // Identifies what the launch ran (job class, params, priority and timeout), so that a repeated
+  // key with different parameters can be told apart from a retry
+  @JsonIgnore private String launchFingerprint;
+
+  // Set on the steps of a pipeline: the id of the pipeline's own job, the step's name, and the
+  // comma-separated names of the steps it waits for. See JobPipelines.
+  private Long pipelineId;
+  private String stepName;
+
+  @Column(length = 1024)
+  private String dependsOn;
+
+  // Set by a cancel request for a job running on another node, which polls for it on each lease
+  // heartbeat. Never written by the entity, so saving a running job cannot clear the request.
+  @Column(insertable = false, updatable = false)
+  @EqualsAndHashCode.Exclude
+  private boolean cancelRequested;
+
+  // Reported by the job through JobContext.progress and JobContext.increment, and written at most
+  // once per app.jobs.progress.flushIntervalMs by the JobProgressFlusher, without the log.
+  // Excluded from equals since the flusher updates them while the job is running.
+  @EqualsAndHashCode.Exclude private Long progressDone;
+  @EqualsAndHashCode.Exclude private Long progressTotal;
+
+  // JSON object of counter name to count, e.g. {"rowsImported":1200,"rowsSkipped":3}
+  @Column(length = 4096)
+  @EqualsAndHashCode.Exclude
+  private String counters;
 
   // 1048576 is 2^20, which is the max size of a mediumtext in MySQL
+  // Appended to by an UPDATE in JobsRepository.appendLog (see DatabaseJobLogStore), so never
+  // written by saving the entity, which would put back the log as it was when the job was loaded.
   @Column(
       columnDefinition = "TEXT",
-      length = 1048576) // needed for long strings, i.e. log entries longer than 255
-  // characters
+      length = 1048576, // needed for long strings, i.e. log entries longer than 255 characters
+      updatable = false)
   private String log;
+
+  // Only set on the response to a launch: the number of jobs waiting ahead of this one
+  @Transient @EqualsAndHashCode.Exclude private Integer queuePosition;
 }
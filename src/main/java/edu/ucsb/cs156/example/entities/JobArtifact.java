@@ -0,0 +1,35 @@
+package edu.ucsb.cs156.example.entities;
+
+import jakarta.persistence.*;
+import java.time.ZonedDateTime;
+import lombok.*;
+import org.springframework.data.annotation.CreatedDate;
+import org.springframework.data.jpa.domain.support.AuditingEntityListener;
+
+/**
+ * A file a job produced, e.g. a data export, registered once the job has finished writing it. The
+ * bytes are kept in the JobArtifactStore, not in the database. See JobArtifacts.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Builder
+@Entity(name = "jobartifacts")
+@EntityListeners(AuditingEntityListener.class)
+public class JobArtifact {
+  @Id
+  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  private long id;
+
+  private long jobId;
+
+  // unique for the job; also the artifact's file name in the store and in downloads
+  private String name;
+
+  private String contentType;
+
+  // in bytes
+  private long size;
+
+  @CreatedDate private ZonedDateTime createdAt;
+}
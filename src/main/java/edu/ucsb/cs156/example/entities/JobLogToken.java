@@ -0,0 +1,26 @@
+package edu.ucsb.cs156.example.entities;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * An entry in the job log search index: a token that appears in a job's log, and the offset of a
+ * line it appears on. See JobLogIndex.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Builder
+@Entity(name = "joblogtokens")
+public class JobLogToken {
+  @Id
+  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  private long id;
+
+  private String token;
+
+  private long jobId;
+
+  // character offset of the start of the line in the job's log
+  private long lineOffset;
+}
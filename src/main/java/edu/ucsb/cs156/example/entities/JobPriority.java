@@ -0,0 +1,14 @@
+package edu.ucsb.cs156.example.entities;
+
+/**
+ * The lane a job waits in for a worker. Lanes share the workers by weight (see JobLanes), so a
+ * backlog of bulk jobs slows interactive ones down but cannot hold them up.
+ */
+public enum JobPriority {
+  /** Short jobs a user is waiting on */
+  INTERACTIVE,
+  /** The default */
+  NORMAL,
+  /** Long-running imports and maintenance */
+  BULK
+}
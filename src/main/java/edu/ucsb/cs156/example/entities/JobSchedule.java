@@ -0,0 +1,48 @@
+package edu.ucsb.cs156.example.entities;
+
+import jakarta.persistence.*;
+import java.time.ZonedDateTime;
+import lombok.*;
+
+/**
+ * A recurring job: JobScheduler launches the JobContextConsumer named by jobType, rebuilt from
+ * jobParams, each time the cron expression fires.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Builder
+@Entity(name = "jobschedules")
+public class JobSchedule {
+  @Id
+  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  private long id;
+
+  private String name;
+
+  // The JobContextConsumer class and its JSON-serialized fields, as for jobs in the database queue
+  private String jobType;
+
+  @Column(length = 4096)
+  private String jobParams;
+
+  // Spring cron expression: second, minute, hour, day of month, month, day of week; or a macro
+  // such as @hourly or @daily. Evaluated in the server's time zone.
+  private String cron;
+
+  @Builder.Default private boolean enabled = true;
+
+  @Enumerated(EnumType.STRING)
+  @Builder.Default
+  private JobPriority priority = JobPriority.NORMAL;
+
+  private Long timeoutMs;
+
+  // Kept up to date by JobScheduler; ignored when a schedule is created or updated
+  private Long lastJobId;
+  private ZonedDateTime lastRunAt;
+  // null while the schedule is disabled
+  private ZonedDateTime nextRunAt;
+  // firings skipped because the previous run was still active, or the job executor was full
+  private int skippedRuns;
+}
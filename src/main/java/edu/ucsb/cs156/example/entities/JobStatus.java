@@ -0,0 +1,99 @@
+package edu.ucsb.cs156.example.entities;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonValue;
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+import java.util.EnumSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Where a job is in its life. A job starts out queued (database mode), pending (a pipeline step) or
+ * running, and ends in one of the finished statuses, which it never leaves.
+ *
+ * <p>Statuses are stored, and written in JSON, as their lowercase values, e.g. "running".
+ */
+public enum JobStatus {
+  /** Waiting in the database queue for a worker on any node */
+  QUEUED,
+  /** A pipeline step waiting for the steps it depends on */
+  PENDING,
+  /** Running, or waiting for a worker on the node that launched it */
+  RUNNING,
+  COMPLETE,
+  ERROR,
+  /** Cancelled by a user */
+  CANCELLED,
+  /** Cancelled because it ran longer than its timeoutMs */
+  TIMEOUT,
+  /** Turned away because the job executor was at capacity */
+  REJECTED,
+  /** A pipeline step that did not run, because a step it depends on did not complete */
+  SKIPPED;
+
+  /**
+   * @return the status as stored and written in JSON, e.g. "running"
+   */
+  @JsonValue
+  public String getValue() {
+    return name().toLowerCase(Locale.ROOT);
+  }
+
+  /**
+   * @param value a status as stored, e.g. "running"
+   * @return the status
+   * @throws IllegalArgumentException if there is no such status
+   */
+  @JsonCreator
+  public static JobStatus fromValue(String value) {
+    for (JobStatus status : values()) {
+      if (status.getValue().equals(value)) {
+        return status;
+      }
+    }
+    throw new IllegalArgumentException("No such job status: " + value);
+  }
+
+  /**
+   * @return true if the job is neither waiting nor running, so its status will not change again
+   */
+  public boolean isFinished() {
+    return this != QUEUED && this != PENDING && this != RUNNING;
+  }
+
+  /**
+   * @return true if the job finished without completing, e.g. with an error, a timeout or by being
+   *     cancelled, rejected or skipped
+   */
+  public boolean isFailed() {
+    return isFinished() && this != COMPLETE;
+  }
+
+  /**
+   * @return the statuses a job with this status may move to
+   */
+  public Set<JobStatus> next() {
+    return switch (this) {
+      case QUEUED -> EnumSet.of(RUNNING, CANCELLED, ERROR);
+      case PENDING -> EnumSet.of(RUNNING, SKIPPED, CANCELLED);
+        // back to QUEUED when a claimed job cannot be started, or its worker's lease lapses
+      case RUNNING -> EnumSet.of(QUEUED, COMPLETE, ERROR, CANCELLED, TIMEOUT, REJECTED);
+      default -> EnumSet.noneOf(JobStatus.class);
+    };
+  }
+
+  /** Stores statuses by value, e.g. "running", as they were before there was an enum */
+  @Converter
+  public static class DatabaseConverter implements AttributeConverter<JobStatus, String> {
+    @Override
+    public String convertToDatabaseColumn(JobStatus status) {
+      return status == null ? null : status.getValue();
+    }
+
+    @Override
+    public JobStatus convertToEntityAttribute(String value) {
+      return value == null ? null : fromValue(value);
+    }
+  }
+}
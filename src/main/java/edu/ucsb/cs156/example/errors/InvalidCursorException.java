@@ -0,0 +1,13 @@
+package edu.ucsb.cs156.example.errors;
+
+/** This is an error class for a page cursor that was not produced by this server. */
+public class InvalidCursorException extends RuntimeException {
+  /**
+   * Constructor for the exception
+   *
+   * @param cursor the cursor that could not be decoded
+   */
+  public InvalidCursorException(String cursor) {
+    super("Invalid page cursor: %s".formatted(cursor));
+  }
+}
@@ -0,0 +1,16 @@
+package edu.ucsb.cs156.example.errors;
+
+/**
+ * This is an error class for an Idempotency-Key that cannot be used for a job launch, e.g. because
+ * it was already used for a launch with different parameters.
+ */
+public class InvalidIdempotencyKeyException extends RuntimeException {
+  /**
+   * Constructor for the exception
+   *
+   * @param message what is wrong with the key
+   */
+  public InvalidIdempotencyKeyException(String message) {
+    super(message);
+  }
+}
@@ -0,0 +1,16 @@
+package edu.ucsb.cs156.example.errors;
+
+/**
+ * This is an error class for a job schedule that cannot be saved because its cron expression, job
+ * type or job params are invalid.
+ */
+public class InvalidJobScheduleException extends RuntimeException {
+  /**
+   * Constructor for the exception
+   *
+   * @param message what is wrong with the schedule
+   */
+  public InvalidJobScheduleException(String message) {
+    super(message);
+  }
+}
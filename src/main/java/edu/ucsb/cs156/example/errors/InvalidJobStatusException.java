@@ -0,0 +1,13 @@
+package edu.ucsb.cs156.example.errors;
+
+/** This is an error class for a job status filter that names no status. */
+public class InvalidJobStatusException extends RuntimeException {
+  /**
+   * Constructor for the exception
+   *
+   * @param status the status that was asked for
+   */
+  public InvalidJobStatusException(String status) {
+    super("No such job status: %s".formatted(status));
+  }
+}
@@ -0,0 +1,22 @@
+package edu.ucsb.cs156.example.errors;
+
+import edu.ucsb.cs156.example.entities.JobStatus;
+
+/**
+ * This is an error class for a change of a job's status that its life cycle does not allow, such as
+ * a finished job starting to run again. See JobStatus.
+ */
+public class InvalidJobTransitionException extends RuntimeException {
+  /**
+   * Constructor for the exception
+   *
+   * @param id the job's id
+   * @param from the job's status, or null for a job being created
+   * @param to the status it was to move to
+   */
+  public InvalidJobTransitionException(long id, JobStatus from, JobStatus to) {
+    super(
+        "Job %d cannot go from %s to %s"
+            .formatted(id, from == null ? "new" : from.getValue(), to.getValue()));
+  }
+}
@@ -0,0 +1,13 @@
+package edu.ucsb.cs156.example.errors;
+
+/** This is an error class for a sort parameter that names no sortable property. */
+public class InvalidSortException extends RuntimeException {
+  /**
+   * Constructor for the exception
+   *
+   * @param sort the sort that was asked for, e.g. "-title"
+   */
+  public InvalidSortException(String sort) {
+    super("Cannot sort by %s".formatted(sort));
+  }
+}
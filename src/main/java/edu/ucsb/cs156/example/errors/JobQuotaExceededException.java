@@ -0,0 +1,24 @@
+package edu.ucsb.cs156.example.errors;
+
+/**
+ * This is an error class for a custom RuntimeException that is used to indicate that a user has
+ * reached one of their job quotas (see JobQuotas), so their job was not launched.
+ */
+public class JobQuotaExceededException extends RuntimeException {
+  private final long retryAfterSeconds;
+
+  /**
+   * Constructor for the exception
+   *
+   * @param message explanation of which quota was reached
+   * @param retryAfterSeconds how long the user should wait before launching again
+   */
+  public JobQuotaExceededException(String message, long retryAfterSeconds) {
+    super(message);
+    this.retryAfterSeconds = retryAfterSeconds;
+  }
+
+  public long getRetryAfterSeconds() {
+    return retryAfterSeconds;
+  }
+}
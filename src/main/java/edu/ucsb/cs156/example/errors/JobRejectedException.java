@@ -0,0 +1,16 @@
+package edu.ucsb.cs156.example.errors;
+
+/**
+ * This is an error class for a custom RuntimeException that is used to indicate that a job could
+ * not be accepted because the job executor is at capacity.
+ */
+public class JobRejectedException extends RuntimeException {
+  /**
+   * Constructor for the exception
+   *
+   * @param message explanation of why the job was rejected
+   */
+  public JobRejectedException(String message) {
+    super(message);
+  }
+}
@@ -1,27 +1,60 @@
 package edu.ucsb.cs156.example.jobs;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+import edu.ucsb.cs156.example.services.jobs.JobArtifactOutputStream;
 import edu.ucsb.cs156.example.services.jobs.JobContext;
 import edu.ucsb.cs156.example.services.jobs.JobContextConsumer;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import lombok.Builder;
+import lombok.Getter;
+import lombok.extern.jackson.Jacksonized;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 
+// @Getter and @Jacksonized let JobService store the job as JSON in the database queue
+@Getter
 @Builder
+@Jacksonized
 public class TestJob implements JobContextConsumer {
 
   private boolean fail;
   private int sleepMs;
 
+  // when positive, the job also writes an artifact "test.txt" of this many bytes: a-z, repeated.
+  // Left out of the JSON when 0, so that the params of jobs without one are as they were.
+  @JsonInclude(JsonInclude.Include.NON_DEFAULT)
+  private int artifactBytes;
+
   @Override
   public void accept(JobContext ctx) throws Exception {
     // Ensure this is not null
     Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
 
     ctx.log("Hello World! from test job!");
-    Thread.sleep(sleepMs);
+    // sleep in steps of up to 100 ms, reporting progress after each one
+    for (int slept = 0; slept < sleepMs; ) {
+      int step = Math.min(100, sleepMs - slept);
+      Thread.sleep(step);
+      slept += step;
+      ctx.progress(slept, sleepMs);
+    }
+    if (artifactBytes > 0) {
+      writeArtifact(ctx);
+    }
     if (fail) {
       throw new Exception("Fail!");
     }
     ctx.log("Goodbye from test job!");
   }
+
+  private void writeArtifact(JobContext ctx) throws IOException {
+    byte[] alphabet = "abcdefghijklmnopqrstuvwxyz".getBytes(StandardCharsets.US_ASCII);
+    try (JobArtifactOutputStream out = ctx.artifact("test.txt", "text/plain")) {
+      for (int written = 0; written < artifactBytes; written += alphabet.length) {
+        out.write(alphabet, 0, Math.min(alphabet.length, artifactBytes - written));
+      }
+      out.commit();
+    }
+  }
 }
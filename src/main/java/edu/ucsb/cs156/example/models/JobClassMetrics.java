@@ -0,0 +1,28 @@
+package edu.ucsb.cs156.example.models;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * This is a model class that represents queue wait and run time statistics for one job class, since
+ * this node started. Times are in milliseconds; percentiles cover roughly the last two minutes.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Builder
+public class JobClassMetrics {
+  private String job;
+  private Long finished;
+  private Double queueWaitMeanMs;
+  private Double queueWaitMaxMs;
+  private Double queueWaitP95Ms;
+  private Double runMeanMs;
+  private Double runMaxMs;
+  private Double runP50Ms;
+  private Double runP95Ms;
+  private Double runP99Ms;
+}
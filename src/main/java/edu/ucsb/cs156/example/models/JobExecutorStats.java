@@ -0,0 +1,25 @@
+package edu.ucsb.cs156.example.models;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * This is a model class that represents a snapshot of the job executor.
+ *
+ * <p>It is used to size the executor: if queueDepth is often near queueCapacity, raise
+ * maxConcurrency or switch to virtual threads.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Builder
+public class JobExecutorStats {
+  private Integer maxConcurrency;
+  private Integer activeWorkers;
+  private Integer queueDepth;
+  private Integer queueCapacity;
+  private Long completedTasks;
+}
@@ -0,0 +1,24 @@
+package edu.ucsb.cs156.example.models;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * This is a model class that represents part of a job's log.
+ *
+ * <p>Offsets count characters from the start of the log. A viewer pages forward by asking for the
+ * next page at nextOffset.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Builder
+public class JobLogPage {
+  private String text;
+  private long startOffset;
+  private long nextOffset;
+  private long totalSize;
+}
@@ -0,0 +1,22 @@
+package edu.ucsb.cs156.example.models;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * This is a model class that represents a line of a job's log that matched a search.
+ *
+ * <p>The offset is where the line starts in the log, so a viewer can open the log there with {@code
+ * GET /api/jobs/logs/{id}?offset=...}.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Builder
+public class JobLogSnippet {
+  private long offset;
+  private String text;
+}
@@ -0,0 +1,29 @@
+package edu.ucsb.cs156.example.models;
+
+import java.util.List;
+import java.util.Map;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * This is a model class that summarizes the job meters (see JobMetrics) for admins who do not have
+ * a Prometheus server at hand.
+ *
+ * <p>finished maps each final status ("complete", "error", "cancelled", "timeout") to the number of
+ * jobs that ended with it on this node since startup. quotas shows each user's use of their
+ * per-user job limits.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Builder
+public class JobMetricsSummary {
+  private Integer running;
+  private Long queued;
+  private Map<String, Long> finished;
+  private List<JobClassMetrics> jobs;
+  private JobQuotaSummary quotas;
+}
@@ -0,0 +1,29 @@
+package edu.ucsb.cs156.example.models;
+
+import com.fasterxml.jackson.annotation.JsonRawValue;
+import edu.ucsb.cs156.example.entities.JobStatus;
+import java.time.ZonedDateTime;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * This is a model class that represents how far a job has got.
+ *
+ * <p>It is read with a JPQL constructor expression, so polling a job's progress never transfers its
+ * log. counters is the JSON object stored on the job, passed through as is.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Builder
+public class JobProgress {
+  private Long id;
+  private JobStatus status;
+  private Long done;
+  private Long total;
+  @JsonRawValue private String counters;
+  private ZonedDateTime updatedAt;
+}
@@ -0,0 +1,25 @@
+package edu.ucsb.cs156.example.models;
+
+import java.util.List;
+import java.util.Map;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * This is a model class that summarizes the per-user job quotas (see JobQuotas): the limits (0 when
+ * a limit is off), the launches turned away on this node since startup by reason ("concurrent" or
+ * "rate"), and each user who has launched a job on this node.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Builder
+public class JobQuotaSummary {
+  private Integer maxConcurrentPerUser;
+  private Integer launchesPerMinute;
+  private Map<String, Long> rejected;
+  private List<JobUserQuota> users;
+}
@@ -0,0 +1,31 @@
+package edu.ucsb.cs156.example.models;
+
+import edu.ucsb.cs156.example.entities.JobStatus;
+import java.time.ZonedDateTime;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * This is a model class that represents a job in a list of jobs.
+ *
+ * <p>It is read with a JPQL constructor expression, so listing jobs never transfers their logs;
+ * logSize is computed by the database, or set by the JobLogStore when logs are not kept there.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Builder
+public class JobSummary {
+  private Long id;
+  private JobStatus status;
+  private ZonedDateTime createdAt;
+  private ZonedDateTime updatedAt;
+  private String createdByEmail;
+  private Long logSize;
+
+  /** The step's name, for a step of a pipeline */
+  private String stepName;
+}
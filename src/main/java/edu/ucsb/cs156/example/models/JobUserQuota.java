@@ -0,0 +1,23 @@
+package edu.ucsb.cs156.example.models;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * This is a model class that represents one user's use of their job quotas: the jobs they have
+ * queued or running (on any node), the launches left in their token bucket on this node, and how
+ * many of their launches this node has turned away since startup.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Builder
+public class JobUserQuota {
+  private String email;
+  private Long activeJobs;
+  private Integer launchesAvailable;
+  private Long rejected;
+}
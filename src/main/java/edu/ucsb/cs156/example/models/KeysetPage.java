@@ -0,0 +1,25 @@
+package edu.ucsb.cs156.example.models;
+
+import java.util.List;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * This is a model class that represents one page of a list of entities.
+ *
+ * <p>next is an opaque cursor to pass as the {@code after} parameter, with the same sort, for the
+ * following page; it is null on the last page.
+ *
+ * @param <T> the type of the entities
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Builder
+public class KeysetPage<T> {
+  private List<T> items;
+  private String next;
+}
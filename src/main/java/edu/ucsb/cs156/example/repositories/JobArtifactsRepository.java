@@ -0,0 +1,25 @@
+package edu.ucsb.cs156.example.repositories;
+
+import edu.ucsb.cs156.example.entities.JobArtifact;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+/** The JobArtifactsRepository is a repository for the files that jobs produce. */
+@Repository
+public interface JobArtifactsRepository extends CrudRepository<JobArtifact, Long> {
+  List<JobArtifact> findByJobIdOrderByName(long jobId);
+
+  Optional<JobArtifact> findByJobIdAndName(long jobId, String name);
+
+  @Transactional
+  @Modifying
+  @Query("DELETE FROM jobartifacts a WHERE a.jobId IN :jobIds")
+  int deleteByJobIds(@Param("jobIds") Collection<Long> jobIds);
+}
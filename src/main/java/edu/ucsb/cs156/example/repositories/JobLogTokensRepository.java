@@ -0,0 +1,42 @@
+package edu.ucsb.cs156.example.repositories;
+
+import edu.ucsb.cs156.example.entities.JobLogToken;
+import java.time.ZonedDateTime;
+import java.util.Collection;
+import java.util.List;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+/** The JobLogTokensRepository is a repository for the job log search index. */
+@Repository
+public interface JobLogTokensRepository extends CrudRepository<JobLogToken, Long> {
+
+  /** Jobs created in [since, until) whose logs contain every one of the tokens, newest first */
+  @Query(
+      "SELECT t.jobId FROM joblogtokens t, jobs j WHERE j.id = t.jobId AND t.token IN :tokens"
+          + " AND t.jobId < :before AND j.createdAt >= :since AND j.createdAt < :until"
+          + " GROUP BY t.jobId HAVING COUNT(DISTINCT t.token) = :count ORDER BY t.jobId DESC")
+  List<Long> findJobIdsWithAllTokens(
+      @Param("tokens") Collection<String> tokens,
+      @Param("count") long count,
+      @Param("before") long before,
+      @Param("since") ZonedDateTime since,
+      @Param("until") ZonedDateTime until,
+      Limit limit);
+
+  @Query(
+      "SELECT t FROM joblogtokens t WHERE t.token IN :tokens AND t.jobId IN :jobIds"
+          + " ORDER BY t.jobId DESC, t.lineOffset")
+  List<JobLogToken> findByTokensAndJobIds(
+      @Param("tokens") Collection<String> tokens, @Param("jobIds") Collection<Long> jobIds);
+
+  @Transactional
+  @Modifying
+  @Query("DELETE FROM joblogtokens t WHERE t.jobId IN :jobIds")
+  int deleteByJobIds(@Param("jobIds") Collection<Long> jobIds);
+}
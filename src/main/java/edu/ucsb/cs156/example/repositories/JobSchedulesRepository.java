@@ -0,0 +1,39 @@
+package edu.ucsb.cs156.example.repositories;
+
+import edu.ucsb.cs156.example.entities.JobSchedule;
+import java.time.ZonedDateTime;
+import java.util.List;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+/** The JobSchedulesRepository is a repository for JobSchedule entities. */
+@Repository
+public interface JobSchedulesRepository extends KeysetPagingRepository<JobSchedule, Long> {
+
+  List<JobSchedule> findByEnabledTrueAndNextRunAtLessThanEqual(ZonedDateTime now);
+
+  /**
+   * Moves a due schedule on to its next run. Only one node's update can match, so only that node
+   * fires the schedule.
+   */
+  @Transactional
+  @Modifying
+  @Query(
+      "UPDATE jobschedules s SET s.nextRunAt = :next"
+          + " WHERE s.id = :id AND s.enabled = true AND s.nextRunAt <= :now")
+  int claimFiring(
+      @Param("id") long id, @Param("now") ZonedDateTime now, @Param("next") ZonedDateTime next);
+
+  @Transactional
+  @Modifying
+  @Query("UPDATE jobschedules s SET s.lastJobId = :jobId, s.lastRunAt = :at WHERE s.id = :id")
+  int recordRun(@Param("id") long id, @Param("jobId") long jobId, @Param("at") ZonedDateTime at);
+
+  @Transactional
+  @Modifying
+  @Query("UPDATE jobschedules s SET s.skippedRuns = s.skippedRuns + 1 WHERE s.id = :id")
+  int recordSkip(@Param("id") long id);
+}
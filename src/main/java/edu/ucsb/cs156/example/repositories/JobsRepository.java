@@ -1,8 +1,282 @@
 package edu.ucsb.cs156.example.repositories;
 
 import edu.ucsb.cs156.example.entities.Job;
+import edu.ucsb.cs156.example.entities.JobPriority;
+import edu.ucsb.cs156.example.entities.JobStatus;
+import edu.ucsb.cs156.example.models.JobProgress;
+import edu.ucsb.cs156.example.models.JobStatusCount;
+import edu.ucsb.cs156.example.models.JobSummary;
+import java.time.ZonedDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 @Repository
-public interface JobsRepository extends CrudRepository<Job, Long> {}
+public interface JobsRepository extends CrudRepository<Job, Long> {
+
+  long countByStatus(JobStatus status);
+
+  long countByStatusAndPriority(JobStatus status, JobPriority priority);
+
+  long countByStatusAndPriorityAndIdLessThan(JobStatus status, JobPriority priority, long id);
+
+  boolean existsByIdAndStatusIn(long id, Collection<JobStatus> statuses);
+
+  /** The number of jobs with each status, in one grouped query over the status index */
+  @Query(
+      "SELECT new edu.ucsb.cs156.example.models.JobStatusCount(j.status, COUNT(j)) FROM jobs j"
+          + " GROUP BY j.status")
+  List<JobStatusCount> countGroupedByStatus();
+
+  /** The job a user launched with an idempotency key; keys are unique for each user */
+  @Query("SELECT j FROM jobs j WHERE j.createdBy.id = :userId AND j.idempotencyKey = :key")
+  Optional<Job> findByCreatedByIdAndIdempotencyKey(
+      @Param("userId") long userId, @Param("key") String idempotencyKey);
+
+  /** The first job launched without a user with an idempotency key */
+  Optional<Job> findFirstByCreatedByIsNullAndIdempotencyKeyOrderByIdAsc(String idempotencyKey);
+
+  /** Frees a job's idempotency key once its window has passed, so that the key can be reused. */
+  @Transactional
+  @Modifying
+  @Query("UPDATE jobs j SET j.idempotencyKey = null WHERE j.id = :id")
+  int clearIdempotencyKey(@Param("id") long id);
+
+  String SUMMARY =
+      "SELECT new edu.ucsb.cs156.example.models.JobSummary(j.id, j.status, j.createdAt,"
+          + " j.updatedAt, u.email, CAST(COALESCE(LENGTH(j.log), 0) AS Long), j.stepName)"
+          + " FROM jobs j LEFT JOIN j.createdBy u";
+
+  /** Keyset condition: jobs that come after (createdAt, id) when listed newest first */
+  String BEFORE = "(j.createdAt < :createdAt OR (j.createdAt = :createdAt AND j.id < :id))";
+
+  String NEWEST_FIRST = " ORDER BY j.createdAt DESC, j.id DESC";
+
+  @Query(SUMMARY + " WHERE j.id = :id")
+  Optional<JobSummary> findSummaryById(@Param("id") long id);
+
+  /**
+   * Lists jobs newest first, starting after the job with the given createdAt and id. Uses the
+   * (CREATED_AT, ID) index, so every page costs the same however far into the list it is.
+   */
+  @Query(SUMMARY + " WHERE " + BEFORE + NEWEST_FIRST)
+  List<JobSummary> findSummariesBefore(
+      @Param("createdAt") ZonedDateTime createdAt, @Param("id") long id, Limit limit);
+
+  @Query(SUMMARY + " WHERE j.status IN :statuses AND " + BEFORE + NEWEST_FIRST)
+  List<JobSummary> findSummariesBeforeWithStatus(
+      @Param("statuses") Collection<JobStatus> statuses,
+      @Param("createdAt") ZonedDateTime createdAt,
+      @Param("id") long id,
+      Limit limit);
+
+  /** Jobs that are neither waiting (for a worker, or for a pipeline step) nor running */
+  String FINISHED = "j.status NOT IN ('queued', 'pending', 'running')";
+
+  /** Finished jobs that did not complete, as in {@link JobStatus#isFailed()} */
+  String FAILED = "j.status NOT IN ('queued', 'pending', 'running', 'complete')";
+
+  /**
+   * Counts a user's jobs that are queued or running, for JobQuotas. A pipeline's steps are not
+   * counted, only the pipeline's own job.
+   */
+  @Query(
+      "SELECT COUNT(j) FROM jobs j WHERE j.createdBy.id = :userId"
+          + " AND j.status IN ('queued', 'running') AND j.pipelineId IS NULL")
+  long countActiveByCreatedBy(@Param("userId") long userId);
+
+  @Query("SELECT j.id FROM jobs j")
+  List<Long> findIds(Limit limit);
+
+  @Query("SELECT j.id FROM jobs j WHERE j.status = 'complete' AND j.createdAt < :before")
+  List<Long> findCompleteIdsCreatedBefore(@Param("before") ZonedDateTime before, Limit limit);
+
+  @Query("SELECT j.id FROM jobs j WHERE " + FAILED + " AND j.createdAt < :before")
+  List<Long> findFailedIdsCreatedBefore(@Param("before") ZonedDateTime before, Limit limit);
+
+  /** Newest completed jobs first; skip the ones to keep to find the newest one to purge */
+  @Query(SUMMARY + " WHERE j.status = 'complete'" + NEWEST_FIRST)
+  List<JobSummary> findCompleteSummaries(Pageable pageable);
+
+  /** Completed jobs at or after (createdAt, id) when listed newest first */
+  @Query(
+      "SELECT j.id FROM jobs j WHERE j.status = 'complete'"
+          + " AND (j.createdAt < :createdAt OR (j.createdAt = :createdAt AND j.id <= :id))")
+  List<Long> findCompleteIdsFrom(
+      @Param("createdAt") ZonedDateTime createdAt, @Param("id") long id, Limit limit);
+
+  /** Deletes jobs with one statement, without loading them first. */
+  @Transactional
+  @Modifying
+  @Query("DELETE FROM jobs j WHERE j.id IN :ids")
+  int deleteByIds(@Param("ids") Collection<Long> ids);
+
+  @Query(
+      "SELECT new edu.ucsb.cs156.example.models.JobProgress(j.id, j.status, j.progressDone,"
+          + " j.progressTotal, j.counters, j.updatedAt) FROM jobs j WHERE j.id = :id")
+  Optional<JobProgress> findProgressById(@Param("id") long id);
+
+  /** Writes a running job's progress without loading or rewriting its log. */
+  @Transactional
+  @Modifying
+  @Query(
+      "UPDATE jobs j SET j.progressDone = :done, j.progressTotal = :total,"
+          + " j.counters = :counters, j.updatedAt = :now WHERE j.id = :id")
+  int updateProgress(
+      @Param("id") long id,
+      @Param("done") Long done,
+      @Param("total") Long total,
+      @Param("counters") String counters,
+      @Param("now") ZonedDateTime now);
+
+  /**
+   * Appends lines to a job's log with one UPDATE, so the log is never sent to Java and back. The
+   * database still rewrites the whole value: on Postgres, CONCAT detoasts the column and writes a
+   * new row version with all of it, so each append costs O(the log's size so far). Buffering
+   * (app.jobs.log.mode=buffered) keeps the number of appends down; FileJobLogStore avoids the
+   * rewrite. An empty log gets no leading separator. The job's Job entity never writes the column.
+   *
+   * @param id the job
+   * @param separator put between the log and the lines, i.e. "\n"; a parameter rather than a
+   *     literal in the query, since a newline is not portable in JPQL
+   * @param lines one or more lines, joined with "\n"
+   * @return 1, or 0 if there is no such job
+   */
+  @Transactional
+  @Modifying
+  @Query(
+      "UPDATE jobs j SET j.log = CASE WHEN j.log IS NULL THEN :lines"
+          + " ELSE CONCAT(j.log, :separator, :lines) END WHERE j.id = :id")
+  int appendLog(
+      @Param("id") long id, @Param("separator") String separator, @Param("lines") String lines);
+
+  /** Length of a job's log in characters (0 if it has none); empty if there is no such job. */
+  @Query("SELECT COALESCE(LENGTH(j.log), 0) FROM jobs j WHERE j.id = :id")
+  Optional<Long> findLogLength(@Param("id") long id);
+
+  /**
+   * Number of lines in a job's log (0 if it has none), counted by the database; empty if there is
+   * no such job.
+   */
+  @Query(
+      "SELECT COALESCE(LENGTH(j.log) - LENGTH(REPLACE(j.log, :newline, '')) + 1, 0) FROM jobs j"
+          + " WHERE j.id = :id")
+  Optional<Long> findLogLineCount(@Param("id") long id, @Param("newline") String newline);
+
+  /**
+   * Reads part of a job's log without loading the rest of it.
+   *
+   * @param start 1-based position of the first character
+   * @param length maximum number of characters
+   */
+  @Query("SELECT SUBSTRING(j.log, :start, :length) FROM jobs j WHERE j.id = :id")
+  String findLogSlice(@Param("id") long id, @Param("start") int start, @Param("length") int length);
+
+  /**
+   * Locks the oldest queued job in a priority lane so that no other worker can claim it. Rows
+   * already locked by another worker are skipped rather than waited on. Must be called inside a
+   * transaction.
+   *
+   * @param priority the lane, as stored: a JobPriority name
+   */
+  @Query(
+      value =
+          "SELECT id FROM jobs WHERE status = 'queued' AND priority = :priority"
+              + " ORDER BY id LIMIT 1 FOR UPDATE SKIP LOCKED",
+      nativeQuery = true)
+  Optional<Long> findNextQueuedIdForUpdate(@Param("priority") String priority);
+
+  @Modifying
+  @Query(
+      "UPDATE jobs j SET j.status = 'running', j.lockedBy = :workerId,"
+          + " j.leaseExpiresAt = :leaseExpiresAt, j.attempts = j.attempts + 1, j.updatedAt = :now"
+          + " WHERE j.id = :id")
+  int claim(
+      @Param("id") long id,
+      @Param("workerId") String workerId,
+      @Param("leaseExpiresAt") ZonedDateTime leaseExpiresAt,
+      @Param("now") ZonedDateTime now);
+
+  @Transactional
+  @Modifying
+  @Query(
+      "UPDATE jobs j SET j.leaseExpiresAt = :leaseExpiresAt"
+          + " WHERE j.id = :id AND j.lockedBy = :workerId AND j.status = 'running'")
+  int renewLease(
+      @Param("id") long id,
+      @Param("workerId") String workerId,
+      @Param("leaseExpiresAt") ZonedDateTime leaseExpiresAt);
+
+  @Transactional
+  @Modifying
+  @Query(
+      "UPDATE jobs j SET j.status = 'queued', j.lockedBy = null, j.leaseExpiresAt = null"
+          + " WHERE j.id = :id AND j.status = 'running'")
+  int requeue(@Param("id") long id);
+
+  /** Puts durable jobs whose worker stopped renewing its lease back on the queue. */
+  @Transactional
+  @Modifying
+  @Query(
+      "UPDATE jobs j SET j.status = 'queued', j.lockedBy = null, j.leaseExpiresAt = null,"
+          + " j.updatedAt = :now"
+          + " WHERE j.status = 'running' AND j.leaseExpiresAt < :now"
+          + " AND j.jobType IS NOT NULL AND j.attempts < :maxAttempts"
+          + " AND j.cancelRequested = false")
+  int requeueExpiredLeases(@Param("now") ZonedDateTime now, @Param("maxAttempts") int maxAttempts);
+
+  /** Cancels a job that no worker has claimed yet. */
+  @Transactional
+  @Modifying
+  @Query(
+      "UPDATE jobs j SET j.status = 'cancelled', j.updatedAt = :now"
+          + " WHERE j.id = :id AND j.status = 'queued'")
+  int cancelQueued(@Param("id") long id, @Param("now") ZonedDateTime now);
+
+  /**
+   * Asks the node running a job (or, for a pending pipeline step, the node running its pipeline) to
+   * cancel it, the next time it renews the job's lease.
+   */
+  @Transactional
+  @Modifying
+  @Query(
+      "UPDATE jobs j SET j.cancelRequested = true WHERE j.id = :id"
+          + " AND j.status IN ('running', 'pending')")
+  int requestCancel(@Param("id") long id);
+
+  /** Unfinished jobs with cancel requests among the given jobs and their pipeline steps */
+  @Query(
+      "SELECT j.id FROM jobs j WHERE (j.id IN :ids OR j.pipelineId IN :ids)"
+          + " AND j.cancelRequested = true AND j.status IN ('running', 'pending')")
+  List<Long> findCancelRequestedIds(@Param("ids") Collection<Long> ids);
+
+  /** The steps of a pipeline, in the order they were added to it */
+  @Query(SUMMARY + " WHERE j.pipelineId = :pipelineId ORDER BY j.id")
+  List<JobSummary> findStepSummaries(@Param("pipelineId") long pipelineId);
+
+  /** Skips pipeline steps that never started because their pipeline stopped, e.g. its node died. */
+  @Transactional
+  @Modifying
+  @Query(
+      "UPDATE jobs j SET j.status = 'skipped', j.updatedAt = :now WHERE j.status = 'pending'"
+          + " AND NOT EXISTS (SELECT p.id FROM jobs p WHERE p.id = j.pipelineId"
+          + " AND p.status = 'running')")
+  int skipOrphanedSteps(@Param("now") ZonedDateTime now);
+
+  /** Fails jobs whose lease expired and that cannot (or may no longer) be retried. */
+  @Transactional
+  @Modifying
+  @Query(
+      "UPDATE jobs j SET j.status = 'error', j.lockedBy = null, j.leaseExpiresAt = null,"
+          + " j.updatedAt = :now"
+          + " WHERE j.status = 'running' AND j.leaseExpiresAt < :now")
+  int failExpiredLeases(@Param("now") ZonedDateTime now);
+}
@@ -0,0 +1,35 @@
+package edu.ucsb.cs156.example.repositories;
+
+import jakarta.persistence.QueryHint;
+import java.util.stream.Stream;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.NoRepositoryBean;
+
+/**
+ * A repository that KeysetPager can read one page at a time, with a query that seeks past the last
+ * entity of the previous page rather than skipping over an offset, and that JsonArrayStreamer can
+ * read whole.
+ *
+ * @param <T> the type of the entities
+ * @param <ID> the type of their ids
+ */
+@NoRepositoryBean
+public interface KeysetPagingRepository<T, ID>
+    extends CrudRepository<T, ID>, JpaSpecificationExecutor<T> {
+
+  /**
+   * Streams every entity through a JDBC cursor, fetching 500 rows at a time, instead of loading
+   * them all as findAll does. Must be called in a transaction, and the stream closed; the entities
+   * are read-only, and stay in the persistence context until they are detached.
+   *
+   * @return the entities, in no particular order
+   */
+  @QueryHints({
+    @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+    @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+  })
+  Stream<T> streamAllBy();
+}
@@ -1,10 +1,9 @@
 package edu.ucsb.cs156.example.repositories;
 
 import edu.ucsb.cs156.example.entities.RecommendationRequest;
-import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
 
 /** The UCSBDateRepository is a repository for UCSBDate entities. */
 @Repository
 public interface RecommendationRequestRepository
-    extends CrudRepository<RecommendationRequest, Long> {}
\ No newline at end of file
+    extends KeysetPagingRepository<RecommendationRequest, Long> {}
@@ -0,0 +1,62 @@
+package edu.ucsb.cs156.example.services;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import edu.ucsb.cs156.example.repositories.KeysetPagingRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.stream.Stream;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Writes a whole table as a JSON array, for the {@code /all?unpaged=true} endpoints, without
+ * holding the table in memory.
+ *
+ * <p>Rows are read through a JDBC cursor (see {@link KeysetPagingRepository#streamAllBy()}) and
+ * serialized one at a time into the response, which sends them whenever its buffer fills; each
+ * entity is then detached so that the persistence context does not grow with the table. Memory is
+ * bounded by the fetch size and the response buffer, and the first bytes go out once the first
+ * buffer's worth of rows has been read rather than after the last.
+ *
+ * <p>The output is the same as Spring's for the list of entities. An error partway through cannot
+ * change the status that has already been sent, so it ends the response with truncated JSON.
+ */
+@Service
+public class JsonArrayStreamer {
+  @Autowired private ObjectMapper mapper;
+
+  @Autowired private EntityManager entityManager;
+
+  /**
+   * Writes every entity in a repository to a response, as a JSON array.
+   *
+   * @param <T> the type of the entities
+   * @param repository the repository to read from
+   * @param response the response to write to
+   * @throws IOException if the response cannot be written, e.g. the client went away
+   */
+  @Transactional(readOnly = true)
+  public <T> void writeAll(KeysetPagingRepository<T, ?> repository, HttpServletResponse response)
+      throws IOException {
+    response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+    // the response flushes its buffer as it fills; flushing after every row would not
+    ObjectWriter writer = mapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    try (Stream<T> rows = repository.streamAllBy();
+        JsonGenerator json = mapper.getFactory().createGenerator(response.getOutputStream())) {
+      json.writeStartArray();
+      for (Iterator<T> it = rows.iterator(); it.hasNext(); ) {
+        T row = it.next();
+        writer.writeValue(json, row);
+        entityManager.detach(row);
+      }
+      json.writeEndArray();
+    }
+  }
+}
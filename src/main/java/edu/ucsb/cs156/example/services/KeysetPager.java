@@ -0,0 +1,214 @@
+package edu.ucsb.cs156.example.services;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.ucsb.cs156.example.errors.InvalidCursorException;
+import edu.ucsb.cs156.example.errors.InvalidSortException;
+import edu.ucsb.cs156.example.models.KeysetPage;
+import edu.ucsb.cs156.example.repositories.KeysetPagingRepository;
+import jakarta.persistence.Id;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Order;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.hibernate.query.criteria.HibernateCriteriaBuilder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.stereotype.Service;
+import org.springframework.util.ReflectionUtils;
+
+/**
+ * Lists entities one page at a time for the {@code /all} endpoints, sorted by any of their
+ * properties.
+ *
+ * <p>A page is found by seeking past the sort key of the last entity of the previous page (keyset
+ * pagination), so reading page n costs the same as reading page 1, and rows added or deleted
+ * meanwhile do not shift later pages. The entity's id is always the last sort key, to break ties.
+ * Nulls sort before every other value, whichever the database's default.
+ *
+ * <p>The cursor handed to the client is the last entity's sort key as base64url-encoded JSON. It is
+ * only valid with the sort it was made for.
+ */
+@Service
+public class KeysetPager {
+  public static final int MAX_PAGE_SIZE = 500;
+
+  public static final String DESCRIPTION =
+      "Pass the returned `next` cursor as `after`, with the same `sort`, to get the following page;"
+          + " `next` is null on the last page. Pass `unpaged=true` instead to get every entity as"
+          + " one array.";
+
+  public static final String SORT_DESCRIPTION =
+      "properties to sort by, e.g. `name`, or `-name` for descending; ties are broken by id";
+
+  public static final String AFTER_DESCRIPTION = "cursor from the previous page";
+
+  public static final String LIMIT_DESCRIPTION = "page size (at most " + MAX_PAGE_SIZE + ")";
+
+  @Autowired private ObjectMapper mapper;
+
+  private final Map<Class<?>, Map<String, Field>> fieldsByType = new ConcurrentHashMap<>();
+
+  /** One property of a sort, and the value the previous page ended at */
+  private record Key(Field field, boolean ascending, Object value) {}
+
+  /**
+   * Returns one page of entities.
+   *
+   * @param <T> the type of the entities
+   * @param repository the repository to read from
+   * @param type the type of the entities
+   * @param sort properties to sort by, each optionally prefixed with "-" for descending; null or
+   *     empty to sort by id
+   * @param after the next cursor of the previous page, or null for the first page
+   * @param limit maximum number of entities on the page; clamped to [1, MAX_PAGE_SIZE]
+   * @return the page
+   * @throws InvalidSortException if sort names a property the entity does not have
+   * @throws InvalidCursorException if after is not a cursor returned for this sort
+   */
+  public <T> KeysetPage<T> page(
+      KeysetPagingRepository<T, ?> repository,
+      Class<T> type,
+      List<String> sort,
+      String after,
+      int limit) {
+    List<Key> keys = keys(type, sort);
+    boolean first = after == null || after.isEmpty();
+    if (!first) {
+      keys = decode(after, keys);
+    }
+    int size = Math.min(Math.max(1, limit), MAX_PAGE_SIZE);
+
+    // one more than the page, to know whether there is a next page without counting
+    List<T> items = repository.findBy(spec(keys, first), q -> q.limit(size + 1).all());
+
+    String next = null;
+    if (items.size() > size) {
+      items = items.subList(0, size);
+      next = encode(keys, items.get(size - 1));
+    }
+    return KeysetPage.<T>builder().items(items).next(next).build();
+  }
+
+  private List<Key> keys(Class<?> type, List<String> sort) {
+    Map<String, Field> fields = fields(type);
+    Map<String, Key> keys = new LinkedHashMap<>();
+    for (String property : sort == null ? List.<String>of() : sort) {
+      boolean ascending = !property.startsWith("-");
+      String name = ascending ? property : property.substring(1);
+      Field field = fields.get(name);
+      if (field == null) {
+        throw new InvalidSortException(property);
+      }
+      keys.putIfAbsent(name, new Key(field, ascending, null));
+    }
+    Field id =
+        fields.values().stream().filter(f -> f.isAnnotationPresent(Id.class)).findFirst().get();
+    keys.putIfAbsent(id.getName(), new Key(id, true, null));
+    return List.copyOf(keys.values());
+  }
+
+  private Map<String, Field> fields(Class<?> type) {
+    return fieldsByType.computeIfAbsent(
+        type,
+        t -> {
+          Map<String, Field> fields = new LinkedHashMap<>();
+          for (Field field : t.getDeclaredFields()) {
+            if (!Modifier.isStatic(field.getModifiers())) {
+              ReflectionUtils.makeAccessible(field);
+              fields.put(field.getName(), field);
+            }
+          }
+          return fields;
+        });
+  }
+
+  private String encode(List<Key> keys, Object last) {
+    Map<String, Object> values = new LinkedHashMap<>();
+    for (Key key : keys) {
+      values.put(key.field().getName(), ReflectionUtils.getField(key.field(), last));
+    }
+    String json = mapper.convertValue(values, JsonNode.class).toString();
+    return Base64.getUrlEncoder()
+        .withoutPadding()
+        .encodeToString(json.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private List<Key> decode(String after, List<Key> keys) {
+    try {
+      Map<?, ?> values = mapper.readValue(Base64.getUrlDecoder().decode(after), Map.class);
+      if (values.size() != keys.size()) {
+        throw new InvalidCursorException(after);
+      }
+      List<Key> decoded = new ArrayList<>();
+      for (Key key : keys) {
+        String name = key.field().getName();
+        if (!values.containsKey(name)) {
+          throw new InvalidCursorException(after);
+        }
+        Object value = mapper.convertValue(values.get(name), key.field().getType());
+        decoded.add(new Key(key.field(), key.ascending(), value));
+      }
+      return decoded;
+    } catch (IOException | RuntimeException e) {
+      throw new InvalidCursorException(after);
+    }
+  }
+
+  /**
+   * Orders by the keys and, after the first page, keeps the rows past the previous page's last key:
+   * (k1 past v1) OR (k1 = v1 AND k2 past v2) OR ...
+   */
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  private static <T> Specification<T> spec(List<Key> keys, boolean first) {
+    return (root, query, cb) -> {
+      // JPA criteria cannot say where nulls go; Hibernate's can
+      HibernateCriteriaBuilder hcb = (HibernateCriteriaBuilder) cb;
+      query.orderBy(
+          keys.stream()
+              .<Order>map(
+                  k -> {
+                    Path<?> path = root.get(k.field().getName());
+                    return k.ascending() ? hcb.asc(path, true) : hcb.desc(path, false);
+                  })
+              .toList());
+      if (first) {
+        return null;
+      }
+      List<Predicate> past = new ArrayList<>();
+      List<Predicate> equal = new ArrayList<>();
+      for (Key key : keys) {
+        Path<Comparable> path = root.get(key.field().getName());
+        Comparable value = (Comparable) key.value();
+        Predicate beyond = beyond(cb, path, key.ascending(), value);
+        if (beyond != null) {
+          List<Predicate> clause = new ArrayList<>(equal);
+          clause.add(beyond);
+          past.add(cb.and(clause.toArray(Predicate[]::new)));
+        }
+        equal.add(value == null ? cb.isNull(path) : cb.equal(path, value));
+      }
+      return cb.or(past.toArray(Predicate[]::new));
+    };
+  }
+
+  /** Rows whose key comes after value, with nulls first; null if none can */
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  private static Predicate beyond(
+      CriteriaBuilder cb, Path<Comparable> path, boolean ascending, Comparable value) {
+    if (ascending) {
+      return value == null ? cb.isNotNull(path) : cb.greaterThan(path, value);
+    }
+    return value == null ? null : cb.or(cb.lessThan(path, value), cb.isNull(path));
+  }
+}
@@ -0,0 +1,76 @@
+package edu.ucsb.cs156.example.services.jobs;
+
+import edu.ucsb.cs156.example.entities.Job;
+import edu.ucsb.cs156.example.models.JobSummary;
+import edu.ucsb.cs156.example.repositories.JobsRepository;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Keeps each job's log in the log column of its row in the jobs table. Appends add to the end of
+ * the column with one UPDATE, so the log is not loaded into Java, though the database still
+ * rewrites the whole column on each append (see JobsRepository.appendLog); reads use LENGTH and
+ * SUBSTRING so that only the part asked for is sent from the database. Logs go when their jobs are
+ * deleted.
+ *
+ * <p>The Job entity a job runs with is left as it was loaded: its log is not updated in memory, and
+ * saving it does not write the log column.
+ */
+public class DatabaseJobLogStore implements JobLogStore {
+  private final JobsRepository jobsRepository;
+
+  public DatabaseJobLogStore(JobsRepository jobsRepository) {
+    this.jobsRepository = jobsRepository;
+  }
+
+  /** Appends lines to the log held by a job in memory, for a JobContext with no store. */
+  static void appendTo(Job job, String lines) {
+    String previousLog = job.getLog() == null ? "" : (job.getLog() + "\n");
+    job.setLog(previousLog + lines);
+  }
+
+  @Override
+  public void append(Job job, String lines) {
+    jobsRepository.appendLog(job.getId(), "\n", lines);
+  }
+
+  @Override
+  public void close(Job job) {
+    // nothing is kept open
+  }
+
+  @Override
+  public Optional<Long> getSize(long jobId) {
+    return jobsRepository.findLogLength(jobId);
+  }
+
+  @Override
+  public long getLineCount(long jobId) {
+    return jobsRepository.findLogLineCount(jobId, "\n").orElse(0L);
+  }
+
+  @Override
+  public String read(long jobId, long start, long end) {
+    if (end <= start) {
+      return "";
+    }
+    String slice = jobsRepository.findLogSlice(jobId, (int) start + 1, (int) (end - start));
+    return slice == null ? "" : slice;
+  }
+
+  @Override
+  public String readLog(Job job) {
+    return job.getLog();
+  }
+
+  @Override
+  public void fillLogSizes(List<JobSummary> summaries) {
+    // already computed from the log column
+  }
+
+  @Override
+  public void delete(Collection<Long> jobIds) {
+    // the log was deleted with the job's row
+  }
+}
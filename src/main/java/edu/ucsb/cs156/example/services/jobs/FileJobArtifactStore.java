@@ -0,0 +1,93 @@
+package edu.ucsb.cs156.example.services.jobs;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Collection;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.util.FileSystemUtils;
+
+/**
+ * Keeps job artifacts as files on local disk, {@code <dir>/<jobId>/<name>}.
+ *
+ * <p>An artifact is written to a hidden temporary file next to it ({@code .<name>...part}; names
+ * cannot start with a dot) and moved into place when its stream is committed, so downloads never
+ * see a partly written file. A stream closed without a commit deletes its temporary file.
+ */
+@Slf4j
+public class FileJobArtifactStore implements JobArtifactStore {
+  private final Path dir;
+
+  /**
+   * @param dir the directory holding a directory per job
+   */
+  public FileJobArtifactStore(Path dir) {
+    this.dir = dir;
+  }
+
+  Path jobDir(long jobId) {
+    return dir.resolve(Long.toString(jobId));
+  }
+
+  @Override
+  public JobArtifactOutputStream create(long jobId, String name) throws IOException {
+    Path jobDir = Files.createDirectories(jobDir(jobId));
+    Path target = jobDir.resolve(name);
+    Path part = Files.createTempFile(jobDir, "." + name + ".", ".part");
+    return new JobArtifactOutputStream(Files.newOutputStream(part)) {
+      private boolean closed;
+
+      @Override
+      public void write(byte[] bytes, int offset, int length) throws IOException {
+        out.write(bytes, offset, length);
+      }
+
+      @Override
+      public void commit() throws IOException {
+        if (closed) {
+          throw new IOException("Stream closed");
+        }
+        closed = true;
+        try {
+          super.close();
+          Files.move(
+              part, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+          Files.deleteIfExists(part);
+        }
+      }
+
+      @Override
+      public void close() throws IOException {
+        if (closed) {
+          return;
+        }
+        closed = true;
+        try {
+          super.close();
+        } finally {
+          Files.deleteIfExists(part);
+        }
+      }
+    };
+  }
+
+  @Override
+  public Resource get(long jobId, String name) {
+    return new FileSystemResource(jobDir(jobId).resolve(name));
+  }
+
+  @Override
+  public void delete(Collection<Long> jobIds) {
+    for (long jobId : jobIds) {
+      try {
+        FileSystemUtils.deleteRecursively(jobDir(jobId));
+      } catch (IOException e) {
+        log.warn("Cannot delete artifacts of job {}", jobId, e);
+      }
+    }
+  }
+}
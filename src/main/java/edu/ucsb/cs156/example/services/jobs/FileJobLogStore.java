@@ -0,0 +1,423 @@
+package edu.ucsb.cs156.example.services.jobs;
+
+import edu.ucsb.cs156.example.entities.Job;
+import edu.ucsb.cs156.example.models.JobSummary;
+import edu.ucsb.cs156.example.repositories.JobsRepository;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.DataFormatException;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.Inflater;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.util.FileSystemUtils;
+
+/**
+ * Keeps job logs on local disk, so that a job that logs a lot does not rewrite a growing row.
+ *
+ * <p>Each job has a directory {@code <dir>/<jobId>} holding:
+ *
+ * <ul>
+ *   <li>segment files {@code 000000.log.gz}, {@code 000001.log.gz}, ...: each append adds a gzip
+ *       member to the end of the current segment (so a segment is itself a valid gzip file), and a
+ *       new segment is started once the current one would grow past {@code segmentBytes}
+ *   <li>{@code index}: one fixed-size entry per member, giving its first character and line in the
+ *       log and where its bytes are
+ * </ul>
+ *
+ * <p>Files are only ever appended to, and an index entry is written after its member, so readers
+ * need no locks. Reads memory-map the index, binary search it for the first member in the range,
+ * and inflate only the members that overlap the range, straight from mapped segment files.
+ *
+ * <p>A gzip member costs about 18 bytes of header and trailer, and each has a 40-byte index entry,
+ * so members should hold many lines: JobService always buffers the logs of jobs run with this store
+ * (whatever {@code app.jobs.log.mode} says), making a member of each flush. While a job runs, its
+ * index and current segment stay open, until {@link #close}.
+ *
+ * <p>The jobs table is still the record of which jobs exist; their log column is left empty.
+ */
+@Slf4j
+public class FileJobLogStore implements JobLogStore {
+  static final String INDEX = "index";
+
+  /** charStart, lineStart, byteOffset (longs); segment, byteLength, charLength, lineCount (ints) */
+  static final int ENTRY_BYTES = 40;
+
+  /** GZIPOutputStream writes a fixed header, with no file name or extra fields */
+  private static final int GZIP_HEADER_BYTES = 10;
+
+  private final JobsRepository jobsRepository;
+  private final Path dir;
+  private final long segmentBytes;
+
+  /** The files of the jobs being appended to */
+  private final Map<Long, Writer> writers = new ConcurrentHashMap<>();
+
+  /**
+   * @param jobsRepository used to tell a job with an empty log from a job that does not exist
+   * @param dir the directory holding a directory per job
+   * @param segmentBytes the size at which a new segment file is started
+   */
+  public FileJobLogStore(JobsRepository jobsRepository, Path dir, long segmentBytes) {
+    this.jobsRepository = jobsRepository;
+    this.dir = dir;
+    this.segmentBytes = segmentBytes;
+  }
+
+  /** A gzip member: the lines of one append, preceded by "\n" unless they start the log */
+  record Entry(
+      long charStart,
+      long lineStart,
+      long byteOffset,
+      int segment,
+      int byteLength,
+      int charLength,
+      int lineCount) {
+
+    long charEnd() {
+      return charStart + charLength;
+    }
+
+    long lineEnd() {
+      return lineStart + lineCount;
+    }
+
+    static Entry read(ByteBuffer buffer, int position) {
+      return new Entry(
+          buffer.getLong(position),
+          buffer.getLong(position + 8),
+          buffer.getLong(position + 16),
+          buffer.getInt(position + 24),
+          buffer.getInt(position + 28),
+          buffer.getInt(position + 32),
+          buffer.getInt(position + 36));
+    }
+
+    ByteBuffer toBuffer() {
+      return ByteBuffer.allocate(ENTRY_BYTES)
+          .putLong(charStart)
+          .putLong(lineStart)
+          .putLong(byteOffset)
+          .putInt(segment)
+          .putInt(byteLength)
+          .putInt(charLength)
+          .putInt(lineCount)
+          .flip();
+    }
+  }
+
+  Path jobDir(long jobId) {
+    return dir.resolve(Long.toString(jobId));
+  }
+
+  static String segmentName(int segment) {
+    return "%06d.log.gz".formatted(segment);
+  }
+
+  /** A job's index and current segment, open for appending */
+  private class Writer {
+    private final Path jobDir;
+    private final FileChannel index;
+
+    /** number of whole entries in the index */
+    private long count;
+
+    private Entry last;
+    private FileChannel segment;
+    private int segmentNumber;
+
+    Writer(Path jobDir) throws IOException {
+      this.jobDir = jobDir;
+      Files.createDirectories(jobDir);
+      // read before the index is opened, so that nothing is left open if it cannot be read
+      last = lastEntry(jobDir);
+      index =
+          FileChannel.open(
+              jobDir.resolve(INDEX), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+      count = index.size() / ENTRY_BYTES;
+    }
+
+    void append(String lines) throws IOException {
+      String text = last == null ? lines : "\n" + lines;
+      byte[] member = gzip(text);
+
+      int number = last == null ? 0 : last.segment();
+      long offset = openSegment(number);
+      if (offset > 0 && offset + member.length > segmentBytes) {
+        number++;
+        openSegment(number);
+        offset = 0;
+      }
+      write(segment, ByteBuffer.wrap(member), offset);
+
+      Entry entry =
+          new Entry(
+              last == null ? 0 : last.charEnd(),
+              last == null ? 0 : last.lineEnd(),
+              offset,
+              number,
+              member.length,
+              text.length(),
+              (int) lines.chars().filter(c -> c == '\n').count() + 1);
+      // written at the end of the last whole entry, over any entry cut short by a crash
+      write(index, entry.toBuffer(), count * ENTRY_BYTES);
+      count++;
+      last = entry;
+    }
+
+    /**
+     * Opens a segment for writing, unless it already is.
+     *
+     * @return the segment's size
+     */
+    private long openSegment(int number) throws IOException {
+      if (segment == null || segmentNumber != number) {
+        closeSegment();
+        segment =
+            FileChannel.open(
+                jobDir.resolve(segmentName(number)),
+                StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE);
+        segmentNumber = number;
+      }
+      return segment.size();
+    }
+
+    private void closeSegment() throws IOException {
+      if (segment != null) {
+        segment.close();
+        segment = null;
+      }
+    }
+
+    void close() throws IOException {
+      try {
+        closeSegment();
+      } finally {
+        index.close();
+      }
+    }
+  }
+
+  @Override
+  public void append(Job job, String lines) {
+    try {
+      Writer writer = writers.get(job.getId());
+      if (writer == null) {
+        writer = new Writer(jobDir(job.getId()));
+        writers.put(job.getId(), writer);
+      }
+      writer.append(lines);
+    } catch (IOException e) {
+      // the next append reopens the files and reads the index again
+      closeWriter(job.getId());
+      throw new UncheckedIOException("Cannot write log of job " + job.getId(), e);
+    }
+  }
+
+  /** Closes the files kept open for appending to a job's log; a later append reopens them. */
+  @Override
+  public void close(Job job) {
+    closeWriter(job.getId());
+  }
+
+  private void closeWriter(long jobId) {
+    Writer writer = writers.remove(jobId);
+    if (writer != null) {
+      try {
+        writer.close();
+      } catch (IOException e) {
+        log.warn("Cannot close log of job {}", jobId, e);
+      }
+    }
+  }
+
+  int getOpenLogCount() {
+    return writers.size();
+  }
+
+  @Override
+  public Optional<Long> getSize(long jobId) {
+    if (!jobsRepository.existsById(jobId)) {
+      return Optional.empty();
+    }
+    try {
+      Entry last = lastEntry(jobDir(jobId));
+      return Optional.of(last == null ? 0 : last.charEnd());
+    } catch (IOException e) {
+      throw new UncheckedIOException("Cannot read log of job " + jobId, e);
+    }
+  }
+
+  @Override
+  public long getLineCount(long jobId) {
+    try {
+      Entry last = lastEntry(jobDir(jobId));
+      return last == null ? 0 : last.lineEnd();
+    } catch (IOException e) {
+      throw new UncheckedIOException("Cannot read log of job " + jobId, e);
+    }
+  }
+
+  /** Sets each job's log size from the last entry of its index; the log column is empty. */
+  @Override
+  public void fillLogSizes(List<JobSummary> summaries) {
+    for (JobSummary summary : summaries) {
+      try {
+        Entry last = lastEntry(jobDir(summary.getId()));
+        summary.setLogSize(last == null ? 0 : last.charEnd());
+      } catch (IOException e) {
+        throw new UncheckedIOException("Cannot read log of job " + summary.getId(), e);
+      }
+    }
+  }
+
+  @Override
+  public String read(long jobId, long start, long end) {
+    Path jobDir = jobDir(jobId);
+    Path indexFile = jobDir.resolve(INDEX);
+    if (end <= start || !Files.exists(indexFile)) {
+      return "";
+    }
+    try {
+      MappedByteBuffer index = map(indexFile);
+      int count = index.capacity() / ENTRY_BYTES;
+      // segments are at most about segmentBytes, so each is mapped whole, once per read
+      Map<Integer, MappedByteBuffer> segments = new HashMap<>();
+      StringBuilder text = new StringBuilder();
+      for (int i = find(index, count, start); i < count; i++) {
+        Entry entry = Entry.read(index, i * ENTRY_BYTES);
+        if (entry.charStart() >= end) {
+          break;
+        }
+        MappedByteBuffer segment = segments.get(entry.segment());
+        if (segment == null) {
+          segment = map(jobDir.resolve(segmentName(entry.segment())));
+          segments.put(entry.segment(), segment);
+        }
+        String member = inflate(segment.slice((int) entry.byteOffset(), entry.byteLength()));
+        int from = (int) Math.max(0, start - entry.charStart());
+        int to = (int) Math.min(member.length(), end - entry.charStart());
+        text.append(member, from, to);
+      }
+      return text.toString();
+    } catch (IOException e) {
+      throw new UncheckedIOException("Cannot read log of job " + jobId, e);
+    } catch (DataFormatException e) {
+      throw new UncheckedIOException("Cannot read log of job " + jobId, new IOException(e));
+    }
+  }
+
+  @Override
+  public String readLog(Job job) {
+    try {
+      Entry last = lastEntry(jobDir(job.getId()));
+      return last == null ? null : read(job.getId(), 0, last.charEnd());
+    } catch (IOException e) {
+      throw new UncheckedIOException("Cannot read log of job " + job.getId(), e);
+    }
+  }
+
+  @Override
+  public void delete(Collection<Long> jobIds) {
+    for (long jobId : jobIds) {
+      closeWriter(jobId);
+      try {
+        FileSystemUtils.deleteRecursively(jobDir(jobId));
+      } catch (IOException e) {
+        log.warn("Cannot delete log of job {}", jobId, e);
+      }
+    }
+  }
+
+  /**
+   * Finds the member holding a character.
+   *
+   * @return the index of the last entry that starts at or before offset, or 0 if there is none
+   */
+  static int find(ByteBuffer index, int count, long offset) {
+    int low = 0;
+    int high = count - 1;
+    while (low < high) {
+      int mid = (low + high + 1) >>> 1;
+      if (index.getLong(mid * ENTRY_BYTES) <= offset) {
+        low = mid;
+      } else {
+        high = mid - 1;
+      }
+    }
+    return low;
+  }
+
+  /** Reads the last whole entry of a job's index, without reading the rest of it. */
+  private static Entry lastEntry(Path jobDir) throws IOException {
+    Path index = jobDir.resolve(INDEX);
+    if (!Files.exists(index)) {
+      return null;
+    }
+    try (FileChannel channel = FileChannel.open(index)) {
+      long count = channel.size() / ENTRY_BYTES;
+      return count == 0 ? null : readEntry(channel, count - 1);
+    }
+  }
+
+  private static Entry readEntry(FileChannel index, long i) throws IOException {
+    ByteBuffer buffer = ByteBuffer.allocate(ENTRY_BYTES);
+    index.read(buffer, i * ENTRY_BYTES);
+    return Entry.read(buffer, 0);
+  }
+
+  /** Maps a whole file; the mapping stays valid once the channel is closed */
+  private static MappedByteBuffer map(Path file) throws IOException {
+    try (FileChannel channel = FileChannel.open(file)) {
+      return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+    }
+  }
+
+  private static void write(FileChannel channel, ByteBuffer bytes, long position)
+      throws IOException {
+    while (bytes.hasRemaining()) {
+      position += channel.write(bytes, position);
+    }
+  }
+
+  static byte[] gzip(String text) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (GZIPOutputStream out = new GZIPOutputStream(bytes)) {
+      out.write(text.getBytes(StandardCharsets.UTF_8));
+    }
+    return bytes.toByteArray();
+  }
+
+  /** Inflates one gzip member, skipping its header; its CRC is not checked */
+  static String inflate(ByteBuffer member) throws DataFormatException {
+    Inflater inflater = new Inflater(true);
+    try {
+      inflater.setInput(member.position(GZIP_HEADER_BYTES));
+      ByteArrayOutputStream text = new ByteArrayOutputStream();
+      byte[] buffer = new byte[8192];
+      while (!inflater.finished()) {
+        if (inflater.needsInput()) {
+          throw new DataFormatException("truncated gzip member");
+        }
+        text.write(buffer, 0, inflater.inflate(buffer));
+      }
+      return text.toString(StandardCharsets.UTF_8);
+    } finally {
+      inflater.end();
+    }
+  }
+}
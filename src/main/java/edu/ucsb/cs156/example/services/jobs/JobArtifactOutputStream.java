@@ -0,0 +1,32 @@
+package edu.ucsb.cs156.example.services.jobs;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * The stream a job writes an artifact to. The artifact only appears once {@link #commit()} is
+ * called; closing the stream without committing it discards what was written. Used with
+ * try-with-resources, a job that throws halfway through writing an artifact therefore leaves any
+ * earlier artifact with the name as it was:
+ *
+ * <pre>{@code
+ * try (JobArtifactOutputStream out = ctx.artifact("export.csv", "text/csv")) {
+ *   writeRows(out);
+ *   out.commit();
+ * }
+ * }</pre>
+ */
+public abstract class JobArtifactOutputStream extends FilterOutputStream {
+
+  protected JobArtifactOutputStream(OutputStream out) {
+    super(out);
+  }
+
+  /**
+   * Closes the stream and publishes the artifact.
+   *
+   * @throws IOException if the artifact cannot be published, or the stream is already closed
+   */
+  public abstract void commit() throws IOException;
+}
@@ -0,0 +1,45 @@
+package edu.ucsb.cs156.example.services.jobs;
+
+import java.io.IOException;
+import java.util.Collection;
+import org.springframework.core.io.Resource;
+
+/**
+ * Where the bytes of job artifacts are kept; see JobArtifactStoreConfig. The default is {@link
+ * FileJobArtifactStore}, files on local disk; another store (e.g. an object store) can be plugged
+ * in by defining a JobArtifactStore bean.
+ *
+ * <p>Artifacts are named by their job and a name that JobArtifacts has already checked is a safe
+ * file name.
+ */
+public interface JobArtifactStore {
+
+  /**
+   * Opens an artifact for writing. The artifact only appears, whole, once the stream is committed;
+   * closing it without a commit (e.g. a job that fails halfway through writing it) discards the
+   * bytes and leaves any earlier artifact with the name as it was.
+   *
+   * @param jobId the job
+   * @param name the artifact's name
+   * @return the stream to write the artifact's bytes to
+   * @throws IOException if the artifact cannot be created
+   */
+  JobArtifactOutputStream create(long jobId, String name) throws IOException;
+
+  /**
+   * Finds an artifact's bytes. A Resource that {@link Resource#isFile() is a file} lets downloads
+   * be sent straight from disk.
+   *
+   * @param jobId the job
+   * @param name the artifact's name
+   * @return the artifact; {@link Resource#exists()} is false if there is no such artifact
+   */
+  Resource get(long jobId, String name);
+
+  /**
+   * Deletes the artifacts of jobs that have been deleted.
+   *
+   * @param jobIds the deleted jobs
+   */
+  void delete(Collection<Long> jobIds);
+}
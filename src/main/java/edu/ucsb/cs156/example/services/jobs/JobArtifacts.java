@@ -0,0 +1,148 @@
+package edu.ucsb.cs156.example.services.jobs;
+
+import edu.ucsb.cs156.example.entities.Job;
+import edu.ucsb.cs156.example.entities.JobArtifact;
+import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.repositories.JobArtifactsRepository;
+import edu.ucsb.cs156.example.repositories.JobsRepository;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.List;
+import java.util.regex.Pattern;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.Resource;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+
+/**
+ * Files that jobs produce, e.g. data exports too large for the log, downloaded from {@code GET
+ * /api/jobs/{id}/artifacts/{name}}.
+ *
+ * <p>A job writes an artifact through {@link JobContext#artifact(String, String)}; the bytes go
+ * straight to the JobArtifactStore, and the artifact is registered in the jobartifacts table (name,
+ * content type and size) when the job commits the stream. A stream closed without a commit, e.g. by
+ * try-with-resources when the job throws, is discarded. Writing an artifact again replaces it.
+ * Artifacts are deleted with their jobs by JobRetention.
+ */
+@Service
+public class JobArtifacts {
+  /** A file name: letters, digits, dots, dashes and underscores, not starting with a dot */
+  static final Pattern NAME = Pattern.compile("[A-Za-z0-9_-][A-Za-z0-9._-]{0,127}");
+
+  @Autowired private JobArtifactStore jobArtifactStore;
+
+  @Autowired private JobArtifactsRepository jobArtifactsRepository;
+
+  @Autowired private JobsRepository jobsRepository;
+
+  /**
+   * Opens a new artifact of a job for writing.
+   *
+   * @param job the job
+   * @param name the artifact's name, e.g. "export.csv"
+   * @param contentType its media type, e.g. "text/csv", or null for application/octet-stream
+   * @return the stream to write to; the artifact is registered when it is committed
+   * @throws IllegalArgumentException if the name is not a plain file name, or the content type is
+   *     not a media type
+   * @throws IOException if the store cannot create the artifact
+   */
+  public JobArtifactOutputStream create(Job job, String name, String contentType)
+      throws IOException {
+    if (name == null || !NAME.matcher(name).matches()) {
+      throw new IllegalArgumentException("Invalid artifact name: " + name);
+    }
+    String type =
+        contentType == null
+            ? MediaType.APPLICATION_OCTET_STREAM_VALUE
+            : MediaType.parseMediaType(contentType).toString();
+    long jobId = job.getId();
+    JobArtifactOutputStream stored = jobArtifactStore.create(jobId, name);
+    return new JobArtifactOutputStream(stored) {
+      private long size;
+
+      @Override
+      public void write(int b) throws IOException {
+        out.write(b);
+        size++;
+      }
+
+      @Override
+      public void write(byte[] bytes, int offset, int length) throws IOException {
+        out.write(bytes, offset, length);
+        size += length;
+      }
+
+      @Override
+      public void commit() throws IOException {
+        stored.commit();
+        register(jobId, name, type, size);
+      }
+
+      @Override
+      public void close() throws IOException {
+        // discards the artifact unless it was committed
+        stored.close();
+      }
+    };
+  }
+
+  private void register(long jobId, String name, String contentType, long size) {
+    JobArtifact artifact =
+        jobArtifactsRepository
+            .findByJobIdAndName(jobId, name)
+            .orElseGet(() -> JobArtifact.builder().jobId(jobId).name(name).build());
+    artifact.setContentType(contentType);
+    artifact.setSize(size);
+    jobArtifactsRepository.save(artifact);
+  }
+
+  /**
+   * @param jobId the job
+   * @return the job's artifacts, by name
+   * @throws EntityNotFoundException if there is no such job
+   */
+  public List<JobArtifact> list(long jobId) {
+    if (!jobsRepository.existsById(jobId)) {
+      throw new EntityNotFoundException(Job.class, jobId);
+    }
+    return jobArtifactsRepository.findByJobIdOrderByName(jobId);
+  }
+
+  /**
+   * @param jobId the job
+   * @param name the artifact's name
+   * @return the artifact
+   * @throws EntityNotFoundException if the job has no such artifact
+   */
+  public JobArtifact get(long jobId, String name) {
+    return jobArtifactsRepository
+        .findByJobIdAndName(jobId, name)
+        .orElseThrow(() -> new EntityNotFoundException(JobArtifact.class, jobId + "/" + name));
+  }
+
+  /**
+   * @param artifact a registered artifact
+   * @return its bytes
+   * @throws EntityNotFoundException if its bytes have gone from the store
+   */
+  public Resource open(JobArtifact artifact) {
+    Resource resource = jobArtifactStore.get(artifact.getJobId(), artifact.getName());
+    if (!resource.exists()) {
+      throw new EntityNotFoundException(
+          JobArtifact.class, artifact.getJobId() + "/" + artifact.getName());
+    }
+    return resource;
+  }
+
+  /**
+   * Deletes the artifacts of deleted jobs.
+   *
+   * @param jobIds the jobs
+   */
+  public void delete(Collection<Long> jobIds) {
+    if (!jobIds.isEmpty()) {
+      jobArtifactsRepository.deleteByJobIds(jobIds);
+      jobArtifactStore.delete(jobIds);
+    }
+  }
+}
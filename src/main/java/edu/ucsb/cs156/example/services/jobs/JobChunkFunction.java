@@ -0,0 +1,14 @@
+package edu.ucsb.cs156.example.services.jobs;
+
+import java.util.List;
+
+/**
+ * Work done on one chunk of the items passed to {@link JobContext#fanOut}.
+ *
+ * @param <T> the type of the items
+ * @param <R> the type of the chunk's result
+ */
+@FunctionalInterface
+public interface JobChunkFunction<T, R> {
+  R apply(List<T> chunk) throws Exception;
+}
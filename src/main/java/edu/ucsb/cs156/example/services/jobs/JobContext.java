@@ -1,20 +1,302 @@
 package edu.ucsb.cs156.example.services.jobs;
 
 import edu.ucsb.cs156.example.entities.Job;
-import edu.ucsb.cs156.example.repositories.JobsRepository;
-import lombok.AllArgsConstructor;
+import edu.ucsb.cs156.example.errors.JobCancelledException;
+import java.io.IOException;
+import java.time.Instant;
+import java.util.List;
 import lombok.extern.slf4j.Slf4j;
 
-@AllArgsConstructor
 @Slf4j
 public class JobContext {
-  private JobsRepository jobsRepository;
+  /** Where log lines go when there is no logBuffer; when null, they are only kept on the job */
+  private JobLogStore logStore;
+
   private Job job;
 
-  public void log(String message) {
+  /** When non-null, log lines go here and are written by the {@link JobLogFlusher}. */
+  private JobLogBuffer logBuffer;
+
+  /** When non-null, only the head and tail of the log are kept; see app.jobs.log.keep */
+  private JobLogLimiter logLimiter;
+
+  /** When non-null, log lines are also added to the search index; see JobLogIndex */
+  private JobLogIndexer logIndexer;
+
+  /** When non-null, log lines are also pushed to clients streaming this job's log. */
+  private JobLogTail logTail;
+
+  /** When non-null, progress and counters go here and are written by the JobProgressFlusher. */
+  private JobProgressTracker progressTracker;
+
+  /** Where {@link #artifact} writes files; null for contexts that only log */
+  private JobArtifacts artifacts;
+
+  /** "cancelled" or "timeout" once the job has been asked to stop; set from another thread */
+  private volatile String cancelReason;
+
+  /**
+   * How many chunks {@link #fanOut} works on at once by default; see app.jobs.fanOut.parallelism
+   */
+  private int fanOutParallelism = Runtime.getRuntime().availableProcessors();
+
+  public JobContext(
+      JobLogStore logStore,
+      Job job,
+      JobLogBuffer logBuffer,
+      JobLogTail logTail,
+      JobProgressTracker progressTracker) {
+    this.logStore = logStore;
+    this.job = job;
+    this.logBuffer = logBuffer;
+    this.logTail = logTail;
+    this.progressTracker = progressTracker;
+  }
+
+  public JobContext(JobLogStore logStore, Job job) {
+    this(logStore, job, null, null, null);
+  }
+
+  // synchronized since the chunks of a fanOut may log from several threads at once
+  public synchronized void log(String message) {
     log.info("Job %s: %s".formatted(job.getId(), message));
-    String previousLog = job.getLog() == null ? "" : (job.getLog() + "\n");
-    job.setLog(previousLog + message);
-    if (jobsRepository != null) jobsRepository.save(job);
+    if (logTail != null) {
+      logTail.append(message);
+    }
+    String lines = logLimiter == null ? message : logLimiter.accept(message);
+    if (lines != null) {
+      write(lines);
+    }
+  }
+
+  /**
+   * Logs a structured record at INFO, e.g. {@code ctx.info("Imported file", "rows", 500)}. See
+   * {@link JobLogRecord} for how it is written to the log.
+   *
+   * @param message the message
+   * @param keyValues alternating keys and values
+   */
+  public void info(String message, Object... keyValues) {
+    log(JobLogLevel.INFO, message, keyValues);
+  }
+
+  /**
+   * Logs a structured record at WARN.
+   *
+   * @param message the message
+   * @param keyValues alternating keys and values
+   */
+  public void warn(String message, Object... keyValues) {
+    log(JobLogLevel.WARN, message, keyValues);
+  }
+
+  /**
+   * Logs a structured record at ERROR, so that it can be found with {@code ?level=ERROR} on the
+   * logs endpoint.
+   *
+   * @param message the message
+   * @param keyValues alternating keys and values
+   */
+  public void error(String message, Object... keyValues) {
+    log(JobLogLevel.ERROR, message, keyValues);
+  }
+
+  /**
+   * Logs a structured record, timestamped now.
+   *
+   * @param level the record's level
+   * @param message the message
+   * @param keyValues alternating keys and values
+   * @throws IllegalArgumentException if a key has no value
+   */
+  public void log(JobLogLevel level, String message, Object... keyValues) {
+    log(JobLogRecord.format(Instant.now(), level, message, keyValues));
+  }
+
+  private void write(String lines) {
+    if (logIndexer != null) {
+      logIndexer.add(lines);
+    }
+    if (logBuffer != null) {
+      logBuffer.append(lines);
+    } else if (logStore != null) {
+      logStore.append(job, lines);
+    } else {
+      DatabaseJobLogStore.appendTo(job, lines);
+    }
+  }
+
+  /**
+   * Writes the lines held back by the head/tail limit, if any, once the job has finished.
+   *
+   * @return true if any lines were written
+   */
+  synchronized boolean finishLog() {
+    String lines = logLimiter == null ? null : logLimiter.finish();
+    if (lines == null) {
+      return false;
+    }
+    write(lines);
+    return true;
+  }
+
+  /**
+   * Reports how far the job has got, e.g. for a progress bar. Cheap enough to call for every unit
+   * of work: the latest value is written to the job at most once per
+   * app.jobs.progress.flushIntervalMs, and without touching the log.
+   *
+   * @param done units of work done so far
+   * @param total units of work in all, or 0 if not known
+   */
+  public void progress(long done, long total) {
+    if (progressTracker != null) {
+      progressTracker.progress(done, total);
+    }
+  }
+
+  /**
+   * Adds one to a named counter, e.g. "rowsImported". Written along with the progress.
+   *
+   * @param counter the counter's name
+   */
+  public void increment(String counter) {
+    increment(counter, 1);
+  }
+
+  /**
+   * Adds to a named counter. Written along with the progress.
+   *
+   * @param counter the counter's name
+   * @param delta the amount to add
+   */
+  public void increment(String counter, long delta) {
+    if (progressTracker != null) {
+      progressTracker.increment(counter, delta);
+    }
+  }
+
+  /**
+   * Opens a file for the job to produce, e.g. a data export, to be downloaded from {@code GET
+   * /api/jobs/{id}/artifacts/{name}}. The bytes go straight to disk (see JobArtifactStore), not
+   * through the log or the database. The artifact is listed once the stream is committed; use
+   * try-with-resources and commit at the end of the block, so that an artifact the job fails to
+   * finish is discarded (see JobArtifactOutputStream). Writing an artifact again replaces it.
+   *
+   * @param name the file name, e.g. "export.csv": letters, digits, dots, dashes and underscores
+   * @param contentType the media type to download it as, e.g. "text/csv"
+   * @return the stream to write the artifact to
+   * @throws IllegalArgumentException if the name or content type is invalid
+   * @throws IOException if the artifact cannot be created
+   */
+  public JobArtifactOutputStream artifact(String name, String contentType) throws IOException {
+    if (artifacts == null) {
+      throw new IllegalStateException("Job %s cannot write artifacts".formatted(job.getId()));
+    }
+    return artifacts.create(job, name, contentType);
+  }
+
+  /**
+   * Opens a file for the job to produce, downloaded as application/octet-stream. See {@link
+   * #artifact(String, String)}.
+   *
+   * @param name the file name
+   * @return the stream to write the artifact to
+   * @throws IOException if the artifact cannot be created
+   */
+  public JobArtifactOutputStream artifact(String name) throws IOException {
+    return artifact(name, null);
+  }
+
+  /**
+   * Splits a list into chunks and works on them in parallel, on up to app.jobs.fanOut.parallelism
+   * virtual threads, e.g. to import a large batch of rows on every core. See {@link #fanOut(List,
+   * int, int, JobChunkFunction)}.
+   *
+   * @param items the items to work on
+   * @param chunkSize the number of items in each chunk (the last may have fewer)
+   * @param work the work to do on each chunk
+   * @return the chunks' results, in the order of the chunks
+   * @throws Exception the first exception thrown by a chunk
+   */
+  public <T, R> List<R> fanOut(List<T> items, int chunkSize, JobChunkFunction<T, R> work)
+      throws Exception {
+    return fanOut(items, chunkSize, fanOutParallelism, work);
+  }
+
+  /**
+   * Splits a list into chunks and works on them in parallel, on at most {@code parallelism} virtual
+   * threads at once. Progress is reported as the number of items in the chunks done so far, out of
+   * all the items; chunks may also log, increment counters and poll {@link #isCancelled()}.
+   *
+   * <p>If a chunk throws, no more chunks are started, the chunks still running are interrupted, and
+   * the exception is thrown once they have all stopped. Likewise if the job is cancelled or times
+   * out. Either way, no chunk is still running when this method returns or throws.
+   *
+   * @param items the items to work on
+   * @param chunkSize the number of items in each chunk (the last may have fewer)
+   * @param parallelism the maximum number of chunks to work on at once
+   * @param work the work to do on each chunk
+   * @return the chunks' results, in the order of the chunks
+   * @throws Exception the first exception thrown by a chunk; or JobCancelledException if the job
+   *     was cancelled meanwhile
+   * @throws IllegalArgumentException if chunkSize or parallelism is not positive
+   */
+  public <T, R> List<R> fanOut(
+      List<T> items, int chunkSize, int parallelism, JobChunkFunction<T, R> work) throws Exception {
+    String threadName = "job-%d-chunk-".formatted(job.getId());
+    return new JobFanOut<>(this, threadName, items, chunkSize, parallelism, work).run();
+  }
+
+  void setFanOutParallelism(int fanOutParallelism) {
+    this.fanOutParallelism = fanOutParallelism;
+  }
+
+  void setLogLimiter(JobLogLimiter logLimiter) {
+    this.logLimiter = logLimiter;
+  }
+
+  void setLogIndexer(JobLogIndexer logIndexer) {
+    this.logIndexer = logIndexer;
+  }
+
+  void setArtifacts(JobArtifacts artifacts) {
+    this.artifacts = artifacts;
+  }
+
+  /**
+   * Asks the job to stop. Only the first reason is kept, so a timeout that fires after a cancel
+   * request does not change the outcome.
+   *
+   * @param reason "cancelled" or "timeout"
+   */
+  synchronized void cancel(String reason) {
+    if (cancelReason == null) {
+      cancelReason = reason;
+    }
+  }
+
+  /**
+   * Long-running jobs should poll this (or call {@link #checkCancelled()}) between units of work;
+   * the worker thread is also interrupted, which ends any sleep or blocking wait.
+   *
+   * @return true once the job has been cancelled or has timed out
+   */
+  public boolean isCancelled() {
+    return cancelReason != null;
+  }
+
+  public String getCancelReason() {
+    return cancelReason;
+  }
+
+  /**
+   * Stops the job if it has been cancelled or has timed out.
+   *
+   * @throws JobCancelledException if the job has been asked to stop
+   */
+  public void checkCancelled() {
+    if (cancelReason != null) {
+      throw new JobCancelledException(cancelReason);
+    }
   }
 }
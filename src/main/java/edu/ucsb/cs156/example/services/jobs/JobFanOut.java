@@ -0,0 +1,135 @@
+package edu.ucsb.cs156.example.services.jobs;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * One call to {@link JobContext#fanOut}: the chunks of a list of items, and the virtual threads
+ * that work through them.
+ *
+ * <p>Each of up to {@code parallelism} threads takes the next chunk until there are none left, so
+ * at most that many chunks run at once however many there are. The first chunk to fail stops the
+ * rest: no more chunks or threads are started and the threads still running are interrupted (the
+ * executor itself is left running, so that starting the threads never fails). No thread outlives
+ * the call, which returns (or throws) only once every thread has ended.
+ */
+class JobFanOut<T, R> {
+  private final JobContext context;
+  private final String threadName;
+  private final List<List<T>> chunks;
+  private final int parallelism;
+  private final JobChunkFunction<T, R> work;
+  private final long total;
+
+  private final Object[] results;
+  private final AtomicInteger next = new AtomicInteger();
+  private long done;
+  private final AtomicReference<Throwable> failure = new AtomicReference<>();
+  private final Set<Thread> workers = ConcurrentHashMap.newKeySet();
+
+  /**
+   * @param context the job's context, for progress and cancellation
+   * @param threadName prefix for the names of the threads
+   * @param items the items to work on
+   * @param chunkSize the number of items in each chunk (the last may have fewer)
+   * @param parallelism the maximum number of chunks to work on at once
+   * @param work the work to do on each chunk
+   * @throws IllegalArgumentException if chunkSize or parallelism is not positive
+   */
+  JobFanOut(
+      JobContext context,
+      String threadName,
+      List<T> items,
+      int chunkSize,
+      int parallelism,
+      JobChunkFunction<T, R> work) {
+    if (chunkSize <= 0 || parallelism <= 0) {
+      throw new IllegalArgumentException(
+          "chunkSize and parallelism must be positive (were %d and %d)"
+              .formatted(chunkSize, parallelism));
+    }
+    this.context = context;
+    this.threadName = threadName;
+    this.parallelism = parallelism;
+    this.work = work;
+    this.total = items.size();
+    this.chunks = new ArrayList<>();
+    for (int from = 0; from < items.size(); from += chunkSize) {
+      chunks.add(items.subList(from, Math.min(items.size(), from + chunkSize)));
+    }
+    this.results = new Object[chunks.size()];
+  }
+
+  /**
+   * Works on every chunk.
+   *
+   * @return the chunks' results, in the order of the chunks
+   * @throws Exception the first exception thrown by a chunk; or JobCancelledException (or
+   *     InterruptedException) if the job was cancelled meanwhile
+   */
+  @SuppressWarnings("unchecked")
+  List<R> run() throws Exception {
+    // close() waits for every thread to end; if the job is cancelled while it waits, it
+    // interrupts them, keeps waiting, and then interrupts the job's thread again
+    try (ExecutorService threads =
+        Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name(threadName, 0).factory())) {
+      for (int i = 0; i < Math.min(parallelism, chunks.size()) && failure.get() == null; i++) {
+        threads.execute(this::workThroughChunks);
+      }
+    }
+
+    Throwable first = failure.get();
+    if (first instanceof Error error) {
+      throw error;
+    } else if (first != null) {
+      throw (Exception) first;
+    }
+    context.checkCancelled();
+    return (List<R>) Arrays.asList(results);
+  }
+
+  private void workThroughChunks() {
+    // registered before failure is checked, so that a thread either sees the failure or is
+    // interrupted by it
+    workers.add(Thread.currentThread());
+    try {
+      int i;
+      while (failure.get() == null && (i = next.getAndIncrement()) < chunks.size()) {
+        try {
+          context.checkCancelled();
+          results[i] = work.apply(chunks.get(i));
+          chunkDone(chunks.get(i).size());
+        } catch (Throwable t) {
+          if (failure.compareAndSet(null, t)) {
+            stopOtherWorkers();
+          }
+          return;
+        }
+      }
+    } finally {
+      workers.remove(Thread.currentThread());
+    }
+  }
+
+  /** Interrupts the chunks still running on the other threads */
+  private void stopOtherWorkers() {
+    for (Thread worker : workers) {
+      if (worker != Thread.currentThread()) {
+        worker.interrupt();
+      }
+    }
+  }
+
+  /** Reports progress; synchronized so that it never goes backwards */
+  private synchronized void chunkDone(int items) {
+    done += items;
+    context.progress(done, total);
+  }
+}
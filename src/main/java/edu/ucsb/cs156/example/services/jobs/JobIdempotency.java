@@ -0,0 +1,198 @@
+package edu.ucsb.cs156.example.services.jobs;
+
+import edu.ucsb.cs156.example.entities.Job;
+import edu.ucsb.cs156.example.entities.User;
+import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.errors.InvalidIdempotencyKeyException;
+import edu.ucsb.cs156.example.repositories.JobsRepository;
+import java.nio.charset.StandardCharsets;
+import java.time.ZonedDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+
+/**
+ * Deduplicates job launches that carry an Idempotency-Key, such as a double-clicked launch button
+ * or a client retrying a launch whose response it never got.
+ *
+ * <p>Keys belong to the user who launches the job, so users cannot see or block each other's
+ * launches by guessing their keys. Within {@code app.jobs.idempotency.windowMs} of a launch, a
+ * launch by the same user with the same key and the same parameters gets the job the first one
+ * started instead of starting another. A launch with the same key but different parameters is
+ * rejected.
+ *
+ * <p>Keys are stored in the jobs table, unique for each user, so two launches by a user with the
+ * same key cannot both insert a job, even on different nodes; the loser returns the winner's job.
+ * (The database does not compare jobs launched without a user, so those are only deduplicated by
+ * looking the key up before the launch.) The most recent {@code app.jobs.idempotency.cacheSize}
+ * keys launched on this node are also kept in memory, so that a duplicate arriving while the first
+ * launch is still in flight waits for it rather than racing it to the database.
+ */
+@Service
+public class JobIdempotency {
+  /** Length of the IDEMPOTENCY_KEY column */
+  static final int MAX_KEY_LENGTH = 255;
+
+  @Autowired private JobsRepository jobsRepository;
+
+  @Value("${app.jobs.idempotency.windowMs:86400000}")
+  private long windowMs;
+
+  @Value("${app.jobs.idempotency.cacheSize:10000}")
+  private int cacheSize;
+
+  /** A job launched with a key */
+  record Launch(long jobId, String fingerprint, long launchedAt) {}
+
+  /** A key as used by one user; userId is null for jobs launched by the system */
+  record UserKey(Long userId, String key) {}
+
+  /**
+   * Recent launches by user and key, least recently used first; a launch in flight is not yet
+   * complete
+   */
+  private final Map<UserKey, CompletableFuture<Launch>> recent =
+      new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<UserKey, CompletableFuture<Launch>> eldest) {
+          return size() > Math.max(1, cacheSize);
+        }
+      };
+
+  /**
+   * Identifies what a launch runs, so that a repeated key can be checked against it.
+   *
+   * @param parts the job class, its params, priority and timeout
+   * @return a name-based UUID of the parts
+   */
+  public static String fingerprint(Object... parts) {
+    StringBuilder launch = new StringBuilder();
+    for (Object part : parts) {
+      launch.append(part).append('\n');
+    }
+    return UUID.nameUUIDFromBytes(launch.toString().getBytes(StandardCharsets.UTF_8)).toString();
+  }
+
+  /**
+   * Launches a job, unless the user already launched a job with the same key within the window.
+   *
+   * @param user the user launching the job; null for a job launched by the system
+   * @param key the Idempotency-Key
+   * @param fingerprint the launch's {@link #fingerprint}
+   * @param launcher launches the job, saving it with the key and fingerprint
+   * @return the job launched with this key, by this call or an earlier one
+   * @throws InvalidIdempotencyKeyException if the key is too long, or was used for a launch with
+   *     different parameters
+   */
+  public Job launch(User user, String key, String fingerprint, Supplier<Job> launcher) {
+    if (key.length() > MAX_KEY_LENGTH) {
+      throw new InvalidIdempotencyKeyException(
+          "Idempotency-Key is longer than %d characters".formatted(MAX_KEY_LENGTH));
+    }
+    UserKey userKey = new UserKey(user == null ? null : user.getId(), key);
+    CompletableFuture<Launch> mine = new CompletableFuture<>();
+    CompletableFuture<Launch> earlier = reserve(userKey, mine);
+    if (earlier != null) {
+      Launch launch;
+      try {
+        launch = earlier.join();
+      } catch (CompletionException e) {
+        // the launch this one duplicates failed, e.g. it was rejected; so does this one
+        throw (RuntimeException) e.getCause();
+      }
+      checkFingerprint(key, launch.fingerprint(), fingerprint);
+      return jobsRepository
+          .findById(launch.jobId())
+          .orElseThrow(() -> new EntityNotFoundException(Job.class, launch.jobId()));
+    }
+
+    Job job;
+    try {
+      Optional<Job> launched = findLaunched(userKey, fingerprint);
+      if (launched.isPresent()) {
+        job = launched.get();
+      } else {
+        try {
+          job = launcher.get();
+        } catch (DataIntegrityViolationException e) {
+          // another node inserted a job with this key first
+          job = findLaunched(userKey, fingerprint).orElseThrow(() -> e);
+        }
+      }
+    } catch (RuntimeException e) {
+      synchronized (recent) {
+        recent.remove(userKey, mine);
+      }
+      mine.completeExceptionally(e);
+      throw e;
+    }
+    mine.complete(new Launch(job.getId(), fingerprint, System.currentTimeMillis()));
+    return job;
+  }
+
+  /**
+   * Returns the number of keys held in memory.
+   *
+   * @return the number of keys
+   */
+  public int getCachedKeyCount() {
+    synchronized (recent) {
+      return recent.size();
+    }
+  }
+
+  /**
+   * Claims a key for a launch on this node, unless a launch with the key is already in flight on
+   * this node or completed within the window.
+   *
+   * @return the earlier launch, or null if the key is now this launch's
+   */
+  private CompletableFuture<Launch> reserve(UserKey key, CompletableFuture<Launch> mine) {
+    long cutoff = System.currentTimeMillis() - windowMs;
+    synchronized (recent) {
+      CompletableFuture<Launch> earlier = recent.get(key);
+      if (earlier != null && !(earlier.isDone() && earlier.join().launchedAt() < cutoff)) {
+        return earlier;
+      }
+      recent.put(key, mine);
+      return null;
+    }
+  }
+
+  /**
+   * Looks for a job the user launched with a key within the window, on any node. A job launched
+   * with the key before the window has its key cleared, so that the key can be used again.
+   */
+  private Optional<Job> findLaunched(UserKey userKey, String fingerprint) {
+    String key = userKey.key();
+    Optional<Job> job =
+        userKey.userId() == null
+            ? jobsRepository.findFirstByCreatedByIsNullAndIdempotencyKeyOrderByIdAsc(key)
+            : jobsRepository.findByCreatedByIdAndIdempotencyKey(userKey.userId(), key);
+    ZonedDateTime cutoff = ZonedDateTime.now().minusNanos(windowMs * 1_000_000L);
+    if (job.isPresent()
+        && job.get().getCreatedAt() != null
+        && job.get().getCreatedAt().isBefore(cutoff)) {
+      jobsRepository.clearIdempotencyKey(job.get().getId());
+      return Optional.empty();
+    }
+    job.ifPresent(j -> checkFingerprint(key, j.getLaunchFingerprint(), fingerprint));
+    return job;
+  }
+
+  private static void checkFingerprint(String key, String launched, String fingerprint) {
+    if (!fingerprint.equals(launched)) {
+      throw new InvalidIdempotencyKeyException(
+          "Idempotency-Key %s was already used to launch a job with different parameters"
+              .formatted(key));
+    }
+  }
+}
@@ -0,0 +1,187 @@
+package edu.ucsb.cs156.example.services.jobs;
+
+import edu.ucsb.cs156.example.entities.Job;
+import edu.ucsb.cs156.example.entities.JobPriority;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Priority lanes for jobs waiting for a worker, served by smooth weighted round robin.
+ *
+ * <p>Each lane ({@link JobPriority}) gets a share of the workers in proportion to its weight
+ * ({@code app.jobs.priority.weights.*}): with the default weights 8, 3 and 1, of every 12 jobs
+ * started while every lane has jobs waiting, 8 are interactive, 3 normal and 1 bulk, interleaved
+ * rather than in runs. A lane with nothing waiting is skipped and cannot bank its turns, so a lane
+ * that has been idle does not get a burst of them when jobs arrive.
+ *
+ * <p>In memory mode, jobs wait here and each task on the job executor runs whichever job the lanes
+ * pick next. In database mode, jobs wait in the jobs table and JobQueue claims them lane by lane in
+ * the same order.
+ */
+@Service
+public class JobLanes {
+  @Value("${app.jobs.priority.weights.interactive:8}")
+  private int interactiveWeight;
+
+  @Value("${app.jobs.priority.weights.normal:3}")
+  private int normalWeight;
+
+  @Value("${app.jobs.priority.weights.bulk:1}")
+  private int bulkWeight;
+
+  /** A job waiting in memory for a worker */
+  record Waiting(Job job, JobContextConsumer jobFunction) {}
+
+  private final Map<JobPriority, Deque<Waiting>> waiting = new EnumMap<>(JobPriority.class);
+
+  // Round robin state: separate for jobs in memory and jobs claimed from the database
+  private final Map<JobPriority, Long> memoryCredit = new EnumMap<>(JobPriority.class);
+  private final Map<JobPriority, Long> claimCredit = new EnumMap<>(JobPriority.class);
+
+  public JobLanes() {
+    for (JobPriority lane : JobPriority.values()) {
+      waiting.put(lane, new ArrayDeque<>());
+      memoryCredit.put(lane, 0L);
+      claimCredit.put(lane, 0L);
+    }
+  }
+
+  /**
+   * Returns a lane's weight; at least 1, so that no lane can be starved.
+   *
+   * @param lane the lane
+   * @return the configured weight
+   */
+  public int weight(JobPriority lane) {
+    int weight =
+        switch (lane) {
+          case INTERACTIVE -> interactiveWeight;
+          case NORMAL -> normalWeight;
+          case BULK -> bulkWeight;
+        };
+    return Math.max(1, weight);
+  }
+
+  /**
+   * Adds a job to its lane, and dispatches a task that will run the next job from the lanes. No
+   * worker can take a job in between, so if dispatching fails the job is taken back out again.
+   *
+   * @param job the job
+   * @param jobFunction the job's code
+   * @param dispatch submits a task to the job executor
+   * @throws RuntimeException whatever dispatch throws, e.g. TaskRejectedException
+   */
+  public void offer(Job job, JobContextConsumer jobFunction, Runnable dispatch) {
+    synchronized (waiting) {
+      Deque<Waiting> lane = waiting.get(job.getPriority());
+      lane.addLast(new Waiting(job, jobFunction));
+      try {
+        dispatch.run();
+      } catch (RuntimeException e) {
+        lane.removeLast();
+        throw e;
+      }
+    }
+  }
+
+  /**
+   * Takes the next job to run from the lanes.
+   *
+   * @return the job, or empty if no job is waiting in memory
+   */
+  public Optional<Waiting> poll() {
+    synchronized (waiting) {
+      return pick(memoryCredit, lane -> Optional.ofNullable(waiting.get(lane).pollFirst()));
+    }
+  }
+
+  /**
+   * Claims the next job from the database, trying the lanes in round robin order.
+   *
+   * @param claimFrom claims the oldest queued job in a lane, if there is one
+   * @return the claimed job, or empty if no lane has a job queued
+   */
+  public <T> Optional<T> claim(Function<JobPriority, Optional<T>> claimFrom) {
+    synchronized (claimCredit) {
+      return pick(claimCredit, claimFrom);
+    }
+  }
+
+  /**
+   * Number of jobs that will start before a job waiting in memory.
+   *
+   * @param job a job added by {@link #offer}, or about to be (it then goes to the back of its lane)
+   * @return the estimate from {@link #positionOf(JobPriority, long, Map)}
+   */
+  public long positionOf(Job job) {
+    synchronized (waiting) {
+      long ahead = 0;
+      for (Waiting other : waiting.get(job.getPriority())) {
+        if (other.job() == job) {
+          break;
+        }
+        ahead++;
+      }
+      Map<JobPriority, Long> waitingByLane = new EnumMap<>(JobPriority.class);
+      waiting.forEach((lane, jobs) -> waitingByLane.put(lane, (long) jobs.size()));
+      return positionOf(job.getPriority(), ahead, waitingByLane);
+    }
+  }
+
+  /**
+   * Estimates how many waiting jobs will start before a job: those ahead of it in its own lane,
+   * plus the turns the other lanes get while its lane works through them, as far as those lanes
+   * have jobs waiting.
+   *
+   * @param lane the job's lane
+   * @param ahead number of jobs ahead of it in its lane
+   * @param waitingByLane number of jobs waiting in each lane
+   * @return the job's position; 0 if it is next
+   */
+  public long positionOf(JobPriority lane, long ahead, Map<JobPriority, Long> waitingByLane) {
+    long position = ahead;
+    for (JobPriority other : JobPriority.values()) {
+      if (other != lane) {
+        long turns = (ahead + 1) * weight(other) / weight(lane);
+        position += Math.min(waitingByLane.getOrDefault(other, 0L), turns);
+      }
+    }
+    return position;
+  }
+
+  /**
+   * One round of smooth weighted round robin: every lane earns its weight, the lane with the most
+   * credit that has a job goes next and pays for the round.
+   */
+  private <T> Optional<T> pick(
+      Map<JobPriority, Long> credit, Function<JobPriority, Optional<T>> takeFrom) {
+    long total = 0;
+    for (JobPriority lane : JobPriority.values()) {
+      credit.merge(lane, (long) weight(lane), Long::sum);
+      total += weight(lane);
+    }
+    // a stable sort, so ties go to the higher priority
+    List<JobPriority> order = new ArrayList<>(List.of(JobPriority.values()));
+    order.sort(Comparator.comparing(credit::get, Comparator.reverseOrder()));
+    for (JobPriority lane : order) {
+      Optional<T> taken = takeFrom.apply(lane);
+      if (taken.isPresent()) {
+        credit.merge(lane, -total, Long::sum);
+        return taken;
+      }
+      // an empty lane sits this round out, and gives up any credit it had saved
+      total -= weight(lane);
+      credit.put(lane, Math.min(0, credit.get(lane) - weight(lane)));
+    }
+    return Optional.empty();
+  }
+}
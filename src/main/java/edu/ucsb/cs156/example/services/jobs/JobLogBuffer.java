@@ -0,0 +1,55 @@
+package edu.ucsb.cs156.example.services.jobs;
+
+import edu.ucsb.cs156.example.entities.Job;
+
+/**
+ * Holds the log lines a job has produced since the last time its log was written to the
+ * JobLogStore.
+ *
+ * <p>Lines are appended by the thread running the job and written out either when {@code
+ * flushLines} lines are pending, when the {@link JobLogFlusher} runs, or when the job finishes.
+ */
+public class JobLogBuffer {
+  private final JobLogStore logStore;
+  private final Job job;
+  private final int flushLines;
+
+  private final StringBuilder pending = new StringBuilder();
+  private int pendingLines = 0;
+
+  JobLogBuffer(JobLogStore logStore, Job job, int flushLines) {
+    this.logStore = logStore;
+    this.job = job;
+    this.flushLines = flushLines;
+  }
+
+  public Job getJob() {
+    return job;
+  }
+
+  public synchronized void append(String message) {
+    if (pendingLines > 0) {
+      pending.append("\n");
+    }
+    pending.append(message);
+    pendingLines++;
+    if (pendingLines >= flushLines) {
+      flush();
+    }
+  }
+
+  /** Writes pending lines to the job's log. */
+  public synchronized void flush() {
+    if (pendingLines == 0) {
+      return;
+    }
+    String lines = pending.toString();
+    pending.setLength(0);
+    pendingLines = 0;
+    if (logStore == null) {
+      DatabaseJobLogStore.appendTo(job, lines);
+      return;
+    }
+    logStore.append(job, lines);
+  }
+}
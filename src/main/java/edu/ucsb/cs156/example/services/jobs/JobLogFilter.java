@@ -0,0 +1,53 @@
+package edu.ucsb.cs156.example.services.jobs;
+
+import java.time.Instant;
+
+/**
+ * Picks lines out of a job's log, for {@code GET /api/jobs/logs/{id}?level=...}. Every condition
+ * that is set must hold.
+ *
+ * <p>Lines written by ctx.log have no level or timestamp: they count as INFO, and never match a
+ * time window.
+ *
+ * @param level the least severe level to keep, or null for any
+ * @param since keep records logged at or after this time, or null
+ * @param until keep records logged before this time, or null
+ * @param contains keep lines that contain this text, or null
+ */
+public record JobLogFilter(JobLogLevel level, Instant since, Instant until, String contains) {
+
+  /**
+   * @return true if no condition is set, so every line matches
+   */
+  public boolean isEmpty() {
+    return level == null && since == null && until == null && contains == null;
+  }
+
+  /**
+   * @param line a line of the log, without its newline
+   * @return true if the line meets every condition that is set
+   */
+  public boolean matches(CharSequence line) {
+    // the cheap test first: most lines of a long log fail it
+    if (contains != null && !line.toString().contains(contains)) {
+      return false;
+    }
+    if (level == null && since == null && until == null) {
+      return true;
+    }
+    JobLogRecord record = JobLogRecord.parse(line);
+    JobLogLevel recordLevel = record.level() == null ? JobLogLevel.INFO : record.level();
+    if (level != null && recordLevel.compareTo(level) < 0) {
+      return false;
+    }
+    if (since != null || until != null) {
+      Instant timestamp = record.timestamp();
+      if (timestamp == null
+          || (since != null && timestamp.isBefore(since))
+          || (until != null && !timestamp.isBefore(until))) {
+        return false;
+      }
+    }
+    return true;
+  }
+}
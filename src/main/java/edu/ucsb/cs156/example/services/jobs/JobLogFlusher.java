@@ -0,0 +1,65 @@
+package edu.ucsb.cs156.example.services.jobs;
+
+import edu.ucsb.cs156.example.entities.Job;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Write-behind flusher for job logs when {@code app.jobs.log.mode=buffered}.
+ *
+ * <p>Each running job gets a {@link JobLogBuffer}; this service writes every buffer with pending
+ * lines to the JobLogStore every {@code app.jobs.log.flushIntervalMs} milliseconds, so a job that
+ * logs thousands of lines does a handful of UPDATEs instead of one per line.
+ */
+@Service
+@Slf4j
+public class JobLogFlusher {
+  @Autowired private JobLogStore jobLogStore;
+
+  @Value("${app.jobs.log.flushLines:500}")
+  private int flushLines;
+
+  private final Set<JobLogBuffer> buffers = ConcurrentHashMap.newKeySet();
+
+  /**
+   * Creates a buffer for a job and registers it for periodic flushing.
+   *
+   * @param job the job whose log lines will be buffered
+   * @return the new buffer
+   */
+  public JobLogBuffer register(Job job) {
+    JobLogBuffer buffer = new JobLogBuffer(jobLogStore, job, Math.max(1, flushLines));
+    buffers.add(buffer);
+    return buffer;
+  }
+
+  /**
+   * Stops periodic flushing of a buffer and writes out whatever is still pending.
+   *
+   * @param buffer the buffer to close
+   */
+  public void close(JobLogBuffer buffer) {
+    buffers.remove(buffer);
+    buffer.flush();
+  }
+
+  @Scheduled(fixedDelayString = "${app.jobs.log.flushIntervalMs:250}")
+  public void flushAll() {
+    for (JobLogBuffer buffer : buffers) {
+      try {
+        buffer.flush();
+      } catch (Exception e) {
+        log.error("Failed to flush log for job {}", buffer.getJob().getId(), e);
+      }
+    }
+  }
+
+  public int getBufferCount() {
+    return buffers.size();
+  }
+}
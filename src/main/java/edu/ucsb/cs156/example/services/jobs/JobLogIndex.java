@@ -0,0 +1,242 @@
+package edu.ucsb.cs156.example.services.jobs;
+
+import edu.ucsb.cs156.example.entities.Job;
+import edu.ucsb.cs156.example.entities.JobLogToken;
+import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.models.JobLogSearchResult;
+import edu.ucsb.cs156.example.models.JobLogSnippet;
+import edu.ucsb.cs156.example.repositories.JobLogTokensRepository;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * An inverted index over job logs, for {@code GET /api/jobs/logs/search}: which jobs logged a word,
+ * and on which lines, without reading their logs.
+ *
+ * <p>Logs are split into tokens: runs of letters, digits and underscores, lowercased, of at least 2
+ * characters (longer ones are cut to {@link #MAX_TOKEN_LENGTH}). The timestamp of a structured
+ * record is left out, but its level is indexed. Each running job gets a {@link JobLogIndexer},
+ * which tokenizes lines as JobContext writes them; its entries are saved to the joblogtokens table
+ * every {@code app.jobs.log.index.flushIntervalMs} and when the job finishes. Entries are deleted
+ * with their jobs by JobRetention.
+ *
+ * <p>Only the first {@code app.jobs.log.index.maxTokensPerJob} distinct tokens of a job are
+ * indexed; tokens already indexed keep being indexed on later lines. A job that uses more is logged
+ * as a warning and counted by {@link JobMetrics#LOG_INDEX_TRUNCATED}, since searching for a word it
+ * first logged after that will not find it.
+ *
+ * <p>Set {@code app.jobs.log.index.enabled=false} to stop indexing new lines.
+ */
+@Service
+@Slf4j
+public class JobLogIndex {
+  /** Length of the TOKEN column */
+  static final int MAX_TOKEN_LENGTH = 64;
+
+  /** Bounds of the search window when since or until is not given */
+  static final ZonedDateTime BEGINNING_OF_TIME =
+      ZonedDateTime.of(1970, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+
+  static final ZonedDateTime END_OF_TIME =
+      ZonedDateTime.of(9999, 12, 31, 0, 0, 0, 0, ZoneOffset.UTC);
+
+  private static final Pattern NOT_WORD = Pattern.compile("[^\\p{L}\\p{N}_]+");
+
+  @Autowired private JobLogTokensRepository jobLogTokensRepository;
+
+  @Autowired private JobLogStore jobLogStore;
+
+  @Autowired private JobLogReader jobLogReader;
+
+  @Value("${app.jobs.log.index.enabled:true}")
+  private boolean enabled;
+
+  @Value("${app.jobs.log.index.hitsPerToken:5}")
+  private int hitsPerToken;
+
+  @Value("${app.jobs.log.index.maxTokensPerJob:100000}")
+  private int maxTokensPerJob;
+
+  @Value("${app.jobs.log.index.snippetChars:200}")
+  private long snippetChars;
+
+  private final Set<JobLogIndexer> indexers = ConcurrentHashMap.newKeySet();
+
+  /**
+   * Splits text into search tokens.
+   *
+   * @param text a line of a log, or a query
+   * @return its distinct tokens, in order
+   */
+  static Set<String> tokens(String text) {
+    Set<String> tokens = new LinkedHashSet<>();
+    for (String word : NOT_WORD.split(text.toLowerCase(Locale.ROOT))) {
+      if (word.length() >= 2) {
+        tokens.add(word.length() > MAX_TOKEN_LENGTH ? word.substring(0, MAX_TOKEN_LENGTH) : word);
+      }
+    }
+    return tokens;
+  }
+
+  /**
+   * @param line a line of a log
+   * @return the part of the line to index: all of it, or a structured record without its timestamp
+   */
+  static String searchableText(String line) {
+    JobLogRecord record = JobLogRecord.parse(line);
+    return record.level() == null ? line : record.level() + " " + record.message();
+  }
+
+  /**
+   * Starts indexing a job that is about to run on this node.
+   *
+   * @param job the job; lines already in its log (from an earlier attempt) are not indexed again
+   * @return the indexer to pass to the job's JobContext, or null if indexing is turned off
+   */
+  public JobLogIndexer open(Job job) {
+    if (!enabled) {
+      return null;
+    }
+    long size = jobLogStore.getSize(job.getId()).orElse(0L);
+    JobLogIndexer indexer =
+        new JobLogIndexer(job.getId(), size, Math.max(1, hitsPerToken), maxTokensPerJob);
+    indexers.add(indexer);
+    return indexer;
+  }
+
+  /**
+   * Saves what is left of a finished job's entries.
+   *
+   * @param indexer the indexer returned by {@link #open(Job)}, or null
+   */
+  public void close(JobLogIndexer indexer) {
+    if (indexer != null) {
+      indexers.remove(indexer);
+      save(indexer);
+      if (indexer.isTruncated()) {
+        log.warn(
+            "Job {} logged more than {} distinct words; words it first logged after that are not"
+                + " indexed",
+            indexer.getJobId(),
+            maxTokensPerJob);
+      }
+    }
+  }
+
+  @Scheduled(fixedDelayString = "${app.jobs.log.index.flushIntervalMs:1000}")
+  public void flushAll() {
+    for (JobLogIndexer indexer : indexers) {
+      save(indexer);
+    }
+  }
+
+  /** A failure only costs search results, so it is logged rather than failing the job */
+  private void save(JobLogIndexer indexer) {
+    try {
+      List<JobLogToken> entries = indexer.drain();
+      if (!entries.isEmpty()) {
+        jobLogTokensRepository.saveAll(entries);
+      }
+    } catch (Exception e) {
+      log.error("Failed to index log for job {}", indexer.getJobId(), e);
+    }
+  }
+
+  /**
+   * Deletes the entries of deleted jobs.
+   *
+   * @param jobIds the jobs
+   */
+  public void delete(Collection<Long> jobIds) {
+    if (!jobIds.isEmpty()) {
+      jobLogTokensRepository.deleteByJobIds(jobIds);
+    }
+  }
+
+  /**
+   * Finds the jobs whose logs contain every token of a query, newest first, with the lines where
+   * the most of its tokens appear. Only the first hitsPerToken lines of each token are indexed, so
+   * a job is found by any token in its log, but its snippets come from near the start of the log.
+   *
+   * @param query words to look for, e.g. "Fail!"; case and punctuation are ignored
+   * @param before only jobs with a smaller id than this, to page through the results; or null
+   * @param since only jobs created at or after this instant; or null
+   * @param until only jobs created before this instant; or null
+   * @param maxJobs the most jobs to return
+   * @param maxSnippets the most lines to return for each job
+   * @return the matching jobs; empty if the query has no tokens
+   */
+  public List<JobLogSearchResult> search(
+      String query, Long before, Instant since, Instant until, int maxJobs, int maxSnippets) {
+    Set<String> tokens = tokens(query);
+    if (tokens.isEmpty() || maxJobs <= 0) {
+      return List.of();
+    }
+    List<Long> jobIds =
+        jobLogTokensRepository.findJobIdsWithAllTokens(
+            tokens,
+            tokens.size(),
+            before == null ? Long.MAX_VALUE : before,
+            since == null ? BEGINNING_OF_TIME : since.atZone(ZoneOffset.UTC),
+            until == null ? END_OF_TIME : until.atZone(ZoneOffset.UTC),
+            Limit.of(maxJobs));
+    if (jobIds.isEmpty()) {
+      return List.of();
+    }
+
+    // how many of the query's tokens each line has, by job
+    Map<Long, Map<Long, Integer>> lines = new LinkedHashMap<>();
+    jobIds.forEach(id -> lines.put(id, new LinkedHashMap<>()));
+    for (JobLogToken entry : jobLogTokensRepository.findByTokensAndJobIds(tokens, jobIds)) {
+      lines.get(entry.getJobId()).merge(entry.getLineOffset(), 1, Integer::sum);
+    }
+
+    List<JobLogSearchResult> results = new ArrayList<>();
+    lines.forEach(
+        (jobId, tokensByLine) -> {
+          List<JobLogSnippet> snippets = new ArrayList<>();
+          try {
+            tokensByLine.entrySet().stream()
+                .sorted(
+                    Map.Entry.<Long, Integer>comparingByValue(Comparator.reverseOrder())
+                        .thenComparing(Map.Entry.comparingByKey()))
+                .limit(Math.max(0, maxSnippets))
+                .map(Map.Entry::getKey)
+                .sorted()
+                .forEach(offset -> snippets.add(snippet(jobId, offset)));
+          } catch (EntityNotFoundException e) {
+            // deleted since it was found
+            return;
+          }
+          results.add(JobLogSearchResult.builder().jobId(jobId).snippets(snippets).build());
+        });
+    return results;
+  }
+
+  private JobLogSnippet snippet(long jobId, long offset) {
+    String text = jobLogReader.readLines(jobId, offset, 1, snippetChars).getText();
+    return JobLogSnippet.builder().offset(offset).text(text).build();
+  }
+
+  public int getIndexerCount() {
+    return indexers.size();
+  }
+}
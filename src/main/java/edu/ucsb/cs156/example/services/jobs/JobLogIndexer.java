@@ -0,0 +1,81 @@
+package edu.ucsb.cs156.example.services.jobs;
+
+import edu.ucsb.cs156.example.entities.JobLogToken;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Collects the search index entries for the lines a running job writes to its log, until the {@link
+ * JobLogIndex} saves them.
+ *
+ * <p>Each token is indexed on the first {@code hitsPerToken} lines it appears on, and only the
+ * first {@code maxTokens} distinct tokens of a job are indexed at all, so the index grows with the
+ * vocabulary of a log rather than its length. Once a job has more, {@link #isTruncated()} is true.
+ */
+public class JobLogIndexer {
+  private final long jobId;
+  private final int hitsPerToken;
+  private final int maxTokens;
+
+  /** the length of the log so far, in characters */
+  private long size;
+
+  /** the number of lines each token has been indexed on so far */
+  private final Map<String, Integer> hits = new HashMap<>();
+
+  private List<JobLogToken> pending = new ArrayList<>();
+
+  /** whether a token was left out because the job already had maxTokens */
+  private boolean truncated;
+
+  JobLogIndexer(long jobId, long size, int hitsPerToken, int maxTokens) {
+    this.jobId = jobId;
+    this.size = size;
+    this.hitsPerToken = hitsPerToken;
+    this.maxTokens = maxTokens;
+  }
+
+  public long getJobId() {
+    return jobId;
+  }
+
+  /**
+   * Indexes lines as they are written to the log.
+   *
+   * @param lines one or more lines, appended to the log after a newline (unless the log is empty)
+   */
+  public synchronized void add(String lines) {
+    long offset = size == 0 ? 0 : size + 1;
+    size = offset + lines.length();
+    for (String line : lines.split("\n", -1)) {
+      for (String token : JobLogIndex.tokens(JobLogIndex.searchableText(line))) {
+        Integer n = hits.get(token);
+        if (n == null ? hits.size() < maxTokens : n < hitsPerToken) {
+          hits.put(token, n == null ? 1 : n + 1);
+          pending.add(JobLogToken.builder().token(token).jobId(jobId).lineOffset(offset).build());
+        } else if (n == null) {
+          truncated = true;
+        }
+      }
+      offset += line.length() + 1;
+    }
+  }
+
+  /**
+   * @return whether some of the job's tokens were not indexed because it had too many
+   */
+  public synchronized boolean isTruncated() {
+    return truncated;
+  }
+
+  /**
+   * @return the entries collected since the last call
+   */
+  synchronized List<JobLogToken> drain() {
+    List<JobLogToken> entries = pending;
+    pending = new ArrayList<>();
+    return entries;
+  }
+}
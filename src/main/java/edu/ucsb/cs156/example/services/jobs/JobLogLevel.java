@@ -0,0 +1,8 @@
+package edu.ucsb.cs156.example.services.jobs;
+
+/** Severity of a structured job log record, least severe first */
+public enum JobLogLevel {
+  INFO,
+  WARN,
+  ERROR
+}
@@ -0,0 +1,123 @@
+package edu.ucsb.cs156.example.services.jobs;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Caps how much of a running job's log is kept, when {@code app.jobs.log.keep=headTail}.
+ *
+ * <p>The first {@code headChars} characters of lines are written as they are logged. After that,
+ * lines go into a ring buffer holding the last {@code tailChars} characters of lines, and the
+ * oldest lines are dropped as new ones arrive. When the job finishes the ring buffer is written
+ * after a marker counting the lines dropped, so the stored log never grows past about headChars +
+ * tailChars, and the job holds at most tailChars of it in memory, however much it logs.
+ *
+ * <p>Each line costs its length plus one, for its newline. A line longer than the whole ring buffer
+ * is cut to its last tailChars - 1 characters.
+ */
+public class JobLogLimiter {
+  static final String MARKER = "[... %d lines (%d characters) dropped ...]";
+
+  private static final Pattern MARKER_PATTERN =
+      Pattern.compile("\\[\\.\\.\\. (\\d+) lines \\(\\d+ characters\\) dropped \\.\\.\\.\\]");
+
+  private final long headChars;
+  private final long tailChars;
+
+  private long headUsed = 0;
+  private boolean headFull = false;
+
+  private final Deque<String> tail = new ArrayDeque<>();
+  private long tailUsed = 0;
+
+  private long droppedLines = 0;
+  private long droppedChars = 0;
+
+  private boolean finished = false;
+
+  JobLogLimiter(long headChars, long tailChars) {
+    this.headChars = headChars;
+    this.tailChars = tailChars;
+  }
+
+  /**
+   * Takes a message logged by the job.
+   *
+   * @param message one or more lines
+   * @return the lines to write now, because they are in the head; null if there are none
+   */
+  public synchronized String accept(String message) {
+    StringBuilder head = null;
+    for (String line : message.split("\n", -1)) {
+      if (!headFull && headUsed + line.length() + 1 <= headChars) {
+        headUsed += line.length() + 1;
+        head = head == null ? new StringBuilder(line) : head.append("\n").append(line);
+      } else {
+        headFull = true;
+        keep(line);
+      }
+    }
+    return head == null ? null : head.toString();
+  }
+
+  private void keep(String line) {
+    if (tailChars <= 0) {
+      droppedLines++;
+      droppedChars += line.length() + 1;
+      return;
+    }
+    if (line.length() + 1 > tailChars) {
+      int cut = (int) (line.length() + 1 - tailChars);
+      droppedChars += cut;
+      line = line.substring(cut);
+    }
+    tail.addLast(line);
+    tailUsed += line.length() + 1;
+    while (tailUsed > tailChars) {
+      String dropped = tail.removeFirst();
+      tailUsed -= dropped.length() + 1;
+      droppedLines++;
+      droppedChars += dropped.length() + 1;
+    }
+  }
+
+  /**
+   * Empties the ring buffer, once the job has finished. Later calls return null.
+   *
+   * @return the marker (if anything was dropped) and the lines held in the ring buffer, to write at
+   *     the end of the log; null if every line has already been written
+   */
+  public synchronized String finish() {
+    if (finished || (tail.isEmpty() && droppedChars == 0)) {
+      return null;
+    }
+    finished = true;
+    List<String> lines = new ArrayList<>();
+    if (droppedChars > 0) {
+      lines.add(MARKER.formatted(droppedLines, droppedChars));
+    }
+    lines.addAll(tail);
+    tail.clear();
+    tailUsed = 0;
+    return String.join("\n", lines);
+  }
+
+  /**
+   * Reads the marker {@link #finish()} writes in place of the lines it dropped.
+   *
+   * @param line a line of a stored log
+   * @return the number of lines the marker stands for, or -1 if the line is not a marker
+   */
+  static long droppedLinesIn(String line) {
+    Matcher marker = MARKER_PATTERN.matcher(line);
+    return marker.matches() ? Long.parseLong(marker.group(1)) : -1;
+  }
+
+  public synchronized long getDroppedLines() {
+    return droppedLines;
+  }
+}
@@ -0,0 +1,241 @@
+package edu.ucsb.cs156.example.services.jobs;
+
+import edu.ucsb.cs156.example.entities.Job;
+import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.models.JobLogPage;
+import edu.ucsb.cs156.example.repositories.JobsRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Reads parts of a job's log from the JobLogStore (with SUBSTRING queries, or from the gzip
+ * segments of the file store), so that a client asking for a page or the last few lines does not
+ * make the server load the whole log.
+ *
+ * <p>Offsets and sizes are in characters, which is what SUBSTRING and LENGTH count in the database.
+ * Line-based reads scan the log in chunks of {@code app.jobs.log.readChunkSize} characters until
+ * they have found enough lines.
+ */
+@Service
+public class JobLogReader {
+  @Autowired private JobLogStore jobLogStore;
+
+  @Autowired private JobsRepository jobsRepository;
+
+  @Value("${app.jobs.log.readChunkSize:65536}")
+  private int chunkSize;
+
+  /**
+   * Returns the total size of a job's log.
+   *
+   * @param jobId the job
+   * @return the number of characters in the log
+   * @throws EntityNotFoundException if there is no such job
+   */
+  public long getSize(long jobId) {
+    return jobLogStore
+        .getSize(jobId)
+        .orElseThrow(() -> new EntityNotFoundException(Job.class, jobId));
+  }
+
+  /**
+   * Reads a job's whole log.
+   *
+   * @param jobId the job
+   * @return the page, from offset 0 to the end of the log
+   * @throws EntityNotFoundException if there is no such job
+   */
+  public JobLogPage readAll(long jobId) {
+    Job job =
+        jobsRepository
+            .findById(jobId)
+            .orElseThrow(() -> new EntityNotFoundException(Job.class, jobId));
+    String log = jobLogStore.readLog(job);
+    String text = log == null ? "" : log;
+    return page(text, 0, text.length(), text.length());
+  }
+
+  /**
+   * Reads characters [start, end) of a job's log.
+   *
+   * @param jobId the job
+   * @param start offset of the first character; clamped to the log
+   * @param end offset after the last character, or null for the end of the log; clamped to the log
+   * @return the page
+   */
+  public JobLogPage readRange(long jobId, long start, Long end) {
+    long total = getSize(jobId);
+    long from = clamp(start, total);
+    long to = end == null ? total : Math.max(from, clamp(end, total));
+    return page(slice(jobId, from, to), from, to, total);
+  }
+
+  /**
+   * Reads whole lines starting at a character offset, e.g. the nextOffset of a previous page.
+   *
+   * @param jobId the job
+   * @param start offset of the first character; should be the start of a line
+   * @param maxLines maximum number of lines, or null for no limit
+   * @param maxChars maximum number of characters, or null for no limit
+   * @return the page; its text does not include the newline after the last line
+   */
+  public JobLogPage readLines(long jobId, long start, Integer maxLines, Long maxChars) {
+    long total = getSize(jobId);
+    return readLinesFrom(jobId, clamp(start, total), maxLines, maxChars, total);
+  }
+
+  /**
+   * Reads whole lines starting at a line number.
+   *
+   * @param jobId the job
+   * @param line number of the first line, counting from 0
+   * @param maxLines maximum number of lines, or null for no limit
+   * @param maxChars maximum number of characters, or null for no limit
+   * @return the page
+   */
+  public JobLogPage readLinesAt(long jobId, long line, Integer maxLines, Long maxChars) {
+    long total = getSize(jobId);
+    long start = 0;
+    long skipped = 0;
+    while (skipped < line && start < total) {
+      long chunkStart = start;
+      String chunk = slice(jobId, chunkStart, Math.min(total, chunkStart + chunkSize));
+      if (chunk.isEmpty()) {
+        break;
+      }
+      start = chunkStart + chunk.length();
+      for (int i = 0; i < chunk.length(); i++) {
+        if (chunk.charAt(i) == '\n' && ++skipped == line) {
+          start = chunkStart + i + 1;
+          break;
+        }
+      }
+    }
+    return readLinesFrom(jobId, start, maxLines, maxChars, total);
+  }
+
+  /**
+   * Reads the last lines of a job's log, reading backwards from the end in chunks.
+   *
+   * @param jobId the job
+   * @param lines how many lines
+   * @return the page
+   */
+  public JobLogPage readTail(long jobId, int lines) {
+    long total = getSize(jobId);
+    if (lines <= 0) {
+      return page("", total, total, total);
+    }
+    StringBuilder text = new StringBuilder();
+    long start = total;
+    int newlines = 0;
+    while (start > 0 && newlines < lines) {
+      long chunkStart = Math.max(0, start - chunkSize);
+      String chunk = slice(jobId, chunkStart, start);
+      text.insert(0, chunk);
+      start = chunkStart;
+      for (int i = chunk.length() - 1; i >= 0; i--) {
+        if (chunk.charAt(i) == '\n' && ++newlines == lines) {
+          // the lines-th newline from the end is just before the first line we want
+          text.delete(0, i + 1);
+          start = chunkStart + i + 1;
+          break;
+        }
+      }
+    }
+    return page(text.toString(), start, total, total);
+  }
+
+  /**
+   * Scans a job's log, starting at a character offset, for the lines that match a filter. Only a
+   * chunk of the log and the matching lines are held in memory at once.
+   *
+   * @param jobId the job
+   * @param start offset to start scanning at; should be the start of a line
+   * @param filter the lines to keep
+   * @param maxLines stop after this many matching lines, or null to scan the whole log
+   * @return the matching lines; nextOffset is where the scan stopped, to continue from there
+   */
+  public JobLogPage readMatching(long jobId, long start, JobLogFilter filter, Integer maxLines) {
+    long total = getSize(jobId);
+    long from = clamp(start, total);
+    if (maxLines != null && maxLines <= 0) {
+      return page("", from, from, total);
+    }
+    StringBuilder text = new StringBuilder();
+    StringBuilder line = new StringBuilder();
+    int matched = 0;
+    long position = from;
+    while (position < total) {
+      String chunk = slice(jobId, position, Math.min(total, position + chunkSize));
+      if (chunk.isEmpty()) {
+        break;
+      }
+      int lineStart = 0;
+      for (int i = 0; i < chunk.length(); i++) {
+        if (chunk.charAt(i) != '\n') {
+          continue;
+        }
+        line.append(chunk, lineStart, i);
+        lineStart = i + 1;
+        if (filter.matches(line)) {
+          text.append(matched++ == 0 ? "" : "\n").append(line);
+          if (maxLines != null && matched == maxLines) {
+            return page(text.toString(), from, position + i + 1, total);
+          }
+        }
+        line.setLength(0);
+      }
+      line.append(chunk, lineStart, chunk.length());
+      position += chunk.length();
+    }
+    if (!line.isEmpty() && filter.matches(line)) {
+      text.append(matched == 0 ? "" : "\n").append(line);
+    }
+    return page(text.toString(), from, position, total);
+  }
+
+  private JobLogPage readLinesFrom(
+      long jobId, long start, Integer maxLines, Long maxChars, long total) {
+    long limit = maxChars == null ? total : Math.min(total, start + Math.max(0, maxChars));
+    if (maxLines != null && maxLines <= 0) {
+      return page("", start, start, total);
+    }
+    StringBuilder text = new StringBuilder();
+    long position = start;
+    int lines = 0;
+    while (position < limit) {
+      String chunk = slice(jobId, position, Math.min(limit, position + chunkSize));
+      if (chunk.isEmpty()) {
+        break;
+      }
+      for (int i = 0; i < chunk.length(); i++) {
+        if (chunk.charAt(i) == '\n' && maxLines != null && ++lines == maxLines) {
+          text.append(chunk, 0, i);
+          return page(text.toString(), start, position + i + 1, total);
+        }
+      }
+      text.append(chunk);
+      position += chunk.length();
+    }
+    return page(text.toString(), start, position, total);
+  }
+
+  private String slice(long jobId, long start, long end) {
+    return jobLogStore.read(jobId, start, end);
+  }
+
+  private static long clamp(long offset, long total) {
+    return Math.min(Math.max(0, offset), total);
+  }
+
+  private static JobLogPage page(String text, long start, long next, long total) {
+    return JobLogPage.builder()
+        .text(text)
+        .startOffset(start)
+        .nextOffset(next)
+        .totalSize(total)
+        .build();
+  }
+}
@@ -0,0 +1,91 @@
+package edu.ucsb.cs156.example.services.jobs;
+
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A line of a job's log. Lines written by {@code ctx.info}, {@code ctx.warn} and {@code ctx.error}
+ * are structured:
+ *
+ * <pre>
+ * 2026-10-17T05:08:45.946Z ERROR Import failed row=17 file="a b.csv"
+ * </pre>
+ *
+ * <p>that is, a UTC timestamp, a level, the message, and any key/values, with newlines in the
+ * message or values written as {@code \n} so that every record stays on one line. Lines written by
+ * {@code ctx.log} have no timestamp or level.
+ *
+ * @param timestamp when the record was logged; null for a line written by ctx.log
+ * @param level the record's level; null for a line written by ctx.log
+ * @param message the rest of the line: the message and its key/values
+ */
+public record JobLogRecord(Instant timestamp, JobLogLevel level, String message) {
+
+  private static final Pattern STRUCTURED =
+      Pattern.compile("(\\d{4}-\\d\\d-\\d\\dT[\\d:.]+Z) (INFO|WARN|ERROR) (.*)", Pattern.DOTALL);
+
+  /**
+   * Parses a line of a job's log.
+   *
+   * @param line the line, without its newline
+   * @return the record; an unstructured line is all message
+   */
+  public static JobLogRecord parse(CharSequence line) {
+    Matcher m = STRUCTURED.matcher(line);
+    if (m.matches()) {
+      try {
+        return new JobLogRecord(
+            Instant.parse(m.group(1)), JobLogLevel.valueOf(m.group(2)), m.group(3));
+      } catch (DateTimeParseException e) {
+        // not a timestamp after all, e.g. a ctx.log line that happens to look like one
+      }
+    }
+    return new JobLogRecord(null, null, line.toString());
+  }
+
+  /**
+   * Formats a structured record as a line of a job's log.
+   *
+   * @param timestamp when the record was logged
+   * @param level the record's level
+   * @param message the message
+   * @param keyValues alternating keys and values, e.g. {@code "row", 17, "file", name}
+   * @return the line
+   * @throws IllegalArgumentException if a key has no value
+   */
+  public static String format(
+      Instant timestamp, JobLogLevel level, String message, Object... keyValues) {
+    if (keyValues.length % 2 != 0) {
+      throw new IllegalArgumentException(
+          "key/values must come in pairs, but got %d".formatted(keyValues.length));
+    }
+    StringBuilder line =
+        new StringBuilder()
+            .append(timestamp)
+            .append(' ')
+            .append(level)
+            .append(' ')
+            .append(oneLine(String.valueOf(message)));
+    for (int i = 0; i < keyValues.length; i += 2) {
+      line.append(' ')
+          .append(oneLine(String.valueOf(keyValues[i])))
+          .append('=')
+          .append(quote(oneLine(String.valueOf(keyValues[i + 1]))));
+    }
+    return line.toString();
+  }
+
+  private static String oneLine(String text) {
+    return text.replace("\r\n", "\\n").replace("\n", "\\n").replace("\r", "\\n");
+  }
+
+  /** Quotes a value that would otherwise be hard to tell apart from the next key/value */
+  private static String quote(String value) {
+    if (!value.isEmpty() && value.chars().noneMatch(c -> c == ' ' || c == '"' || c == '=')) {
+      return value;
+    }
+    return '"' + value.replace("\\", "\\\\").replace("\"", "\\\"") + '"';
+  }
+}
@@ -0,0 +1,86 @@
+package edu.ucsb.cs156.example.services.jobs;
+
+import edu.ucsb.cs156.example.entities.Job;
+import edu.ucsb.cs156.example.models.JobSummary;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Where job logs are kept, chosen with {@code app.jobs.log.store} (see JobLogStoreConfig):
+ *
+ * <ul>
+ *   <li>"database" (default): {@link DatabaseJobLogStore}, the log column of the jobs table
+ *   <li>"file": {@link FileJobLogStore}, gzip segment files under {@code app.jobs.log.dir}
+ * </ul>
+ *
+ * <p>A log is its lines joined with "\n". Offsets and sizes are in characters. Appends to one job
+ * must not race each other; JobContext and JobLogBuffer make sure they do not.
+ */
+public interface JobLogStore {
+
+  /**
+   * Appends lines to the end of a job's log.
+   *
+   * @param job the job
+   * @param lines one or more lines, joined with "\n", without a trailing newline
+   */
+  void append(Job job, String lines);
+
+  /**
+   * Called once nothing more will be appended to a job's log (for now), so that the store can
+   * release what it keeps open for appending. A later append is still allowed.
+   *
+   * @param job the job
+   */
+  void close(Job job);
+
+  /**
+   * Returns the total size of a job's log.
+   *
+   * @param jobId the job
+   * @return the number of characters in the log (0 if it has none); empty if there is no such job
+   */
+  Optional<Long> getSize(long jobId);
+
+  /**
+   * Counts the lines of a job's log without loading it.
+   *
+   * @param jobId the job
+   * @return the number of lines in the log; 0 if it has none, or there is no such job
+   */
+  long getLineCount(long jobId);
+
+  /**
+   * Reads part of a job's log without loading the rest of it.
+   *
+   * @param jobId the job
+   * @param start offset of the first character
+   * @param end offset after the last character; at most the size of the log
+   * @return characters [start, end) of the log; empty if end is not after start
+   */
+  String read(long jobId, long start, long end);
+
+  /**
+   * Reads the whole of a job's log.
+   *
+   * @param job the job
+   * @return the log, or null if nothing has been logged
+   */
+  String readLog(Job job);
+
+  /**
+   * Sets the log sizes of job summaries read from the jobs table, which computes them from the log
+   * column.
+   *
+   * @param summaries the summaries
+   */
+  void fillLogSizes(List<JobSummary> summaries);
+
+  /**
+   * Deletes the logs of jobs that have been deleted.
+   *
+   * @param jobIds the deleted jobs
+   */
+  void delete(Collection<Long> jobIds);
+}
@@ -0,0 +1,188 @@
+package edu.ucsb.cs156.example.services.jobs;
+
+import edu.ucsb.cs156.example.entities.Job;
+import edu.ucsb.cs156.example.entities.JobStatus;
+import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.repositories.JobsRepository;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * Serves {@code GET /api/jobs/logs/{id}/stream}.
+ *
+ * <p>Jobs running on this node have a {@link JobLogTail} and clients get each line as it is logged.
+ * For any other job the stored log is replayed; if the job has finished the stream ends with an
+ * "end" event carrying its status, otherwise (e.g. it is running on another node) the stream just
+ * closes and the browser's EventSource reconnects with {@code Last-Event-ID}.
+ *
+ * <p>Lines are numbered as they are logged, before {@code app.jobs.log.keep=headTail} drops any.
+ * The stored log of such a job has a marker in place of the lines dropped, which {@link
+ * #numberLines} numbers as the last of those lines, so that a replay gives every line after the
+ * marker the number it was streamed with.
+ */
+@Service
+@Slf4j
+public class JobLogStreamer {
+  @Autowired private JobsRepository jobsRepository;
+
+  @Autowired private JobLogStore jobLogStore;
+
+  @Value("${app.jobs.log.tailLines:1000}")
+  private int tailLines;
+
+  @Value("${app.jobs.log.streamTimeoutMs:600000}")
+  private long streamTimeoutMs;
+
+  /** how long a client should wait before reconnecting to a job running on another node */
+  @Value("${app.jobs.log.streamRetryMs:2000}")
+  private long streamRetryMs;
+
+  /** how many lines a client may fall behind a running job before its stream is closed */
+  @Value("${app.jobs.log.streamQueueLines:1000}")
+  private int streamQueueLines;
+
+  private final Map<Long, JobLogTail> tails = new ConcurrentHashMap<>();
+
+  // sends queued lines to clients, so that a slow client blocks a virtual thread, not the job
+  private Executor sender = Executors.newVirtualThreadPerTaskExecutor();
+
+  /**
+   * Starts tailing a job that is about to run on this node.
+   *
+   * @param job the job; lines already in its log (from an earlier attempt) keep their numbers
+   * @return the tail to pass to the job's JobContext
+   */
+  public JobLogTail open(Job job) {
+    // counted by the store, without reading the log
+    JobLogTail tail =
+        new JobLogTail(
+            Math.max(1, tailLines),
+            jobLogStore.getLineCount(job.getId()),
+            Math.max(1, streamQueueLines),
+            sender);
+    tails.put(job.getId(), tail);
+    return tail;
+  }
+
+  /**
+   * Stops tailing a job once its final status and log have been saved.
+   *
+   * @param job the finished job
+   * @param tail the tail returned by {@link #open(Job)}
+   */
+  public void close(Job job, JobLogTail tail) {
+    tails.remove(job.getId(), tail);
+    tail.close(job.getStatus());
+  }
+
+  /**
+   * Opens a stream of a job's log lines.
+   *
+   * @param jobId the job to stream
+   * @param after the number of the last line the client has already seen (0 for all lines)
+   * @return the emitter for the response
+   */
+  public SseEmitter stream(long jobId, long after) {
+    return stream(jobId, after, new SseEmitter(streamTimeoutMs));
+  }
+
+  SseEmitter stream(long jobId, long after, SseEmitter emitter) {
+    JobLogTail tail = tails.get(jobId);
+    if (tail != null && tail.subscribe(emitter, after, () -> storedLog(jobId))) {
+      return emitter;
+    }
+
+    Job job =
+        jobsRepository
+            .findById(jobId)
+            .orElseThrow(() -> new EntityNotFoundException(Job.class, jobId));
+    for (StoredLine line : numberLines(jobLogStore.readLog(job))) {
+      if (line.number() > after && !sendLine(emitter, line.number(), line.text())) {
+        return emitter;
+      }
+    }
+    if (isFinished(job.getStatus())) {
+      end(emitter, job.getStatus());
+    } else if (send(emitter, SseEmitter.event().reconnectTime(streamRetryMs).comment("running"))) {
+      emitter.complete();
+    }
+    return emitter;
+  }
+
+  public int getTailCount() {
+    return tails.size();
+  }
+
+  private String storedLog(long jobId) {
+    return jobsRepository.findById(jobId).map(jobLogStore::readLog).orElse(null);
+  }
+
+  static boolean isFinished(JobStatus status) {
+    return status == null || status.isFinished();
+  }
+
+  static void end(SseEmitter emitter, JobStatus status) {
+    if (send(
+        emitter, SseEmitter.event().name("end").data(status == null ? "" : status.getValue()))) {
+      emitter.complete();
+    }
+  }
+
+  static boolean sendLine(SseEmitter emitter, long n, String line) {
+    return send(emitter, SseEmitter.event().id(Long.toString(n)).name("log").data(line));
+  }
+
+  /**
+   * Sends an event, reporting rather than throwing a failure.
+   *
+   * @return false if the client has gone away; Spring then completes the emitter
+   */
+  static boolean send(SseEmitter emitter, SseEmitter.SseEventBuilder event) {
+    try {
+      emitter.send(event);
+      return true;
+    } catch (IOException | IllegalStateException e) {
+      return false;
+    }
+  }
+
+  /** A line of a stored log, with the number it was streamed with */
+  record StoredLine(long number, String text) {}
+
+  /**
+   * Numbers the lines of a stored log. Each line is numbered one more than the line before it,
+   * except a headTail marker, which is numbered as the last of the lines it stands for. (A job that
+   * logs a line that looks like a marker therefore has the lines after it numbered wrongly.)
+   *
+   * @param log the stored log, or null
+   * @return its lines, numbered from 1
+   */
+  static List<StoredLine> numberLines(String log) {
+    List<StoredLine> lines = new ArrayList<>();
+    long n = 0;
+    for (String line : splitLines(log)) {
+      long dropped = JobLogLimiter.droppedLinesIn(line);
+      n += dropped < 0 ? 1 : dropped;
+      lines.add(new StoredLine(n, line));
+    }
+    return lines;
+  }
+
+  static List<String> splitLines(String log) {
+    if (log == null) {
+      return List.of();
+    }
+    return Arrays.asList(log.split("\n", -1));
+  }
+}
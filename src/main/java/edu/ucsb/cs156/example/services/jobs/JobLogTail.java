@@ -0,0 +1,224 @@
+package edu.ucsb.cs156.example.services.jobs;
+
+import edu.ucsb.cs156.example.entities.JobStatus;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * Keeps the most recent log lines of a running job in memory and pushes each new line to the
+ * clients streaming it.
+ *
+ * <p>Lines are numbered from 1 in the order they appear in the job's log; that number is the SSE
+ * event id, so a client that reconnects with {@code Last-Event-ID: n} resumes at line n + 1.
+ *
+ * <p>The job's thread never writes to a client: each subscriber has a queue of at most {@code
+ * queueLines} lines, sent by a task on the {@code sender} executor. A subscriber that falls that
+ * far behind is dropped and its stream closed, and its EventSource reconnects from the last line it
+ * received, so a slow client cannot hold up the job, cancelling it, or the timeout sweep.
+ */
+@Slf4j
+public class JobLogTail {
+  private final int capacity;
+  private final int queueLines;
+  private final Executor sender;
+  private final Deque<String> lines = new ArrayDeque<>();
+  private final List<Subscriber> subscribers = new ArrayList<>();
+
+  /** number of the last line appended */
+  private long lineCount;
+
+  private boolean closed = false;
+
+  JobLogTail(int capacity, long lineCount, int queueLines, Executor sender) {
+    this.capacity = capacity;
+    this.lineCount = lineCount;
+    this.queueLines = queueLines;
+    this.sender = sender;
+  }
+
+  public synchronized long getLineCount() {
+    return lineCount;
+  }
+
+  public synchronized int getSubscriberCount() {
+    return subscribers.size();
+  }
+
+  /**
+   * Adds a log message (one line per newline it contains) and queues it for every subscriber.
+   *
+   * @param message the message passed to JobContext.log
+   */
+  public synchronized void append(String message) {
+    for (String line : JobLogStreamer.splitLines(message)) {
+      lineCount++;
+      lines.addLast(line);
+      if (lines.size() > capacity) {
+        lines.removeFirst();
+      }
+      // iterate over a copy: dropping a subscriber removes it
+      for (Subscriber subscriber : List.copyOf(subscribers)) {
+        if (!subscriber.offer(lineCount, line)) {
+          log.info("Dropping a log stream that fell {} lines behind", queueLines);
+          subscribers.remove(subscriber);
+          subscriber.drop();
+        }
+      }
+    }
+  }
+
+  /**
+   * Sends the lines after {@code after} to a new subscriber, then keeps it subscribed for the lines
+   * that follow. Lines that have already dropped out of the tail are read from {@code storedLog}.
+   * The replay is sent on the caller's thread, outside this tail's lock; lines appended meanwhile
+   * wait in the subscriber's queue.
+   *
+   * @param emitter the client's emitter
+   * @param after the last line the client has seen
+   * @param storedLog supplies the job's log as saved in the database
+   * @return false if the tail has been closed, in which case the caller should replay from storage
+   */
+  boolean subscribe(SseEmitter emitter, long after, Supplier<String> storedLog) {
+    Subscriber subscriber = new Subscriber(emitter);
+    long firstInTail;
+    List<String> tailLines;
+    synchronized (this) {
+      if (closed) {
+        return false;
+      }
+      firstInTail = lineCount - lines.size() + 1;
+      tailLines = List.copyOf(lines);
+      subscribers.add(subscriber);
+    }
+    emitter.onCompletion(() -> unsubscribe(subscriber));
+    emitter.onTimeout(() -> unsubscribe(subscriber));
+    emitter.onError(e -> unsubscribe(subscriber));
+
+    if (after + 1 < firstInTail) {
+      for (JobLogStreamer.StoredLine line : JobLogStreamer.numberLines(storedLog.get())) {
+        if (line.number() >= firstInTail) {
+          break;
+        }
+        if (line.number() > after
+            && !JobLogStreamer.sendLine(emitter, line.number(), line.text())) {
+          unsubscribe(subscriber);
+          return true;
+        }
+      }
+    }
+    long n = firstInTail;
+    for (String line : tailLines) {
+      if (n > after && !JobLogStreamer.sendLine(emitter, n, line)) {
+        unsubscribe(subscriber);
+        return true;
+      }
+      n++;
+    }
+    subscriber.resume();
+    return true;
+  }
+
+  synchronized void unsubscribe(Subscriber subscriber) {
+    subscribers.remove(subscriber);
+  }
+
+  /**
+   * Tells every subscriber that the job has finished and ends their streams, once each has been
+   * sent the lines queued for it.
+   *
+   * @param status the job's final status, sent as the data of the "end" event
+   */
+  synchronized void close(JobStatus status) {
+    closed = true;
+    List<Subscriber> ending = List.copyOf(subscribers);
+    subscribers.clear();
+    for (Subscriber subscriber : ending) {
+      subscriber.end(status);
+    }
+  }
+
+  /** A client streaming the tail, with the lines not yet sent to it */
+  class Subscriber {
+    private final SseEmitter emitter;
+    private final Deque<Runnable> queue = new ArrayDeque<>();
+
+    /** true while the replay is being sent, or a task is sending the queue */
+    private boolean sending = true;
+
+    Subscriber(SseEmitter emitter) {
+      this.emitter = emitter;
+    }
+
+    /**
+     * Queues a line for this subscriber.
+     *
+     * @return false if the queue is full
+     */
+    synchronized boolean offer(long n, String line) {
+      if (queue.size() >= queueLines) {
+        return false;
+      }
+      enqueue(
+          () -> {
+            if (!JobLogStreamer.sendLine(emitter, n, line)) {
+              unsubscribe(this);
+              clear();
+            }
+          });
+      return true;
+    }
+
+    /** Queues the "end" event; it is always accepted, so that the stream ends */
+    synchronized void end(JobStatus status) {
+      enqueue(() -> JobLogStreamer.end(emitter, status));
+    }
+
+    /** Discards the queue and closes the stream, so that the client reconnects */
+    synchronized void drop() {
+      queue.clear();
+      enqueue(emitter::complete);
+    }
+
+    /** Starts sending the queue once the replay has been sent */
+    synchronized void resume() {
+      sending = false;
+      startSending();
+    }
+
+    private synchronized void clear() {
+      queue.clear();
+    }
+
+    private void enqueue(Runnable send) {
+      queue.addLast(send);
+      startSending();
+    }
+
+    private void startSending() {
+      if (!sending && !queue.isEmpty()) {
+        sending = true;
+        sender.execute(this::sendQueued);
+      }
+    }
+
+    private void sendQueued() {
+      while (true) {
+        Runnable send;
+        synchronized (this) {
+          send = queue.pollFirst();
+          if (send == null) {
+            sending = false;
+            return;
+          }
+        }
+        send.run();
+      }
+    }
+  }
+}
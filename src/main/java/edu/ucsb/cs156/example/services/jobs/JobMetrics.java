@@ -0,0 +1,256 @@
+package edu.ucsb.cs156.example.services.jobs;
+
+import edu.ucsb.cs156.example.config.JobExecutorConfig;
+import edu.ucsb.cs156.example.entities.Job;
+import edu.ucsb.cs156.example.entities.JobStatus;
+import edu.ucsb.cs156.example.models.JobClassMetrics;
+import edu.ucsb.cs156.example.models.JobMetricsSummary;
+import edu.ucsb.cs156.example.repositories.JobsRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import jakarta.annotation.PostConstruct;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+/**
+ * Micrometer instrumentation for jobs run by JobService.
+ *
+ * <p>Meters (Prometheus names in parentheses, scraped from {@code /actuator/prometheus}):
+ *
+ * <ul>
+ *   <li>{@code jobs.queue.wait} ({@code jobs_queue_wait_seconds}): time from launch until a worker
+ *       starts the job, tagged by {@code job} (the job's class name)
+ *   <li>{@code jobs.run} ({@code jobs_run_seconds}): time the job ran, tagged by {@code job}
+ *   <li>{@code jobs.finished} ({@code jobs_finished_total}): finished jobs, tagged by {@code job}
+ *       and {@code status} ("complete", "error", "cancelled" or "timeout")
+ *   <li>{@code jobs.log.dropped} ({@code jobs_log_dropped_total}): log lines dropped from the
+ *       middle of jobs' logs when {@code app.jobs.log.keep=headTail}, tagged by {@code job}
+ *   <li>{@code jobs.log.index.truncated} ({@code jobs_log_index_truncated_total}): jobs that logged
+ *       more distinct words than {@code app.jobs.log.index.maxTokensPerJob}, so that not all of
+ *       them can be searched for, tagged by {@code job}
+ *   <li>{@code jobs.running}, {@code jobs.queued}: gauges of jobs running on this node and jobs
+ *       waiting for a worker
+ * </ul>
+ */
+@Service
+public class JobMetrics {
+  public static final String QUEUE_WAIT = "jobs.queue.wait";
+  public static final String RUN = "jobs.run";
+  public static final String FINISHED = "jobs.finished";
+  public static final String RUNNING = "jobs.running";
+  public static final String QUEUED = "jobs.queued";
+  public static final String LOG_LINES_DROPPED = "jobs.log.dropped";
+  public static final String LOG_INDEX_TRUNCATED = "jobs.log.index.truncated";
+
+  /** Statuses reported in the summary even before any job has finished with them */
+  static final List<String> FINISHED_STATUSES =
+      List.of("complete", "error", "cancelled", "timeout");
+
+  /** Client-side percentiles, in the order HistogramSnapshot.percentileValues() returns them */
+  private static final double[] PERCENTILES = {0.5, 0.95, 0.99};
+
+  @Autowired private MeterRegistry meterRegistry;
+
+  @Autowired private JobsRepository jobsRepository;
+
+  @Autowired private JobQueue jobQueue;
+
+  @Autowired private JobQuotas jobQuotas;
+
+  @Autowired
+  @Qualifier(JobExecutorConfig.JOB_EXECUTOR)
+  private ThreadPoolTaskExecutor jobExecutor;
+
+  private final AtomicInteger running = new AtomicInteger();
+
+  @PostConstruct
+  void registerGauges() {
+    Gauge.builder(RUNNING, running, AtomicInteger::get)
+        .description("Jobs running on this node")
+        .register(meterRegistry);
+    Gauge.builder(QUEUED, this, JobMetrics::getQueuedCount)
+        .description("Jobs waiting for a worker")
+        .register(meterRegistry);
+  }
+
+  /**
+   * Returns the name a job class is tagged with: its simple name, without the suffix the JVM gives
+   * lambdas, so that every launch of the same lambda shares one set of meters.
+   *
+   * @param jobClass the class of the JobContextConsumer
+   * @return e.g. "TestJob", or "JobsController$$Lambda" for a lambda declared in JobsController
+   */
+  public static String jobName(Class<?> jobClass) {
+    String name = jobClass.getSimpleName();
+    int lambda = name.indexOf("$$Lambda");
+    return lambda < 0 ? name : name.substring(0, lambda + "$$Lambda".length());
+  }
+
+  /**
+   * Returns the tag for a job stored by class name, as in {@link #jobName(Class)}.
+   *
+   * @param className a binary class name, e.g. "edu.ucsb.cs156.example.jobs.TestJob"
+   * @return the part after the last '.' or '$', e.g. "TestJob"
+   */
+  public static String jobName(String className) {
+    return className.substring(
+        Math.max(className.lastIndexOf('.'), className.lastIndexOf('$')) + 1);
+  }
+
+  /**
+   * Records that a worker has started a job, and how long the job waited since it was launched.
+   *
+   * @param job the job; its createdAt is the launch time
+   * @param jobName the job's tag, from {@link #jobName(Class)}
+   */
+  public void jobStarted(Job job, String jobName) {
+    running.incrementAndGet();
+    if (job.getCreatedAt() != null) {
+      Duration wait = Duration.between(job.getCreatedAt(), ZonedDateTime.now());
+      timer(QUEUE_WAIT, "Time jobs wait for a worker", jobName)
+          .record(wait.isNegative() ? Duration.ZERO : wait);
+    }
+  }
+
+  /**
+   * Records that a job has finished.
+   *
+   * @param jobName the job's tag, from {@link #jobName(Class)}
+   * @param status the job's final status, e.g. COMPLETE or ERROR
+   * @param runTime how long the job ran
+   */
+  public void jobFinished(String jobName, JobStatus status, Duration runTime) {
+    running.decrementAndGet();
+    timer(RUN, "Time jobs spend running", jobName).record(runTime);
+    Counter.builder(FINISHED)
+        .description("Jobs that have finished")
+        .tag("job", jobName)
+        .tag("status", status.getValue())
+        .register(meterRegistry)
+        .increment();
+  }
+
+  /**
+   * Records log lines a job dropped to keep only the head and tail of its log.
+   *
+   * @param jobName the job's tag, from {@link #jobName(Class)}
+   * @param lines the number of lines dropped
+   */
+  public void logLinesDropped(String jobName, long lines) {
+    Counter.builder(LOG_LINES_DROPPED)
+        .description("Log lines dropped from the middle of jobs' logs")
+        .tag("job", jobName)
+        .register(meterRegistry)
+        .increment(lines);
+  }
+
+  /**
+   * Records a job whose log had more distinct words than the log search index keeps.
+   *
+   * @param jobName the job's tag, from {@link #jobName(Class)}
+   */
+  public void logIndexTruncated(String jobName) {
+    Counter.builder(LOG_INDEX_TRUNCATED)
+        .description("Jobs whose logs were only partly indexed for search")
+        .tag("job", jobName)
+        .register(meterRegistry)
+        .increment();
+  }
+
+  private Timer timer(String name, String description, String jobName) {
+    return Timer.builder(name)
+        .description(description)
+        .tag("job", jobName)
+        .publishPercentiles(PERCENTILES)
+        .publishPercentileHistogram()
+        .register(meterRegistry);
+  }
+
+  public int getRunningCount() {
+    return running.get();
+  }
+
+  /**
+   * Returns the number of jobs waiting for a worker: those in this node's executor queue, plus (in
+   * database mode) those in the jobs table waiting to be claimed by any node.
+   *
+   * @return the number of queued jobs
+   */
+  public long getQueuedCount() {
+    long queued = jobExecutor.getQueueSize();
+    if (jobQueue.isDatabaseMode()) {
+      queued += jobsRepository.countByStatus(JobStatus.QUEUED);
+    }
+    return queued;
+  }
+
+  /**
+   * Summarizes the job meters for {@code /api/jobs/metrics}.
+   *
+   * @return counts since startup, queue wait and run time statistics for each job class, and the
+   *     per-user quotas
+   */
+  public JobMetricsSummary getSummary() {
+    Map<String, Long> finished = new TreeMap<>();
+    FINISHED_STATUSES.forEach(status -> finished.put(status, 0L));
+    meterRegistry
+        .find(FINISHED)
+        .counters()
+        .forEach(
+            counter ->
+                finished.merge(
+                    counter.getId().getTag("status"), (long) counter.count(), Long::sum));
+
+    Map<String, JobClassMetrics.JobClassMetricsBuilder> byClass = new TreeMap<>();
+    for (Timer timer : meterRegistry.find(RUN).timers()) {
+      HistogramSnapshot run = timer.takeSnapshot();
+      byClass
+          .computeIfAbsent(timer.getId().getTag("job"), this::newJobClassMetrics)
+          .finished(run.count())
+          .runMeanMs(run.mean(TimeUnit.MILLISECONDS))
+          .runMaxMs(run.max(TimeUnit.MILLISECONDS))
+          .runP50Ms(percentile(run, 0))
+          .runP95Ms(percentile(run, 1))
+          .runP99Ms(percentile(run, 2));
+    }
+    for (Timer timer : meterRegistry.find(QUEUE_WAIT).timers()) {
+      HistogramSnapshot wait = timer.takeSnapshot();
+      byClass
+          .computeIfAbsent(timer.getId().getTag("job"), this::newJobClassMetrics)
+          .queueWaitMeanMs(wait.mean(TimeUnit.MILLISECONDS))
+          .queueWaitMaxMs(wait.max(TimeUnit.MILLISECONDS))
+          .queueWaitP95Ms(percentile(wait, 1));
+    }
+
+    List<JobClassMetrics> jobs = new ArrayList<>();
+    byClass.values().forEach(builder -> jobs.add(builder.build()));
+    return JobMetricsSummary.builder()
+        .running(getRunningCount())
+        .queued(getQueuedCount())
+        .finished(finished)
+        .jobs(jobs)
+        .quotas(jobQuotas.getSummary())
+        .build();
+  }
+
+  private JobClassMetrics.JobClassMetricsBuilder newJobClassMetrics(String jobName) {
+    return JobClassMetrics.builder().job(jobName).finished(0L);
+  }
+
+  private static double percentile(HistogramSnapshot snapshot, int index) {
+    return snapshot.percentileValues()[index].value(TimeUnit.MILLISECONDS);
+  }
+}
@@ -0,0 +1,74 @@
+package edu.ucsb.cs156.example.services.jobs;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A set of jobs to run as one pipeline, e.g. "import, then reindex and thumbnails, then export".
+ * Each step names the steps it depends on; JobService.runPipeline starts each step once all of them
+ * have completed, so independent steps run in parallel.
+ *
+ * <p>A step can only depend on steps added before it, so the steps always form a DAG.
+ */
+public class JobPipeline {
+  /** One step of the pipeline */
+  public record Step(String name, JobContextConsumer jobFunction, List<String> dependsOn) {}
+
+  private final String name;
+
+  private final Map<String, Step> steps = new LinkedHashMap<>();
+
+  /**
+   * @param name a name for the pipeline, used in its log
+   */
+  public JobPipeline(String name) {
+    this.name = name;
+  }
+
+  /**
+   * Adds a step.
+   *
+   * @param name the step's name, unique within the pipeline
+   * @param jobFunction the job the step runs
+   * @param dependsOn the names of steps, already added, that must complete before this one starts
+   * @return this pipeline
+   * @throws IllegalArgumentException if the name is blank, contains a comma or is already taken, or
+   *     a dependency has not been added
+   */
+  public JobPipeline step(String name, JobContextConsumer jobFunction, String... dependsOn) {
+    if (name == null || name.isBlank() || name.contains(",")) {
+      throw new IllegalArgumentException("Invalid step name: " + name);
+    }
+    if (steps.containsKey(name)) {
+      throw new IllegalArgumentException("Duplicate step: " + name);
+    }
+    for (String dependency : dependsOn) {
+      if (!steps.containsKey(dependency)) {
+        throw new IllegalArgumentException(
+            "Step %s depends on %s, which has not been added".formatted(name, dependency));
+      }
+    }
+    steps.put(name, new Step(name, jobFunction, List.of(dependsOn)));
+    return this;
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  /**
+   * Returns the steps, in the order they were added.
+   *
+   * @return the steps
+   */
+  public Collection<Step> getSteps() {
+    return Collections.unmodifiableCollection(steps.values());
+  }
+
+  public Step getStep(String name) {
+    return steps.get(name);
+  }
+}
@@ -0,0 +1,202 @@
+package edu.ucsb.cs156.example.services.jobs;
+
+import edu.ucsb.cs156.example.entities.Job;
+import edu.ucsb.cs156.example.entities.JobStatus;
+import edu.ucsb.cs156.example.errors.JobRejectedException;
+import edu.ucsb.cs156.example.repositories.JobsRepository;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Service;
+
+/**
+ * Runs the steps of the pipelines launched on this node, each as its own job.
+ *
+ * <p>A step starts once every step it depends on has completed, so independent branches of the
+ * pipeline run in parallel, on as many workers as the priority lanes give them. A step whose
+ * dependency did not complete (error, timeout, cancelled, rejected or skipped) is marked "skipped"
+ * without running. Once every step has finished, the pipeline's job is marked "complete" if they
+ * all completed, and "error" (or "cancelled") otherwise, and a line per step is added to its log. A
+ * pending step can be cancelled on its own; it is marked "cancelled", so the steps that depend on
+ * it are skipped.
+ *
+ * <p>Steps always run on the node that launched the pipeline, since it is the node that knows when
+ * their dependencies complete. If that node dies, the pipeline's lease expires and JobQueue marks
+ * it "error" and its pending steps "skipped".
+ */
+@Service
+@Slf4j
+public class JobPipelines {
+  @Autowired private JobsRepository jobsRepository;
+
+  @Autowired private JobQueue jobQueue;
+
+  @Autowired private JobLogStore jobLogStore;
+
+  @Lazy @Autowired private JobService jobService;
+
+  /** A pipeline running on this node; it and its steps' statuses are changed under its lock */
+  private static class Run {
+    final Job pipelineJob;
+    final JobPipeline pipeline;
+    final Map<String, Job> steps;
+    boolean cancelled;
+
+    Run(Job pipelineJob, JobPipeline pipeline, Map<String, Job> steps) {
+      this.pipelineJob = pipelineJob;
+      this.pipeline = pipeline;
+      this.steps = steps;
+    }
+  }
+
+  /** Pipelines running on this node, by the id of the pipeline's job */
+  private final Map<Long, Run> runs = new ConcurrentHashMap<>();
+
+  /**
+   * Starts the steps of a pipeline that depend on nothing.
+   *
+   * @param pipelineJob the pipeline's job, saved and running
+   * @param pipeline the steps to run
+   * @param steps the steps' jobs, saved with status "pending", by step name
+   */
+  void start(Job pipelineJob, JobPipeline pipeline, Map<String, Job> steps) {
+    Run run = new Run(pipelineJob, pipeline, steps);
+    runs.put(pipelineJob.getId(), run);
+    synchronized (run) {
+      advance(run);
+    }
+  }
+
+  /**
+   * Starts the steps that were waiting for a step that has just finished, or finishes its pipeline.
+   * Called by JobService once the step's final status has been saved.
+   *
+   * @param step the step's job
+   */
+  void stepFinished(Job step) {
+    Run run = runs.get(step.getPipelineId());
+    if (run == null) {
+      return;
+    }
+    synchronized (run) {
+      advance(run);
+    }
+  }
+
+  /**
+   * Cancels a pipeline running on this node: its running steps are cancelled and the rest skipped.
+   * Or, given the id of one of its pending steps, cancels just that step.
+   *
+   * @param id the id of the pipeline's job, or of a pending step
+   * @return true if the pipeline is running on this node and has been asked to stop, or the step
+   *     was pending on this node and has been cancelled
+   */
+  boolean cancel(long id) {
+    Run run = runs.get(id);
+    if (run == null) {
+      return cancelPendingStep(id);
+    }
+    synchronized (run) {
+      run.cancelled = true;
+      for (Job step : run.steps.values()) {
+        if (step.getStatus() == JobStatus.RUNNING) {
+          jobService.cancelHeld(step.getId());
+        }
+      }
+      advance(run);
+    }
+    return true;
+  }
+
+  /** Marks a pending step "cancelled" and skips the steps that depend on it */
+  private boolean cancelPendingStep(long id) {
+    for (Run run : runs.values()) {
+      synchronized (run) {
+        for (Job step : run.steps.values()) {
+          if (step.getId() == id && step.getStatus() == JobStatus.PENDING) {
+            JobService.transition(step, JobStatus.CANCELLED);
+            jobsRepository.save(step);
+            advance(run);
+            return true;
+          }
+        }
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Returns the number of pipelines running on this node.
+   *
+   * @return the number of pipelines
+   */
+  public int getRunningCount() {
+    return runs.size();
+  }
+
+  /** Starts or skips every pending step whose dependencies have finished. Holds the run's lock. */
+  private void advance(Run run) {
+    boolean changed = true;
+    while (changed) {
+      changed = false;
+      for (Job step : run.steps.values()) {
+        if (step.getStatus() != JobStatus.PENDING) {
+          continue;
+        }
+        JobPipeline.Step definition = run.pipeline.getStep(step.getStepName());
+        List<JobStatus> dependencies =
+            definition.dependsOn().stream().map(name -> run.steps.get(name).getStatus()).toList();
+        if (run.cancelled || dependencies.stream().anyMatch(JobStatus::isFailed)) {
+          JobService.transition(step, JobStatus.SKIPPED);
+          jobsRepository.save(step);
+          changed = true;
+        } else if (dependencies.stream().allMatch(JobStatus.COMPLETE::equals)) {
+          JobService.transition(step, JobStatus.RUNNING);
+          try {
+            jobService.launchInMemory(step, definition.jobFunction());
+          } catch (JobRejectedException e) {
+            // saved as "rejected"; the steps that depend on it are skipped
+            changed = true;
+          }
+        }
+      }
+    }
+
+    if (run.steps.values().stream().allMatch(step -> step.getStatus().isFinished())) {
+      finish(run);
+    }
+  }
+
+  private void finish(Run run) {
+    Job pipelineJob = run.pipelineJob;
+    if (!runs.remove(pipelineJob.getId(), run)) {
+      // already finished, by a step that finished while this one waited for the lock
+      return;
+    }
+    boolean complete =
+        run.steps.values().stream().allMatch(step -> step.getStatus() == JobStatus.COMPLETE);
+
+    boolean leaseLost = jobQueue.isLeaseLost(pipelineJob);
+    jobQueue.release(pipelineJob);
+    if (leaseLost) {
+      // e.g. this node stalled past its lease and JobQueue has already marked the pipeline "error"
+      log.warn("Pipeline {}: lease was lost; not saving its final state", pipelineJob.getId());
+      return;
+    }
+    JobService.transition(
+        pipelineJob,
+        complete ? JobStatus.COMPLETE : run.cancelled ? JobStatus.CANCELLED : JobStatus.ERROR);
+    StringBuilder summary = new StringBuilder("Pipeline " + run.pipeline.getName());
+    for (Job step : run.steps.values()) {
+      summary.append(
+          "\n%s (job %d): %s"
+              .formatted(step.getStepName(), step.getId(), step.getStatus().getValue()));
+    }
+    new JobContext(jobLogStore, pipelineJob).log(summary.toString());
+    jobLogStore.close(pipelineJob);
+    jobsRepository.save(pipelineJob);
+  }
+}
@@ -0,0 +1,67 @@
+package edu.ucsb.cs156.example.services.jobs;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.ucsb.cs156.example.entities.Job;
+import edu.ucsb.cs156.example.repositories.JobsRepository;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Write-behind flusher for job progress.
+ *
+ * <p>Each running job gets a {@link JobProgressTracker}; this service writes every tracker whose
+ * progress or counters have changed to the database every {@code app.jobs.progress.flushIntervalMs}
+ * milliseconds, so a job can report progress on every row it processes at the cost of one small
+ * UPDATE per interval.
+ */
+@Service
+@Slf4j
+public class JobProgressFlusher {
+  @Autowired private JobsRepository jobsRepository;
+
+  @Autowired private ObjectMapper mapper;
+
+  private final Set<JobProgressTracker> trackers = ConcurrentHashMap.newKeySet();
+
+  /**
+   * Creates a tracker for a job and registers it for periodic flushing.
+   *
+   * @param job the job whose progress will be tracked
+   * @return the new tracker
+   */
+  public JobProgressTracker register(Job job) {
+    JobProgressTracker tracker = new JobProgressTracker(jobsRepository, mapper, job);
+    trackers.add(tracker);
+    return tracker;
+  }
+
+  /**
+   * Stops periodic flushing of a tracker and copies its latest progress onto the job, which the
+   * caller is about to save.
+   *
+   * @param tracker the tracker to close
+   */
+  public void close(JobProgressTracker tracker) {
+    trackers.remove(tracker);
+    tracker.apply();
+  }
+
+  @Scheduled(fixedDelayString = "${app.jobs.progress.flushIntervalMs:1000}")
+  public void flushAll() {
+    for (JobProgressTracker tracker : trackers) {
+      try {
+        tracker.flush();
+      } catch (Exception e) {
+        log.error("Failed to write progress for job {}", tracker.getJob().getId(), e);
+      }
+    }
+  }
+
+  public int getTrackerCount() {
+    return trackers.size();
+  }
+}
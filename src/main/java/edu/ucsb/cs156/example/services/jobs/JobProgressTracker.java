@@ -0,0 +1,89 @@
+package edu.ucsb.cs156.example.services.jobs;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.ucsb.cs156.example.entities.Job;
+import edu.ucsb.cs156.example.repositories.JobsRepository;
+import java.time.ZonedDateTime;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Holds the progress and counters a job has reported since they were last written to the database.
+ *
+ * <p>The job's thread updates them as often as it likes; they are written out, with a single UPDATE
+ * that leaves the log alone, only when the {@link JobProgressFlusher} runs or the job finishes.
+ */
+public class JobProgressTracker {
+  private final JobsRepository jobsRepository;
+  private final ObjectMapper mapper;
+  private final Job job;
+
+  private Long done;
+  private Long total;
+  private final Map<String, Long> counters = new TreeMap<>();
+  private boolean changed = false;
+
+  JobProgressTracker(JobsRepository jobsRepository, ObjectMapper mapper, Job job) {
+    this.jobsRepository = jobsRepository;
+    this.mapper = mapper;
+    this.job = job;
+  }
+
+  public Job getJob() {
+    return job;
+  }
+
+  public synchronized void progress(long done, long total) {
+    this.done = done;
+    this.total = total;
+    changed = true;
+  }
+
+  public synchronized void increment(String counter, long delta) {
+    counters.merge(counter, delta, Long::sum);
+    changed = true;
+  }
+
+  public synchronized Map<String, Long> getCounters() {
+    return Map.copyOf(counters);
+  }
+
+  /**
+   * Copies the latest progress onto the job and writes it to the database.
+   *
+   * @return true if anything had changed (and was written), false otherwise
+   */
+  public synchronized boolean flush() {
+    if (!apply()) {
+      return false;
+    }
+    jobsRepository.updateProgress(
+        job.getId(),
+        job.getProgressDone(),
+        job.getProgressTotal(),
+        job.getCounters(),
+        ZonedDateTime.now());
+    return true;
+  }
+
+  /**
+   * Copies the latest progress onto the job, without writing it.
+   *
+   * @return true if anything had changed since the last copy
+   */
+  synchronized boolean apply() {
+    if (!changed) {
+      return false;
+    }
+    try {
+      job.setCounters(counters.isEmpty() ? null : mapper.writeValueAsString(counters));
+    } catch (JsonProcessingException e) {
+      throw new IllegalStateException("Cannot write counters of job " + job.getId(), e);
+    }
+    job.setProgressDone(done);
+    job.setProgressTotal(total);
+    changed = false;
+    return true;
+  }
+}
@@ -0,0 +1,325 @@
+package edu.ucsb.cs156.example.services.jobs;
+
+import edu.ucsb.cs156.example.config.JobExecutorConfig;
+import edu.ucsb.cs156.example.entities.Job;
+import edu.ucsb.cs156.example.entities.JobPriority;
+import edu.ucsb.cs156.example.entities.JobStatus;
+import edu.ucsb.cs156.example.repositories.JobsRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Database-backed job queue and lease bookkeeping, built on the jobs table.
+ *
+ * <p>With {@code app.jobs.queue.mode=database}, JobService stores launched jobs with status
+ * "queued" and every node polls for them, claiming rows with {@code SELECT ... FOR UPDATE SKIP
+ * LOCKED} so each job is claimed by exactly one worker. Workers take jobs from the priority lanes
+ * in the weighted order given by JobLanes.
+ *
+ * <p>In either mode, a running job holds a lease ({@code lockedBy}, {@code leaseExpiresAt}) that
+ * this node renews every {@code heartbeatMs}. If a node dies, its leases expire: durable jobs go
+ * back on the queue (up to {@code maxAttempts} claims) and the rest are marked "error", so rows no
+ * longer stay "running" forever after a restart; nor do the pending steps of a pipeline, which are
+ * skipped once the pipeline is no longer running. The heartbeat also picks up cancel requests made
+ * on other nodes for the jobs this node is running. A job whose lease was taken over (e.g. after a
+ * long GC pause let it expire and another node requeued and claimed it) is cancelled, and its final
+ * state is not saved, so it cannot overwrite the new holder's.
+ *
+ * <p>The heartbeat and the reaper run on this class's own two threads rather than on Spring's
+ * scheduler, whose single thread is shared by every other @Scheduled task (purges, schedules,
+ * flushers, polling): a slow purge there must not delay a renewal until leases expire.
+ */
+@Service
+@Slf4j
+public class JobQueue {
+  @Autowired private JobsRepository jobsRepository;
+
+  @Autowired private PlatformTransactionManager transactionManager;
+
+  @Autowired
+  @Qualifier(JobExecutorConfig.JOB_EXECUTOR)
+  private ThreadPoolTaskExecutor jobExecutor;
+
+  @Autowired private JobLanes jobLanes;
+
+  @Lazy @Autowired private JobService jobService;
+
+  /** "memory" runs jobs on the launching node only; "database" queues them in the jobs table */
+  @Value("${app.jobs.queue.mode:memory}")
+  private String mode;
+
+  @Value("${app.jobs.queue.leaseMs:30000}")
+  private long leaseMs;
+
+  @Value("${app.jobs.queue.maxAttempts:3}")
+  private int maxAttempts;
+
+  @Value("${app.jobs.queue.workerId:}")
+  private String configuredWorkerId;
+
+  @Value("${app.jobs.queue.heartbeatMs:10000}")
+  private long heartbeatMs;
+
+  @Value("${app.jobs.queue.reapIntervalMs:15000}")
+  private long reapIntervalMs;
+
+  private ScheduledExecutorService leaseScheduler;
+
+  private String nodeId;
+
+  private JobQueueWorker worker;
+
+  // Jobs whose leases this node renews. Identity-based since Job.hashCode changes as jobs run.
+  private final Set<Job> held =
+      Collections.synchronizedSet(Collections.newSetFromMap(new IdentityHashMap<>()));
+
+  public boolean isDatabaseMode() {
+    return "database".equalsIgnoreCase(mode);
+  }
+
+  /**
+   * Returns the identifier this node uses as {@code lockedBy} for the leases it holds.
+   *
+   * @return the configured worker id, or "pid@hostname" plus a random suffix (in case the pid is
+   *     reused after a restart)
+   */
+  public synchronized String getNodeId() {
+    if (nodeId == null && !configuredWorkerId.isBlank()) {
+      nodeId = configuredWorkerId;
+    } else if (nodeId == null) {
+      nodeId =
+          ManagementFactory.getRuntimeMXBean().getName()
+              + "-"
+              + UUID.randomUUID().toString().substring(0, 8);
+    }
+    return nodeId;
+  }
+
+  /**
+   * Marks a job as leased by a worker and starts renewing that lease. Does not save the job.
+   *
+   * @param job the job
+   * @param workerId the worker running it
+   */
+  public void hold(Job job, String workerId) {
+    job.setLockedBy(workerId);
+    job.setLeaseExpiresAt(ZonedDateTime.now().plus(Duration.ofMillis(leaseMs)));
+    held.add(job);
+  }
+
+  /**
+   * Stops renewing a job's lease and clears it. Does not save the job.
+   *
+   * @param job the job
+   */
+  public void release(Job job) {
+    held.remove(job);
+    clearLease(job);
+  }
+
+  /**
+   * Clears a job's lease so that it is saved without one, but (unlike release) keeps the job held.
+   * The lease in the database is no longer renewed, so this is done just before the job is saved.
+   *
+   * @param job the job
+   */
+  public void clearLease(Job job) {
+    job.setLockedBy(null);
+    job.setLeaseExpiresAt(null);
+  }
+
+  /**
+   * Checks, just before a finished job is saved, that this node still holds its lease, and renews
+   * it so that it cannot be reaped while the job's final state is written.
+   *
+   * @param job the job
+   * @return true if another node has taken the job over (or it was reaped), in which case its final
+   *     state must not be saved; false if the job holds no lease
+   */
+  public boolean isLeaseLost(Job job) {
+    String workerId = job.getLockedBy();
+    if (workerId == null) {
+      return false;
+    }
+    ZonedDateTime leaseExpiresAt = ZonedDateTime.now().plus(Duration.ofMillis(leaseMs));
+    job.setLeaseExpiresAt(leaseExpiresAt);
+    return jobsRepository.renewLease(job.getId(), workerId, leaseExpiresAt) == 0;
+  }
+
+  /**
+   * Claims the oldest queued job in the lane whose turn it is, for a worker.
+   *
+   * @param workerId the worker claiming the job
+   * @return the claimed job, already marked "running" and leased to the worker
+   */
+  public Optional<Job> claimNext(String workerId) {
+    ZonedDateTime now = ZonedDateTime.now();
+    ZonedDateTime leaseExpiresAt = now.plus(Duration.ofMillis(leaseMs));
+    Long id =
+        new TransactionTemplate(transactionManager)
+            .execute(
+                status -> {
+                  Optional<Long> next =
+                      jobLanes.claim(lane -> jobsRepository.findNextQueuedIdForUpdate(lane.name()));
+                  next.ifPresent(
+                      jobId -> jobsRepository.claim(jobId, workerId, leaseExpiresAt, now));
+                  return next.orElse(null);
+                });
+    if (id == null) {
+      return Optional.empty();
+    }
+    Optional<Job> job = jobsRepository.findById(id);
+    job.ifPresent(held::add);
+    return job;
+  }
+
+  /**
+   * Returns a claimed job that could not be started to the queue.
+   *
+   * @param job the job
+   */
+  public void requeue(Job job) {
+    release(job);
+    jobsRepository.requeue(job.getId());
+  }
+
+  /**
+   * Number of queued jobs that will be claimed before the given one.
+   *
+   * @param job a queued job
+   * @return the estimate from JobLanes, given the jobs queued ahead of it in its own lane and the
+   *     jobs queued in the others
+   */
+  public long positionOf(Job job) {
+    Map<JobPriority, Long> waitingByLane = new EnumMap<>(JobPriority.class);
+    for (JobPriority lane : JobPriority.values()) {
+      waitingByLane.put(lane, jobsRepository.countByStatusAndPriority(JobStatus.QUEUED, lane));
+    }
+    long ahead =
+        jobsRepository.countByStatusAndPriorityAndIdLessThan(
+            JobStatus.QUEUED, job.getPriority(), job.getId());
+    return jobLanes.positionOf(job.getPriority(), ahead, waitingByLane);
+  }
+
+  synchronized JobQueueWorker getWorker() {
+    if (worker == null) {
+      worker = new JobQueueWorker(this, jobService, jobExecutor, getNodeId());
+    }
+    return worker;
+  }
+
+  @Scheduled(
+      fixedDelayString = "${app.jobs.queue.pollIntervalMs:1000}",
+      initialDelayString = "${app.jobs.queue.pollIntervalMs:1000}")
+  public void poll() {
+    if (!isDatabaseMode()) {
+      return;
+    }
+    getWorker().pollOnce();
+  }
+
+  @PostConstruct
+  void startLeaseScheduler() {
+    leaseScheduler =
+        Executors.newScheduledThreadPool(
+            2, Thread.ofPlatform().name("job-leases-", 0).daemon().factory());
+    long heartbeat = Math.max(1, heartbeatMs);
+    leaseScheduler.scheduleWithFixedDelay(
+        () -> runSafely("renew job leases", this::renewLeases),
+        heartbeat,
+        heartbeat,
+        TimeUnit.MILLISECONDS);
+    leaseScheduler.scheduleWithFixedDelay(
+        () -> runSafely("reap expired job leases", this::reapExpiredLeases),
+        0,
+        Math.max(1, reapIntervalMs),
+        TimeUnit.MILLISECONDS);
+  }
+
+  @PreDestroy
+  void stopLeaseScheduler() {
+    leaseScheduler.shutdownNow();
+  }
+
+  // an exception escaping a task would stop scheduleWithFixedDelay from running it again
+  private static void runSafely(String what, Runnable task) {
+    try {
+      task.run();
+    } catch (RuntimeException e) {
+      log.warn("Failed to {}", what, e);
+    }
+  }
+
+  public void renewLeases() {
+    List<Job> jobs;
+    synchronized (held) {
+      jobs = new ArrayList<>(held);
+    }
+    for (Job job : jobs) {
+      ZonedDateTime leaseExpiresAt = ZonedDateTime.now().plus(Duration.ofMillis(leaseMs));
+      String workerId = job.getLockedBy();
+      if (workerId == null || job.getId() == 0) {
+        // no lease, or not saved yet
+        continue;
+      }
+      // update the in-memory copy first, so a concurrent save of the job cannot shorten the lease
+      job.setLeaseExpiresAt(leaseExpiresAt);
+      if (jobsRepository.renewLease(job.getId(), workerId, leaseExpiresAt) == 0
+          && held.remove(job)) {
+        // another node has requeued or claimed the job; stop this copy before it saves over it
+        log.warn("Job {}: lease held by {} was lost; cancelling it", job.getId(), workerId);
+        jobService.cancelHeld(job.getId());
+      }
+    }
+
+    // pick up cancel requests made on other nodes for the jobs this node is running
+    if (!jobs.isEmpty()) {
+      List<Long> ids = jobs.stream().map(Job::getId).toList();
+      for (long id : jobsRepository.findCancelRequestedIds(ids)) {
+        jobService.cancelHeld(id);
+      }
+    }
+  }
+
+  public void reapExpiredLeases() {
+    ZonedDateTime now = ZonedDateTime.now();
+    int requeued = jobsRepository.requeueExpiredLeases(now, maxAttempts);
+    int failed = jobsRepository.failExpiredLeases(now);
+    if (requeued > 0 || failed > 0) {
+      log.info("Expired job leases: {} requeued, {} marked as error", requeued, failed);
+    }
+    int skipped = jobsRepository.skipOrphanedSteps(now);
+    if (skipped > 0) {
+      log.info("Skipped {} steps of pipelines that are no longer running", skipped);
+    }
+  }
+
+  public int getHeldCount() {
+    return held.size();
+  }
+}
@@ -0,0 +1,76 @@
+package edu.ucsb.cs156.example.services.jobs;
+
+import edu.ucsb.cs156.example.entities.Job;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * Claims queued jobs from the database and runs them on an executor.
+ *
+ * <p>A worker only claims as many jobs as its executor can run at once, leaving the rest in the
+ * jobs table for other workers (on this node or another one). JobQueue drives the default worker
+ * for this node; tests may create several workers against the same database.
+ */
+@Slf4j
+public class JobQueueWorker {
+  private final JobQueue jobQueue;
+  private final JobService jobService;
+  private final ThreadPoolTaskExecutor executor;
+  private final String workerId;
+
+  private final AtomicInteger inFlight = new AtomicInteger();
+
+  public JobQueueWorker(
+      JobQueue jobQueue, JobService jobService, ThreadPoolTaskExecutor executor, String workerId) {
+    this.jobQueue = jobQueue;
+    this.jobService = jobService;
+    this.executor = executor;
+    this.workerId = workerId;
+  }
+
+  public String getWorkerId() {
+    return workerId;
+  }
+
+  public int getInFlight() {
+    return inFlight.get();
+  }
+
+  /**
+   * Claims and starts queued jobs until the queue is empty or this worker is at capacity.
+   *
+   * @return the number of jobs claimed
+   */
+  public int pollOnce() {
+    int claimed = 0;
+    while (inFlight.get() < executor.getMaxPoolSize()) {
+      Optional<Job> next = jobQueue.claimNext(workerId);
+      if (next.isEmpty()) {
+        break;
+      }
+      Job job = next.get();
+      inFlight.incrementAndGet();
+      try {
+        executor.execute(
+            () -> {
+              try {
+                jobService.runClaimedJob(job);
+              } finally {
+                inFlight.decrementAndGet();
+              }
+            });
+      } catch (TaskRejectedException e) {
+        inFlight.decrementAndGet();
+        log.warn(
+            "Worker {} could not start job {}; returning it to the queue", workerId, job.getId());
+        jobQueue.requeue(job);
+        break;
+      }
+      claimed++;
+    }
+    return claimed;
+  }
+}
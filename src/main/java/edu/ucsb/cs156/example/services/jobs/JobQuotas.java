@@ -0,0 +1,206 @@
+package edu.ucsb.cs156.example.services.jobs;
+
+import edu.ucsb.cs156.example.entities.User;
+import edu.ucsb.cs156.example.errors.JobQuotaExceededException;
+import edu.ucsb.cs156.example.models.JobQuotaSummary;
+import edu.ucsb.cs156.example.models.JobUserQuota;
+import edu.ucsb.cs156.example.repositories.JobsRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Per-user limits on job launches, so that one user cannot take every worker.
+ *
+ * <ul>
+ *   <li>{@code app.jobs.quotas.maxConcurrentPerUser}: jobs a user may have queued or running at
+ *       once, on any node. A pipeline counts as one job, however many of its steps are running.
+ *   <li>{@code app.jobs.quotas.launchesPerMinute}: launches a user may make per minute on each
+ *       node, enforced with a token bucket that holds a minute's launches and refills continuously,
+ *       so a user may launch that many at once and then one every (60 / launchesPerMinute) seconds.
+ * </ul>
+ *
+ * <p>0 turns a limit off. Jobs launched without a user (e.g. by the JobScheduler) are not limited.
+ * The concurrent limit is checked against the jobs table before the job is saved, so launches by
+ * the same user that race each other may briefly exceed it.
+ *
+ * <p>Launches turned away are counted by the {@code jobs.quota.rejected} counter ({@code
+ * jobs_quota_rejected_total}), tagged by {@code reason} ("concurrent" or "rate").
+ */
+@Service
+public class JobQuotas {
+  public static final String REJECTED = "jobs.quota.rejected";
+
+  /** Reasons a launch is turned away, reported even before any launch has been */
+  static final List<String> REASONS = List.of("concurrent", "rate");
+
+  /** Retry-After for a user at their concurrent limit: there is no telling when a job will end */
+  static final long CONCURRENT_RETRY_AFTER_SECONDS = 5;
+
+  private static final double NANOS_PER_MINUTE = 60e9;
+
+  @Autowired private JobsRepository jobsRepository;
+
+  @Autowired private MeterRegistry meterRegistry;
+
+  @Value("${app.jobs.quotas.maxConcurrentPerUser:10}")
+  private int maxConcurrentPerUser;
+
+  @Value("${app.jobs.quotas.launchesPerMinute:60}")
+  private int launchesPerMinute;
+
+  /** A user's token bucket and rejections on this node */
+  private static class Usage {
+    final String email;
+    double tokens;
+    long refilledAt;
+    long rejected;
+
+    Usage(String email, double tokens, long refilledAt) {
+      this.email = email;
+      this.tokens = tokens;
+      this.refilledAt = refilledAt;
+    }
+
+    /** Adds the tokens earned since the last refill, up to a minute's launches */
+    void refill(long now, int perMinute) {
+      tokens = Math.min(perMinute, tokens + (now - refilledAt) * perMinute / NANOS_PER_MINUTE);
+      refilledAt = now;
+    }
+  }
+
+  /** Users who have launched a job on this node, by id */
+  private final Map<Long, Usage> users = new ConcurrentHashMap<>();
+
+  /**
+   * Checks that a user may launch another job, and takes one of their launches.
+   *
+   * @param user the user launching the job; null for a job launched by the system
+   * @throws JobQuotaExceededException if the user has reached either limit
+   */
+  public void checkLaunch(User user) {
+    checkLaunch(user, System.nanoTime());
+  }
+
+  void checkLaunch(User user, long now) {
+    if (user == null) {
+      return;
+    }
+    Usage usage =
+        users.computeIfAbsent(
+            user.getId(), id -> new Usage(user.getEmail(), launchesPerMinute, now));
+
+    if (maxConcurrentPerUser > 0) {
+      long active = jobsRepository.countActiveByCreatedBy(user.getId());
+      if (active >= maxConcurrentPerUser) {
+        throw reject(
+            usage,
+            "concurrent",
+            "%s already has %d jobs queued or running (limit %d); try again when one finishes"
+                .formatted(user.getEmail(), active, maxConcurrentPerUser),
+            CONCURRENT_RETRY_AFTER_SECONDS);
+      }
+    }
+
+    if (launchesPerMinute > 0) {
+      long waitNanos;
+      synchronized (usage) {
+        usage.refill(now, launchesPerMinute);
+        if (usage.tokens >= 1) {
+          usage.tokens -= 1;
+          return;
+        }
+        waitNanos = (long) Math.ceil((1 - usage.tokens) * NANOS_PER_MINUTE / launchesPerMinute);
+      }
+      long retryAfter = Math.max(1, (waitNanos + 999_999_999) / 1_000_000_000);
+      throw reject(
+          usage,
+          "rate",
+          "%s has launched too many jobs (limit %d per minute); try again in %d seconds"
+              .formatted(user.getEmail(), launchesPerMinute, retryAfter),
+          retryAfter);
+    }
+  }
+
+  /**
+   * Gives back the launch a user took for a job that was not launched after all, e.g. because
+   * another launch with the same idempotency key inserted its job first.
+   *
+   * @param user the user passed to {@link #checkLaunch(User)}; null for a job launched by the
+   *     system
+   */
+  public void refundLaunch(User user) {
+    Usage usage = user == null ? null : users.get(user.getId());
+    if (usage == null || launchesPerMinute <= 0) {
+      return;
+    }
+    synchronized (usage) {
+      usage.tokens = Math.min(launchesPerMinute, usage.tokens + 1);
+    }
+  }
+
+  private JobQuotaExceededException reject(
+      Usage usage, String reason, String message, long retryAfterSeconds) {
+    synchronized (usage) {
+      usage.rejected++;
+    }
+    Counter.builder(REJECTED)
+        .description("Job launches turned away by a per-user quota")
+        .tag("reason", reason)
+        .register(meterRegistry)
+        .increment();
+    return new JobQuotaExceededException(message, retryAfterSeconds);
+  }
+
+  /**
+   * Summarizes the quotas for {@code /api/jobs/metrics}.
+   *
+   * @return the limits, the launches turned away, and each user who has launched a job on this node
+   */
+  public JobQuotaSummary getSummary() {
+    return getSummary(System.nanoTime());
+  }
+
+  JobQuotaSummary getSummary(long now) {
+    Map<String, Long> rejected = new TreeMap<>();
+    REASONS.forEach(reason -> rejected.put(reason, 0L));
+    meterRegistry
+        .find(REJECTED)
+        .counters()
+        .forEach(
+            counter ->
+                rejected.merge(
+                    counter.getId().getTag("reason"), (long) counter.count(), Long::sum));
+
+    Map<String, JobUserQuota> byEmail = new TreeMap<>();
+    users.forEach(
+        (id, usage) -> {
+          JobUserQuota.JobUserQuotaBuilder quota =
+              JobUserQuota.builder()
+                  .email(usage.email)
+                  .activeJobs(jobsRepository.countActiveByCreatedBy(id));
+          synchronized (usage) {
+            if (launchesPerMinute > 0) {
+              usage.refill(now, launchesPerMinute);
+              quota.launchesAvailable((int) usage.tokens);
+            }
+            quota.rejected(usage.rejected);
+          }
+          byEmail.put(usage.email, quota.build());
+        });
+
+    return JobQuotaSummary.builder()
+        .maxConcurrentPerUser(maxConcurrentPerUser)
+        .launchesPerMinute(launchesPerMinute)
+        .rejected(rejected)
+        .users(new ArrayList<>(byEmail.values()))
+        .build();
+  }
+}
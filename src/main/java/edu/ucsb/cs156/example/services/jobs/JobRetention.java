@@ -0,0 +1,133 @@
+package edu.ucsb.cs156.example.services.jobs;
+
+import edu.ucsb.cs156.example.entities.JobStatus;
+import edu.ucsb.cs156.example.models.JobSummary;
+import edu.ucsb.cs156.example.repositories.JobsRepository;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.function.Supplier;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Deletes old job records, so that the jobs table does not grow without bound.
+ *
+ * <p>Every {@code app.jobs.retention.intervalMs}, completed jobs are purged if they are older than
+ * {@code maxAgeDays}, or if there are more than {@code maxCount} newer completed jobs. Failed jobs
+ * (any other finished status, see {@link JobStatus#isFailed()}) are kept for {@code
+ * failedMaxAgeDays} however many there are, so that they are still there to look into. Setting any
+ * of these to 0 turns that rule off.
+ *
+ * <p>Jobs are deleted {@code batchSize} at a time, each batch with a single {@code DELETE ... WHERE
+ * id IN (...)} in its own transaction, so a large purge neither loads the jobs nor holds locks on
+ * the whole table. Their logs are then deleted from the JobLogStore, and from the JobLogIndex, and
+ * their artifacts from JobArtifacts.
+ */
+@Service
+@Slf4j
+public class JobRetention {
+  @Autowired private JobsRepository jobsRepository;
+
+  @Autowired private JobLogStore jobLogStore;
+
+  @Autowired private JobLogIndex jobLogIndex;
+
+  @Autowired private JobArtifacts jobArtifacts;
+
+  @Value("${app.jobs.retention.maxAgeDays:30}")
+  private int maxAgeDays;
+
+  @Value("${app.jobs.retention.failedMaxAgeDays:90}")
+  private int failedMaxAgeDays;
+
+  @Value("${app.jobs.retention.maxCount:10000}")
+  private int maxCount;
+
+  @Value("${app.jobs.retention.batchSize:1000}")
+  private int batchSize;
+
+  @Scheduled(
+      fixedDelayString = "${app.jobs.retention.intervalMs:3600000}",
+      initialDelayString = "${app.jobs.retention.initialDelayMs:60000}")
+  public void purge() {
+    ZonedDateTime now = ZonedDateTime.now();
+    int deleted = 0;
+    if (maxAgeDays > 0) {
+      ZonedDateTime before = now.minusDays(maxAgeDays);
+      deleted +=
+          deleteInBatches(() -> jobsRepository.findCompleteIdsCreatedBefore(before, limit()));
+    }
+    if (failedMaxAgeDays > 0) {
+      ZonedDateTime before = now.minusDays(failedMaxAgeDays);
+      deleted += deleteInBatches(() -> jobsRepository.findFailedIdsCreatedBefore(before, limit()));
+    }
+    if (maxCount > 0) {
+      List<JobSummary> oldestToDelete =
+          jobsRepository.findCompleteSummaries(PageRequest.of(maxCount, 1));
+      if (!oldestToDelete.isEmpty()) {
+        JobSummary from = oldestToDelete.get(0);
+        deleted +=
+            deleteInBatches(
+                () ->
+                    jobsRepository.findCompleteIdsFrom(from.getCreatedAt(), from.getId(), limit()));
+      }
+    }
+    if (deleted > 0) {
+      log.info("Job retention: deleted {} jobs", deleted);
+    }
+  }
+
+  /**
+   * Deletes every job, running or not.
+   *
+   * @return the number of jobs deleted
+   */
+  public int deleteAll() {
+    return deleteInBatches(() -> jobsRepository.findIds(limit()));
+  }
+
+  /**
+   * Deletes one job.
+   *
+   * @param id the job's id
+   * @return true if the job existed
+   */
+  public boolean delete(long id) {
+    boolean deleted = jobsRepository.deleteByIds(List.of(id)) > 0;
+    jobLogStore.delete(List.of(id));
+    jobLogIndex.delete(List.of(id));
+    jobArtifacts.delete(List.of(id));
+    return deleted;
+  }
+
+  private Limit limit() {
+    return Limit.of(Math.max(1, batchSize));
+  }
+
+  /**
+   * Deletes batches of jobs until there are none left.
+   *
+   * @param nextBatch returns the ids of the next batch of jobs to delete
+   * @return the number of jobs deleted
+   */
+  private int deleteInBatches(Supplier<List<Long>> nextBatch) {
+    int deleted = 0;
+    List<Long> ids = nextBatch.get();
+    while (!ids.isEmpty()) {
+      deleted += jobsRepository.deleteByIds(ids);
+      jobLogStore.delete(ids);
+      jobLogIndex.delete(ids);
+      jobArtifacts.delete(ids);
+      if (ids.size() < Math.max(1, batchSize)) {
+        break;
+      }
+      ids = nextBatch.get();
+    }
+    return deleted;
+  }
+}
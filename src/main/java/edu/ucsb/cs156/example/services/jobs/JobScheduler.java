@@ -0,0 +1,155 @@
+package edu.ucsb.cs156.example.services.jobs;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.ucsb.cs156.example.entities.Job;
+import edu.ucsb.cs156.example.entities.JobSchedule;
+import edu.ucsb.cs156.example.entities.JobStatus;
+import edu.ucsb.cs156.example.errors.InvalidJobScheduleException;
+import edu.ucsb.cs156.example.errors.JobRejectedException;
+import edu.ucsb.cs156.example.repositories.JobSchedulesRepository;
+import edu.ucsb.cs156.example.repositories.JobsRepository;
+import java.time.ZonedDateTime;
+import java.util.List;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.support.CronExpression;
+import org.springframework.stereotype.Service;
+
+/**
+ * Runs recurring jobs from the job schedules table.
+ *
+ * <p>Every {@code app.jobs.schedules.pollIntervalMs}, each enabled schedule whose next run is due
+ * is launched through {@link JobService#runAsJob}, so its runs are recorded in the jobs table like
+ * any other job. A firing is skipped if the job from the schedule's previous run is still queued or
+ * running, so that slow runs do not pile up on the job executor. Firings missed while no node was
+ * up are not caught up: the schedule just moves on to its next run.
+ *
+ * <p>Every node polls the schedules, but moving a schedule on to its next run is a conditional
+ * update that only one node can win, and only that node launches the job.
+ */
+@Service
+@Slf4j
+public class JobScheduler {
+  /** Statuses of a job that is still active */
+  static final List<JobStatus> ACTIVE = List.of(JobStatus.QUEUED, JobStatus.RUNNING);
+
+  @Autowired private JobSchedulesRepository jobSchedulesRepository;
+
+  @Autowired private JobsRepository jobsRepository;
+
+  @Autowired private JobService jobService;
+
+  @Autowired private ObjectMapper mapper;
+
+  /**
+   * Validates and saves a schedule, working out its next run from now.
+   *
+   * @param schedule a new schedule, or an existing one with updated fields
+   * @return the saved schedule
+   * @throws InvalidJobScheduleException if the cron expression, job type or job params are invalid
+   */
+  public JobSchedule save(JobSchedule schedule) {
+    if (schedule.getJobParams() == null || schedule.getJobParams().isBlank()) {
+      schedule.setJobParams("{}");
+    }
+    build(schedule);
+    ZonedDateTime next = nextRun(schedule.getCron(), ZonedDateTime.now());
+    if (schedule.getEnabled() && next == null) {
+      throw new InvalidJobScheduleException(
+          "Cron expression never fires: %s".formatted(schedule.getCron()));
+    }
+    schedule.setNextRunAt(schedule.getEnabled() ? next : null);
+    return jobSchedulesRepository.save(schedule);
+  }
+
+  @Scheduled(fixedDelayString = "${app.jobs.schedules.pollIntervalMs:10000}")
+  public void fireDueSchedules() {
+    ZonedDateTime now = ZonedDateTime.now();
+    for (JobSchedule schedule :
+        jobSchedulesRepository.findByEnabledTrueAndNextRunAtLessThanEqual(now)) {
+      try {
+        fire(schedule, now);
+      } catch (RuntimeException e) {
+        log.error("Job schedule {} ({}) failed to fire", schedule.getId(), schedule.getName(), e);
+      }
+    }
+  }
+
+  /**
+   * Launches a due schedule's job, unless another node got to it first or its previous run is still
+   * active.
+   *
+   * @param schedule a schedule whose next run is due
+   * @param now the current time
+   */
+  void fire(JobSchedule schedule, ZonedDateTime now) {
+    ZonedDateTime next = nextRun(schedule.getCron(), now);
+    if (jobSchedulesRepository.claimFiring(schedule.getId(), now, next) == 0) {
+      return;
+    }
+    Long lastJobId = schedule.getLastJobId();
+    if (lastJobId != null && jobsRepository.existsByIdAndStatusIn(lastJobId, ACTIVE)) {
+      log.info(
+          "Skipping job schedule {} ({}): job {} from its previous run is still active",
+          schedule.getId(),
+          schedule.getName(),
+          lastJobId);
+      jobSchedulesRepository.recordSkip(schedule.getId());
+      return;
+    }
+    try {
+      Job job =
+          jobService.runAsJob(build(schedule), schedule.getPriority(), schedule.getTimeoutMs());
+      jobSchedulesRepository.recordRun(schedule.getId(), job.getId(), now);
+    } catch (JobRejectedException e) {
+      log.warn(
+          "Skipping job schedule {} ({}): {}",
+          schedule.getId(),
+          schedule.getName(),
+          e.getMessage());
+      jobSchedulesRepository.recordSkip(schedule.getId());
+    }
+  }
+
+  /**
+   * Returns the first time a cron expression fires after a given time.
+   *
+   * @return the next run, or null if the expression never fires again
+   * @throws InvalidJobScheduleException if the cron expression is invalid
+   */
+  static ZonedDateTime nextRun(String cron, ZonedDateTime after) {
+    try {
+      return CronExpression.parse(cron).next(after);
+    } catch (IllegalArgumentException e) {
+      throw new InvalidJobScheduleException(
+          "Invalid cron expression %s: %s".formatted(cron, e.getMessage()));
+    }
+  }
+
+  /**
+   * Rebuilds a schedule's JobContextConsumer from its jobType and jobParams, the same way
+   * JobService rebuilds jobs claimed from the database queue.
+   *
+   * @throws InvalidJobScheduleException if the job type or job params are invalid
+   */
+  private JobContextConsumer build(JobSchedule schedule) {
+    String jobType = schedule.getJobType();
+    Class<?> jobClass;
+    try {
+      jobClass = Class.forName(jobType == null ? "" : jobType);
+    } catch (ClassNotFoundException e) {
+      throw new InvalidJobScheduleException("Unknown job type: %s".formatted(jobType));
+    }
+    if (!JobContextConsumer.class.isAssignableFrom(jobClass)) {
+      throw new InvalidJobScheduleException("%s is not a JobContextConsumer".formatted(jobType));
+    }
+    try {
+      return (JobContextConsumer) mapper.readValue(schedule.getJobParams(), jobClass);
+    } catch (JsonProcessingException e) {
+      throw new InvalidJobScheduleException(
+          "Invalid job params for %s: %s".formatted(jobType, e.getOriginalMessage()));
+    }
+  }
+}
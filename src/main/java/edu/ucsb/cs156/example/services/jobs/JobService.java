@@ -1,44 +1,672 @@
 package edu.ucsb.cs156.example.services.jobs;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.ucsb.cs156.example.config.JobExecutorConfig;
 import edu.ucsb.cs156.example.entities.Job;
+import edu.ucsb.cs156.example.entities.JobPriority;
+import edu.ucsb.cs156.example.entities.JobStatus;
+import edu.ucsb.cs156.example.entities.User;
+import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.errors.InvalidCursorException;
+import edu.ucsb.cs156.example.errors.InvalidIdempotencyKeyException;
+import edu.ucsb.cs156.example.errors.InvalidJobTransitionException;
+import edu.ucsb.cs156.example.errors.JobQuotaExceededException;
+import edu.ucsb.cs156.example.errors.JobRejectedException;
+import edu.ucsb.cs156.example.models.JobExecutorStats;
+import edu.ucsb.cs156.example.models.JobStatusCount;
+import edu.ucsb.cs156.example.models.JobSummary;
+import edu.ucsb.cs156.example.models.JobSummaryPage;
 import edu.ucsb.cs156.example.repositories.JobsRepository;
 import edu.ucsb.cs156.example.services.CurrentUserService;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadPoolExecutor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Lazy;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
 import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.stereotype.Service;
 
 @Service
+@Slf4j
 public class JobService {
+  /** Start of the job list: a cursor that sorts after every job when listing newest first */
+  private static final ZonedDateTime END_OF_TIME =
+      ZonedDateTime.of(9999, 12, 31, 0, 0, 0, 0, ZoneOffset.UTC);
+
   @Autowired private JobsRepository jobsRepository;
 
   @Autowired private CurrentUserService currentUserService;
 
+  @Autowired private JobLogStore jobLogStore;
+
+  @Autowired private JobLogFlusher jobLogFlusher;
+
+  @Autowired private JobProgressFlusher jobProgressFlusher;
+
+  @Autowired private JobLogStreamer jobLogStreamer;
+
+  @Autowired private JobLogIndex jobLogIndex;
+
+  @Autowired private JobArtifacts jobArtifacts;
+
+  @Autowired private JobQueue jobQueue;
+
+  @Autowired private JobMetrics jobMetrics;
+
+  @Autowired private JobLanes jobLanes;
+
+  @Autowired private JobIdempotency jobIdempotency;
+
+  @Autowired private JobPipelines jobPipelines;
+
+  @Autowired private JobQuotas jobQuotas;
+
+  @Autowired private ObjectMapper mapper;
+
+  @Autowired
+  @Qualifier(JobExecutorConfig.JOB_EXECUTOR)
+  private ThreadPoolTaskExecutor jobExecutor;
+
   @Lazy @Autowired private JobService self;
 
+  /**
+   * "sync" writes every log line as it is logged; "buffered" batches lines via the JobLogFlusher
+   */
+  @Value("${app.jobs.log.mode:sync}")
+  private String logMode;
+
+  /**
+   * "all" keeps every log line; "headTail" keeps the first headKb and the last tailKb
+   * (JobLogLimiter)
+   */
+  @Value("${app.jobs.log.keep:all}")
+  private String logKeep;
+
+  @Value("${app.jobs.log.headKb:64}")
+  private long logHeadKb;
+
+  @Value("${app.jobs.log.tailKb:64}")
+  private long logTailKb;
+
+  /** Timeout for jobs launched without one; 0 means no timeout */
+  @Value("${app.jobs.defaultTimeoutMs:0}")
+  private long defaultTimeoutMs;
+
+  /** Chunks a job's JobContext.fanOut works on at once; 0 means one per available processor */
+  @Value("${app.jobs.fanOut.parallelism:0}")
+  private int fanOutParallelism;
+
+  /** Jobs running on this node, by id, so that they can be cancelled */
+  private final Map<Long, RunningJob> running = new ConcurrentHashMap<>();
+
   public Job runAsJob(JobContextConsumer jobFunction) {
-    Job job = Job.builder().createdBy(currentUserService.getUser()).status("running").build();
+    return runAsJob(jobFunction, JobPriority.NORMAL, null);
+  }
 
-    jobsRepository.save(job);
-    self.runJobAsync(job, jobFunction);
+  /**
+   * Launches a job.
+   *
+   * @param jobFunction the job
+   * @param priority the lane the job waits in for a worker; null for NORMAL
+   * @param timeoutMs cancel the job with status "timeout" if it runs longer than this; null (or 0)
+   *     to use app.jobs.defaultTimeoutMs
+   * @return the job, with status "running" or (in database mode) "queued"
+   * @throws JobRejectedException if the job executor is at capacity
+   * @throws JobQuotaExceededException if the current user has reached a quota (see JobQuotas)
+   */
+  public Job runAsJob(JobContextConsumer jobFunction, JobPriority priority, Long timeoutMs) {
+    return runAsJob(jobFunction, priority, timeoutMs, null);
+  }
+
+  /**
+   * Launches a job, or returns the job already launched with the same idempotency key.
+   *
+   * @param jobFunction the job
+   * @param priority the lane the job waits in for a worker; null for NORMAL
+   * @param timeoutMs cancel the job with status "timeout" if it runs longer than this; null (or 0)
+   *     to use app.jobs.defaultTimeoutMs
+   * @param idempotencyKey null (or blank) for none; otherwise, within
+   *     app.jobs.idempotency.windowMs, launches by the current user with the same key and
+   *     parameters all get the same job (see JobIdempotency)
+   * @return the job, with status "running" or (in database mode) "queued"; for a repeated key, the
+   *     job as it is now
+   * @throws JobRejectedException if the job executor is at capacity
+   * @throws JobQuotaExceededException if the current user has reached a quota (see JobQuotas); a
+   *     launch repeating an earlier one's key is not checked, and one that loses the race to insert
+   *     its key gives back the launch it took
+   * @throws InvalidIdempotencyKeyException if the key was used for a launch with other parameters
+   */
+  public Job runAsJob(
+      JobContextConsumer jobFunction, JobPriority priority, Long timeoutMs, String idempotencyKey) {
+    long timeout = timeoutMs == null || timeoutMs <= 0 ? defaultTimeoutMs : timeoutMs;
+    Job job =
+        Job.builder()
+            .createdBy(currentUserService.getUser())
+            .status(JobStatus.RUNNING)
+            .priority(priority == null ? JobPriority.NORMAL : priority)
+            .timeoutMs(timeout > 0 ? timeout : null)
+            .build();
+    if (idempotencyKey == null || idempotencyKey.isBlank()) {
+      return launch(job, jobFunction);
+    }
+
+    String jobParams = serialize(jobFunction);
+    job.setIdempotencyKey(idempotencyKey);
+    job.setLaunchFingerprint(
+        JobIdempotency.fingerprint(
+            jobFunction.getClass().getName(), jobParams, job.getPriority(), job.getTimeoutMs()));
+    return jobIdempotency.launch(
+        job.getCreatedBy(),
+        idempotencyKey,
+        job.getLaunchFingerprint(),
+        () -> {
+          try {
+            return launch(job, jobFunction);
+          } catch (DataIntegrityViolationException e) {
+            // e.g. another node inserted a job with this key first; that launch is the one counted
+            jobQuotas.refundLaunch(job.getCreatedBy());
+            throw e;
+          }
+        });
+  }
+
+  /**
+   * Launches a pipeline: a job for the pipeline itself, and a job for each step, which starts on
+   * this node once the steps it depends on have completed (see JobPipelines).
+   *
+   * @param pipeline the steps to run
+   * @param priority the lane the steps wait in for a worker; null for NORMAL
+   * @return the pipeline's job, with status "running"; its steps have status "pending" until they
+   *     start
+   * @throws IllegalArgumentException if the pipeline has no steps
+   * @throws JobQuotaExceededException if the current user has reached a quota (see JobQuotas)
+   */
+  public Job runPipeline(JobPipeline pipeline, JobPriority priority) {
+    if (pipeline.getSteps().isEmpty()) {
+      throw new IllegalArgumentException("Pipeline %s has no steps".formatted(pipeline.getName()));
+    }
+    User user = currentUserService.getUser();
+    // the whole pipeline counts as one launch; its steps are not checked as they start
+    jobQuotas.checkLaunch(user);
+    JobPriority lane = priority == null ? JobPriority.NORMAL : priority;
+    Job pipelineJob =
+        Job.builder().createdBy(user).status(JobStatus.RUNNING).priority(lane).build();
+    // the pipeline's lease lapses if this node dies, so the pipeline is then marked "error"
+    jobQueue.hold(pipelineJob, jobQueue.getNodeId());
+    jobsRepository.save(pipelineJob);
+
+    Map<String, Job> steps = new LinkedHashMap<>();
+    for (JobPipeline.Step step : pipeline.getSteps()) {
+      steps.put(
+          step.name(),
+          Job.builder()
+              .createdBy(user)
+              .status(JobStatus.PENDING)
+              .priority(lane)
+              .timeoutMs(defaultTimeoutMs > 0 ? defaultTimeoutMs : null)
+              .pipelineId(pipelineJob.getId())
+              .stepName(step.name())
+              .dependsOn(step.dependsOn().isEmpty() ? null : String.join(",", step.dependsOn()))
+              .build());
+    }
+    jobsRepository.saveAll(steps.values());
+
+    jobPipelines.start(pipelineJob, pipeline, steps);
+    return pipelineJob;
+  }
+
+  private Job launch(Job job, JobContextConsumer jobFunction) {
+    jobQuotas.checkLaunch(job.getCreatedBy());
+    if (jobQueue.isDatabaseMode()) {
+      String jobParams = serialize(jobFunction);
+      if (jobParams != null) {
+        transition(job, JobStatus.QUEUED);
+        job.setJobType(jobFunction.getClass().getName());
+        job.setJobParams(jobParams);
+        jobsRepository.save(job);
+        job.setQueuePosition((int) jobQueue.positionOf(job));
+        return job;
+      }
+      log.warn(
+          "{} cannot be serialized; running it on this node only",
+          jobFunction.getClass().getName());
+    }
+    return launchInMemory(job, jobFunction);
+  }
+
+  /**
+   * Saves a job and hands it to the priority lanes, to run on this node.
+   *
+   * @param job the job, with status "running"
+   * @param jobFunction the job
+   * @return the job
+   * @throws JobRejectedException if the job executor is at capacity; the job is saved as "rejected"
+   */
+  Job launchInMemory(Job job, JobContextConsumer jobFunction) {
+    jobQueue.hold(job, jobQueue.getNodeId());
+    try {
+      jobsRepository.save(job);
+    } catch (RuntimeException e) {
+      // e.g. another launch with the same idempotency key saved its job first
+      jobQueue.release(job);
+      throw e;
+    }
+
+    int queuePosition =
+        jobExecutor.getActiveCount() < jobExecutor.getMaxPoolSize()
+            ? 0
+            : (int) jobLanes.positionOf(job);
+    try {
+      jobLanes.offer(job, jobFunction, self::runNextJobAsync);
+    } catch (TaskRejectedException e) {
+      jobQueue.release(job);
+      transition(job, JobStatus.REJECTED);
+      jobsRepository.save(job);
+      throw new JobRejectedException(
+          "Job executor is at capacity (%d running, %d queued); try again later"
+              .formatted(jobExecutor.getActiveCount(), jobExecutor.getQueueSize()));
+    }
+    job.setQueuePosition(queuePosition);
 
     return job;
   }
 
-  @Async
-  public void runJobAsync(Job job, JobContextConsumer jobFunction) {
-    JobContext context = new JobContext(jobsRepository, job);
+  /**
+   * Serializes a job so that another node can rebuild it. Lambdas and anonymous classes cannot be
+   * rebuilt, so they are only ever run in memory; neither can classes Jackson can write but not
+   * read back (e.g. no default constructor and no @Jacksonized builder).
+   *
+   * @return the job's fields as JSON, or null if the job cannot be serialized and rebuilt
+   */
+  private String serialize(JobContextConsumer jobFunction) {
+    Class<?> jobClass = jobFunction.getClass();
+    if (jobClass.isSynthetic() || jobClass.isAnonymousClass()) {
+      return null;
+    }
+    try {
+      String json = mapper.writeValueAsString(jobFunction);
+      mapper.readValue(json, jobClass);
+      return json;
+    } catch (JsonProcessingException e) {
+      return null;
+    }
+  }
+
+  /**
+   * Returns a snapshot of the job executor, for sizing maxConcurrency and queueCapacity.
+   *
+   * @return current executor statistics
+   */
+  public JobExecutorStats getExecutorStats() {
+    ThreadPoolExecutor executor = jobExecutor.getThreadPoolExecutor();
+    return JobExecutorStats.builder()
+        .maxConcurrency(jobExecutor.getMaxPoolSize())
+        .activeWorkers(jobExecutor.getActiveCount())
+        .queueDepth(jobExecutor.getQueueSize())
+        .queueCapacity(jobExecutor.getQueueCapacity())
+        .completedTasks(executor.getCompletedTaskCount())
+        .build();
+  }
+
+  /**
+   * Runs the job the priority lanes pick next. Each launch in memory dispatches one of these tasks,
+   * so the executor's queue bounds the number of jobs waiting, while the lanes decide their order.
+   */
+  @Async(JobExecutorConfig.JOB_EXECUTOR)
+  public void runNextJobAsync() {
+    jobLanes.poll().ifPresent(next -> runJob(next.job(), next.jobFunction()));
+  }
 
+  /**
+   * Runs a job claimed from the database queue, rebuilding its JobContextConsumer from the stored
+   * jobType and jobParams.
+   *
+   * @param job a job claimed by a JobQueueWorker
+   */
+  public void runClaimedJob(Job job) {
+    JobContextConsumer jobFunction;
     try {
-      jobFunction.accept(context);
+      Class<?> jobClass = Class.forName(job.getJobType());
+      jobFunction = (JobContextConsumer) mapper.readValue(job.getJobParams(), jobClass);
     } catch (Exception e) {
-      job.setStatus("error");
-      context.log(e.getMessage());
+      String jobName = JobMetrics.jobName(job.getJobType());
+      jobMetrics.jobStarted(job, jobName);
+      jobQueue.release(job);
+      transition(job, JobStatus.ERROR);
+      new JobContext(jobLogStore, job).log("Cannot rebuild job: " + e.getMessage());
+      jobLogStore.close(job);
+      jobsRepository.save(job);
+      jobMetrics.jobFinished(jobName, JobStatus.ERROR, Duration.ZERO);
       return;
     }
+    runJob(job, jobFunction);
+  }
+
+  void runJob(Job job, JobContextConsumer jobFunction) {
+    // the file store writes a gzip member per append, so its appends are always batched
+    JobLogBuffer logBuffer =
+        "buffered".equalsIgnoreCase(logMode) || jobLogStore instanceof FileJobLogStore
+            ? jobLogFlusher.register(job)
+            : null;
+    JobLogTail logTail = jobLogStreamer.open(job);
+    JobProgressTracker progressTracker = jobProgressFlusher.register(job);
+    JobContext context = new JobContext(jobLogStore, job, logBuffer, logTail, progressTracker);
+    if (fanOutParallelism > 0) {
+      context.setFanOutParallelism(fanOutParallelism);
+    }
+    JobLogLimiter logLimiter = null;
+    if ("headTail".equalsIgnoreCase(logKeep)) {
+      logLimiter = new JobLogLimiter(Math.max(0, logHeadKb) * 1024, Math.max(0, logTailKb) * 1024);
+      context.setLogLimiter(logLimiter);
+    }
+    JobLogIndexer logIndexer = jobLogIndex.open(job);
+    context.setLogIndexer(logIndexer);
+    context.setArtifacts(jobArtifacts);
+    String jobName = JobMetrics.jobName(jobFunction.getClass());
+    jobMetrics.jobStarted(job, jobName);
+    long started = System.nanoTime();
+    Long deadline = job.getTimeoutMs() == null ? null : started + job.getTimeoutMs() * 1_000_000L;
+    RunningJob runningJob = running.computeIfAbsent(job.getId(), id -> new RunningJob());
 
-    job.setStatus("complete");
-    jobsRepository.save(job);
+    Throwable failure = null;
+    if (runningJob.start(context, Thread.currentThread(), deadline)) {
+      try {
+        jobFunction.accept(context);
+      } catch (Throwable t) {
+        // Errors too (e.g. OutOfMemoryError), so that the job is still finished and saved below
+        failure = t;
+      }
+    }
+
+    // Each step below runs even if an earlier one throws: a job that is not saved stays "running"
+    // until its lease expires, and one that is not unregistered keeps its lease renewed forever.
+    boolean leaseLost = false;
+    try {
+      runningJob.finish();
+      // this also renews the lease, so the job cannot be reaped before its final state is saved
+      leaseLost = jobQueue.isLeaseLost(job);
+      // copy the final progress onto the job, which is saved below
+      jobProgressFlusher.close(progressTracker);
+
+      // a cancelled job usually ends with an exception (e.g. InterruptedException), but it may
+      // also return normally after polling isCancelled(); either way it is recorded as cancelled
+      String message = null;
+      if (leaseLost) {
+        // another node has taken the job over; its row and pipeline are no longer this node's
+        log.warn("Job {}: lease was lost while running; not saving its final state", job.getId());
+        transition(job, JobStatus.CANCELLED);
+      } else if (context.isCancelled()) {
+        transition(job, JobStatus.fromValue(context.getCancelReason()));
+        message =
+            "timeout".equals(context.getCancelReason())
+                ? "Job timed out after %d ms".formatted(job.getTimeoutMs())
+                : "Job cancelled";
+      } else if (failure != null) {
+        transition(job, JobStatus.ERROR);
+        message = Objects.toString(failure.getMessage(), failure.toString());
+      } else {
+        transition(job, JobStatus.COMPLETE);
+      }
+      String finalMessage = message;
+      runEach(
+          () -> {
+            if (finalMessage != null) {
+              context.log(finalMessage);
+            }
+          },
+          context::finishLog,
+          () -> jobLogIndex.close(logIndexer),
+          () -> {
+            if (logBuffer != null) {
+              jobLogFlusher.close(logBuffer);
+            }
+          },
+          () -> jobLogStore.close(job));
+      if (logLimiter != null && logLimiter.getDroppedLines() > 0) {
+        jobMetrics.logLinesDropped(jobName, logLimiter.getDroppedLines());
+      }
+      if (logIndexer != null && logIndexer.isTruncated()) {
+        jobMetrics.logIndexTruncated(jobName);
+      }
+    } finally {
+      try {
+        if (!leaseLost) {
+          if (job.getStatus() == JobStatus.RUNNING) {
+            // finishing the job threw before its status was recorded
+            transition(job, JobStatus.ERROR);
+          }
+          // the log has been written by the store; this writes the status and progress. The
+          // job's lease is released only once it is saved, so a job that finished but could not
+          // be saved is still reaped and rerun.
+          jobQueue.clearLease(job);
+          jobsRepository.save(job);
+        }
+      } finally {
+        runEach(
+            () -> jobQueue.release(job),
+            () -> running.remove(job.getId(), runningJob),
+            () -> jobLogStreamer.close(job, logTail),
+            () ->
+                jobMetrics.jobFinished(
+                    jobName, job.getStatus(), Duration.ofNanos(System.nanoTime() - started)));
+      }
+    }
+    if (!leaseLost && job.getPipelineId() != null) {
+      jobPipelines.stepFinished(job);
+    }
+  }
+
+  /**
+   * Runs every step, even if an earlier one throws, then rethrows the first exception (with those
+   * of the later steps that failed added as suppressed).
+   *
+   * @param steps the steps to run, in order
+   */
+  static void runEach(Runnable... steps) {
+    Throwable first = null;
+    for (Runnable step : steps) {
+      try {
+        step.run();
+      } catch (Throwable t) {
+        if (first == null) {
+          first = t;
+        } else {
+          first.addSuppressed(t);
+        }
+      }
+    }
+    if (first instanceof Error error) {
+      throw error;
+    } else if (first != null) {
+      throw (RuntimeException) first;
+    }
+  }
+
+  /**
+   * Cancels a job. A job running on this node is flagged and its thread interrupted; a pipeline
+   * running on this node cancels its running steps and skips the rest; a pending pipeline step is
+   * marked cancelled and the steps that depend on it skipped; a queued job is cancelled at once; a
+   * job (or pending step) held by another node is cancelled by that node on its next lease
+   * heartbeat.
+   *
+   * @param id the job's id
+   * @return true if the job was cancelled (or will be), false if it had already finished
+   * @throws EntityNotFoundException if there is no such job
+   */
+  public boolean cancel(long id) {
+    if (cancelRunning(id) || jobPipelines.cancel(id)) {
+      return true;
+    }
+    Job job =
+        jobsRepository.findById(id).orElseThrow(() -> new EntityNotFoundException(Job.class, id));
+    if (job.getStatus() == JobStatus.QUEUED
+        && jobsRepository.cancelQueued(id, ZonedDateTime.now()) == 1) {
+      return true;
+    }
+    // the node holding the job (possibly this one, if the job is still waiting for a worker)
+    // cancels it on its next heartbeat; this also covers a queued job claimed since it was read
+    return jobsRepository.requestCancel(id) == 1;
+  }
+
+  /**
+   * Cancels a job if it is running on this node.
+   *
+   * @param id the job's id
+   * @return true if the job was running on this node and has been asked to stop
+   */
+  boolean cancelRunning(long id) {
+    RunningJob runningJob = running.get(id);
+    return runningJob != null && runningJob.cancel("cancelled");
+  }
+
+  /**
+   * Cancels a job that this node holds the lease for, whether or not it has started yet (it may
+   * still be waiting for a worker). Called by JobQueue when another node asks for the job to be
+   * cancelled.
+   *
+   * @param id the job's id
+   */
+  void cancelHeld(long id) {
+    if (jobPipelines.cancel(id)) {
+      return;
+    }
+    running.computeIfAbsent(id, key -> new RunningJob()).cancel("cancelled");
+  }
+
+  @Scheduled(fixedDelayString = "${app.jobs.timeoutCheckIntervalMs:1000}")
+  public void cancelTimedOutJobs() {
+    long now = System.nanoTime();
+    running.forEach(
+        (id, runningJob) -> {
+          if (runningJob.isPastDeadline(now) && runningJob.cancel("timeout")) {
+            log.info("Job {} timed out", id);
+          }
+        });
+  }
+
+  /**
+   * Returns one page of the job list, newest first, without reading any job's log.
+   *
+   * @param statuses only list jobs with one of these statuses; null or empty for all jobs
+   * @param after the next cursor of the previous page, or null for the first page
+   * @param limit maximum number of jobs on the page
+   * @return the page
+   * @throws InvalidCursorException if after is not a cursor returned by this method
+   */
+  public JobSummaryPage getJobSummaries(Collection<JobStatus> statuses, String after, int limit) {
+    ZonedDateTime createdAt = END_OF_TIME;
+    long id = Long.MAX_VALUE;
+    if (after != null && !after.isEmpty()) {
+      try {
+        String[] key =
+            new String(Base64.getUrlDecoder().decode(after), StandardCharsets.UTF_8).split(",");
+        createdAt = Instant.parse(key[0]).atZone(ZoneOffset.UTC);
+        id = Long.parseLong(key[1]);
+      } catch (RuntimeException e) {
+        throw new InvalidCursorException(after);
+      }
+    }
+
+    List<JobSummary> jobs =
+        statuses == null || statuses.isEmpty()
+            ? jobsRepository.findSummariesBefore(createdAt, id, Limit.of(limit))
+            : jobsRepository.findSummariesBeforeWithStatus(
+                statuses, createdAt, id, Limit.of(limit));
+
+    jobLogStore.fillLogSizes(jobs);
+
+    String next = null;
+    if (jobs.size() == limit) {
+      JobSummary last = jobs.get(jobs.size() - 1);
+      String key = last.getCreatedAt().toInstant() + "," + last.getId();
+      next =
+          Base64.getUrlEncoder()
+              .withoutPadding()
+              .encodeToString(key.getBytes(StandardCharsets.UTF_8));
+    }
+    return JobSummaryPage.builder().jobs(jobs).next(next).build();
+  }
+
+  /**
+   * Gets a job's summary, without its log.
+   *
+   * @param id the job's id
+   * @return the summary
+   * @throws EntityNotFoundException if there is no such job
+   */
+  public JobSummary getJobSummary(long id) {
+    JobSummary summary =
+        jobsRepository
+            .findSummaryById(id)
+            .orElseThrow(() -> new EntityNotFoundException(Job.class, id));
+    jobLogStore.fillLogSizes(List.of(summary));
+    return summary;
+  }
+
+  /**
+   * Lists the steps of a pipeline, without their logs.
+   *
+   * @param pipelineId the id of the pipeline's job
+   * @return the steps' summaries, in the order they were added to the pipeline
+   */
+  public List<JobSummary> getPipelineSteps(long pipelineId) {
+    List<JobSummary> steps = jobsRepository.findStepSummaries(pipelineId);
+    jobLogStore.fillLogSizes(steps);
+    return steps;
+  }
+
+  /**
+   * Counts jobs by status, with one grouped query.
+   *
+   * @return the number of jobs with each status, by status value, including statuses no job has
+   */
+  public Map<String, Long> getStatusCounts() {
+    Map<String, Long> counts = new LinkedHashMap<>();
+    for (JobStatus status : JobStatus.values()) {
+      counts.put(status.getValue(), 0L);
+    }
+    for (JobStatusCount count : jobsRepository.countGroupedByStatus()) {
+      if (count.getStatus() != null) {
+        counts.put(count.getStatus().getValue(), count.getCount());
+      }
+    }
+    return counts;
+  }
+
+  /**
+   * Moves a job to a new status, if its life cycle allows it (see {@link JobStatus#next()}). Every
+   * change of a job's status in memory goes through here; the caller saves the job.
+   *
+   * @param job the job
+   * @param to the new status
+   * @throws InvalidJobTransitionException if the job cannot go from its status to this one, e.g.
+   *     because it has already finished
+   */
+  static void transition(Job job, JobStatus to) {
+    JobStatus from = job.getStatus();
+    if (from == null || !from.next().contains(to)) {
+      throw new InvalidJobTransitionException(job.getId(), from, to);
+    }
+    job.setStatus(to);
   }
 
   public String getJobLogs(Long jobId) {
@@ -47,7 +675,7 @@ public class JobService {
             .findById(jobId)
             .orElseThrow(() -> new IllegalArgumentException("Job not found"));
 
-    String log = job.getLog();
+    String log = jobLogStore.readLog(job);
     return log != null ? log : "";
   }
 }
@@ -0,0 +1,71 @@
+package edu.ucsb.cs156.example.services.jobs;
+
+/**
+ * A job that this node is running, or has accepted and is about to run.
+ *
+ * <p>Cancelling sets the context's cancel reason and interrupts the thread running the job; a job
+ * cancelled before it starts is not started at all. Once the job has finished, cancelling does
+ * nothing, so a late cancel or timeout cannot interrupt whatever the pool thread runs next.
+ */
+class RunningJob {
+  private JobContext context;
+  private Thread thread;
+
+  /** System.nanoTime() after which the job times out, or null for no timeout */
+  private Long deadline;
+
+  private String cancelReason;
+  private boolean finished = false;
+
+  /**
+   * Records that the job has started on the given thread.
+   *
+   * @param context the job's context
+   * @param thread the thread running the job
+   * @param deadline System.nanoTime() after which the job times out, or null for no timeout
+   * @return false if the job was cancelled before it started, and so should not be run
+   */
+  synchronized boolean start(JobContext context, Thread thread, Long deadline) {
+    this.context = context;
+    this.thread = thread;
+    this.deadline = deadline;
+    if (cancelReason != null) {
+      context.cancel(cancelReason);
+      return false;
+    }
+    return true;
+  }
+
+  synchronized boolean isPastDeadline(long now) {
+    return deadline != null && now - deadline >= 0;
+  }
+
+  /**
+   * Asks the job to stop.
+   *
+   * @param reason "cancelled" or "timeout"
+   * @return true if the job had not finished yet, false if it had
+   */
+  synchronized boolean cancel(String reason) {
+    if (finished) {
+      return false;
+    }
+    if (cancelReason == null) {
+      cancelReason = reason;
+    }
+    if (context != null) {
+      context.cancel(reason);
+      thread.interrupt();
+    }
+    return true;
+  }
+
+  /**
+   * Marks the job as finished. Must be called on the thread that ran the job: it also clears any
+   * interrupt left over from a cancel request.
+   */
+  synchronized void finish() {
+    finished = true;
+    Thread.interrupted();
+  }
+}
@@ -1,6 +1,7 @@
 package edu.ucsb.cs156.example.controllers;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.times;
@@ -13,32 +14,40 @@ import static org.springframework.test.web.servlet.request.MockMvcRequestBuilder
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import edu.ucsb.cs156.example.ControllerTestCase;
 import edu.ucsb.cs156.example.entities.Articles;
 import edu.ucsb.cs156.example.repositories.ArticlesRepository;
 import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.services.JsonArrayStreamer;
 import edu.ucsb.cs156.example.testconfig.TestConfig;
+import jakarta.persistence.EntityManager;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.function.Function;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MvcResult;
 
 @WebMvcTest(controllers = ArticlesController.class)
-@Import(TestConfig.class)
+@Import({TestConfig.class, JsonArrayStreamer.class})
 public class ArticlesControllerTests extends ControllerTestCase {
 
   @MockBean ArticlesRepository articlesRepository;
 
   @MockBean UserRepository userRepository;
 
+  @MockBean EntityManager entityManager;
+
   // Authorization tests for /api/articles/admin/all
   @WithMockUser(roles = {"USER"})
   @Test
@@ -64,12 +73,15 @@ public class ArticlesControllerTests extends ControllerTestCase {
     ArrayList<Articles> expectedArticles = new ArrayList<>();
     expectedArticles.addAll(Arrays.asList(article1, article2));
 
-    when(articlesRepository.findAll()).thenReturn(expectedArticles);
+    when(articlesRepository.streamAllBy()).thenReturn(expectedArticles.stream());
 
     MvcResult response =
-        mockMvc.perform(get("/api/articles/all")).andExpect(status().isOk()).andReturn();
+        mockMvc
+            .perform(get("/api/articles/all?unpaged=true"))
+            .andExpect(status().isOk())
+            .andReturn();
 
-    verify(articlesRepository, times(1)).findAll();
+    verify(articlesRepository, times(1)).streamAllBy();
     String expectedJson = mapper.writeValueAsString(expectedArticles);
     String responseString = response.getResponse().getContentAsString();
     assertEquals(expectedJson, responseString);
@@ -85,7 +97,7 @@ public class ArticlesControllerTests extends ControllerTestCase {
   @WithMockUser(roles = {"USER"})
   @Test
   public void logged_in_users_can_get_all() throws Exception {
-    mockMvc.perform(get("/api/articles/all")).andExpect(status().is(200)); // logged
+    mockMvc.perform(get("/api/articles/all?unpaged=true")).andExpect(status().is(200)); // logged
   }
 
   // Authorization tests for /api/articles/post
@@ -299,7 +311,7 @@ public class ArticlesControllerTests extends ControllerTestCase {
 
     // assert
     verify(articlesRepository, times(1)).findById(15L);
-    verify(articlesRepository, times(1)).delete(any());
+    verify(articlesRepository, times(1)).delete(any(Articles.class));
 
     Map<String, Object> json = responseToJson(response);
     assertEquals("Article with id 15 deleted", json.get("message"));
@@ -325,4 +337,38 @@ public class ArticlesControllerTests extends ControllerTestCase {
     Map<String, Object> json = responseToJson(response);
     assertEquals("Articles with id 15 not found", json.get("message"));
   }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  @SuppressWarnings("unchecked")
+  public void logged_in_user_can_get_a_page_of_articles() throws Exception {
+    Articles first = Articles.builder().id(1).title("Title 1").build();
+    Articles second = Articles.builder().id(2).title("Title 2").build();
+    when(articlesRepository.findBy(any(Specification.class), any(Function.class)))
+        .thenReturn(List.of(first, second));
+
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/articles/all?sort=-title&limit=1"))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    JsonNode page = mapper.readTree(response.getResponse().getContentAsString());
+    assertEquals(mapper.writeValueAsString(List.of(first)), page.get("items").toString());
+    assertTrue(page.get("next").isTextual());
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void paging_articles_by_an_unknown_property_is_a_bad_request() throws Exception {
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/articles/all?sort=nope"))
+            .andExpect(status().isBadRequest())
+            .andReturn();
+
+    assertEquals(
+        Map.of("type", "InvalidSortException", "message", "Cannot sort by nope"),
+        responseToJson(response));
+  }
 }
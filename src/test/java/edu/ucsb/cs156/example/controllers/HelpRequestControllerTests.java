@@ -1,6 +1,7 @@
 package edu.ucsb.cs156.example.controllers;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.times;
@@ -13,32 +14,40 @@ import static org.springframework.test.web.servlet.request.MockMvcRequestBuilder
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import edu.ucsb.cs156.example.ControllerTestCase;
 import edu.ucsb.cs156.example.entities.HelpRequest;
 import edu.ucsb.cs156.example.repositories.HelpRequestRepository;
 import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.services.JsonArrayStreamer;
 import edu.ucsb.cs156.example.testconfig.TestConfig;
+import jakarta.persistence.EntityManager;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.function.Function;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MvcResult;
 
 @WebMvcTest(controllers = HelpRequestController.class)
-@Import(TestConfig.class)
+@Import({TestConfig.class, JsonArrayStreamer.class})
 public class HelpRequestControllerTests extends ControllerTestCase {
 
   @MockBean HelpRequestRepository helpRequestRepository;
 
   @MockBean UserRepository userRepository;
 
+  @MockBean EntityManager entityManager;
+
   // Authorization tests for /api/helprequests/all
 
   @Test
@@ -79,12 +88,15 @@ public class HelpRequestControllerTests extends ControllerTestCase {
     ArrayList<HelpRequest> expectedRequests = new ArrayList<>();
     expectedRequests.addAll(Arrays.asList(helpRequest1, helpRequest2));
 
-    when(helpRequestRepository.findAll()).thenReturn(expectedRequests);
+    when(helpRequestRepository.streamAllBy()).thenReturn(expectedRequests.stream());
 
     MvcResult response =
-        mockMvc.perform(get("/api/helprequests/all")).andExpect(status().isOk()).andReturn();
+        mockMvc
+            .perform(get("/api/helprequests/all?unpaged=true"))
+            .andExpect(status().isOk())
+            .andReturn();
 
-    verify(helpRequestRepository, times(1)).findAll();
+    verify(helpRequestRepository, times(1)).streamAllBy();
     String expectedJson = mapper.writeValueAsString(expectedRequests);
     String responseString = response.getResponse().getContentAsString();
     assertEquals(expectedJson, responseString);
@@ -325,7 +337,7 @@ public class HelpRequestControllerTests extends ControllerTestCase {
 
     // assert
     verify(helpRequestRepository, times(1)).findById(15L);
-    verify(helpRequestRepository, times(1)).delete(any());
+    verify(helpRequestRepository, times(1)).delete(any(HelpRequest.class));
 
     Map<String, Object> json = responseToJson(response);
     assertEquals("HelpRequest with id 15 deleted", json.get("message"));
@@ -351,4 +363,38 @@ public class HelpRequestControllerTests extends ControllerTestCase {
     Map<String, Object> json = responseToJson(response);
     assertEquals("HelpRequest with id 15 not found", json.get("message"));
   }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  @SuppressWarnings("unchecked")
+  public void logged_in_user_can_get_a_page_of_help_requests() throws Exception {
+    HelpRequest first = HelpRequest.builder().id(1).requesterEmail("user1@ucsb.edu").build();
+    HelpRequest second = HelpRequest.builder().id(2).requesterEmail("user2@ucsb.edu").build();
+    when(helpRequestRepository.findBy(any(Specification.class), any(Function.class)))
+        .thenReturn(List.of(first, second));
+
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/helprequests/all?sort=-requestTime&limit=1"))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    JsonNode page = mapper.readTree(response.getResponse().getContentAsString());
+    assertEquals(mapper.writeValueAsString(List.of(first)), page.get("items").toString());
+    assertTrue(page.get("next").isTextual());
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void paging_help_requests_by_an_unknown_property_is_a_bad_request() throws Exception {
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/helprequests/all?sort=nope"))
+            .andExpect(status().isBadRequest())
+            .andReturn();
+
+    assertEquals(
+        Map.of("type", "InvalidSortException", "message", "Cannot sort by nope"),
+        responseToJson(response));
+  }
 }
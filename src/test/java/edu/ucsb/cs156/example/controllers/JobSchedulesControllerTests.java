@@ -0,0 +1,379 @@
+package edu.ucsb.cs156.example.controllers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import edu.ucsb.cs156.example.ControllerTestCase;
+import edu.ucsb.cs156.example.entities.JobPriority;
+import edu.ucsb.cs156.example.entities.JobSchedule;
+import edu.ucsb.cs156.example.jobs.TestJob;
+import edu.ucsb.cs156.example.repositories.JobSchedulesRepository;
+import edu.ucsb.cs156.example.repositories.JobsRepository;
+import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.services.JsonArrayStreamer;
+import edu.ucsb.cs156.example.services.jobs.JobScheduler;
+import edu.ucsb.cs156.example.services.jobs.JobService;
+import jakarta.persistence.EntityManager;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MvcResult;
+
+@WebMvcTest(controllers = JobSchedulesController.class)
+@Import({JobScheduler.class, JsonArrayStreamer.class})
+public class JobSchedulesControllerTests extends ControllerTestCase {
+
+  @MockitoBean JobSchedulesRepository jobSchedulesRepository;
+
+  @MockitoBean JobsRepository jobsRepository;
+
+  @MockitoBean JobService jobService;
+
+  @MockitoBean UserRepository userRepository;
+
+  @MockitoBean EntityManager entityManager;
+
+  private static final String TEST_JOB = TestJob.class.getName();
+
+  @BeforeEach
+  public void setup() {
+    when(jobSchedulesRepository.save(any())).thenAnswer(i -> i.getArgument(0));
+  }
+
+  private JobSchedule schedule() {
+    return JobSchedule.builder()
+        .id(15L)
+        .name("hourly")
+        .jobType(TEST_JOB)
+        .jobParams("{\"sleepMs\":10}")
+        .cron("@hourly")
+        .nextRunAt(ZonedDateTime.now().plusMinutes(5))
+        .lastJobId(4L)
+        .build();
+  }
+
+  // Authorization tests
+
+  @Test
+  public void logged_out_users_cannot_get_all() throws Exception {
+    mockMvc.perform(get("/api/jobs/schedules/all")).andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void regular_users_cannot_get_all() throws Exception {
+    mockMvc.perform(get("/api/jobs/schedules/all")).andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void regular_users_cannot_post() throws Exception {
+    mockMvc.perform(post("/api/jobs/schedules/post")).andExpect(status().is(403));
+  }
+
+  // Tests with mocks for database actions
+
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void admin_can_get_all_schedules() throws Exception {
+    List<JobSchedule> schedules = List.of(schedule());
+    when(jobSchedulesRepository.streamAllBy()).thenReturn(schedules.stream());
+
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/jobs/schedules/all?unpaged=true"))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    assertEquals(mapper.writeValueAsString(schedules), response.getResponse().getContentAsString());
+  }
+
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void admin_can_get_a_schedule_by_id() throws Exception {
+    JobSchedule schedule = schedule();
+    when(jobSchedulesRepository.findById(eq(15L))).thenReturn(Optional.of(schedule));
+
+    MvcResult response =
+        mockMvc.perform(get("/api/jobs/schedules?id=15")).andExpect(status().isOk()).andReturn();
+
+    assertEquals(mapper.writeValueAsString(schedule), response.getResponse().getContentAsString());
+  }
+
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void admin_gets_not_found_for_a_schedule_that_does_not_exist() throws Exception {
+    when(jobSchedulesRepository.findById(eq(15L))).thenReturn(Optional.empty());
+
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/jobs/schedules?id=15"))
+            .andExpect(status().isNotFound())
+            .andReturn();
+
+    Map<String, Object> json = responseToJson(response);
+    assertEquals("EntityNotFoundException", json.get("type"));
+    assertEquals("JobSchedule with id 15 not found", json.get("message"));
+  }
+
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void admin_can_post_a_new_schedule() throws Exception {
+    MvcResult response =
+        mockMvc
+            .perform(
+                post("/api/jobs/schedules/post")
+                    .param("name", "nightly")
+                    .param("jobType", TEST_JOB)
+                    .param("jobParams", "{\"fail\":true}")
+                    .param("cron", "0 0 2 * * *")
+                    .param("priority", "BULK")
+                    .param("timeoutMs", "60000")
+                    .with(csrf()))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    ArgumentCaptor<JobSchedule> saved = ArgumentCaptor.forClass(JobSchedule.class);
+    verify(jobSchedulesRepository, times(1)).save(saved.capture());
+    JobSchedule schedule = saved.getValue();
+    assertEquals("nightly", schedule.getName());
+    assertEquals("{\"fail\":true}", schedule.getJobParams());
+    assertEquals(JobPriority.BULK, schedule.getPriority());
+    assertEquals(60000L, schedule.getTimeoutMs());
+    assertEquals(2, schedule.getNextRunAt().getHour());
+    assertEquals(mapper.writeValueAsString(schedule), response.getResponse().getContentAsString());
+  }
+
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void posting_a_disabled_schedule_gives_it_no_next_run() throws Exception {
+    mockMvc
+        .perform(
+            post("/api/jobs/schedules/post")
+                .param("name", "paused")
+                .param("jobType", TEST_JOB)
+                .param("cron", "@daily")
+                .param("enabled", "false")
+                .with(csrf()))
+        .andExpect(status().isOk());
+
+    ArgumentCaptor<JobSchedule> saved = ArgumentCaptor.forClass(JobSchedule.class);
+    verify(jobSchedulesRepository).save(saved.capture());
+    assertEquals("{}", saved.getValue().getJobParams());
+    assertEquals(JobPriority.NORMAL, saved.getValue().getPriority());
+    assertNull(saved.getValue().getNextRunAt());
+  }
+
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void posting_an_invalid_schedule_is_a_bad_request() throws Exception {
+    MvcResult response =
+        mockMvc
+            .perform(
+                post("/api/jobs/schedules/post")
+                    .param("name", "broken")
+                    .param("jobType", "no.such.Job")
+                    .param("cron", "@daily")
+                    .with(csrf()))
+            .andExpect(status().isBadRequest())
+            .andReturn();
+
+    Map<String, Object> json = responseToJson(response);
+    assertEquals("InvalidJobScheduleException", json.get("type"));
+    assertEquals("Unknown job type: no.such.Job", json.get("message"));
+    verify(jobSchedulesRepository, never()).save(any());
+  }
+
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void admin_can_edit_a_schedule_and_its_next_run_is_worked_out_again() throws Exception {
+    ZonedDateTime lastRunAt = ZonedDateTime.now().minusHours(1);
+    JobSchedule original = schedule();
+    original.setLastRunAt(lastRunAt);
+    original.setSkippedRuns(2);
+    JobSchedule edited =
+        JobSchedule.builder()
+            .name("every ten minutes")
+            .jobType(TEST_JOB)
+            .jobParams("{\"sleepMs\":20}")
+            .cron("0 */10 * * * *")
+            .enabled(true)
+            .priority(JobPriority.INTERACTIVE)
+            .timeoutMs(1000L)
+            .lastJobId(99L)
+            .skippedRuns(50)
+            .build();
+    when(jobSchedulesRepository.findById(eq(15L))).thenReturn(Optional.of(original));
+
+    MvcResult response =
+        mockMvc
+            .perform(
+                put("/api/jobs/schedules?id=15")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .characterEncoding("utf-8")
+                    .content(mapper.writeValueAsString(edited))
+                    .with(csrf()))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    verify(jobSchedulesRepository).save(original);
+    assertEquals("every ten minutes", original.getName());
+    assertEquals("{\"sleepMs\":20}", original.getJobParams());
+    assertEquals("0 */10 * * * *", original.getCron());
+    assertEquals(JobPriority.INTERACTIVE, original.getPriority());
+    assertEquals(1000L, original.getTimeoutMs());
+    assertEquals(0, original.getNextRunAt().getMinute() % 10);
+    // the run history is kept
+    assertEquals(4L, original.getLastJobId());
+    assertEquals(lastRunAt, original.getLastRunAt());
+    assertEquals(2, original.getSkippedRuns());
+    assertEquals(mapper.writeValueAsString(original), response.getResponse().getContentAsString());
+  }
+
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void admin_can_disable_a_schedule() throws Exception {
+    JobSchedule original = schedule();
+    JobSchedule edited = schedule();
+    edited.setEnabled(false);
+    when(jobSchedulesRepository.findById(eq(15L))).thenReturn(Optional.of(original));
+
+    mockMvc
+        .perform(
+            put("/api/jobs/schedules?id=15")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(mapper.writeValueAsString(edited))
+                .with(csrf()))
+        .andExpect(status().isOk());
+
+    assertEquals(false, original.getEnabled());
+    assertNull(original.getNextRunAt());
+  }
+
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void editing_a_schedule_to_an_invalid_cron_expression_is_a_bad_request() throws Exception {
+    JobSchedule edited = schedule();
+    edited.setCron("sometimes");
+    when(jobSchedulesRepository.findById(eq(15L))).thenReturn(Optional.of(schedule()));
+
+    MvcResult response =
+        mockMvc
+            .perform(
+                put("/api/jobs/schedules?id=15")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(mapper.writeValueAsString(edited))
+                    .with(csrf()))
+            .andExpect(status().isBadRequest())
+            .andReturn();
+
+    assertNotNull(responseToJson(response).get("message"));
+    verify(jobSchedulesRepository, never()).save(any());
+  }
+
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void admin_cannot_edit_a_schedule_that_does_not_exist() throws Exception {
+    when(jobSchedulesRepository.findById(eq(15L))).thenReturn(Optional.empty());
+
+    MvcResult response =
+        mockMvc
+            .perform(
+                put("/api/jobs/schedules?id=15")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(mapper.writeValueAsString(schedule()))
+                    .with(csrf()))
+            .andExpect(status().isNotFound())
+            .andReturn();
+
+    assertEquals("JobSchedule with id 15 not found", responseToJson(response).get("message"));
+  }
+
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void admin_can_delete_a_schedule() throws Exception {
+    JobSchedule schedule = schedule();
+    when(jobSchedulesRepository.findById(eq(15L))).thenReturn(Optional.of(schedule));
+
+    MvcResult response =
+        mockMvc
+            .perform(delete("/api/jobs/schedules?id=15").with(csrf()))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    verify(jobSchedulesRepository, times(1)).delete(schedule);
+    assertEquals("JobSchedule with id 15 deleted", responseToJson(response).get("message"));
+  }
+
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void admin_cannot_delete_a_schedule_that_does_not_exist() throws Exception {
+    when(jobSchedulesRepository.findById(eq(15L))).thenReturn(Optional.empty());
+
+    MvcResult response =
+        mockMvc
+            .perform(delete("/api/jobs/schedules?id=15").with(csrf()))
+            .andExpect(status().isNotFound())
+            .andReturn();
+
+    verify(jobSchedulesRepository, never()).delete(any(JobSchedule.class));
+    assertEquals("JobSchedule with id 15 not found", responseToJson(response).get("message"));
+  }
+
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  @SuppressWarnings("unchecked")
+  public void admin_can_get_a_page_of_schedules() throws Exception {
+    JobSchedule first = JobSchedule.builder().id(1L).name("schedule 1").build();
+    JobSchedule second = JobSchedule.builder().id(2L).name("schedule 2").build();
+    when(jobSchedulesRepository.findBy(any(Specification.class), any(Function.class)))
+        .thenReturn(List.of(first, second));
+
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/jobs/schedules/all?sort=-nextRunAt&limit=1"))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    JsonNode page = mapper.readTree(response.getResponse().getContentAsString());
+    assertEquals(mapper.writeValueAsString(List.of(first)), page.get("items").toString());
+    assertTrue(page.get("next").isTextual());
+  }
+
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void paging_schedules_by_an_unknown_property_is_a_bad_request() throws Exception {
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/jobs/schedules/all?sort=nope"))
+            .andExpect(status().isBadRequest())
+            .andReturn();
+
+    assertEquals(
+        Map.of("type", "InvalidSortException", "message", "Cannot sort by nope"),
+        responseToJson(response));
+  }
+}
@@ -0,0 +1,87 @@
+package edu.ucsb.cs156.example.controllers;
+
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import edu.ucsb.cs156.example.ControllerTestCase;
+import edu.ucsb.cs156.example.config.JobArtifactStoreConfig;
+import edu.ucsb.cs156.example.config.JobExecutorConfig;
+import edu.ucsb.cs156.example.config.JobLogStoreConfig;
+import edu.ucsb.cs156.example.repositories.JobsRepository;
+import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.services.jobs.JobArtifacts;
+import edu.ucsb.cs156.example.services.jobs.JobIdempotency;
+import edu.ucsb.cs156.example.services.jobs.JobLanes;
+import edu.ucsb.cs156.example.services.jobs.JobLogFlusher;
+import edu.ucsb.cs156.example.services.jobs.JobLogIndex;
+import edu.ucsb.cs156.example.services.jobs.JobLogReader;
+import edu.ucsb.cs156.example.services.jobs.JobLogStreamer;
+import edu.ucsb.cs156.example.services.jobs.JobMetrics;
+import edu.ucsb.cs156.example.services.jobs.JobPipelines;
+import edu.ucsb.cs156.example.services.jobs.JobProgressFlusher;
+import edu.ucsb.cs156.example.services.jobs.JobQueue;
+import edu.ucsb.cs156.example.services.jobs.JobQuotas;
+import edu.ucsb.cs156.example.services.jobs.JobRetention;
+import edu.ucsb.cs156.example.services.jobs.JobService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.autoconfigure.orm.jpa.AutoConfigureDataJpa;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+/** Launches jobs against a one-worker executor that refuses jobs when its worker is busy. */
+@WebMvcTest(controllers = JobsController.class)
+@Import({
+  JobService.class,
+  JobLogFlusher.class,
+  JobLogIndex.class,
+  JobArtifacts.class,
+  JobLogReader.class,
+  JobLogStreamer.class,
+  JobQueue.class,
+  JobMetrics.class,
+  JobRetention.class,
+  JobLanes.class,
+  JobProgressFlusher.class,
+  JobIdempotency.class,
+  JobPipelines.class,
+  JobQuotas.class,
+  SimpleMeterRegistry.class,
+  JobExecutorConfig.class,
+  JobLogStoreConfig.class,
+  JobArtifactStoreConfig.class
+})
+@AutoConfigureDataJpa
+@TestPropertySource(
+    properties = {"app.jobs.executor.maxConcurrency=1", "app.jobs.executor.overloadPolicy=reject"})
+public class JobsControllerRejectionTests extends ControllerTestCase {
+
+  @MockitoBean JobsRepository jobsRepository;
+
+  @MockitoBean UserRepository userRepository;
+
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void launch_is_refused_with_503_when_executor_is_full() throws Exception {
+    mockMvc
+        .perform(post("/api/jobs/launch/testjob?fail=false&sleepMs=2000").with(csrf()))
+        .andExpect(status().isOk());
+
+    mockMvc
+        .perform(post("/api/jobs/launch/testjob?fail=false&sleepMs=0").with(csrf()))
+        .andExpect(status().isServiceUnavailable())
+        .andExpect(header().string("Retry-After", "5"))
+        .andExpect(
+            content()
+                .json(
+                    "{\"type\":\"JobRejectedException\","
+                        + "\"message\":\"Job executor is at capacity (1 running, 0 queued);"
+                        + " try again later\"}"));
+  }
+}
@@ -2,41 +2,117 @@ package edu.ucsb.cs156.example.controllers;
 
 import static java.util.concurrent.TimeUnit.SECONDS;
 import static org.awaitility.Awaitility.await;
+import static org.hamcrest.Matchers.nullValue;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import edu.ucsb.cs156.example.ControllerTestCase;
+import edu.ucsb.cs156.example.config.JobExecutorConfig;
+import edu.ucsb.cs156.example.config.JobLogStoreConfig;
 import edu.ucsb.cs156.example.entities.Job;
+import edu.ucsb.cs156.example.entities.JobArtifact;
+import edu.ucsb.cs156.example.entities.JobLogToken;
+import edu.ucsb.cs156.example.entities.JobPriority;
+import edu.ucsb.cs156.example.entities.JobStatus;
 import edu.ucsb.cs156.example.entities.User;
+import edu.ucsb.cs156.example.models.JobLogSearchResult;
+import edu.ucsb.cs156.example.models.JobLogSnippet;
+import edu.ucsb.cs156.example.models.JobProgress;
+import edu.ucsb.cs156.example.models.JobStatusCount;
+import edu.ucsb.cs156.example.models.JobSummary;
+import edu.ucsb.cs156.example.models.JobSummaryPage;
+import edu.ucsb.cs156.example.repositories.JobArtifactsRepository;
+import edu.ucsb.cs156.example.repositories.JobLogTokensRepository;
 import edu.ucsb.cs156.example.repositories.JobsRepository;
 import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.services.jobs.JobArtifactOutputStream;
+import edu.ucsb.cs156.example.services.jobs.JobArtifactStore;
+import edu.ucsb.cs156.example.services.jobs.JobArtifacts;
+import edu.ucsb.cs156.example.services.jobs.JobIdempotency;
+import edu.ucsb.cs156.example.services.jobs.JobLanes;
+import edu.ucsb.cs156.example.services.jobs.JobLogFlusher;
+import edu.ucsb.cs156.example.services.jobs.JobLogIndex;
+import edu.ucsb.cs156.example.services.jobs.JobLogLevel;
+import edu.ucsb.cs156.example.services.jobs.JobLogReader;
+import edu.ucsb.cs156.example.services.jobs.JobLogRecord;
+import edu.ucsb.cs156.example.services.jobs.JobLogStreamer;
+import edu.ucsb.cs156.example.services.jobs.JobMetrics;
+import edu.ucsb.cs156.example.services.jobs.JobPipelines;
+import edu.ucsb.cs156.example.services.jobs.JobProgressFlusher;
+import edu.ucsb.cs156.example.services.jobs.JobQueue;
+import edu.ucsb.cs156.example.services.jobs.JobQuotas;
+import edu.ucsb.cs156.example.services.jobs.JobRetention;
 import edu.ucsb.cs156.example.services.jobs.JobService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.AutoConfigureDataJpa;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.context.annotation.Import;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.data.domain.Limit;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MvcResult;
 
 @Slf4j
 @WebMvcTest(controllers = JobsController.class)
-@Import(JobService.class)
+@Import({
+  JobService.class,
+  JobLogFlusher.class,
+  JobLogIndex.class,
+  JobArtifacts.class,
+  JobLogReader.class,
+  JobLogStreamer.class,
+  JobQueue.class,
+  JobMetrics.class,
+  JobRetention.class,
+  JobLanes.class,
+  JobProgressFlusher.class,
+  JobIdempotency.class,
+  JobPipelines.class,
+  JobQuotas.class,
+  SimpleMeterRegistry.class,
+  JobExecutorConfig.class,
+  JobLogStoreConfig.class
+})
 @AutoConfigureDataJpa
 public class JobsControllerTests extends ControllerTestCase {
 
@@ -44,23 +120,41 @@ public class JobsControllerTests extends ControllerTestCase {
 
   @MockitoBean UserRepository userRepository;
 
+  @MockitoBean JobLogTokensRepository jobLogTokensRepository;
+
+  @MockitoBean JobArtifactsRepository jobArtifactsRepository;
+
+  @MockitoBean JobArtifactStore jobArtifactStore;
+
+  @TempDir Path artifactDir;
+
   @Autowired JobService jobService;
 
   @Autowired ObjectMapper objectMapper;
 
+  @BeforeEach
+  public void setup() {
+    // jobs run on this node keep their leases until they finish
+    when(jobsRepository.renewLease(anyLong(), any(), any())).thenReturn(1);
+  }
+
   @WithMockUser(roles = {"ADMIN"})
   @Test
   public void admin_can_get_all_jobs() throws Exception {
 
     // arrange
 
-    Job job1 = Job.builder().log("this is job 1").build();
-    Job job2 = Job.builder().log("this is job 2").build();
+    ZonedDateTime createdAt = ZonedDateTime.parse("2025-01-02T03:04:05Z");
+    JobSummary job1 =
+        JobSummary.builder().id(2L).status(JobStatus.COMPLETE).createdAt(createdAt).build();
+    JobSummary job2 =
+        JobSummary.builder().id(1L).status(JobStatus.ERROR).createdAt(createdAt).build();
 
-    ArrayList<Job> expectedJobs = new ArrayList<>();
+    ArrayList<JobSummary> expectedJobs = new ArrayList<>();
     expectedJobs.addAll(Arrays.asList(job1, job2));
 
-    when(jobsRepository.findAll()).thenReturn(expectedJobs);
+    when(jobsRepository.findSummariesBefore(any(), eq(Long.MAX_VALUE), eq(Limit.of(50))))
+        .thenReturn(expectedJobs);
 
     // act
     MvcResult response =
@@ -68,19 +162,176 @@ public class JobsControllerTests extends ControllerTestCase {
 
     // assert
 
-    verify(jobsRepository, atLeastOnce()).findAll();
-    String expectedJson = mapper.writeValueAsString(expectedJobs);
+    verify(jobsRepository, atLeastOnce())
+        .findSummariesBefore(any(), eq(Long.MAX_VALUE), eq(Limit.of(50)));
+    verify(jobsRepository, never()).findAll();
+    String expectedJson =
+        mapper.writeValueAsString(JobSummaryPage.builder().jobs(expectedJobs).build());
     String responseString = response.getResponse().getContentAsString();
     assertEquals(expectedJson, responseString);
   }
 
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void admin_can_page_through_jobs_with_status_filter() throws Exception {
+    ZonedDateTime createdAt = ZonedDateTime.parse("2025-01-02T03:04:05Z");
+    JobSummary job =
+        JobSummary.builder().id(7L).status(JobStatus.ERROR).createdAt(createdAt).build();
+    when(jobsRepository.findSummariesBeforeWithStatus(
+            eq(List.of(JobStatus.ERROR, JobStatus.CANCELLED)),
+            any(),
+            eq(Long.MAX_VALUE),
+            eq(Limit.of(1))))
+        .thenReturn(List.of(job));
+
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/jobs/all").param("status", "error,cancelled").param("limit", "1"))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    JobSummaryPage page =
+        mapper.readValue(response.getResponse().getContentAsString(), JobSummaryPage.class);
+    assertEquals(1, page.getJobs().size());
+
+    when(jobsRepository.findSummariesBeforeWithStatus(
+            eq(List.of(JobStatus.ERROR)), eq(createdAt), eq(7L), eq(Limit.of(1))))
+        .thenReturn(List.of());
+
+    mockMvc
+        .perform(
+            get("/api/jobs/all")
+                .param("status", "error")
+                .param("limit", "1")
+                .param("after", page.getNext()))
+        .andExpect(status().isOk())
+        .andExpect(content().json("{\"jobs\":[],\"next\":null}"));
+  }
+
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void status_filter_rejects_unknown_statuses() throws Exception {
+    mockMvc
+        .perform(get("/api/jobs/all").param("status", "error,completed"))
+        .andExpect(status().isBadRequest())
+        .andExpect(
+            content()
+                .json(
+                    "{\"type\":\"InvalidJobStatusException\","
+                        + "\"message\":\"No such job status: completed\"}"));
+
+    verify(jobsRepository, never()).findSummariesBeforeWithStatus(any(), any(), anyLong(), any());
+  }
+
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void admin_can_get_job_counts_by_status() throws Exception {
+    when(jobsRepository.countGroupedByStatus())
+        .thenReturn(
+            List.of(
+                new JobStatusCount(JobStatus.RUNNING, 2L),
+                new JobStatusCount(JobStatus.COMPLETE, 40L)));
+
+    mockMvc
+        .perform(get("/api/jobs/counts"))
+        .andExpect(status().isOk())
+        .andExpect(
+            content()
+                .json(
+                    "{\"queued\":0,\"pending\":0,\"running\":2,\"complete\":40,\"error\":0,"
+                        + "\"cancelled\":0,\"timeout\":0,\"rejected\":0,\"skipped\":0}",
+                    true));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void non_admin_cannot_get_job_counts() throws Exception {
+    mockMvc.perform(get("/api/jobs/counts")).andExpect(status().isForbidden());
+  }
+
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void page_size_is_capped() throws Exception {
+    mockMvc.perform(get("/api/jobs/all").param("limit", "100000")).andExpect(status().isOk());
+
+    verify(jobsRepository, times(1))
+        .findSummariesBefore(any(), eq(Long.MAX_VALUE), eq(Limit.of(500)));
+  }
+
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void invalid_cursor_is_bad_request() throws Exception {
+    mockMvc
+        .perform(get("/api/jobs/all").param("after", "not-a-cursor"))
+        .andExpect(status().isBadRequest())
+        .andExpect(
+            content()
+                .json(
+                    "{\"type\":\"InvalidCursorException\","
+                        + "\"message\":\"Invalid page cursor: not-a-cursor\"}"));
+  }
+
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void admin_can_get_job_summary() throws Exception {
+    JobSummary summary = JobSummary.builder().id(7L).status(JobStatus.RUNNING).logSize(12L).build();
+    when(jobsRepository.findSummaryById(7L)).thenReturn(Optional.of(summary));
+
+    mockMvc
+        .perform(get("/api/jobs/summary").param("id", "7"))
+        .andExpect(status().isOk())
+        .andExpect(content().json(mapper.writeValueAsString(summary)));
+    verify(jobsRepository, never()).findById(7L);
+  }
+
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void job_summary_of_missing_job_is_not_found() throws Exception {
+    when(jobsRepository.findSummaryById(7L)).thenReturn(Optional.empty());
+
+    mockMvc.perform(get("/api/jobs/summary").param("id", "7")).andExpect(status().isNotFound());
+  }
+
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void admin_can_get_job_progress_with_counters() throws Exception {
+    JobProgress progress =
+        JobProgress.builder()
+            .id(7L)
+            .status(JobStatus.RUNNING)
+            .done(40L)
+            .total(100L)
+            .counters("{\"rows\":40,\"skipped\":1}")
+            .build();
+    when(jobsRepository.findProgressById(7L)).thenReturn(Optional.of(progress));
+
+    mockMvc
+        .perform(get("/api/jobs/progress").param("id", "7"))
+        .andExpect(status().isOk())
+        .andExpect(
+            content()
+                .json(
+                    "{\"id\":7,\"status\":\"running\",\"done\":40,\"total\":100,"
+                        + "\"counters\":{\"rows\":40,\"skipped\":1}}"));
+    verify(jobsRepository, never()).findById(7L);
+  }
+
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void job_progress_of_missing_job_is_not_found() throws Exception {
+    when(jobsRepository.findProgressById(7L)).thenReturn(Optional.empty());
+
+    mockMvc.perform(get("/api/jobs/progress").param("id", "7")).andExpect(status().isNotFound());
+  }
+
   @WithMockUser(roles = {"ADMIN"})
   @Test
   public void api_getJobLogById__admin_logged_in__returns_job_by_id() throws Exception {
 
     // arrange
 
-    Job job = Job.builder().id(1L).status("completed").log("This is a test job log.").build();
+    Job job =
+        Job.builder().id(1L).status(JobStatus.COMPLETE).log("This is a test job log.").build();
 
     when(jobsRepository.findById(eq(1L))).thenReturn(Optional.of(job));
 
@@ -123,7 +374,8 @@ public class JobsControllerTests extends ControllerTestCase {
   @Test
   public void admin_can_delete_all_jobs() throws Exception {
 
-    doNothing().when(jobsRepository).deleteAll();
+    when(jobsRepository.findIds(any())).thenReturn(List.of(1L, 2L));
+    when(jobsRepository.deleteByIds(List.of(1L, 2L))).thenReturn(2);
 
     // act
     MvcResult response =
@@ -134,7 +386,8 @@ public class JobsControllerTests extends ControllerTestCase {
 
     // assert
 
-    verify(jobsRepository, times(1)).deleteAll();
+    verify(jobsRepository, times(1)).deleteByIds(List.of(1L, 2L));
+    verify(jobsRepository, never()).deleteAll();
     String expectedJson = mapper.writeValueAsString(Map.of("message", "All jobs deleted"));
     String responseString = response.getResponse().getContentAsString();
     assertEquals(expectedJson, responseString);
@@ -157,6 +410,12 @@ public class JobsControllerTests extends ControllerTestCase {
         .andExpect(content().string(jobLog));
   }
 
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void getJobLogs_of_a_missing_job_is_404() throws Exception {
+    mockMvc.perform(get("/api/jobs/logs/{id}", 3L)).andExpect(status().isNotFound());
+  }
+
   @WithMockUser(roles = {"ADMIN"})
   @Test
   public void test_getJobLogs_admin_can_get_empty_log() throws Exception {
@@ -173,14 +432,487 @@ public class JobsControllerTests extends ControllerTestCase {
         .andExpect(content().string(""));
   }
 
+  /** Makes the mocked repository answer LENGTH and SUBSTRING queries on a job's log */
+  private void stubLog(long id, String log) {
+    when(jobsRepository.findLogLength(id)).thenReturn(Optional.of((long) log.length()));
+    when(jobsRepository.findLogSlice(eq(id), anyInt(), anyInt()))
+        .thenAnswer(
+            invocation -> {
+              int from = (int) invocation.getArgument(1) - 1;
+              int length = invocation.getArgument(2);
+              return log.substring(from, Math.min(log.length(), from + length));
+            });
+  }
+
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void admin_can_get_tail_of_job_log() throws Exception {
+    stubLog(1L, "line0\nline1\nline2");
+
+    mockMvc
+        .perform(get("/api/jobs/logs/{id}", 1L).param("tail", "2"))
+        .andExpect(status().isOk())
+        .andExpect(header().string("X-Log-Total-Size", "17"))
+        .andExpect(header().string("X-Log-Start-Offset", "6"))
+        .andExpect(header().string("X-Log-Next-Offset", "17"))
+        .andExpect(content().string("line1\nline2"));
+    verify(jobsRepository, never()).findById(1L);
+  }
+
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void admin_can_filter_job_log() throws Exception {
+    String error =
+        JobLogRecord.format(
+            Instant.parse("2026-10-17T02:00:00Z"), JobLogLevel.ERROR, "Import failed", "row", 2);
+    String log =
+        "Hello\n"
+            + JobLogRecord.format(Instant.parse("2026-10-17T01:00:00Z"), JobLogLevel.WARN, "Slow")
+            + "\n"
+            + error;
+    stubLog(1L, log);
+
+    mockMvc
+        .perform(get("/api/jobs/logs/{id}", 1L).param("level", "ERROR"))
+        .andExpect(status().isOk())
+        .andExpect(header().string("X-Log-Next-Offset", Integer.toString(log.length())))
+        .andExpect(content().string(error));
+    mockMvc
+        .perform(
+            get("/api/jobs/logs/{id}", 1L)
+                .param("since", "2026-10-17T00:00:00Z")
+                .param("until", "2026-10-17T02:00:00Z"))
+        .andExpect(status().isOk())
+        .andExpect(content().string(log.split("\n")[1]));
+    mockMvc
+        .perform(get("/api/jobs/logs/{id}", 1L).param("contains", "l").param("lines", "1"))
+        .andExpect(status().isOk())
+        .andExpect(header().string("X-Log-Next-Offset", "6"))
+        .andExpect(content().string("Hello"));
+  }
+
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void admin_can_search_job_logs() throws Exception {
+    stubLog(7L, "start\nFail! at row 2");
+    when(jobLogTokensRepository.findJobIdsWithAllTokens(
+            Set.of("fail"),
+            1,
+            Long.MAX_VALUE,
+            ZonedDateTime.of(2026, 10, 1, 0, 0, 0, 0, ZoneOffset.UTC),
+            ZonedDateTime.of(9999, 12, 31, 0, 0, 0, 0, ZoneOffset.UTC),
+            Limit.of(20)))
+        .thenReturn(List.of(7L));
+    when(jobLogTokensRepository.findByTokensAndJobIds(Set.of("fail"), List.of(7L)))
+        .thenReturn(List.of(JobLogToken.builder().token("fail").jobId(7L).lineOffset(6).build()));
+
+    MvcResult response =
+        mockMvc
+            .perform(
+                get("/api/jobs/logs/search")
+                    .param("q", "Fail!")
+                    .param("since", "2026-10-01T00:00:00Z"))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    JobLogSearchResult expected =
+        JobLogSearchResult.builder()
+            .jobId(7L)
+            .snippets(List.of(JobLogSnippet.builder().offset(6).text("Fail! at row 2").build()))
+            .build();
+    assertEquals(
+        mapper.writeValueAsString(List.of(expected)), response.getResponse().getContentAsString());
+  }
+
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void search_clamps_the_number_of_jobs_and_snippets() throws Exception {
+    stubLog(7L, "a Fail!\nb Fail!\nc Fail!");
+    List<JobLogToken> hits = new ArrayList<>();
+    for (long offset : List.of(0L, 8L, 16L)) {
+      hits.add(JobLogToken.builder().token("fail").jobId(7L).lineOffset(offset).build());
+    }
+    when(jobLogTokensRepository.findJobIdsWithAllTokens(
+            any(), anyLong(), anyLong(), any(), any(), any()))
+        .thenReturn(List.of(7L));
+    when(jobLogTokensRepository.findByTokensAndJobIds(Set.of("fail"), List.of(7L)))
+        .thenReturn(hits);
+
+    mockMvc
+        .perform(
+            get("/api/jobs/logs/search")
+                .param("q", "Fail!")
+                .param("jobs", "0")
+                .param("snippets", "-1"))
+        .andExpect(status().isOk())
+        .andExpect(content().json("[{\"jobId\":7,\"snippets\":[{\"offset\":0}]}]"));
+    mockMvc
+        .perform(
+            get("/api/jobs/logs/search")
+                .param("q", "Fail!")
+                .param("jobs", "100000")
+                .param("snippets", "100000"))
+        .andExpect(status().isOk());
+
+    verify(jobLogTokensRepository)
+        .findJobIdsWithAllTokens(
+            eq(Set.of("fail")), eq(1L), eq(Long.MAX_VALUE), any(), any(), eq(Limit.of(1)));
+    verify(jobLogTokensRepository)
+        .findJobIdsWithAllTokens(
+            eq(Set.of("fail")), eq(1L), eq(Long.MAX_VALUE), any(), any(), eq(Limit.of(500)));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void users_cannot_search_job_logs() throws Exception {
+    mockMvc
+        .perform(get("/api/jobs/logs/search").param("q", "Fail!"))
+        .andExpect(status().isForbidden());
+  }
+
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void admin_can_page_job_log_by_line() throws Exception {
+    stubLog(1L, "line0\nline1\nline2");
+
+    mockMvc
+        .perform(get("/api/jobs/logs/{id}", 1L).param("line", "1").param("lines", "1"))
+        .andExpect(status().isOk())
+        .andExpect(header().string("X-Log-Next-Offset", "12"))
+        .andExpect(content().string("line1"));
+    mockMvc
+        .perform(get("/api/jobs/logs/{id}", 1L).param("offset", "12").param("lines", "1"))
+        .andExpect(status().isOk())
+        .andExpect(header().string("X-Log-Next-Offset", "17"))
+        .andExpect(content().string("line2"));
+  }
+
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void admin_can_page_job_log_by_offset_and_limit() throws Exception {
+    stubLog(1L, "line0\nline1\nline2");
+
+    mockMvc
+        .perform(get("/api/jobs/logs/{id}", 1L).param("offset", "3").param("limit", "4"))
+        .andExpect(status().isOk())
+        .andExpect(header().string("X-Log-Start-Offset", "3"))
+        .andExpect(header().string("X-Log-Next-Offset", "7"))
+        .andExpect(content().string("e0\nl"));
+    mockMvc
+        .perform(get("/api/jobs/logs/{id}", 1L).param("offset", "12"))
+        .andExpect(status().isOk())
+        .andExpect(content().string("line2"));
+    mockMvc
+        .perform(get("/api/jobs/logs/{id}", 1L).param("limit", "5"))
+        .andExpect(status().isOk())
+        .andExpect(content().string("line0"));
+  }
+
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void admin_can_get_range_of_job_log() throws Exception {
+    stubLog(1L, "line0\nline1\nline2");
+
+    mockMvc
+        .perform(get("/api/jobs/logs/{id}", 1L).header("Range", "chars=6-10"))
+        .andExpect(status().isPartialContent())
+        .andExpect(header().string("Accept-Ranges", "chars"))
+        .andExpect(header().string("Content-Range", "chars 6-10/17"))
+        .andExpect(content().string("line1"));
+    mockMvc
+        .perform(get("/api/jobs/logs/{id}", 1L).header("Range", "chars=-5"))
+        .andExpect(status().isPartialContent())
+        .andExpect(header().string("Content-Range", "chars 12-16/17"))
+        .andExpect(content().string("line2"));
+    mockMvc
+        .perform(get("/api/jobs/logs/{id}", 1L).header("Range", "chars=12-"))
+        .andExpect(status().isPartialContent())
+        .andExpect(content().string("line2"));
+    mockMvc
+        .perform(get("/api/jobs/logs/{id}", 1L).header("Range", "chars=6-99"))
+        .andExpect(status().isPartialContent())
+        .andExpect(header().string("Content-Range", "chars 6-16/17"));
+    // positions too large for a long are past the end, or cover the whole log
+    mockMvc
+        .perform(get("/api/jobs/logs/{id}", 1L).header("Range", "chars=6-99999999999999999999"))
+        .andExpect(status().isPartialContent())
+        .andExpect(header().string("Content-Range", "chars 6-16/17"));
+    mockMvc
+        .perform(get("/api/jobs/logs/{id}", 1L).header("Range", "chars=-99999999999999999999"))
+        .andExpect(status().isPartialContent())
+        .andExpect(header().string("Content-Range", "chars 0-16/17"));
+  }
+
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void unsatisfiable_range_of_job_log_is_416() throws Exception {
+    stubLog(1L, "line0");
+
+    mockMvc
+        .perform(get("/api/jobs/logs/{id}", 1L).header("Range", "chars=9-"))
+        .andExpect(status().isRequestedRangeNotSatisfiable())
+        .andExpect(header().string("Content-Range", "chars */5"));
+    mockMvc
+        .perform(get("/api/jobs/logs/{id}", 1L).header("Range", "chars=-"))
+        .andExpect(status().isRequestedRangeNotSatisfiable());
+    mockMvc
+        .perform(get("/api/jobs/logs/{id}", 1L).header("Range", "chars=99999999999999999999-"))
+        .andExpect(status().isRequestedRangeNotSatisfiable())
+        .andExpect(header().string("Content-Range", "chars */5"));
+  }
+
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void unsupported_range_returns_whole_job_log() throws Exception {
+    Job job = Job.builder().log("line0\nline1").build();
+    when(jobsRepository.findById(1L)).thenReturn(Optional.of(job));
+
+    mockMvc
+        .perform(get("/api/jobs/logs/{id}", 1L).header("Range", "chars=0-1,3-4"))
+        .andExpect(status().isOk())
+        .andExpect(content().string("line0\nline1"));
+    mockMvc
+        .perform(get("/api/jobs/logs/{id}", 1L).header("Range", "bytes=0-4"))
+        .andExpect(status().isOk())
+        .andExpect(header().string("X-Log-Total-Size", "11"))
+        .andExpect(content().string("line0\nline1"));
+  }
+
+  private JobArtifact stubArtifact(Resource resource) {
+    JobArtifact artifact =
+        JobArtifact.builder().jobId(1L).name("export.csv").contentType("text/csv").build();
+    when(jobArtifactsRepository.findByJobIdAndName(1L, "export.csv"))
+        .thenReturn(Optional.of(artifact));
+    when(jobArtifactStore.get(1L, "export.csv")).thenReturn(resource);
+    return artifact;
+  }
+
+  private Path artifactFile(String content) throws IOException {
+    return Files.writeString(artifactDir.resolve("export.csv"), content);
+  }
+
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void admin_can_list_job_artifacts() throws Exception {
+    JobArtifact artifact =
+        JobArtifact.builder().jobId(1L).name("export.csv").contentType("text/csv").size(10).build();
+    when(jobsRepository.existsById(1L)).thenReturn(true);
+    when(jobArtifactsRepository.findByJobIdOrderByName(1L)).thenReturn(List.of(artifact));
+
+    mockMvc
+        .perform(get("/api/jobs/{id}/artifacts", 1L))
+        .andExpect(status().isOk())
+        .andExpect(content().json("[{\"name\":\"export.csv\",\"size\":10}]"));
+  }
+
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void listing_artifacts_of_a_missing_job_is_404() throws Exception {
+    mockMvc.perform(get("/api/jobs/{id}/artifacts", 1L)).andExpect(status().isNotFound());
+  }
+
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void admin_can_download_an_artifact() throws Exception {
+    stubArtifact(new FileSystemResource(artifactFile("abcdefghij")));
+
+    mockMvc
+        .perform(get("/api/jobs/{id}/artifacts/{name}", 1L, "export.csv"))
+        .andExpect(status().isOk())
+        .andExpect(header().string("Content-Type", "text/csv"))
+        .andExpect(header().string("Content-Length", "10"))
+        .andExpect(header().string("Accept-Ranges", "bytes"))
+        .andExpect(header().string("Content-Disposition", "attachment; filename=\"export.csv\""))
+        .andExpect(content().string("abcdefghij"));
+  }
+
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void admin_can_download_a_range_of_an_artifact() throws Exception {
+    stubArtifact(new FileSystemResource(artifactFile("abcdefghij")));
+
+    mockMvc
+        .perform(
+            get("/api/jobs/{id}/artifacts/{name}", 1L, "export.csv").header("Range", "bytes=2-4"))
+        .andExpect(status().isPartialContent())
+        .andExpect(header().string("Content-Range", "bytes 2-4/10"))
+        .andExpect(header().string("Content-Length", "3"))
+        .andExpect(content().string("cde"));
+    mockMvc
+        .perform(
+            get("/api/jobs/{id}/artifacts/{name}", 1L, "export.csv").header("Range", "bytes=-3"))
+        .andExpect(status().isPartialContent())
+        .andExpect(header().string("Content-Range", "bytes 7-9/10"))
+        .andExpect(content().string("hij"));
+    mockMvc
+        .perform(
+            get("/api/jobs/{id}/artifacts/{name}", 1L, "export.csv").header("Range", "bytes=8-"))
+        .andExpect(status().isPartialContent())
+        .andExpect(content().string("ij"));
+    mockMvc
+        .perform(
+            get("/api/jobs/{id}/artifacts/{name}", 1L, "export.csv")
+                .header("Range", "bytes=0-1,3-4"))
+        .andExpect(status().isOk())
+        .andExpect(content().string("abcdefghij"));
+    mockMvc
+        .perform(
+            get("/api/jobs/{id}/artifacts/{name}", 1L, "export.csv").header("Range", "bytes=10-"))
+        .andExpect(status().isRequestedRangeNotSatisfiable())
+        .andExpect(header().string("Content-Range", "bytes */10"));
+    mockMvc
+        .perform(
+            get("/api/jobs/{id}/artifacts/{name}", 1L, "export.csv")
+                .header("Range", "bytes=99999999999999999999-"))
+        .andExpect(status().isRequestedRangeNotSatisfiable())
+        .andExpect(header().string("Content-Range", "bytes */10"));
+  }
+
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void artifacts_on_disk_are_handed_to_tomcat_to_send() throws Exception {
+    Path file = artifactFile("abcdefghij");
+    stubArtifact(new FileSystemResource(file));
+
+    mockMvc
+        .perform(
+            get("/api/jobs/{id}/artifacts/{name}", 1L, "export.csv")
+                .header("Range", "bytes=2-4")
+                .requestAttr(JobsController.SENDFILE_SUPPORTED, true))
+        .andExpect(status().isPartialContent())
+        .andExpect(header().string("Content-Length", "3"))
+        .andExpect(
+            request().attribute(JobsController.SENDFILE_FILENAME, file.toAbsolutePath().toString()))
+        .andExpect(request().attribute(JobsController.SENDFILE_START, 2L))
+        .andExpect(request().attribute(JobsController.SENDFILE_END, 5L))
+        .andExpect(content().string(""));
+  }
+
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void artifacts_not_on_disk_are_streamed() throws Exception {
+    stubArtifact(new ByteArrayResource("abcdefghij".getBytes(StandardCharsets.UTF_8)));
+
+    mockMvc
+        .perform(
+            get("/api/jobs/{id}/artifacts/{name}", 1L, "export.csv")
+                .header("Range", "bytes=2-4")
+                .requestAttr(JobsController.SENDFILE_SUPPORTED, true))
+        .andExpect(status().isPartialContent())
+        .andExpect(request().attribute(JobsController.SENDFILE_FILENAME, nullValue()))
+        .andExpect(content().string("cde"));
+  }
+
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void download_stops_at_the_end_of_a_file_cut_short() throws Exception {
+    Path file = artifactFile("abc");
+    Resource resource = mock(Resource.class);
+    when(resource.exists()).thenReturn(true);
+    when(resource.isFile()).thenReturn(true);
+    when(resource.getFile()).thenReturn(file.toFile());
+    when(resource.contentLength()).thenReturn(10L);
+    stubArtifact(resource);
+
+    mockMvc
+        .perform(get("/api/jobs/{id}/artifacts/{name}", 1L, "export.csv"))
+        .andExpect(status().isOk())
+        .andExpect(content().string("abc"));
+  }
+
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void downloading_a_missing_artifact_is_404() throws Exception {
+    mockMvc
+        .perform(get("/api/jobs/{id}/artifacts/{name}", 1L, "nothing.csv"))
+        .andExpect(status().isNotFound())
+        .andExpect(
+            content()
+                .json(
+                    "{\"type\":\"EntityNotFoundException\","
+                        + "\"message\":\"JobArtifact with id 1/nothing.csv not found\"}"));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void non_admin_cannot_get_artifacts() throws Exception {
+    mockMvc.perform(get("/api/jobs/{id}/artifacts", 1L)).andExpect(status().isForbidden());
+    mockMvc
+        .perform(get("/api/jobs/{id}/artifacts/{name}", 1L, "export.csv"))
+        .andExpect(status().isForbidden());
+  }
+
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void paging_log_of_missing_job_is_not_found() throws Exception {
+    when(jobsRepository.findLogLength(9L)).thenReturn(Optional.empty());
+
+    mockMvc
+        .perform(get("/api/jobs/logs/{id}", 9L).param("tail", "5"))
+        .andExpect(status().isNotFound());
+  }
+
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void admin_can_stream_log_of_finished_job() throws Exception {
+    Job job = Job.builder().id(3L).status(JobStatus.COMPLETE).log("first\nsecond").build();
+    when(jobsRepository.findById(3L)).thenReturn(Optional.of(job));
+
+    MvcResult started =
+        mockMvc
+            .perform(get("/api/jobs/logs/{id}/stream", 3L))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+    MvcResult response =
+        mockMvc.perform(asyncDispatch(started)).andExpect(status().isOk()).andReturn();
+
+    assertEquals(
+        "id:1\nevent:log\ndata:first\n\n"
+            + "id:2\nevent:log\ndata:second\n\n"
+            + "event:end\ndata:complete\n\n",
+        response.getResponse().getContentAsString());
+  }
+
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void admin_can_resume_log_stream_with_last_event_id() throws Exception {
+    Job job = Job.builder().id(3L).status(JobStatus.ERROR).log("first\nsecond").build();
+    when(jobsRepository.findById(3L)).thenReturn(Optional.of(job));
+
+    MvcResult started =
+        mockMvc
+            .perform(get("/api/jobs/logs/{id}/stream", 3L).header("Last-Event-ID", "1"))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+    MvcResult response =
+        mockMvc.perform(asyncDispatch(started)).andExpect(status().isOk()).andReturn();
+
+    assertEquals(
+        "id:2\nevent:log\ndata:second\n\nevent:end\ndata:error\n\n",
+        response.getResponse().getContentAsString());
+  }
+
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void log_stream_of_missing_job_is_not_found() throws Exception {
+    when(jobsRepository.findById(7L)).thenReturn(Optional.empty());
+
+    mockMvc.perform(get("/api/jobs/logs/{id}/stream", 7L)).andExpect(status().isNotFound());
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void non_admin_cannot_stream_job_log() throws Exception {
+    mockMvc.perform(get("/api/jobs/logs/{id}/stream", 3L)).andExpect(status().isForbidden());
+  }
+
   @WithMockUser(roles = {"ADMIN"})
   @Test
   public void admin_can_delete_specific_job() throws Exception {
 
     // arrange
 
-    when(jobsRepository.existsById(eq(1L))).thenReturn(true);
-    doNothing().when(jobsRepository).deleteById(eq(1L));
+    when(jobsRepository.deleteByIds(List.of(1L))).thenReturn(1);
 
     // act
     MvcResult response =
@@ -191,7 +923,7 @@ public class JobsControllerTests extends ControllerTestCase {
 
     // assert
 
-    verify(jobsRepository, times(1)).deleteById(eq(1L));
+    verify(jobsRepository, times(1)).deleteByIds(List.of(1L));
     String expectedJson = mapper.writeValueAsString(Map.of("message", "Job with id 1 deleted"));
     String responseString = response.getResponse().getContentAsString();
     assertEquals(expectedJson, responseString);
@@ -203,7 +935,7 @@ public class JobsControllerTests extends ControllerTestCase {
 
     // arrange
 
-    when(jobsRepository.existsById(eq(2L))).thenReturn(false);
+    when(jobsRepository.deleteByIds(List.of(2L))).thenReturn(0);
 
     // act
     MvcResult response =
@@ -214,7 +946,7 @@ public class JobsControllerTests extends ControllerTestCase {
 
     // assert
 
-    verify(jobsRepository, times(1)).existsById(eq(2L));
+    verify(jobsRepository, times(1)).deleteByIds(List.of(2L));
     String expectedJson = mapper.writeValueAsString(Map.of("message", "Job with id 2 not found"));
     String responseString = response.getResponse().getContentAsString();
     assertEquals(expectedJson, responseString);
@@ -234,8 +966,7 @@ public class JobsControllerTests extends ControllerTestCase {
             .createdBy(user)
             .createdAt(null)
             .updatedAt(null)
-            .status("running")
-            .log("Hello World! from test job!")
+            .status(JobStatus.RUNNING)
             .build();
 
     Job jobCompleted =
@@ -244,8 +975,7 @@ public class JobsControllerTests extends ControllerTestCase {
             .createdBy(user)
             .createdAt(null)
             .updatedAt(null)
-            .status("complete")
-            .log("Hello World! from test job!\nGoodbye from test job!")
+            .status(JobStatus.COMPLETE)
             .build();
 
     when(jobsRepository.save(any(Job.class))).thenReturn(jobStarted).thenReturn(jobCompleted);
@@ -261,14 +991,46 @@ public class JobsControllerTests extends ControllerTestCase {
     String responseString = response.getResponse().getContentAsString();
     Job jobReturned = objectMapper.readValue(responseString, Job.class);
 
-    assertEquals("running", jobReturned.getStatus());
+    assertEquals(JobStatus.RUNNING, jobReturned.getStatus());
 
     await()
         .atMost(1, SECONDS)
-        .untilAsserted(() -> verify(jobsRepository, times(2)).save(eq(jobStarted)));
+        .untilAsserted(() -> verify(jobsRepository, times(1)).save(eq(jobStarted)));
     await()
         .atMost(10, SECONDS)
-        .untilAsserted(() -> verify(jobsRepository, times(4)).save(eq(jobCompleted)));
+        .untilAsserted(() -> verify(jobsRepository, times(2)).save(eq(jobCompleted)));
+    // the log is appended to in place, not saved with the job
+    verify(jobsRepository).appendLog(0L, "\n", "Hello World! from test job!");
+    verify(jobsRepository).appendLog(0L, "\n", "Goodbye from test job!");
+  }
+
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void admin_can_launch_test_job_that_writes_an_artifact() throws Exception {
+    when(jobsRepository.save(any(Job.class))).thenAnswer(invocation -> invocation.getArgument(0));
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    AtomicBoolean committed = new AtomicBoolean();
+    when(jobArtifactStore.create(anyLong(), eq("test.txt")))
+        .thenReturn(
+            new JobArtifactOutputStream(bytes) {
+              @Override
+              public void commit() {
+                committed.set(true);
+              }
+            });
+
+    mockMvc
+        .perform(
+            post("/api/jobs/launch/testjob?fail=false&sleepMs=0&artifactBytes=30").with(csrf()))
+        .andExpect(status().isOk());
+
+    await().atMost(10, SECONDS).untilTrue(committed);
+    assertEquals("abcdefghijklmnopqrstuvwxyzabcd", bytes.toString(StandardCharsets.US_ASCII));
+    verify(jobArtifactsRepository, timeout(10000))
+        .save(
+            argThat(
+                artifact ->
+                    artifact.getSize() == 30 && "text/plain".equals(artifact.getContentType())));
   }
 
   @WithMockUser(roles = {"ADMIN"})
@@ -285,8 +1047,7 @@ public class JobsControllerTests extends ControllerTestCase {
             .createdBy(user)
             .createdAt(null)
             .updatedAt(null)
-            .status("running")
-            .log("Hello World! from test job!")
+            .status(JobStatus.RUNNING)
             .build();
 
     Job jobFailed =
@@ -295,8 +1056,7 @@ public class JobsControllerTests extends ControllerTestCase {
             .createdBy(user)
             .createdAt(null)
             .updatedAt(null)
-            .status("error")
-            .log("Hello World! from test job!\nFail!")
+            .status(JobStatus.ERROR)
             .build();
 
     when(jobsRepository.save(any(Job.class))).thenReturn(jobStarted).thenReturn(jobFailed);
@@ -311,14 +1071,359 @@ public class JobsControllerTests extends ControllerTestCase {
     String responseString = response.getResponse().getContentAsString();
     Job jobReturned = objectMapper.readValue(responseString, Job.class);
 
-    assertEquals("running", jobReturned.getStatus());
+    assertEquals(JobStatus.RUNNING, jobReturned.getStatus());
 
     await()
         .atMost(1, SECONDS)
-        .untilAsserted(() -> verify(jobsRepository, times(2)).save(eq(jobStarted)));
+        .untilAsserted(() -> verify(jobsRepository, times(1)).save(eq(jobStarted)));
 
     await()
         .atMost(10, SECONDS)
-        .untilAsserted(() -> verify(jobsRepository, times(3)).save(eq(jobFailed)));
+        .untilAsserted(() -> verify(jobsRepository, times(2)).save(eq(jobFailed)));
+    verify(jobsRepository).appendLog(0L, "\n", "Hello World! from test job!");
+    verify(jobsRepository).appendLog(0L, "\n", "Fail!");
+  }
+
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void a_repeated_launch_with_the_same_idempotency_key_returns_the_first_job()
+      throws Exception {
+    Job launched =
+        Job.builder()
+            .id(0L)
+            .status(JobStatus.COMPLETE)
+            .idempotencyKey("click-1")
+            .log("done")
+            .build();
+    when(jobsRepository.findById(eq(0L))).thenReturn(Optional.of(launched));
+
+    mockMvc
+        .perform(
+            post("/api/jobs/launch/testjob?fail=false&sleepMs=0")
+                .header("Idempotency-Key", "click-1")
+                .with(csrf()))
+        .andExpect(status().isOk());
+    MvcResult response =
+        mockMvc
+            .perform(
+                post("/api/jobs/launch/testjob?fail=false&sleepMs=0")
+                    .header("Idempotency-Key", "click-1")
+                    .with(csrf()))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    assertEquals(
+        objectMapper.writeValueAsString(launched), response.getResponse().getContentAsString());
+    // the second launch found the first one's job in memory, without starting another
+    verify(jobsRepository, times(1)).findByCreatedByIdAndIdempotencyKey(1L, "click-1");
+    verify(jobsRepository, times(1)).findById(0L);
+  }
+
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void an_idempotency_key_reused_with_other_parameters_is_unprocessable() throws Exception {
+    when(jobsRepository.findById(eq(0L))).thenReturn(Optional.of(Job.builder().build()));
+    mockMvc
+        .perform(
+            post("/api/jobs/launch/testjob?fail=false&sleepMs=0")
+                .header("Idempotency-Key", "click-2")
+                .with(csrf()))
+        .andExpect(status().isOk());
+
+    MvcResult response =
+        mockMvc
+            .perform(
+                post("/api/jobs/launch/testjob?fail=true&sleepMs=0")
+                    .header("Idempotency-Key", "click-2")
+                    .with(csrf()))
+            .andExpect(status().isUnprocessableEntity())
+            .andReturn();
+
+    Map<String, Object> json = responseToJson(response);
+    assertEquals("InvalidIdempotencyKeyException", json.get("type"));
+    assertEquals(
+        "Idempotency-Key click-2 was already used to launch a job with different parameters",
+        json.get("message"));
+  }
+
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void admin_can_get_executor_stats() throws Exception {
+
+    // act
+    MvcResult response =
+        mockMvc.perform(get("/api/jobs/executor")).andExpect(status().isOk()).andReturn();
+
+    // assert
+    Map<String, Object> json = responseToJson(response);
+    assertEquals(4, json.get("maxConcurrency"));
+    assertEquals(100, json.get("queueCapacity"));
+    assertEquals(0, json.get("queueDepth"));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void non_admin_cannot_get_executor_stats() throws Exception {
+    mockMvc.perform(get("/api/jobs/executor")).andExpect(status().isForbidden());
+  }
+
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void admin_can_get_job_metrics_after_a_job_runs() throws Exception {
+    mockMvc
+        .perform(post("/api/jobs/launch/testjob?fail=false&sleepMs=0").with(csrf()))
+        .andExpect(status().isOk());
+
+    // poll in this thread, which holds the mock admin user
+    await()
+        .pollInSameThread()
+        .atMost(10, SECONDS)
+        .untilAsserted(
+            () -> {
+              MvcResult response =
+                  mockMvc.perform(get("/api/jobs/metrics")).andExpect(status().isOk()).andReturn();
+              Map<String, Object> json = responseToJson(response);
+              assertEquals(0, json.get("queued"));
+              Map<?, ?> finished = (Map<?, ?>) json.get("finished");
+              assertTrue((Integer) finished.get("complete") >= 1);
+              List<?> jobs = (List<?>) json.get("jobs");
+              Map<?, ?> testJob = (Map<?, ?>) jobs.get(jobs.size() - 1);
+              assertEquals("TestJob", testJob.get("job"));
+              assertTrue((Integer) testJob.get("finished") >= 1);
+            });
+  }
+
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void launch_over_the_user_s_quota_is_refused_with_429() throws Exception {
+    when(jobsRepository.countActiveByCreatedBy(1L)).thenReturn(10L);
+
+    mockMvc
+        .perform(post("/api/jobs/launch/testjob?fail=false&sleepMs=0").with(csrf()))
+        .andExpect(status().isTooManyRequests())
+        .andExpect(header().string("Retry-After", "5"))
+        .andExpect(
+            content()
+                .json(
+                    "{\"type\":\"JobQuotaExceededException\","
+                        + "\"message\":\"user@example.org already has 10 jobs queued or running"
+                        + " (limit 10); try again when one finishes\"}"));
+    verify(jobsRepository, never()).save(any(Job.class));
+
+    MvcResult response =
+        mockMvc.perform(get("/api/jobs/metrics")).andExpect(status().isOk()).andReturn();
+    Map<?, ?> quotas = (Map<?, ?>) responseToJson(response).get("quotas");
+    assertEquals(10, quotas.get("maxConcurrentPerUser"));
+    assertTrue((Integer) ((Map<?, ?>) quotas.get("rejected")).get("concurrent") >= 1);
+    Map<?, ?> user = (Map<?, ?>) ((List<?>) quotas.get("users")).get(0);
+    assertEquals("user@example.org", user.get("email"));
+    assertEquals(10, user.get("activeJobs"));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void non_admin_cannot_get_job_metrics() throws Exception {
+    mockMvc.perform(get("/api/jobs/metrics")).andExpect(status().isForbidden());
+  }
+
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void test_job_that_runs_past_its_timeout_is_stopped() throws Exception {
+    when(jobsRepository.save(any(Job.class)))
+        .thenAnswer(
+            invocation -> {
+              Job job = invocation.getArgument(0);
+              job.setId(4242L);
+              return job;
+            });
+
+    MvcResult response =
+        mockMvc
+            .perform(
+                post("/api/jobs/launch/testjob?fail=false&sleepMs=60000&timeoutMs=100")
+                    .with(csrf()))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    Job jobReturned =
+        objectMapper.readValue(response.getResponse().getContentAsString(), Job.class);
+    assertEquals(100L, jobReturned.getTimeoutMs());
+    await()
+        .atMost(10, SECONDS)
+        .untilAsserted(
+            () ->
+                verify(jobsRepository, atLeastOnce())
+                    .save(argThat(job -> job.getStatus() == JobStatus.TIMEOUT)));
+    verify(jobsRepository).appendLog(4242L, "\n", "Job timed out after 100 ms");
+  }
+
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void admin_can_launch_a_job_with_a_priority() throws Exception {
+    MvcResult response =
+        mockMvc
+            .perform(
+                post("/api/jobs/launch/testjob?fail=false&sleepMs=0&priority=INTERACTIVE")
+                    .with(csrf()))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    Job jobReturned =
+        objectMapper.readValue(response.getResponse().getContentAsString(), Job.class);
+    assertEquals(JobPriority.INTERACTIVE, jobReturned.getPriority());
+    verify(jobsRepository, atLeastOnce())
+        .save(argThat(job -> job.getPriority() == JobPriority.INTERACTIVE));
+  }
+
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void launch_with_an_unknown_priority_is_a_bad_request() throws Exception {
+    mockMvc
+        .perform(post("/api/jobs/launch/testjob?fail=false&sleepMs=0&priority=urgent").with(csrf()))
+        .andExpect(status().isBadRequest());
+    verify(jobsRepository, never()).save(any());
+  }
+
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void admin_can_cancel_a_queued_job() throws Exception {
+    when(jobsRepository.findById(eq(15L)))
+        .thenReturn(Optional.of(Job.builder().id(15L).status(JobStatus.QUEUED).build()));
+    when(jobsRepository.cancelQueued(eq(15L), any())).thenReturn(1);
+
+    MvcResult response =
+        mockMvc
+            .perform(post("/api/jobs/cancel?id=15").with(csrf()))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    Map<String, Object> json = responseToJson(response);
+    assertEquals("Job with id 15 cancelled", json.get("message"));
+  }
+
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void cancel_of_a_finished_job_is_a_conflict() throws Exception {
+    when(jobsRepository.findById(eq(15L)))
+        .thenReturn(Optional.of(Job.builder().id(15L).status(JobStatus.COMPLETE).build()));
+
+    MvcResult response =
+        mockMvc
+            .perform(post("/api/jobs/cancel?id=15").with(csrf()))
+            .andExpect(status().isConflict())
+            .andReturn();
+
+    Map<String, Object> json = responseToJson(response);
+    assertEquals("Job with id 15 has already finished", json.get("message"));
+  }
+
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void cancel_of_an_unknown_job_is_not_found() throws Exception {
+    when(jobsRepository.findById(eq(15L))).thenReturn(Optional.empty());
+
+    MvcResult response =
+        mockMvc
+            .perform(post("/api/jobs/cancel?id=15").with(csrf()))
+            .andExpect(status().isNotFound())
+            .andReturn();
+
+    Map<String, Object> json = responseToJson(response);
+    assertEquals("Job with id 15 not found", json.get("message"));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void non_admin_cannot_cancel_a_job() throws Exception {
+    mockMvc.perform(post("/api/jobs/cancel?id=15").with(csrf())).andExpect(status().isForbidden());
+  }
+
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void admin_can_launch_a_test_pipeline_whose_failed_step_skips_the_rest() throws Exception {
+    AtomicLong ids = new AtomicLong(100);
+    List<Job> saved = new CopyOnWriteArrayList<>();
+    when(jobsRepository.save(any(Job.class)))
+        .thenAnswer(
+            invocation -> {
+              Job job = invocation.getArgument(0);
+              if (job.getId() == 0) {
+                job.setId(ids.incrementAndGet());
+                saved.add(job);
+              }
+              return job;
+            });
+    when(jobsRepository.saveAll(any()))
+        .thenAnswer(
+            invocation -> {
+              for (Job job : invocation.<Iterable<Job>>getArgument(0)) {
+                job.setId(ids.incrementAndGet());
+                saved.add(job);
+              }
+              return invocation.getArgument(0);
+            });
+
+    MvcResult response =
+        mockMvc
+            .perform(
+                post("/api/jobs/launch/testpipeline?sleepMs=0&failStep=reindex&priority=BULK")
+                    .with(csrf()))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    Job pipelineJob =
+        objectMapper.readValue(response.getResponse().getContentAsString(), Job.class);
+    // not its status: with sleepMs=0 the pipeline may already have failed when it is written
+    assertEquals(saved.get(0).getId(), pipelineJob.getId());
+    assertEquals(JobPriority.BULK, pipelineJob.getPriority());
+    await()
+        .atMost(10, SECONDS)
+        .untilAsserted(() -> assertEquals(JobStatus.ERROR, saved.get(0).getStatus()));
+    assertEquals(
+        List.of("import complete", "reindex error", "thumbnails complete", "export skipped"),
+        saved.subList(1, 5).stream()
+            .map(step -> step.getStepName() + " " + step.getStatus().getValue())
+            .toList());
+    assertEquals("reindex,thumbnails", saved.get(4).getDependsOn());
+    verify(jobsRepository)
+        .appendLog(
+            eq(saved.get(0).getId()),
+            eq("\n"),
+            startsWith("Pipeline testpipeline\nimport (job 102)"));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void non_admin_cannot_launch_a_test_pipeline() throws Exception {
+    mockMvc
+        .perform(post("/api/jobs/launch/testpipeline").with(csrf()))
+        .andExpect(status().isForbidden());
+  }
+
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void admin_can_list_the_steps_of_a_pipeline() throws Exception {
+    List<JobSummary> steps =
+        List.of(
+            JobSummary.builder()
+                .id(11L)
+                .stepName("import")
+                .status(JobStatus.COMPLETE)
+                .logSize(5L)
+                .build(),
+            JobSummary.builder().id(12L).stepName("export").status(JobStatus.RUNNING).build());
+    when(jobsRepository.findStepSummaries(10L)).thenReturn(steps);
+
+    MvcResult response =
+        mockMvc.perform(get("/api/jobs/steps?id=10")).andExpect(status().isOk()).andReturn();
+
+    assertEquals(
+        objectMapper.writeValueAsString(steps), response.getResponse().getContentAsString());
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void non_admin_cannot_list_the_steps_of_a_pipeline() throws Exception {
+    mockMvc.perform(get("/api/jobs/steps?id=10")).andExpect(status().isForbidden());
   }
 }
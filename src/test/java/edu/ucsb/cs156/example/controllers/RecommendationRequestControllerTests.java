@@ -1,6 +1,7 @@
 package edu.ucsb.cs156.example.controllers;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.times;
@@ -13,32 +14,40 @@ import static org.springframework.test.web.servlet.request.MockMvcRequestBuilder
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import edu.ucsb.cs156.example.ControllerTestCase;
 import edu.ucsb.cs156.example.entities.RecommendationRequest;
 import edu.ucsb.cs156.example.repositories.RecommendationRequestRepository;
 import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.services.JsonArrayStreamer;
 import edu.ucsb.cs156.example.testconfig.TestConfig;
+import jakarta.persistence.EntityManager;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.function.Function;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MvcResult;
 
 @WebMvcTest(controllers = RecommendationRequestController.class)
-@Import(TestConfig.class)
+@Import({TestConfig.class, JsonArrayStreamer.class})
 public class RecommendationRequestControllerTests extends ControllerTestCase {
 
   @MockBean RecommendationRequestRepository recommendationRequestRepository;
 
   @MockBean UserRepository userRepository;
 
+  @MockBean EntityManager entityManager;
+
   @Test
   public void logged_out_users_cannot_get_all() throws Exception {
     mockMvc.perform(get("/api/recommendationrequests/all")).andExpect(status().is(403));
@@ -47,7 +56,9 @@ public class RecommendationRequestControllerTests extends ControllerTestCase {
   @WithMockUser(roles = {"USER"})
   @Test
   public void logged_in_users_can_get_all() throws Exception {
-    mockMvc.perform(get("/api/recommendationrequests/all")).andExpect(status().is(200));
+    mockMvc
+        .perform(get("/api/recommendationrequests/all?unpaged=true"))
+        .andExpect(status().is(200));
   }
 
   @Test
@@ -99,15 +110,15 @@ public class RecommendationRequestControllerTests extends ControllerTestCase {
     ArrayList<RecommendationRequest> expectedRequests = new ArrayList<>();
     expectedRequests.addAll(Arrays.asList(req1, req2));
 
-    when(recommendationRequestRepository.findAll()).thenReturn(expectedRequests);
+    when(recommendationRequestRepository.streamAllBy()).thenReturn(expectedRequests.stream());
 
     MvcResult response =
         mockMvc
-            .perform(get("/api/recommendationrequests/all"))
+            .perform(get("/api/recommendationrequests/all?unpaged=true"))
             .andExpect(status().isOk())
             .andReturn();
 
-    verify(recommendationRequestRepository, times(1)).findAll();
+    verify(recommendationRequestRepository, times(1)).streamAllBy();
     String expectedJson = mapper.writeValueAsString(expectedRequests);
     String responseString = response.getResponse().getContentAsString();
     assertEquals(expectedJson, responseString);
@@ -338,4 +349,41 @@ public class RecommendationRequestControllerTests extends ControllerTestCase {
         .perform(delete("/api/recommendationrequests?id=15").with(csrf()))
         .andExpect(status().isNotFound());
   }
-}
\ No newline at end of file
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  @SuppressWarnings("unchecked")
+  public void logged_in_user_can_get_a_page_of_recommendation_requests() throws Exception {
+    RecommendationRequest first =
+        RecommendationRequest.builder().id(1).requesterEmail("user1@ucsb.edu").build();
+    RecommendationRequest second =
+        RecommendationRequest.builder().id(2).requesterEmail("user2@ucsb.edu").build();
+    when(recommendationRequestRepository.findBy(any(Specification.class), any(Function.class)))
+        .thenReturn(List.of(first, second));
+
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/recommendationrequests/all?sort=-dateNeeded&limit=1"))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    JsonNode page = mapper.readTree(response.getResponse().getContentAsString());
+    assertEquals(mapper.writeValueAsString(List.of(first)), page.get("items").toString());
+    assertTrue(page.get("next").isTextual());
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void paging_recommendation_requests_by_an_unknown_property_is_a_bad_request()
+      throws Exception {
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/recommendationrequests/all?sort=nope"))
+            .andExpect(status().isBadRequest())
+            .andReturn();
+
+    assertEquals(
+        Map.of("type", "InvalidSortException", "message", "Cannot sort by nope"),
+        responseToJson(response));
+  }
+}
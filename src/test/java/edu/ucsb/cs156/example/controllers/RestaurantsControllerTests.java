@@ -1,6 +1,7 @@
 package edu.ucsb.cs156.example.controllers;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.times;
@@ -10,31 +11,39 @@ import static org.springframework.security.test.web.servlet.request.SecurityMock
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import edu.ucsb.cs156.example.ControllerTestCase;
 import edu.ucsb.cs156.example.entities.Restaurant;
 import edu.ucsb.cs156.example.repositories.RestaurantRepository;
 import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.services.JsonArrayStreamer;
 import edu.ucsb.cs156.example.testconfig.TestConfig;
+import jakarta.persistence.EntityManager;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.function.Function;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.context.annotation.Import;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MvcResult;
 
 @WebMvcTest(controllers = RestaurantsController.class)
-@Import(TestConfig.class)
+@Import({TestConfig.class, JsonArrayStreamer.class})
 public class RestaurantsControllerTests extends ControllerTestCase {
 
   @MockitoBean RestaurantRepository restaurantRepository;
 
   @MockitoBean UserRepository userRepository;
 
+  @MockitoBean EntityManager entityManager;
+
   // Authorization tests for /api/phones/admin/all
 
   @Test
@@ -47,7 +56,7 @@ public class RestaurantsControllerTests extends ControllerTestCase {
   @WithMockUser(roles = {"USER"})
   @Test
   public void logged_in_users_can_get_all() throws Exception {
-    mockMvc.perform(get("/api/restaurants/all")).andExpect(status().is(200)); // logged
+    mockMvc.perform(get("/api/restaurants/all?unpaged=true")).andExpect(status().is(200)); // logged
   }
 
   @Test
@@ -131,15 +140,18 @@ public class RestaurantsControllerTests extends ControllerTestCase {
     ArrayList<Restaurant> expectedRestaurants = new ArrayList<>();
     expectedRestaurants.addAll(Arrays.asList(restaurant1, restaurant2));
 
-    when(restaurantRepository.findAll()).thenReturn(expectedRestaurants);
+    when(restaurantRepository.streamAllBy()).thenReturn(expectedRestaurants.stream());
 
     // act
     MvcResult response =
-        mockMvc.perform(get("/api/restaurants/all")).andExpect(status().isOk()).andReturn();
+        mockMvc
+            .perform(get("/api/restaurants/all?unpaged=true"))
+            .andExpect(status().isOk())
+            .andReturn();
 
     // assert
 
-    verify(restaurantRepository, times(1)).findAll();
+    verify(restaurantRepository, times(1)).streamAllBy();
     String expectedJson = mapper.writeValueAsString(expectedRestaurants);
     String responseString = response.getResponse().getContentAsString();
     assertEquals(expectedJson, responseString);
@@ -186,7 +198,7 @@ public class RestaurantsControllerTests extends ControllerTestCase {
 
     // assert
     verify(restaurantRepository, times(1)).findById(15L);
-    verify(restaurantRepository, times(1)).delete(any());
+    verify(restaurantRepository, times(1)).delete(any(Restaurant.class));
 
     Map<String, Object> json = responseToJson(response);
     assertEquals("Restaurant with id 15 deleted", json.get("message"));
@@ -277,4 +289,38 @@ public class RestaurantsControllerTests extends ControllerTestCase {
     Map<String, Object> json = responseToJson(response);
     assertEquals("Restaurant with id 67 not found", json.get("message"));
   }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  @SuppressWarnings("unchecked")
+  public void logged_in_user_can_get_a_page_of_restaurants() throws Exception {
+    Restaurant first = Restaurant.builder().id(1).name("Restaurant 1").build();
+    Restaurant second = Restaurant.builder().id(2).name("Restaurant 2").build();
+    when(restaurantRepository.findBy(any(Specification.class), any(Function.class)))
+        .thenReturn(List.of(first, second));
+
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/restaurants/all?sort=name&limit=1"))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    JsonNode page = mapper.readTree(response.getResponse().getContentAsString());
+    assertEquals(mapper.writeValueAsString(List.of(first)), page.get("items").toString());
+    assertTrue(page.get("next").isTextual());
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void paging_restaurants_by_an_unknown_property_is_a_bad_request() throws Exception {
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/restaurants/all?sort=nope"))
+            .andExpect(status().isBadRequest())
+            .andReturn();
+
+    assertEquals(
+        Map.of("type", "InvalidSortException", "message", "Cannot sort by nope"),
+        responseToJson(response));
+  }
 }
@@ -1,6 +1,7 @@
 package edu.ucsb.cs156.example.controllers;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.times;
@@ -13,29 +14,37 @@ import static org.springframework.test.web.servlet.request.MockMvcRequestBuilder
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import edu.ucsb.cs156.example.ControllerTestCase;
 import edu.ucsb.cs156.example.entities.UCSBDiningCommonsMenuItem;
 import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsMenuItemRepository;
 import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.services.JsonArrayStreamer;
 import edu.ucsb.cs156.example.testconfig.TestConfig;
+import jakarta.persistence.EntityManager;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.function.Function;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MvcResult;
 
 @WebMvcTest(controllers = UCSBDiningCommonsMenuItemController.class)
-@Import(TestConfig.class)
+@Import({TestConfig.class, JsonArrayStreamer.class})
 public class UCSBDiningCommonsMenuItemControllerTests extends ControllerTestCase {
   @MockBean UCSBDiningCommonsMenuItemRepository ucsbDiningCommonsMenuItemRepository;
   @MockBean UserRepository userRepository;
 
+  @MockBean EntityManager entityManager;
+
   // Get All Tests
   @Test
   public void logged_out_users_cannot_get_all() throws Exception {
@@ -47,7 +56,9 @@ public class UCSBDiningCommonsMenuItemControllerTests extends ControllerTestCase
   @WithMockUser(roles = {"USER"})
   @Test
   public void logged_in_users_can_get_all() throws Exception {
-    mockMvc.perform(get("/api/ucsb-dining-commons-menu-items/all")).andExpect(status().is(200));
+    mockMvc
+        .perform(get("/api/ucsb-dining-commons-menu-items/all?unpaged=true"))
+        .andExpect(status().is(200));
     // logged in users cannot get in if not admin
   }
 
@@ -132,18 +143,18 @@ public class UCSBDiningCommonsMenuItemControllerTests extends ControllerTestCase
     ArrayList<UCSBDiningCommonsMenuItem> expectedMenuItems = new ArrayList<>();
     expectedMenuItems.addAll(Arrays.asList(ucsbMenuItem1, ucsbMenuItem2));
 
-    when(ucsbDiningCommonsMenuItemRepository.findAll()).thenReturn(expectedMenuItems);
+    when(ucsbDiningCommonsMenuItemRepository.streamAllBy()).thenReturn(expectedMenuItems.stream());
 
     // act
     MvcResult response =
         mockMvc
-            .perform(get("/api/ucsb-dining-commons-menu-items/all"))
+            .perform(get("/api/ucsb-dining-commons-menu-items/all?unpaged=true"))
             .andExpect(status().isOk())
             .andReturn();
 
     // assert
 
-    verify(ucsbDiningCommonsMenuItemRepository, times(1)).findAll();
+    verify(ucsbDiningCommonsMenuItemRepository, times(1)).streamAllBy();
     String expectedJson = mapper.writeValueAsString(expectedMenuItems);
     String responseString = response.getResponse().getContentAsString();
     assertEquals(expectedJson, responseString);
@@ -298,7 +309,8 @@ public class UCSBDiningCommonsMenuItemControllerTests extends ControllerTestCase
 
     // assert
     verify(ucsbDiningCommonsMenuItemRepository, times(1)).findById(15L);
-    verify(ucsbDiningCommonsMenuItemRepository, times(1)).delete(any());
+    verify(ucsbDiningCommonsMenuItemRepository, times(1))
+        .delete(any(UCSBDiningCommonsMenuItem.class));
 
     Map<String, Object> json = responseToJson(response);
     assertEquals("UCSBDiningCommonsMenuItem with id 15 deleted", json.get("message"));
@@ -324,4 +336,40 @@ public class UCSBDiningCommonsMenuItemControllerTests extends ControllerTestCase
     Map<String, Object> json = responseToJson(response);
     assertEquals("UCSBDiningCommonsMenuItem with id 15 not found", json.get("message"));
   }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  @SuppressWarnings("unchecked")
+  public void logged_in_user_can_get_a_page_of_menu_items() throws Exception {
+    UCSBDiningCommonsMenuItem first =
+        UCSBDiningCommonsMenuItem.builder().id(1).name("Item 1").build();
+    UCSBDiningCommonsMenuItem second =
+        UCSBDiningCommonsMenuItem.builder().id(2).name("Item 2").build();
+    when(ucsbDiningCommonsMenuItemRepository.findBy(any(Specification.class), any(Function.class)))
+        .thenReturn(List.of(first, second));
+
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/ucsb-dining-commons-menu-items/all?sort=station&limit=1"))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    JsonNode page = mapper.readTree(response.getResponse().getContentAsString());
+    assertEquals(mapper.writeValueAsString(List.of(first)), page.get("items").toString());
+    assertTrue(page.get("next").isTextual());
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void paging_menu_items_by_an_unknown_property_is_a_bad_request() throws Exception {
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/ucsb-dining-commons-menu-items/all?sort=nope"))
+            .andExpect(status().isBadRequest())
+            .andReturn();
+
+    assertEquals(
+        Map.of("type", "InvalidSortException", "message", "Cannot sort by nope"),
+        responseToJson(response));
+  }
 }
@@ -0,0 +1,82 @@
+package edu.ucsb.cs156.example.entities;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+public class JobStatusTests {
+
+  @Test
+  public void values_are_the_lowercase_names() {
+    assertEquals("running", JobStatus.RUNNING.getValue());
+    for (JobStatus status : JobStatus.values()) {
+      assertEquals(status, JobStatus.fromValue(status.getValue()));
+    }
+  }
+
+  @Test
+  public void fromValue_rejects_unknown_statuses() {
+    IllegalArgumentException e =
+        assertThrows(IllegalArgumentException.class, () -> JobStatus.fromValue("RUNNING"));
+
+    assertEquals("No such job status: RUNNING", e.getMessage());
+  }
+
+  @Test
+  public void statuses_are_written_to_json_as_their_values() throws Exception {
+    ObjectMapper mapper = new ObjectMapper();
+
+    assertEquals("\"timeout\"", mapper.writeValueAsString(JobStatus.TIMEOUT));
+    assertEquals(JobStatus.TIMEOUT, mapper.readValue("\"timeout\"", JobStatus.class));
+  }
+
+  @Test
+  public void only_waiting_and_running_jobs_are_unfinished() {
+    Set<JobStatus> unfinished = Set.of(JobStatus.QUEUED, JobStatus.PENDING, JobStatus.RUNNING);
+    for (JobStatus status : JobStatus.values()) {
+      assertEquals(!unfinished.contains(status), status.isFinished(), status.getValue());
+    }
+  }
+
+  @Test
+  public void every_finished_status_but_complete_is_failed() {
+    for (JobStatus status : JobStatus.values()) {
+      assertEquals(
+          status.isFinished() && status != JobStatus.COMPLETE,
+          status.isFailed(),
+          status.getValue());
+    }
+    assertTrue(JobStatus.CANCELLED.isFailed());
+    assertFalse(JobStatus.COMPLETE.isFailed());
+  }
+
+  @Test
+  public void next_follows_the_life_cycle() {
+    assertEquals(
+        Set.of(JobStatus.RUNNING, JobStatus.CANCELLED, JobStatus.ERROR), JobStatus.QUEUED.next());
+    assertEquals(
+        Set.of(JobStatus.RUNNING, JobStatus.SKIPPED, JobStatus.CANCELLED),
+        JobStatus.PENDING.next());
+    assertTrue(JobStatus.RUNNING.next().contains(JobStatus.QUEUED));
+    assertFalse(JobStatus.RUNNING.next().contains(JobStatus.SKIPPED));
+    for (JobStatus status : JobStatus.values()) {
+      assertEquals(status.isFinished(), status.next().isEmpty(), status.getValue());
+    }
+  }
+
+  @Test
+  public void converter_stores_values() {
+    JobStatus.DatabaseConverter converter = new JobStatus.DatabaseConverter();
+
+    assertEquals("cancelled", converter.convertToDatabaseColumn(JobStatus.CANCELLED));
+    assertEquals(JobStatus.CANCELLED, converter.convertToEntityAttribute("cancelled"));
+    assertNull(converter.convertToDatabaseColumn(null));
+    assertNull(converter.convertToEntityAttribute(null));
+  }
+}
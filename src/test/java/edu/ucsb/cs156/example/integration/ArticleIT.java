@@ -1,10 +1,12 @@
 package edu.ucsb.cs156.example.integration;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import edu.ucsb.cs156.example.entities.Articles;
 import edu.ucsb.cs156.example.repositories.ArticlesRepository;
@@ -100,4 +102,52 @@ public class ArticleIT {
     String responseString = response.getResponse().getContentAsString();
     assertEquals(expectedJson, responseString);
   }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void a_user_can_page_through_articles_newest_first() throws Exception {
+    // arrange
+
+    for (int day = 1; day <= 3; day++) {
+      articleRepository.save(
+          Articles.builder()
+              .title("Article " + day)
+              .url("https://example.com/" + day)
+              .explanation("This is a test.")
+              .email("test@example.com")
+              .dateAdded(LocalDateTime.parse("2024-01-01T12:00:00").plusDays(day))
+              .build());
+    }
+
+    // act
+
+    MvcResult first =
+        mockMvc
+            .perform(get("/api/articles/all?sort=-dateAdded&limit=2"))
+            .andExpect(status().isOk())
+            .andReturn();
+    JsonNode firstPage = mapper.readTree(first.getResponse().getContentAsString());
+    String next = firstPage.get("next").asText();
+    MvcResult second =
+        mockMvc
+            .perform(get("/api/articles/all?sort=-dateAdded&limit=2&after=" + next))
+            .andExpect(status().isOk())
+            .andReturn();
+    JsonNode secondPage = mapper.readTree(second.getResponse().getContentAsString());
+
+    // assert
+
+    assertEquals("Article 3", firstPage.get("items").get(0).get("title").asText());
+    assertEquals("Article 2", firstPage.get("items").get(1).get("title").asText());
+    assertEquals(1, secondPage.get("items").size());
+    assertEquals("Article 1", secondPage.get("items").get(0).get("title").asText());
+    assertTrue(secondPage.get("next").isNull());
+    mockMvc
+        .perform(get("/api/articles/all?sort=title&after=" + next))
+        .andExpect(status().isBadRequest());
+    mockMvc
+        .perform(get("/api/articles/all?unpaged=true"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.length()").value(3));
+  }
 }
@@ -0,0 +1,217 @@
+package edu.ucsb.cs156.example.integration;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.ucsb.cs156.example.entities.Job;
+import edu.ucsb.cs156.example.entities.JobPriority;
+import edu.ucsb.cs156.example.entities.JobStatus;
+import edu.ucsb.cs156.example.jobs.TestJob;
+import edu.ucsb.cs156.example.repositories.JobsRepository;
+import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.services.jobs.JobQueue;
+import edu.ucsb.cs156.example.services.jobs.JobQueueWorker;
+import edu.ucsb.cs156.example.services.jobs.JobService;
+import edu.ucsb.cs156.example.testconfig.TestConfig;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.StreamSupport;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.annotation.DirtiesContext.ClassMode;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+/**
+ * Runs the database-backed job queue against H2 with two worker pools in the same JVM, standing in
+ * for two app nodes.
+ */
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(
+    properties = {
+      "app.jobs.queue.mode=database",
+      // keep this node's own poller out of the way; the test drives the workers itself
+      "app.jobs.queue.pollIntervalMs=3600000"
+    })
+@ActiveProfiles("integration")
+@Import(TestConfig.class)
+@DirtiesContext(classMode = ClassMode.BEFORE_EACH_TEST_METHOD)
+public class JobQueueIT {
+
+  @Autowired JobsRepository jobsRepository;
+
+  @Autowired JobQueue jobQueue;
+
+  @Autowired JobService jobService;
+
+  @MockitoBean UserRepository userRepository;
+
+  private ThreadPoolTaskExecutor executor(String prefix) {
+    ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+    executor.setThreadNamePrefix(prefix);
+    executor.setCorePoolSize(2);
+    executor.setMaxPoolSize(2);
+    executor.setQueueCapacity(0);
+    executor.initialize();
+    return executor;
+  }
+
+  private Job queuedTestJob(int sleepMs) {
+    return Job.builder()
+        .status(JobStatus.QUEUED)
+        .jobType(TestJob.class.getName())
+        .jobParams("{\"fail\":false,\"sleepMs\":%d}".formatted(sleepMs))
+        .build();
+  }
+
+  @Test
+  public void two_worker_pools_claim_each_job_exactly_once() {
+    List<Long> ids = new ArrayList<>();
+    for (int i = 0; i < 10; i++) {
+      ids.add(jobsRepository.save(queuedTestJob(50)).getId());
+    }
+
+    JobQueueWorker workerA = new JobQueueWorker(jobQueue, jobService, executor("a-"), "worker-a");
+    JobQueueWorker workerB = new JobQueueWorker(jobQueue, jobService, executor("b-"), "worker-b");
+    int[] claimed = new int[2];
+
+    await()
+        .atMost(20, SECONDS)
+        .until(
+            () -> {
+              claimed[0] += workerA.pollOnce();
+              claimed[1] += workerB.pollOnce();
+              return StreamSupport.stream(jobsRepository.findAllById(ids).spliterator(), false)
+                  .allMatch(j -> j.getStatus() == JobStatus.COMPLETE);
+            });
+
+    assertEquals(10, claimed[0] + claimed[1]);
+    assertTrue(claimed[0] > 0);
+    assertTrue(claimed[1] > 0);
+    for (Job job : jobsRepository.findAllById(ids)) {
+      assertEquals(1, job.getAttempts());
+      assertEquals(null, job.getLockedBy());
+      assertEquals("Hello World! from test job!\nGoodbye from test job!", job.getLog());
+    }
+  }
+
+  @Test
+  public void expired_leases_are_requeued_or_failed() {
+    ZonedDateTime past = ZonedDateTime.now().minusMinutes(5);
+    Job retryable = queuedTestJob(0);
+    retryable.setStatus(JobStatus.RUNNING);
+    retryable.setLockedBy("dead-node");
+    retryable.setLeaseExpiresAt(past);
+    retryable.setAttempts(1);
+    Job exhausted = queuedTestJob(0);
+    exhausted.setStatus(JobStatus.RUNNING);
+    exhausted.setLockedBy("dead-node");
+    exhausted.setLeaseExpiresAt(past);
+    exhausted.setAttempts(3);
+    Job inMemory =
+        Job.builder().status(JobStatus.RUNNING).lockedBy("dead-node").leaseExpiresAt(past).build();
+    long retryableId = jobsRepository.save(retryable).getId();
+    long exhaustedId = jobsRepository.save(exhausted).getId();
+    long inMemoryId = jobsRepository.save(inMemory).getId();
+
+    jobQueue.reapExpiredLeases();
+
+    Job requeued = jobsRepository.findById(retryableId).get();
+    assertEquals(JobStatus.QUEUED, requeued.getStatus());
+    assertEquals(null, requeued.getLockedBy());
+    assertEquals(JobStatus.ERROR, jobsRepository.findById(exhaustedId).get().getStatus());
+    assertEquals(JobStatus.ERROR, jobsRepository.findById(inMemoryId).get().getStatus());
+
+    JobQueueWorker worker = new JobQueueWorker(jobQueue, jobService, executor("c-"), "worker-c");
+    worker.pollOnce();
+    await()
+        .atMost(10, SECONDS)
+        .until(() -> jobsRepository.findById(retryableId).get().getStatus() == JobStatus.COMPLETE);
+    assertEquals(2, jobsRepository.findById(retryableId).get().getAttempts());
+  }
+
+  @Test
+  public void cancel_requests_reach_the_worker_running_the_job() {
+    long runningId = jobsRepository.save(queuedTestJob(60000)).getId();
+    long queuedId = jobsRepository.save(queuedTestJob(0)).getId();
+    ThreadPoolTaskExecutor oneSlot = executor("d-");
+    oneSlot.setCorePoolSize(1);
+    oneSlot.setMaxPoolSize(1);
+    JobQueueWorker worker = new JobQueueWorker(jobQueue, jobService, oneSlot, "worker-d");
+    assertEquals(1, worker.pollOnce());
+    await()
+        .atMost(10, SECONDS)
+        .until(() -> jobsRepository.findById(runningId).get().getLog() != null);
+
+    // another node asks for both jobs to be cancelled
+    assertTrue(jobService.cancel(queuedId));
+    assertEquals(1, jobsRepository.requestCancel(runningId));
+    assertTrue(jobsRepository.findById(runningId).get().getCancelRequested());
+
+    jobQueue.renewLeases();
+
+    await()
+        .atMost(10, SECONDS)
+        .until(() -> jobsRepository.findById(runningId).get().getStatus() == JobStatus.CANCELLED);
+    assertEquals(JobStatus.CANCELLED, jobsRepository.findById(queuedId).get().getStatus());
+    assertEquals(
+        "Hello World! from test job!\nJob cancelled",
+        jobsRepository.findById(runningId).get().getLog());
+  }
+
+  @Test
+  public void a_cancel_request_for_a_pending_step_reaches_the_node_holding_its_pipeline() {
+    long pipelineId = jobsRepository.save(Job.builder().status(JobStatus.RUNNING).build()).getId();
+    long stepId =
+        jobsRepository
+            .save(
+                Job.builder()
+                    .status(JobStatus.PENDING)
+                    .pipelineId(pipelineId)
+                    .stepName("export")
+                    .build())
+            .getId();
+    long completeId = jobsRepository.save(Job.builder().status(JobStatus.COMPLETE).build()).getId();
+
+    assertEquals(1, jobsRepository.requestCancel(stepId));
+    assertEquals(0, jobsRepository.requestCancel(completeId));
+
+    // the pipeline's node holds the pipeline's job, not its pending steps
+    assertEquals(List.of(stepId), jobsRepository.findCancelRequestedIds(List.of(pipelineId)));
+  }
+
+  @Test
+  public void interactive_jobs_are_claimed_ahead_of_a_bulk_backlog() {
+    for (int i = 0; i < 6; i++) {
+      Job bulk = queuedTestJob(0);
+      bulk.setPriority(JobPriority.BULK);
+      jobsRepository.save(bulk);
+    }
+    Job interactive = queuedTestJob(0);
+    interactive.setPriority(JobPriority.INTERACTIVE);
+    jobsRepository.save(interactive);
+    Job lastBulk = queuedTestJob(0);
+    lastBulk.setPriority(JobPriority.BULK);
+    jobsRepository.save(lastBulk);
+
+    assertEquals(0, jobQueue.positionOf(interactive));
+    assertEquals(7, jobQueue.positionOf(lastBulk));
+
+    List<JobPriority> claimed = new ArrayList<>();
+    for (int i = 0; i < 8; i++) {
+      claimed.add(jobQueue.claimNext("worker-e").get().getPriority());
+    }
+    assertEquals(JobPriority.INTERACTIVE, claimed.get(0));
+    assertEquals(7, claimed.stream().filter(p -> p == JobPriority.BULK).count());
+    assertTrue(jobQueue.claimNext("worker-e").isEmpty());
+  }
+}
@@ -0,0 +1,584 @@
+package edu.ucsb.cs156.example.integration;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.ucsb.cs156.example.entities.Job;
+import edu.ucsb.cs156.example.entities.JobSchedule;
+import edu.ucsb.cs156.example.entities.JobStatus;
+import edu.ucsb.cs156.example.entities.User;
+import edu.ucsb.cs156.example.jobs.TestJob;
+import edu.ucsb.cs156.example.models.JobLogSearchResult;
+import edu.ucsb.cs156.example.models.JobLogSnippet;
+import edu.ucsb.cs156.example.models.JobSummary;
+import edu.ucsb.cs156.example.models.JobSummaryPage;
+import edu.ucsb.cs156.example.repositories.JobSchedulesRepository;
+import edu.ucsb.cs156.example.repositories.JobsRepository;
+import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.services.jobs.JobQueue;
+import edu.ucsb.cs156.example.services.jobs.JobRetention;
+import edu.ucsb.cs156.example.services.jobs.JobScheduler;
+import edu.ucsb.cs156.example.testconfig.TestConfig;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.annotation.DirtiesContext.ClassMode;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureMockMvc
+@ActiveProfiles("integration")
+@Import(TestConfig.class)
+@DirtiesContext(classMode = ClassMode.BEFORE_EACH_TEST_METHOD)
+@TestPropertySource(properties = "app.jobs.artifacts.dir=target/it/artifacts")
+public class JobsIT {
+
+  @Autowired JobsRepository jobsRepository;
+
+  @Autowired public MockMvc mockMvc;
+
+  @Autowired public ObjectMapper mapper;
+
+  @Autowired JobRetention jobRetention;
+
+  @Autowired JobScheduler jobScheduler;
+
+  @Autowired JobSchedulesRepository jobSchedulesRepository;
+
+  @Autowired JdbcTemplate jdbcTemplate;
+
+  @Autowired JobQueue jobQueue;
+
+  @MockitoBean UserRepository userRepository;
+
+  private JobSummaryPage getPage(String status, String after) throws Exception {
+    MockHttpServletRequestBuilder request = get("/api/jobs/all").param("limit", "2");
+    if (status != null) request.param("status", status);
+    if (after != null) request.param("after", after);
+    MvcResult response = mockMvc.perform(request).andExpect(status().isOk()).andReturn();
+    return mapper.readValue(response.getResponse().getContentAsString(), JobSummaryPage.class);
+  }
+
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void admin_can_page_through_all_jobs_newest_first() throws Exception {
+    for (int i = 0; i < 5; i++) {
+      jobsRepository.save(
+          Job.builder()
+              .status(i % 2 == 0 ? JobStatus.COMPLETE : JobStatus.ERROR)
+              .log("x".repeat(i))
+              .build());
+    }
+
+    List<Long> ids = new ArrayList<>();
+    String after = null;
+    do {
+      JobSummaryPage page = getPage(null, after);
+      page.getJobs().forEach(job -> ids.add(job.getId()));
+      after = page.getNext();
+    } while (after != null);
+
+    assertEquals(List.of(5L, 4L, 3L, 2L, 1L), ids);
+  }
+
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void summaries_have_creation_time_and_log_size_but_no_log() throws Exception {
+    jobsRepository.save(Job.builder().status(JobStatus.COMPLETE).log("hello").build());
+
+    JobSummaryPage page = getPage("complete", null);
+
+    JobSummary summary = page.getJobs().get(0);
+    assertNotNull(summary.getCreatedAt());
+    assertEquals(5L, summary.getLogSize());
+    assertNull(page.getNext());
+  }
+
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void status_filter_limits_the_list() throws Exception {
+    for (int i = 0; i < 5; i++) {
+      jobsRepository.save(
+          Job.builder().status(i % 2 == 0 ? JobStatus.COMPLETE : JobStatus.ERROR).build());
+    }
+
+    JobSummaryPage first = getPage("error", null);
+    JobSummaryPage second = getPage("error", first.getNext());
+
+    assertEquals(List.of(4L, 2L), first.getJobs().stream().map(JobSummary::getId).toList());
+    assertEquals(List.of(), second.getJobs());
+    assertNull(second.getNext());
+  }
+
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void counts_group_jobs_by_status() throws Exception {
+    for (int i = 0; i < 5; i++) {
+      jobsRepository.save(
+          Job.builder().status(i % 2 == 0 ? JobStatus.COMPLETE : JobStatus.ERROR).build());
+    }
+
+    mockMvc
+        .perform(get("/api/jobs/counts"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.complete").value(3))
+        .andExpect(jsonPath("$.error").value(2))
+        .andExpect(jsonPath("$.running").value(0));
+  }
+
+  @Test
+  public void the_database_rejects_unknown_statuses() {
+    long id = jobsRepository.save(Job.builder().status(JobStatus.COMPLETE).build()).getId();
+
+    assertThrows(
+        DataIntegrityViolationException.class,
+        () -> jdbcTemplate.update("UPDATE JOBS SET STATUS = 'completed' WHERE ID = ?", id));
+  }
+
+  private long saveJob(JobStatus status, int daysOld) {
+    long id = jobsRepository.save(Job.builder().status(status).build()).getId();
+    jdbcTemplate.update(
+        "UPDATE JOBS SET CREATED_AT = ? WHERE ID = ?",
+        Timestamp.from(Instant.now().minus(Duration.ofDays(daysOld))),
+        id);
+    return id;
+  }
+
+  private List<Long> remainingIds() {
+    List<Long> ids = new ArrayList<>();
+    jobsRepository.findAll().forEach(job -> ids.add(job.getId()));
+    ids.sort(null);
+    return ids;
+  }
+
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void retention_deletes_old_finished_jobs_then_delete_all_deletes_the_rest()
+      throws Exception {
+    ReflectionTestUtils.setField(jobRetention, "batchSize", 1);
+    saveJob(JobStatus.COMPLETE, 40);
+    long oldError = saveJob(JobStatus.ERROR, 40);
+    saveJob(JobStatus.ERROR, 100);
+    long oldRunning = saveJob(JobStatus.RUNNING, 40);
+    long recent = saveJob(JobStatus.COMPLETE, 0);
+    long oldCancelled = saveJob(JobStatus.CANCELLED, 40);
+    saveJob(JobStatus.TIMEOUT, 100);
+    long yesterday = saveJob(JobStatus.COMPLETE, 1);
+
+    // every status other than complete is kept as long as an error
+    jobRetention.purge();
+    assertEquals(List.of(oldError, oldRunning, recent, oldCancelled, yesterday), remainingIds());
+
+    // keeping only the newest completed job leaves the failed ones
+    ReflectionTestUtils.setField(jobRetention, "maxCount", 1);
+    jobRetention.purge();
+    assertEquals(List.of(oldError, oldRunning, recent, oldCancelled), remainingIds());
+
+    mockMvc.perform(delete("/api/jobs").param("id", Long.toString(recent)).with(csrf()));
+    assertEquals(List.of(oldError, oldRunning, oldCancelled), remainingIds());
+
+    mockMvc.perform(delete("/api/jobs/all").with(csrf())).andExpect(status().isOk());
+    assertEquals(List.of(), remainingIds());
+  }
+
+  private Map<String, Object> getProgress(long id) throws Exception {
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/jobs/progress").param("id", Long.toString(id)))
+            .andExpect(status().isOk())
+            .andReturn();
+    return mapper.readValue(response.getResponse().getContentAsString(), Map.class);
+  }
+
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void progress_is_written_while_the_job_runs_and_when_it_finishes() throws Exception {
+    MvcResult response =
+        mockMvc
+            .perform(post("/api/jobs/launch/testjob?fail=false&sleepMs=3000").with(csrf()))
+            .andExpect(status().isOk())
+            .andReturn();
+    long id = mapper.readValue(response.getResponse().getContentAsString(), Job.class).getId();
+
+    // poll in this thread, which holds the mock admin user
+    await()
+        .pollInSameThread()
+        .atMost(10, SECONDS)
+        .until(
+            () -> {
+              Map<String, Object> progress = getProgress(id);
+              return "running".equals(progress.get("status"))
+                  && progress.get("done") != null
+                  && ((Number) progress.get("done")).longValue() < 3000;
+            });
+    await()
+        .pollInSameThread()
+        .atMost(10, SECONDS)
+        .until(() -> "complete".equals(getProgress(id).get("status")));
+
+    Map<String, Object> progress = getProgress(id);
+    assertEquals(3000, progress.get("done"));
+    assertEquals(3000, progress.get("total"));
+    assertNull(progress.get("counters"));
+  }
+
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void artifacts_written_by_a_job_can_be_downloaded_in_ranges() throws Exception {
+    MvcResult response =
+        mockMvc
+            .perform(
+                post("/api/jobs/launch/testjob?fail=false&sleepMs=0&artifactBytes=300000")
+                    .with(csrf()))
+            .andExpect(status().isOk())
+            .andReturn();
+    long id = mapper.readValue(response.getResponse().getContentAsString(), Job.class).getId();
+    await()
+        .atMost(10, SECONDS)
+        .until(() -> jobsRepository.findById(id).get().getStatus() == JobStatus.COMPLETE);
+
+    mockMvc
+        .perform(get("/api/jobs/{id}/artifacts", id))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$[0].name").value("test.txt"))
+        .andExpect(jsonPath("$[0].contentType").value("text/plain"))
+        .andExpect(jsonPath("$[0].size").value(300000));
+
+    MvcResult whole =
+        mockMvc
+            .perform(get("/api/jobs/{id}/artifacts/{name}", id, "test.txt"))
+            .andExpect(status().isOk())
+            .andExpect(header().string("Content-Length", "300000"))
+            .andReturn();
+    byte[] bytes = whole.getResponse().getContentAsByteArray();
+    assertEquals(300000, bytes.length);
+    assertEquals('a' + 299999 % 26, bytes[299999]);
+
+    mockMvc
+        .perform(
+            get("/api/jobs/{id}/artifacts/{name}", id, "test.txt")
+                .header("Range", "bytes=260000-260002"))
+        .andExpect(status().isPartialContent())
+        .andExpect(header().string("Content-Range", "bytes 260000-260002/300000"))
+        .andExpect(content().string("abc"));
+
+    assertTrue(jobRetention.delete(id));
+    mockMvc
+        .perform(get("/api/jobs/{id}/artifacts/{name}", id, "test.txt"))
+        .andExpect(status().isNotFound());
+  }
+
+  private long launchTestJob(boolean fail) throws Exception {
+    MvcResult response =
+        mockMvc
+            .perform(
+                post("/api/jobs/launch/testjob?fail=%s&sleepMs=0".formatted(fail)).with(csrf()))
+            .andExpect(status().isOk())
+            .andReturn();
+    long id = mapper.readValue(response.getResponse().getContentAsString(), Job.class).getId();
+    JobStatus finished = fail ? JobStatus.ERROR : JobStatus.COMPLETE;
+    await()
+        .atMost(10, SECONDS)
+        .until(() -> jobsRepository.findById(id).get().getStatus() == finished);
+    return id;
+  }
+
+  private List<JobLogSearchResult> searchLogs(String q) throws Exception {
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/jobs/logs/search").param("q", q))
+            .andExpect(status().isOk())
+            .andReturn();
+    return List.of(
+        mapper.readValue(response.getResponse().getContentAsString(), JobLogSearchResult[].class));
+  }
+
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void log_search_finds_the_jobs_that_logged_a_word_until_they_are_deleted()
+      throws Exception {
+    long failed1 = launchTestJob(true);
+    long passed = launchTestJob(false);
+    long failed2 = launchTestJob(true);
+
+    List<JobLogSearchResult> results = searchLogs("fail!");
+    assertEquals(List.of(failed2, failed1), results.stream().map(r -> r.getJobId()).toList());
+    JobLogSnippet snippet = results.get(0).getSnippets().get(0);
+    assertEquals("Fail!", snippet.getText());
+    assertEquals("Hello World! from test job!\n".length(), snippet.getOffset());
+    assertEquals(List.of(passed), searchLogs("goodbye").stream().map(r -> r.getJobId()).toList());
+
+    // only jobs created in the window are searched
+    mockMvc
+        .perform(
+            get("/api/jobs/logs/search")
+                .param("q", "fail")
+                .param("since", "2000-01-01T00:00:00Z")
+                .param("until", Instant.now().plusSeconds(3600).toString()))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.length()").value(2));
+    mockMvc
+        .perform(
+            get("/api/jobs/logs/search").param("q", "fail").param("until", "2000-01-01T00:00:00Z"))
+        .andExpect(status().isOk())
+        .andExpect(content().json("[]"));
+
+    jobRetention.delete(failed2);
+
+    assertEquals(List.of(failed1), searchLogs("fail").stream().map(r -> r.getJobId()).toList());
+  }
+
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void a_schedule_launches_its_job_and_skips_firings_while_the_run_is_active()
+      throws Exception {
+    MvcResult response =
+        mockMvc
+            .perform(
+                post("/api/jobs/schedules/post")
+                    .param("name", "every second")
+                    .param("jobType", TestJob.class.getName())
+                    .param("jobParams", "{\"sleepMs\":3000}")
+                    .param("cron", "* * * * * *")
+                    .with(csrf()))
+            .andExpect(status().isOk())
+            .andReturn();
+    long id =
+        mapper.readValue(response.getResponse().getContentAsString(), JobSchedule.class).getId();
+
+    await()
+        .atMost(10, SECONDS)
+        .until(
+            () -> {
+              jobScheduler.fireDueSchedules();
+              return jobSchedulesRepository.findById(id).get().getLastJobId() != null;
+            });
+    long jobId = jobSchedulesRepository.findById(id).get().getLastJobId();
+
+    await()
+        .atMost(10, SECONDS)
+        .until(
+            () -> {
+              jobScheduler.fireDueSchedules();
+              return jobSchedulesRepository.findById(id).get().getSkippedRuns() > 0;
+            });
+
+    JobSchedule schedule = jobSchedulesRepository.findById(id).get();
+    assertEquals(jobId, schedule.getLastJobId());
+    assertNotNull(schedule.getLastRunAt());
+    assertEquals(JobStatus.RUNNING, jobsRepository.findById(jobId).get().getStatus());
+  }
+
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void launches_with_the_same_idempotency_key_start_one_job() throws Exception {
+    List<Long> ids = new ArrayList<>();
+    for (int i = 0; i < 3; i++) {
+      MvcResult response =
+          mockMvc
+              .perform(
+                  post("/api/jobs/launch/testjob?fail=false&sleepMs=0")
+                      .header("Idempotency-Key", "double-click")
+                      .with(csrf()))
+              .andExpect(status().isOk())
+              .andReturn();
+      ids.add(mapper.readValue(response.getResponse().getContentAsString(), Job.class).getId());
+    }
+
+    assertEquals(List.of(ids.get(0), ids.get(0), ids.get(0)), ids);
+    assertEquals(1, jobsRepository.count());
+    assertEquals(
+        ids.get(0),
+        jobsRepository
+            .findFirstByCreatedByIsNullAndIdempotencyKeyOrderByIdAsc("double-click")
+            .get()
+            .getId());
+
+    // a user's job with the same key cannot be inserted again, e.g. by another node; but another
+    // user may use the key
+    User alice = User.builder().id(7L).build();
+    User bob = User.builder().id(8L).build();
+    jobsRepository.save(
+        Job.builder().status(JobStatus.RUNNING).createdBy(alice).idempotencyKey("k").build());
+    Job duplicate =
+        Job.builder().status(JobStatus.RUNNING).createdBy(alice).idempotencyKey("k").build();
+    assertThrows(DataIntegrityViolationException.class, () -> jobsRepository.save(duplicate));
+    jobsRepository.save(
+        Job.builder().status(JobStatus.RUNNING).createdBy(bob).idempotencyKey("k").build());
+    assertEquals(
+        "k", jobsRepository.findByCreatedByIdAndIdempotencyKey(8L, "k").get().getIdempotencyKey());
+  }
+
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void a_pipeline_runs_its_steps_in_dependency_order() throws Exception {
+    MvcResult response =
+        mockMvc
+            .perform(post("/api/jobs/launch/testpipeline?sleepMs=100").with(csrf()))
+            .andExpect(status().isOk())
+            .andReturn();
+    long id = mapper.readValue(response.getResponse().getContentAsString(), Job.class).getId();
+
+    await()
+        .atMost(10, SECONDS)
+        .until(() -> jobsRepository.findById(id).get().getStatus() == JobStatus.COMPLETE);
+
+    MvcResult steps =
+        mockMvc.perform(get("/api/jobs/steps?id=" + id)).andExpect(status().isOk()).andReturn();
+    List<JobSummary> jobs =
+        List.of(mapper.readValue(steps.getResponse().getContentAsString(), JobSummary[].class));
+    assertEquals(
+        List.of("import", "reindex", "thumbnails", "export"),
+        jobs.stream().map(JobSummary::getStepName).toList());
+    assertEquals(
+        List.of(JobStatus.COMPLETE, JobStatus.COMPLETE, JobStatus.COMPLETE, JobStatus.COMPLETE),
+        jobs.stream().map(JobSummary::getStatus).toList());
+    // export finished after both of the steps it depends on
+    JobSummary export = jobs.get(3);
+    assertTrue(jobs.get(1).getUpdatedAt().isBefore(export.getUpdatedAt()));
+    assertTrue(jobs.get(2).getUpdatedAt().isBefore(export.getUpdatedAt()));
+  }
+
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void a_pending_step_can_be_cancelled_and_the_steps_after_it_are_skipped()
+      throws Exception {
+    MvcResult response =
+        mockMvc
+            .perform(post("/api/jobs/launch/testpipeline?sleepMs=1000").with(csrf()))
+            .andExpect(status().isOk())
+            .andReturn();
+    long id = mapper.readValue(response.getResponse().getContentAsString(), Job.class).getId();
+    MvcResult steps =
+        mockMvc.perform(get("/api/jobs/steps?id=" + id)).andExpect(status().isOk()).andReturn();
+    JobSummary thumbnails =
+        mapper.readValue(steps.getResponse().getContentAsString(), JobSummary[].class)[2];
+    assertEquals(JobStatus.PENDING, thumbnails.getStatus());
+
+    mockMvc
+        .perform(post("/api/jobs/cancel").param("id", thumbnails.getId().toString()).with(csrf()))
+        .andExpect(status().isOk());
+
+    await()
+        .atMost(10, SECONDS)
+        .until(() -> jobsRepository.findById(id).get().getStatus() == JobStatus.ERROR);
+    steps = mockMvc.perform(get("/api/jobs/steps?id=" + id)).andReturn();
+    assertEquals(
+        List.of(JobStatus.COMPLETE, JobStatus.COMPLETE, JobStatus.CANCELLED, JobStatus.SKIPPED),
+        Arrays.stream(
+                mapper.readValue(steps.getResponse().getContentAsString(), JobSummary[].class))
+            .map(JobSummary::getStatus)
+            .toList());
+  }
+
+  @Test
+  public void a_user_s_active_jobs_count_a_pipeline_once() {
+    User user = User.builder().id(7L).build();
+    User other = User.builder().id(8L).build();
+    jobsRepository.save(Job.builder().status(JobStatus.RUNNING).createdBy(user).build());
+    jobsRepository.save(Job.builder().status(JobStatus.QUEUED).createdBy(user).build());
+    jobsRepository.save(Job.builder().status(JobStatus.COMPLETE).createdBy(user).build());
+    jobsRepository.save(Job.builder().status(JobStatus.RUNNING).createdBy(other).build());
+    Job pipelineJob =
+        jobsRepository.save(Job.builder().status(JobStatus.RUNNING).createdBy(user).build());
+    jobsRepository.save(
+        Job.builder()
+            .status(JobStatus.RUNNING)
+            .createdBy(user)
+            .pipelineId(pipelineJob.getId())
+            .stepName("a")
+            .build());
+
+    assertEquals(3, jobsRepository.countActiveByCreatedBy(7L));
+    assertEquals(1, jobsRepository.countActiveByCreatedBy(8L));
+  }
+
+  @Test
+  public void the_database_counts_the_lines_of_a_log() {
+    Job job = jobsRepository.save(Job.builder().status(JobStatus.RUNNING).build());
+
+    assertEquals(0L, jobsRepository.findLogLineCount(job.getId(), "\n").get());
+    jobsRepository.appendLog(job.getId(), "\n", "one");
+    jobsRepository.appendLog(job.getId(), "\n", "two\nthree");
+
+    assertEquals(3L, jobsRepository.findLogLineCount(job.getId(), "\n").get());
+    assertTrue(jobsRepository.findLogLineCount(job.getId() + 1000, "\n").isEmpty());
+  }
+
+  @Test
+  public void pending_steps_of_a_pipeline_that_stopped_are_skipped() {
+    Job pipelineJob = jobsRepository.save(Job.builder().status(JobStatus.ERROR).build());
+    Job step =
+        jobsRepository.save(
+            Job.builder()
+                .status(JobStatus.PENDING)
+                .pipelineId(pipelineJob.getId())
+                .stepName("a")
+                .build());
+    Job running = jobsRepository.save(Job.builder().status(JobStatus.RUNNING).build());
+    Job waiting =
+        jobsRepository.save(
+            Job.builder()
+                .status(JobStatus.PENDING)
+                .pipelineId(running.getId())
+                .stepName("b")
+                .build());
+
+    jobQueue.reapExpiredLeases();
+
+    assertEquals(JobStatus.SKIPPED, jobsRepository.findById(step.getId()).get().getStatus());
+    assertEquals(JobStatus.PENDING, jobsRepository.findById(waiting.getId()).get().getStatus());
+  }
+
+  @Test
+  public void actuator_endpoints_are_forbidden_to_anonymous_users() throws Exception {
+    mockMvc.perform(get("/actuator/prometheus")).andExpect(status().isForbidden());
+    mockMvc.perform(get("/actuator/health")).andExpect(status().isForbidden());
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void actuator_endpoints_are_forbidden_to_users() throws Exception {
+    mockMvc.perform(get("/actuator/prometheus")).andExpect(status().isForbidden());
+  }
+
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void admin_can_read_actuator_endpoints() throws Exception {
+    mockMvc.perform(get("/actuator/health")).andExpect(status().isOk());
+  }
+}
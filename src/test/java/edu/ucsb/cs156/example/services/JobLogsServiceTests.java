@@ -6,11 +6,14 @@ import static org.mockito.Mockito.*;
 
 import edu.ucsb.cs156.example.entities.Job;
 import edu.ucsb.cs156.example.repositories.JobsRepository;
+import edu.ucsb.cs156.example.services.jobs.DatabaseJobLogStore;
+import edu.ucsb.cs156.example.services.jobs.JobLogStore;
 import edu.ucsb.cs156.example.services.jobs.JobService;
 import java.util.Optional;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.*;
+import org.springframework.test.util.ReflectionTestUtils;
 
 public class JobLogsServiceTests {
 
@@ -21,6 +24,7 @@ public class JobLogsServiceTests {
   @BeforeEach
   public void setup() {
     MockitoAnnotations.openMocks(this);
+    ReflectionTestUtils.setField(jobService, "jobLogStore", new DatabaseJobLogStore(jobRepository));
   }
 
   @Test
@@ -62,4 +66,15 @@ public class JobLogsServiceTests {
     // Act & Assert
     assertThrows(IllegalArgumentException.class, () -> jobService.getJobLogs(jobId));
   }
+
+  @Test
+  void test_getJobLogs_reads_the_log_from_the_store() {
+    Job job = Job.builder().id(4L).build();
+    JobLogStore store = mock(JobLogStore.class);
+    when(store.readLog(job)).thenReturn("from the store");
+    ReflectionTestUtils.setField(jobService, "jobLogStore", store);
+    when(jobRepository.findById(4L)).thenReturn(Optional.of(job));
+
+    assertEquals("from the store", jobService.getJobLogs(4L));
+  }
 }
@@ -0,0 +1,92 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.ucsb.cs156.example.entities.Articles;
+import edu.ucsb.cs156.example.entities.UCSBDiningCommons;
+import edu.ucsb.cs156.example.repositories.ArticlesRepository;
+import edu.ucsb.cs156.example.repositories.KeysetPagingRepository;
+import edu.ucsb.cs156.example.services.wiremock.WiremockService;
+import jakarta.persistence.EntityManager;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+@DataJpaTest
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+@Import(JsonArrayStreamer.class)
+public class JsonArrayStreamerTests {
+  @Autowired JsonArrayStreamer jsonArrayStreamer;
+
+  @Autowired ArticlesRepository articlesRepository;
+
+  @Autowired EntityManager entityManager;
+
+  @Autowired ObjectMapper mapper;
+
+  @MockitoBean WiremockService mockWiremockService;
+
+  private Articles saveArticle(int i) {
+    return articlesRepository.save(
+        Articles.builder()
+            .title("title " + i)
+            .url("https://example.com/" + i)
+            .explanation("explanation " + i)
+            .email("test@example.com")
+            .dateAdded(LocalDateTime.parse("2024-01-01T12:00:00").plusDays(i))
+            .build());
+  }
+
+  @Test
+  public void writes_every_row_as_a_json_array_and_detaches_it() throws Exception {
+    List<Articles> articles = List.of(saveArticle(1), saveArticle(2), saveArticle(3));
+    MockHttpServletResponse response = new MockHttpServletResponse();
+
+    jsonArrayStreamer.writeAll(articlesRepository, response);
+
+    assertEquals("application/json", response.getContentType());
+    assertEquals(mapper.writeValueAsString(articles), response.getContentAsString());
+    for (Articles article : articles) {
+      assertFalse(entityManager.contains(article));
+    }
+  }
+
+  @Test
+  public void writes_an_empty_array_for_an_empty_table() throws Exception {
+    MockHttpServletResponse response = new MockHttpServletResponse();
+
+    jsonArrayStreamer.writeAll(articlesRepository, response);
+
+    assertEquals("[]", response.getContentAsString());
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void closes_the_stream() throws Exception {
+    UCSBDiningCommons commons = UCSBDiningCommons.builder().code("ortega").name("Ortega").build();
+    AtomicBoolean closed = new AtomicBoolean();
+    KeysetPagingRepository<UCSBDiningCommons, String> repository =
+        mock(KeysetPagingRepository.class);
+    when(repository.streamAllBy()).thenReturn(Stream.of(commons).onClose(() -> closed.set(true)));
+    MockHttpServletResponse response = new MockHttpServletResponse();
+
+    jsonArrayStreamer.writeAll(repository, response);
+
+    assertEquals(mapper.writeValueAsString(List.of(commons)), response.getContentAsString());
+    assertTrue(closed.get());
+  }
+}
@@ -0,0 +1,233 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import edu.ucsb.cs156.example.entities.Articles;
+import edu.ucsb.cs156.example.entities.UCSBDiningCommons;
+import edu.ucsb.cs156.example.errors.InvalidCursorException;
+import edu.ucsb.cs156.example.errors.InvalidSortException;
+import edu.ucsb.cs156.example.models.KeysetPage;
+import edu.ucsb.cs156.example.repositories.ArticlesRepository;
+import edu.ucsb.cs156.example.repositories.KeysetPagingRepository;
+import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsRepository;
+import edu.ucsb.cs156.example.services.wiremock.WiremockService;
+import jakarta.persistence.Id;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+@DataJpaTest
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+@Import(KeysetPager.class)
+public class KeysetPagerTests {
+  @Autowired KeysetPager keysetPager;
+
+  @Autowired ArticlesRepository articlesRepository;
+
+  @Autowired UCSBDiningCommonsRepository ucsbDiningCommonsRepository;
+
+  @MockitoBean WiremockService mockWiremockService;
+
+  private void saveArticles(String... titles) {
+    for (int i = 0; i < titles.length; i++) {
+      articlesRepository.save(
+          Articles.builder()
+              .title(titles[i])
+              .url("https://example.com/" + i)
+              .explanation("explanation " + i)
+              .email("test@example.com")
+              .dateAdded(LocalDateTime.parse("2024-01-01T12:00:00").plusDays(i % 2))
+              .build());
+    }
+  }
+
+  private void saveCommons(String code, Double latitude) {
+    ucsbDiningCommonsRepository.save(
+        UCSBDiningCommons.builder().code(code).name(code).latitude(latitude).build());
+  }
+
+  /** Reads every page, returning the titles on each */
+  private List<List<String>> articlePages(List<String> sort, int limit) {
+    List<List<String>> pages = new ArrayList<>();
+    String after = null;
+    do {
+      KeysetPage<Articles> page =
+          keysetPager.page(articlesRepository, Articles.class, sort, after, limit);
+      pages.add(page.getItems().stream().map(Articles::getTitle).toList());
+      after = page.getNext();
+    } while (after != null);
+    return pages;
+  }
+
+  private List<List<String>> commonsPages(List<String> sort, int limit) {
+    List<List<String>> pages = new ArrayList<>();
+    String after = "";
+    do {
+      KeysetPage<UCSBDiningCommons> page =
+          keysetPager.page(
+              ucsbDiningCommonsRepository, UCSBDiningCommons.class, sort, after, limit);
+      pages.add(page.getItems().stream().map(UCSBDiningCommons::getCode).toList());
+      after = page.getNext();
+    } while (after != null);
+    return pages;
+  }
+
+  private static String cursor(String json) {
+    return Base64.getUrlEncoder()
+        .withoutPadding()
+        .encodeToString(json.getBytes(StandardCharsets.UTF_8));
+  }
+
+  @Test
+  public void pages_through_by_id_when_there_is_no_sort() {
+    saveArticles("a", "b", "c", "d", "e");
+
+    assertEquals(
+        List.of(List.of("a", "b"), List.of("c", "d"), List.of("e")), articlePages(null, 2));
+  }
+
+  @Test
+  public void the_last_page_has_no_next_cursor_even_when_it_is_full() {
+    saveArticles("a", "b", "c", "d");
+
+    KeysetPage<Articles> first =
+        keysetPager.page(articlesRepository, Articles.class, List.of(), null, 2);
+    KeysetPage<Articles> last =
+        keysetPager.page(articlesRepository, Articles.class, List.of(), first.getNext(), 2);
+
+    assertNotNull(first.getNext());
+    assertEquals(2, last.getItems().size());
+    assertNull(last.getNext());
+  }
+
+  @Test
+  public void sorts_by_a_property_with_ties_broken_by_id() {
+    saveArticles("b", "a", "b", "a", "c");
+
+    List<Long> ids = new ArrayList<>();
+    articlesRepository.findAll().forEach(a -> ids.add(a.getId()));
+    KeysetPage<Articles> page =
+        keysetPager.page(articlesRepository, Articles.class, List.of("title"), null, 10);
+
+    assertEquals(
+        List.of(ids.get(1), ids.get(3), ids.get(0), ids.get(2), ids.get(4)),
+        page.getItems().stream().map(Articles::getId).toList());
+    assertEquals(
+        List.of(List.of("a", "a"), List.of("b", "b"), List.of("c")),
+        articlePages(List.of("title"), 2));
+  }
+
+  @Test
+  public void sorts_descending_and_by_several_properties() {
+    saveArticles("a", "b", "c", "d", "e");
+
+    // dateAdded alternates between two days: a, c and e are on the first
+    assertEquals(
+        List.of(List.of("e", "d", "c"), List.of("b", "a")), articlePages(List.of("-id"), 3));
+    assertEquals(
+        List.of(List.of("b", "d"), List.of("a", "c"), List.of("e")),
+        articlePages(List.of("-dateAdded", "title", "-dateAdded"), 2));
+  }
+
+  @Test
+  public void nulls_come_first_ascending_and_last_descending() {
+    saveCommons("a", null);
+    saveCommons("b", 1.0);
+    saveCommons("c", null);
+    saveCommons("d", 2.0);
+    saveCommons("e", 1.0);
+
+    assertEquals(
+        List.of(List.of("a", "c"), List.of("b", "e"), List.of("d")),
+        commonsPages(List.of("latitude"), 2));
+    assertEquals(
+        List.of(List.of("d", "b"), List.of("e", "a"), List.of("c")),
+        commonsPages(List.of("-latitude"), 2));
+  }
+
+  @Test
+  public void limit_is_clamped() {
+    saveArticles("a", "b");
+
+    assertEquals(
+        1, keysetPager.page(articlesRepository, Articles.class, null, null, 0).getItems().size());
+    assertEquals(
+        2,
+        keysetPager.page(articlesRepository, Articles.class, null, null, 100000).getItems().size());
+  }
+
+  @Test
+  public void rejects_a_property_the_entity_does_not_have() {
+    InvalidSortException e =
+        assertThrows(
+            InvalidSortException.class,
+            () ->
+                keysetPager.page(
+                    articlesRepository, Articles.class, List.of("title", "-nope"), null, 10));
+
+    assertEquals("Cannot sort by -nope", e.getMessage());
+  }
+
+  @Test
+  public void rejects_cursors_it_did_not_make_for_this_sort() {
+    saveArticles("a", "b", "c");
+    String byTitle =
+        keysetPager.page(articlesRepository, Articles.class, List.of("title"), null, 1).getNext();
+
+    for (String after :
+        List.of(
+            "not a cursor!",
+            cursor("[1]"),
+            cursor("{\"id\":1}"),
+            cursor("{\"url\":\"a\",\"id\":1}"),
+            cursor("{\"title\":\"a\",\"id\":\"one\"}"))) {
+      InvalidCursorException e =
+          assertThrows(
+              InvalidCursorException.class,
+              () ->
+                  keysetPager.page(
+                      articlesRepository, Articles.class, List.of("title"), after, 10));
+      assertEquals("Invalid page cursor: " + after, e.getMessage());
+    }
+    assertThrows(
+        InvalidCursorException.class,
+        () -> keysetPager.page(articlesRepository, Articles.class, null, byTitle, 10));
+  }
+
+  /** Not an entity; only its fields matter */
+  static class Thing {
+    static final String KIND = "thing";
+
+    @Id long id;
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void static_fields_are_not_sortable() {
+    KeysetPagingRepository<Thing, Long> repository = mock(KeysetPagingRepository.class);
+    when(repository.findBy(any(Specification.class), any(Function.class))).thenReturn(List.of());
+
+    assertEquals(
+        List.of(), keysetPager.page(repository, Thing.class, List.of("id"), null, 10).getItems());
+    assertThrows(
+        InvalidSortException.class,
+        () -> keysetPager.page(repository, Thing.class, List.of("KIND"), null, 10));
+  }
+}
@@ -0,0 +1,76 @@
+package edu.ucsb.cs156.example.services.jobs;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.*;
+
+import edu.ucsb.cs156.example.entities.Job;
+import edu.ucsb.cs156.example.models.JobSummary;
+import edu.ucsb.cs156.example.repositories.JobsRepository;
+import java.util.List;
+import java.util.Optional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+public class DatabaseJobLogStoreTests {
+
+  @Mock private JobsRepository jobsRepository;
+
+  private DatabaseJobLogStore store;
+
+  @BeforeEach
+  public void setup() {
+    MockitoAnnotations.openMocks(this);
+    store = new DatabaseJobLogStore(jobsRepository);
+  }
+
+  @Test
+  public void append_adds_lines_to_the_column_without_saving_the_job() {
+    Job job = Job.builder().id(1L).log("earlier").build();
+
+    store.append(job, "one");
+    store.append(job, "two\nthree");
+
+    verify(jobsRepository).appendLog(1L, "\n", "one");
+    verify(jobsRepository).appendLog(1L, "\n", "two\nthree");
+    verify(jobsRepository, never()).save(any());
+    assertEquals("earlier", store.readLog(job));
+  }
+
+  @Test
+  public void reads_use_length_and_substring() {
+    when(jobsRepository.findLogLength(1L)).thenReturn(Optional.of(11L));
+    when(jobsRepository.findLogSlice(1L, 3, 4)).thenReturn("llo ");
+    when(jobsRepository.findLogSlice(2L, 1, 4)).thenReturn(null);
+
+    when(jobsRepository.findLogLineCount(1L, "\n")).thenReturn(Optional.of(2L));
+
+    assertEquals(Optional.of(11L), store.getSize(1L));
+    assertEquals(2L, store.getLineCount(1L));
+    assertEquals(0L, store.getLineCount(2L));
+    assertEquals("llo ", store.read(1L, 2, 6));
+    assertEquals("", store.read(1L, 6, 6));
+    assertEquals("", store.read(2L, 0, 4));
+    assertNull(store.readLog(Job.builder().build()));
+  }
+
+  @Test
+  public void close_and_log_sizes_need_nothing_from_the_database() {
+    JobSummary summary = JobSummary.builder().id(1L).logSize(11L).build();
+
+    store.close(Job.builder().id(1L).build());
+    store.fillLogSizes(List.of(summary));
+
+    assertEquals(11L, summary.getLogSize());
+    verifyNoInteractions(jobsRepository);
+  }
+
+  @Test
+  public void delete_leaves_the_log_to_go_with_the_job() {
+    store.delete(List.of(1L, 2L));
+
+    verifyNoInteractions(jobsRepository);
+  }
+}
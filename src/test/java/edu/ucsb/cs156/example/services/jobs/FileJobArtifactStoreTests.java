@@ -0,0 +1,141 @@
+package edu.ucsb.cs156.example.services.jobs;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mockStatic;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.MockedStatic;
+import org.springframework.core.io.Resource;
+import org.springframework.util.FileSystemUtils;
+
+public class FileJobArtifactStoreTests {
+
+  @TempDir private Path dir;
+
+  private FileJobArtifactStore store;
+
+  @BeforeEach
+  public void setup() {
+    store = new FileJobArtifactStore(dir);
+  }
+
+  private static byte[] bytes(String text) {
+    return text.getBytes(StandardCharsets.UTF_8);
+  }
+
+  private List<String> files(long jobId) throws IOException {
+    try (Stream<Path> files = Files.list(dir.resolve(Long.toString(jobId)))) {
+      return files.map(file -> file.getFileName().toString()).sorted().toList();
+    }
+  }
+
+  @Test
+  public void an_artifact_appears_when_its_stream_is_committed() throws Exception {
+    JobArtifactOutputStream out = store.create(7L, "export.csv");
+    out.write(bytes("a,b\n"));
+    out.write('1');
+
+    assertFalse(store.get(7L, "export.csv").exists());
+    assertEquals(1, files(7L).size());
+    assertTrue(files(7L).get(0).startsWith(".export.csv."));
+
+    out.commit();
+    out.close();
+    assertThrows(IOException.class, out::commit);
+
+    Resource resource = store.get(7L, "export.csv");
+    assertTrue(resource.isFile());
+    assertEquals(5, resource.contentLength());
+    assertArrayEquals(bytes("a,b\n1"), resource.getContentAsByteArray());
+    assertEquals(List.of("export.csv"), files(7L));
+  }
+
+  @Test
+  public void writing_an_artifact_again_replaces_it() throws Exception {
+    try (JobArtifactOutputStream out = store.create(7L, "export.csv")) {
+      out.write(bytes("old"));
+      out.commit();
+    }
+    try (JobArtifactOutputStream out = store.create(7L, "export.csv")) {
+      out.write(bytes("new!"));
+      out.commit();
+    }
+
+    assertArrayEquals(bytes("new!"), store.get(7L, "export.csv").getContentAsByteArray());
+  }
+
+  @Test
+  public void closing_without_a_commit_discards_the_artifact() throws Exception {
+    try (JobArtifactOutputStream out = store.create(7L, "export.csv")) {
+      out.write(bytes("old"));
+      out.commit();
+    }
+    // e.g. the job threw halfway through writing it
+    JobArtifactOutputStream out = store.create(7L, "export.csv");
+    out.write(bytes("half"));
+
+    out.close();
+    out.close();
+
+    assertArrayEquals(bytes("old"), store.get(7L, "export.csv").getContentAsByteArray());
+    assertEquals(List.of("export.csv"), files(7L));
+  }
+
+  @Test
+  public void a_failed_commit_leaves_no_partial_file() throws Exception {
+    // a non-empty directory in the way cannot be replaced
+    Files.createDirectories(dir.resolve("7").resolve("export.csv").resolve("x"));
+    JobArtifactOutputStream out = store.create(7L, "export.csv");
+    out.write(bytes("data"));
+
+    assertThrows(IOException.class, out::commit);
+
+    assertEquals(List.of("export.csv"), files(7L));
+  }
+
+  @Test
+  public void a_missing_artifact_does_not_exist() {
+    assertFalse(store.get(8L, "nothing.txt").exists());
+  }
+
+  @Test
+  public void delete_removes_the_jobs_artifacts() throws Exception {
+    for (long jobId : List.of(7L, 8L, 9L)) {
+      try (JobArtifactOutputStream out = store.create(jobId, "a.txt")) {
+        out.write(bytes("x"));
+        out.commit();
+      }
+    }
+
+    store.delete(List.of(7L, 8L, 10L));
+
+    assertFalse(store.get(7L, "a.txt").exists());
+    assertFalse(store.get(8L, "a.txt").exists());
+    assertTrue(store.get(9L, "a.txt").exists());
+  }
+
+  @Test
+  public void delete_keeps_going_when_a_directory_cannot_be_deleted() {
+    try (MockedStatic<FileSystemUtils> files = mockStatic(FileSystemUtils.class)) {
+      files
+          .when(() -> FileSystemUtils.deleteRecursively(dir.resolve("7")))
+          .thenThrow(new IOException("busy"));
+
+      store.delete(List.of(7L, 8L));
+
+      files.verify(() -> FileSystemUtils.deleteRecursively(dir.resolve("8")));
+    }
+  }
+}
@@ -0,0 +1,301 @@
+package edu.ucsb.cs156.example.services.jobs;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.*;
+
+import edu.ucsb.cs156.example.entities.Job;
+import edu.ucsb.cs156.example.models.JobSummary;
+import edu.ucsb.cs156.example.repositories.JobsRepository;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.zip.DataFormatException;
+import java.util.zip.GZIPInputStream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.MockedStatic;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.FileSystemUtils;
+
+public class FileJobLogStoreTests {
+
+  @TempDir private Path dir;
+
+  @Mock private JobsRepository jobsRepository;
+
+  private FileJobLogStore store;
+
+  private final Job job = Job.builder().id(7L).build();
+
+  @BeforeEach
+  public void setup() {
+    MockitoAnnotations.openMocks(this);
+    store = new FileJobLogStore(jobsRepository, dir, 1 << 20);
+    when(jobsRepository.existsById(7L)).thenReturn(true);
+  }
+
+  private Path jobDir() {
+    return dir.resolve("7");
+  }
+
+  @Test
+  public void appends_are_read_back_whole_and_in_ranges() {
+    store.append(job, "first");
+    store.append(job, "second\nthird");
+    store.append(job, "héllo");
+
+    String log = "first\nsecond\nthird\nhéllo";
+    assertEquals(Optional.of((long) log.length()), store.getSize(7L));
+    assertEquals(4L, store.getLineCount(7L));
+    assertEquals(0L, store.getLineCount(8L));
+    assertEquals(log, store.readLog(job));
+    assertEquals(log, store.read(7L, 0, log.length()));
+    // ranges that start and end inside members, and that span them
+    assertEquals("rst\nsec", store.read(7L, 2, 9));
+    assertEquals("ond\nthird\nhé", store.read(7L, 9, 21));
+    assertEquals("llo", store.read(7L, 21, 24));
+    assertEquals("\n", store.read(7L, 5, 6));
+    assertEquals("", store.read(7L, 9, 9));
+    // the log is not kept on the job, which the store does not save
+    assertNull(job.getLog());
+    verify(jobsRepository, never()).save(any());
+  }
+
+  @Test
+  public void every_member_is_a_gzip_member_and_a_segment_is_a_gzip_file() throws Exception {
+    store.append(job, "one");
+    store.append(job, "two");
+
+    Path segment = jobDir().resolve("000000.log.gz");
+    try (GZIPInputStream in = new GZIPInputStream(Files.newInputStream(segment))) {
+      assertEquals("one\ntwo", new String(in.readAllBytes()));
+    }
+    assertEquals(2 * FileJobLogStore.ENTRY_BYTES, Files.size(jobDir().resolve("index")));
+  }
+
+  @Test
+  public void the_index_records_where_each_member_starts() throws Exception {
+    store.append(job, "a\nb");
+    store.append(job, "c");
+
+    ByteBuffer index = ByteBuffer.wrap(Files.readAllBytes(jobDir().resolve("index")));
+    FileJobLogStore.Entry first = FileJobLogStore.Entry.read(index, 0);
+    FileJobLogStore.Entry second = FileJobLogStore.Entry.read(index, FileJobLogStore.ENTRY_BYTES);
+
+    assertEquals(0, first.charStart());
+    assertEquals(0, first.lineStart());
+    assertEquals(2, first.lineCount());
+    assertEquals(0, first.byteOffset());
+    assertEquals(3, second.charStart());
+    assertEquals(2, second.lineStart());
+    assertEquals(1, second.lineCount());
+    assertEquals(first.byteLength(), second.byteOffset());
+  }
+
+  @Test
+  public void a_new_segment_is_started_once_the_current_one_is_full() {
+    store = new FileJobLogStore(jobsRepository, dir, 1);
+    for (int i = 0; i < 3; i++) {
+      store.append(job, "line " + i);
+    }
+
+    assertTrue(Files.exists(jobDir().resolve("000000.log.gz")));
+    assertTrue(Files.exists(jobDir().resolve("000001.log.gz")));
+    assertTrue(Files.exists(jobDir().resolve("000002.log.gz")));
+    assertEquals("line 0\nline 1\nline 2", store.readLog(job));
+    assertEquals("0\nline 1\nli", store.read(7L, 5, 16));
+  }
+
+  @Test
+  public void find_returns_the_last_member_starting_at_or_before_an_offset() {
+    ByteBuffer index = ByteBuffer.allocate(4 * FileJobLogStore.ENTRY_BYTES);
+    long[] starts = {0, 10, 20, 30};
+    for (int i = 0; i < starts.length; i++) {
+      index.put(new FileJobLogStore.Entry(starts[i], i, 0, 0, 0, 10, 1).toBuffer());
+    }
+
+    assertEquals(0, FileJobLogStore.find(index, 4, 0));
+    assertEquals(0, FileJobLogStore.find(index, 4, 9));
+    assertEquals(1, FileJobLogStore.find(index, 4, 10));
+    assertEquals(2, FileJobLogStore.find(index, 4, 29));
+    assertEquals(3, FileJobLogStore.find(index, 4, 35));
+    assertEquals(0, FileJobLogStore.find(index, 0, 5));
+  }
+
+  @Test
+  public void a_job_with_nothing_logged_has_an_empty_log() throws Exception {
+    assertEquals(Optional.of(0L), store.getSize(7L));
+    assertNull(store.readLog(job));
+    assertEquals("", store.read(7L, 0, 10));
+
+    // an index with no whole entry yet
+    Files.createDirectories(jobDir());
+    Files.write(jobDir().resolve("index"), new byte[3]);
+    assertEquals(Optional.of(0L), store.getSize(7L));
+    assertNull(store.readLog(job));
+    assertEquals("", store.read(7L, 0, 10));
+  }
+
+  @Test
+  public void there_is_no_size_for_a_job_that_does_not_exist() {
+    assertEquals(Optional.empty(), store.getSize(8L));
+  }
+
+  @Test
+  public void an_entry_cut_short_by_a_crash_is_ignored_and_overwritten() throws Exception {
+    store.append(job, "before");
+    // as if this node had restarted
+    store.close(job);
+    Files.write(jobDir().resolve("index"), new byte[7], StandardOpenOption.APPEND);
+
+    assertEquals(Optional.of(6L), store.getSize(7L));
+    store.append(job, "after");
+
+    assertEquals(2 * FileJobLogStore.ENTRY_BYTES, Files.size(jobDir().resolve("index")));
+    assertEquals("before\nafter", store.readLog(job));
+  }
+
+  @Test
+  public void a_job_s_files_stay_open_until_it_is_closed() {
+    store.append(job, "first");
+    store.append(job, "second");
+
+    assertEquals(1, store.getOpenLogCount());
+    assertEquals("first\nsecond", store.readLog(job));
+
+    store.close(job);
+    store.close(job);
+
+    assertEquals(0, store.getOpenLogCount());
+    store.append(job, "third");
+    assertEquals("first\nsecond\nthird", store.readLog(job));
+  }
+
+  @Test
+  public void an_open_segment_is_switched_for_the_next_one_once_it_is_full() throws Exception {
+    store = new FileJobLogStore(jobsRepository, dir, 30);
+    store.append(job, "first");
+    store.append(job, "second");
+    store.append(job, "third");
+
+    assertTrue(Files.exists(jobDir().resolve("000002.log.gz")));
+    assertEquals("first\nsecond\nthird", store.readLog(job));
+  }
+
+  @Test
+  public void a_file_that_cannot_be_closed_is_logged_and_forgotten() throws Exception {
+    store.append(job, "first");
+    Object writer = ((Map<?, ?>) ReflectionTestUtils.getField(store, "writers")).get(7L);
+    FileChannel segment = (FileChannel) ReflectionTestUtils.getField(writer, "segment");
+    FileChannel failing = mock(FileChannel.class);
+    doThrow(new IOException("stale handle")).when(failing).close();
+    ReflectionTestUtils.setField(writer, "segment", failing);
+
+    store.close(job);
+
+    segment.close();
+    assertEquals(0, store.getOpenLogCount());
+  }
+
+  @Test
+  public void log_sizes_of_summaries_come_from_the_index() throws Exception {
+    store.append(job, "first\nsecond");
+    List<JobSummary> summaries =
+        List.of(JobSummary.builder().id(7L).build(), JobSummary.builder().id(8L).build());
+
+    store.fillLogSizes(summaries);
+
+    assertEquals(12L, summaries.get(0).getLogSize());
+    assertEquals(0L, summaries.get(1).getLogSize());
+
+    Files.createDirectories(dir.resolve("9").resolve("index"));
+    assertThrows(
+        UncheckedIOException.class,
+        () -> store.fillLogSizes(List.of(JobSummary.builder().id(9L).build())));
+  }
+
+  @Test
+  public void delete_removes_the_jobs_directories() {
+    Job other = Job.builder().id(8L).build();
+    store.append(job, "one");
+    store.append(other, "two");
+
+    store.delete(List.of(7L, 9L));
+
+    assertFalse(Files.exists(jobDir()));
+    assertTrue(Files.exists(dir.resolve("8")));
+  }
+
+  @Test
+  public void delete_keeps_going_when_a_directory_cannot_be_deleted() {
+    try (MockedStatic<FileSystemUtils> files = mockStatic(FileSystemUtils.class)) {
+      files
+          .when(() -> FileSystemUtils.deleteRecursively(dir.resolve("7")))
+          .thenThrow(new IOException("busy"));
+
+      store.delete(List.of(7L, 8L));
+
+      files.verify(() -> FileSystemUtils.deleteRecursively(dir.resolve("8")));
+    }
+  }
+
+  @Test
+  public void errors_reading_or_writing_the_files_are_thrown() throws Exception {
+    // an index that cannot be read
+    Files.createDirectories(jobDir().resolve("index"));
+
+    assertThrows(UncheckedIOException.class, () -> store.append(job, "line"));
+    assertEquals(0, store.getOpenLogCount());
+    assertThrows(UncheckedIOException.class, () -> store.getSize(7L));
+    assertThrows(UncheckedIOException.class, () -> store.getLineCount(7L));
+    assertThrows(UncheckedIOException.class, () -> store.readLog(job));
+    assertThrows(UncheckedIOException.class, () -> store.read(7L, 0, 1));
+  }
+
+  @Test
+  public void a_missing_segment_is_an_error() throws Exception {
+    store.append(job, "line");
+    Files.delete(jobDir().resolve("000000.log.gz"));
+
+    assertThrows(UncheckedIOException.class, () -> store.read(7L, 0, 4));
+  }
+
+  @Test
+  public void a_corrupt_segment_is_an_error() throws Exception {
+    store.append(job, "a line long enough to compress into several bytes");
+    Path segment = jobDir().resolve("000000.log.gz");
+    byte[] bytes = Files.readAllBytes(segment);
+    Arrays.fill(bytes, 10, bytes.length, (byte) 0);
+    Files.write(segment, bytes);
+
+    UncheckedIOException e = assertThrows(UncheckedIOException.class, () -> store.read(7L, 0, 4));
+    assertTrue(e.getCause().getCause() instanceof DataFormatException);
+  }
+
+  @Test
+  public void inflate_rejects_a_truncated_member() throws Exception {
+    byte[] member = FileJobLogStore.gzip("a line long enough to compress into several bytes");
+
+    assertEquals(
+        "a line long enough to compress into several bytes",
+        FileJobLogStore.inflate(ByteBuffer.wrap(member)));
+    assertThrows(
+        DataFormatException.class,
+        () -> FileJobLogStore.inflate(ByteBuffer.wrap(Arrays.copyOf(member, 14))));
+  }
+}
@@ -0,0 +1,190 @@
+package edu.ucsb.cs156.example.services.jobs;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+import edu.ucsb.cs156.example.entities.Job;
+import edu.ucsb.cs156.example.entities.JobArtifact;
+import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.repositories.JobArtifactsRepository;
+import edu.ucsb.cs156.example.repositories.JobsRepository;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.core.io.Resource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+public class JobArtifactsTests {
+
+  @TempDir private Path dir;
+
+  @Mock private JobArtifactsRepository jobArtifactsRepository;
+
+  @Mock private JobsRepository jobsRepository;
+
+  @InjectMocks private JobArtifacts jobArtifacts;
+
+  private FileJobArtifactStore store;
+
+  private final Job job = Job.builder().id(7L).build();
+
+  @BeforeEach
+  public void setup() {
+    MockitoAnnotations.openMocks(this);
+    store = spy(new FileJobArtifactStore(dir));
+    ReflectionTestUtils.setField(jobArtifacts, "jobArtifactStore", store);
+    when(jobArtifactsRepository.findByJobIdAndName(anyLong(), any())).thenReturn(Optional.empty());
+  }
+
+  @Test
+  public void an_artifact_is_registered_with_its_size_when_committed() throws Exception {
+    JobArtifactOutputStream out = jobArtifacts.create(job, "export.csv", "text/csv;charset=UTF-8");
+    out.write("a,b\n".getBytes(StandardCharsets.UTF_8));
+    out.write('1');
+    verify(jobArtifactsRepository, never()).save(any());
+
+    out.commit();
+    out.close();
+
+    ArgumentCaptor<JobArtifact> saved = ArgumentCaptor.forClass(JobArtifact.class);
+    verify(jobArtifactsRepository, times(1)).save(saved.capture());
+    assertEquals(7L, saved.getValue().getJobId());
+    assertEquals("export.csv", saved.getValue().getName());
+    assertEquals("text/csv;charset=UTF-8", saved.getValue().getContentType());
+    assertEquals(5L, saved.getValue().getSize());
+    assertArrayEquals(
+        "a,b\n1".getBytes(StandardCharsets.UTF_8),
+        store.get(7L, "export.csv").getContentAsByteArray());
+  }
+
+  @Test
+  public void an_artifact_closed_without_a_commit_is_not_registered() throws Exception {
+    try (JobArtifactOutputStream out = jobArtifacts.create(job, "export.csv", null)) {
+      out.write('x');
+    }
+
+    verify(jobArtifactsRepository, never()).save(any());
+    assertFalse(store.get(7L, "export.csv").exists());
+  }
+
+  @Test
+  public void the_content_type_defaults_to_octet_stream() throws Exception {
+    jobArtifacts.create(job, "data.bin", null).commit();
+
+    verify(jobArtifactsRepository)
+        .save(argThat(a -> a.getContentType().equals("application/octet-stream")));
+  }
+
+  @Test
+  public void writing_an_artifact_again_updates_its_registration() throws Exception {
+    JobArtifact existing =
+        JobArtifact.builder().id(3L).jobId(7L).name("export.csv").contentType("text/csv").build();
+    when(jobArtifactsRepository.findByJobIdAndName(7L, "export.csv"))
+        .thenReturn(Optional.of(existing));
+
+    try (JobArtifactOutputStream out = jobArtifacts.create(job, "export.csv", "text/plain")) {
+      out.write(new byte[10]);
+      out.commit();
+    }
+
+    verify(jobArtifactsRepository).save(existing);
+    assertEquals(3L, existing.getId());
+    assertEquals("text/plain", existing.getContentType());
+    assertEquals(10L, existing.getSize());
+  }
+
+  @Test
+  public void names_must_be_plain_file_names() {
+    for (String name : new String[] {null, "", ".hidden", "../x", "a/b", "a b", "x".repeat(129)}) {
+      IllegalArgumentException e =
+          assertThrows(IllegalArgumentException.class, () -> jobArtifacts.create(job, name, null));
+      assertEquals("Invalid artifact name: " + name, e.getMessage());
+    }
+    verifyNoInteractions(store);
+  }
+
+  @Test
+  public void content_types_must_be_media_types() {
+    assertThrows(
+        IllegalArgumentException.class, () -> jobArtifacts.create(job, "a.txt", "not a type"));
+  }
+
+  @Test
+  public void list_returns_the_jobs_artifacts() {
+    List<JobArtifact> artifacts = List.of(JobArtifact.builder().jobId(7L).name("a.txt").build());
+    when(jobsRepository.existsById(7L)).thenReturn(true);
+    when(jobArtifactsRepository.findByJobIdOrderByName(7L)).thenReturn(artifacts);
+
+    assertEquals(artifacts, jobArtifacts.list(7L));
+  }
+
+  @Test
+  public void list_throws_for_a_missing_job() {
+    EntityNotFoundException e =
+        assertThrows(EntityNotFoundException.class, () -> jobArtifacts.list(8L));
+
+    assertEquals("Job with id 8 not found", e.getMessage());
+  }
+
+  @Test
+  public void get_finds_a_registered_artifact() {
+    JobArtifact artifact = JobArtifact.builder().jobId(7L).name("a.txt").build();
+    when(jobArtifactsRepository.findByJobIdAndName(7L, "a.txt")).thenReturn(Optional.of(artifact));
+
+    assertSame(artifact, jobArtifacts.get(7L, "a.txt"));
+    EntityNotFoundException e =
+        assertThrows(EntityNotFoundException.class, () -> jobArtifacts.get(7L, "b.txt"));
+    assertEquals("JobArtifact with id 7/b.txt not found", e.getMessage());
+  }
+
+  @Test
+  public void open_returns_the_bytes_from_the_store() throws Exception {
+    try (JobArtifactOutputStream out = jobArtifacts.create(job, "a.txt", null)) {
+      out.write('x');
+      out.commit();
+    }
+    JobArtifact artifact = JobArtifact.builder().jobId(7L).name("a.txt").build();
+
+    Resource resource = jobArtifacts.open(artifact);
+
+    assertEquals(1, resource.contentLength());
+  }
+
+  @Test
+  public void open_throws_if_the_bytes_are_gone() {
+    JobArtifact artifact = JobArtifact.builder().jobId(7L).name("gone.txt").build();
+
+    EntityNotFoundException e =
+        assertThrows(EntityNotFoundException.class, () -> jobArtifacts.open(artifact));
+
+    assertEquals("JobArtifact with id 7/gone.txt not found", e.getMessage());
+  }
+
+  @Test
+  public void delete_removes_registrations_and_bytes() throws Exception {
+    try (JobArtifactOutputStream out = jobArtifacts.create(job, "a.txt", null)) {
+      out.write('x');
+      out.commit();
+    }
+
+    jobArtifacts.delete(List.of(7L));
+    jobArtifacts.delete(List.of());
+
+    verify(jobArtifactsRepository, times(1)).deleteByJobIds(List.of(7L));
+    verify(store, times(1)).delete(List.of(7L));
+    assertFalse(store.get(7L, "a.txt").exists());
+  }
+}
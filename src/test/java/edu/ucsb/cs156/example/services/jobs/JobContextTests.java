@@ -1,8 +1,20 @@
 package edu.ucsb.cs156.example.services.jobs;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 import edu.ucsb.cs156.example.entities.Job;
+import edu.ucsb.cs156.example.errors.JobCancelledException;
+import java.io.ByteArrayOutputStream;
+import java.util.Map;
 import org.junit.jupiter.api.Test;
 
 public class JobContextTests {
@@ -20,4 +32,156 @@ public class JobContextTests {
     // assert
     assertEquals("This is a log message", job1.getLog());
   }
+
+  @Test
+  public void when_log_buffer_is_present_lines_go_to_buffer() throws Exception {
+
+    // arrange
+
+    Job job1 = Job.builder().build();
+    JobLogBuffer buffer = new JobLogBuffer(null, job1, 10);
+    JobContext ctx = new JobContext(null, job1, buffer, null, null);
+
+    // act
+    ctx.log("first");
+    ctx.log("second");
+
+    // assert
+    assertNull(job1.getLog());
+    buffer.flush();
+    assertEquals("first\nsecond", job1.getLog());
+  }
+
+  @Test
+  public void cancel_keeps_the_first_reason() {
+    JobContext ctx = new JobContext(null, Job.builder().build());
+    assertFalse(ctx.isCancelled());
+    ctx.checkCancelled();
+
+    ctx.cancel("timeout");
+    ctx.cancel("cancelled");
+
+    assertTrue(ctx.isCancelled());
+    assertEquals("timeout", ctx.getCancelReason());
+    JobCancelledException e = assertThrows(JobCancelledException.class, ctx::checkCancelled);
+    assertEquals("Job stopped: timeout", e.getMessage());
+  }
+
+  @Test
+  public void progress_and_counters_go_to_the_tracker() {
+    Job job = Job.builder().build();
+    JobProgressTracker tracker = new JobProgressTracker(null, null, job);
+    JobContext ctx = new JobContext(null, job, null, null, tracker);
+
+    ctx.progress(5, 20);
+    ctx.increment("rows");
+    ctx.increment("rows", 2);
+
+    assertEquals(Map.of("rows", 3L), tracker.getCounters());
+  }
+
+  @Test
+  public void progress_without_a_tracker_is_ignored() {
+    Job job = Job.builder().build();
+    JobContext ctx = new JobContext(null, job);
+
+    ctx.progress(5, 20);
+    ctx.increment("rows");
+
+    assertNull(job.getProgressDone());
+    assertNull(job.getCounters());
+  }
+
+  @Test
+  public void lines_go_to_the_log_store() {
+    Job job = Job.builder().id(1L).build();
+    JobLogStore store = mock(JobLogStore.class);
+    JobContext ctx = new JobContext(store, job);
+
+    ctx.log("stored");
+
+    verify(store).append(job, "stored");
+    assertNull(job.getLog());
+  }
+
+  @Test
+  public void with_a_log_limiter_only_the_head_is_written_until_the_log_is_finished() {
+    Job job = Job.builder().build();
+    JobContext ctx = new JobContext(null, job);
+    ctx.setLogLimiter(new JobLogLimiter(6, 4));
+
+    ctx.log("head");
+    ctx.log("a");
+    ctx.log("b");
+    ctx.log("c");
+    assertEquals("head", job.getLog());
+
+    assertTrue(ctx.finishLog());
+    assertEquals("head\n[... 1 lines (2 characters) dropped ...]\nb\nc", job.getLog());
+    assertFalse(ctx.finishLog());
+  }
+
+  @Test
+  public void without_a_log_limiter_there_is_nothing_to_finish() {
+    assertFalse(new JobContext(null, Job.builder().build()).finishLog());
+  }
+
+  @Test
+  public void info_warn_and_error_write_structured_records() {
+    Job job = Job.builder().build();
+    JobContext ctx = new JobContext(null, job);
+
+    ctx.info("Starting", "rows", 3);
+    ctx.warn("Slow row");
+    ctx.error("Import failed", "row", 2, "file", "a b.csv");
+
+    String[] lines = job.getLog().split("\n");
+    assertEquals(3, lines.length);
+    assertEquals(JobLogLevel.INFO, JobLogRecord.parse(lines[0]).level());
+    assertEquals("Starting rows=3", JobLogRecord.parse(lines[0]).message());
+    assertEquals(JobLogLevel.WARN, JobLogRecord.parse(lines[1]).level());
+    assertEquals(JobLogLevel.ERROR, JobLogRecord.parse(lines[2]).level());
+    assertEquals("Import failed row=2 file=\"a b.csv\"", JobLogRecord.parse(lines[2]).message());
+    assertNotNull(JobLogRecord.parse(lines[2]).timestamp());
+  }
+
+  @Test
+  public void written_lines_go_to_the_log_indexer() {
+    Job job = Job.builder().build();
+    JobContext ctx = new JobContext(null, job);
+    JobLogIndexer indexer = new JobLogIndexer(1L, 0, 5, 100);
+    ctx.setLogIndexer(indexer);
+
+    ctx.log("Fail!");
+
+    assertEquals("fail", indexer.drain().get(0).getToken());
+  }
+
+  @Test
+  public void artifacts_are_created_for_the_job() throws Exception {
+    Job job = Job.builder().id(4L).build();
+    JobContext ctx = new JobContext(null, job);
+    JobArtifacts artifacts = mock(JobArtifacts.class);
+    JobArtifactOutputStream out =
+        new JobArtifactOutputStream(new ByteArrayOutputStream()) {
+          @Override
+          public void commit() {}
+        };
+    when(artifacts.create(job, "export.csv", "text/csv")).thenReturn(out);
+    when(artifacts.create(job, "data.bin", null)).thenReturn(out);
+    ctx.setArtifacts(artifacts);
+
+    assertSame(out, ctx.artifact("export.csv", "text/csv"));
+    assertSame(out, ctx.artifact("data.bin"));
+  }
+
+  @Test
+  public void a_context_without_artifacts_cannot_write_them() {
+    JobContext ctx = new JobContext(null, Job.builder().id(4L).build());
+
+    IllegalStateException e =
+        assertThrows(IllegalStateException.class, () -> ctx.artifact("export.csv"));
+
+    assertEquals("Job 4 cannot write artifacts", e.getMessage());
+  }
 }
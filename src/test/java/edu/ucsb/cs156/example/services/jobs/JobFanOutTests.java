@@ -0,0 +1,270 @@
+package edu.ucsb.cs156.example.services.jobs;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.ucsb.cs156.example.entities.Job;
+import edu.ucsb.cs156.example.errors.JobCancelledException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+
+public class JobFanOutTests {
+
+  private final Job job = Job.builder().id(7L).build();
+
+  private final JobProgressTracker tracker = new JobProgressTracker(null, new ObjectMapper(), job);
+
+  private final JobContext ctx = new JobContext(null, job, null, null, tracker);
+
+  private static List<Integer> numbers(int n) {
+    return IntStream.rangeClosed(1, n).boxed().toList();
+  }
+
+  @Test
+  public void results_come_back_in_chunk_order_with_progress_and_counters() throws Exception {
+    List<Integer> sums =
+        ctx.fanOut(
+            numbers(10),
+            3,
+            4,
+            chunk -> {
+              ctx.increment("rows", chunk.size());
+              return chunk.stream().mapToInt(Integer::intValue).sum();
+            });
+
+    assertEquals(List.of(6, 15, 24, 10), sums);
+    tracker.apply();
+    assertEquals(10L, job.getProgressDone());
+    assertEquals(10L, job.getProgressTotal());
+    assertEquals(Map.of("rows", 10L), tracker.getCounters());
+  }
+
+  @Test
+  public void chunks_run_in_parallel_on_named_virtual_threads() throws Exception {
+    CountDownLatch allStarted = new CountDownLatch(3);
+
+    List<String> threads =
+        ctx.fanOut(
+            numbers(3),
+            1,
+            3,
+            chunk -> {
+              allStarted.countDown();
+              // only returns if all three chunks are running at once
+              assertTrue(allStarted.await(5, TimeUnit.SECONDS));
+              assertTrue(Thread.currentThread().isVirtual());
+              return Thread.currentThread().getName();
+            });
+
+    assertTrue(
+        threads.stream().allMatch(name -> name.startsWith("job-7-chunk-")), threads::toString);
+  }
+
+  @Test
+  public void no_more_than_parallelism_chunks_run_at_once() throws Exception {
+    AtomicInteger running = new AtomicInteger();
+    AtomicInteger mostRunning = new AtomicInteger();
+
+    ctx.fanOut(
+        numbers(20),
+        1,
+        2,
+        chunk -> {
+          mostRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+          Thread.sleep(5);
+          running.decrementAndGet();
+          return null;
+        });
+
+    assertTrue(mostRunning.get() <= 2, "at most 2, was " + mostRunning.get());
+  }
+
+  @Test
+  public void the_default_parallelism_is_the_context_s() throws Exception {
+    AtomicInteger running = new AtomicInteger();
+    AtomicInteger mostRunning = new AtomicInteger();
+    ctx.setFanOutParallelism(1);
+
+    ctx.fanOut(
+        numbers(5),
+        1,
+        chunk -> {
+          mostRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+          Thread.sleep(5);
+          running.decrementAndGet();
+          return null;
+        });
+
+    assertEquals(1, mostRunning.get());
+  }
+
+  @Test
+  public void the_first_failure_is_thrown_and_the_other_chunks_are_stopped() {
+    IllegalStateException failure = new IllegalStateException("bad row");
+    CountDownLatch siblingRunning = new CountDownLatch(1);
+    AtomicBoolean siblingInterrupted = new AtomicBoolean();
+    AtomicInteger started = new AtomicInteger();
+
+    Exception e =
+        assertThrows(
+            IllegalStateException.class,
+            () ->
+                ctx.fanOut(
+                    numbers(100),
+                    1,
+                    2,
+                    chunk -> {
+                      started.incrementAndGet();
+                      if (chunk.get(0) == 1) {
+                        siblingRunning.await(5, TimeUnit.SECONDS);
+                        throw failure;
+                      }
+                      siblingRunning.countDown();
+                      try {
+                        Thread.sleep(10000);
+                      } catch (InterruptedException interrupted) {
+                        // finishes its chunk anyway, but takes no other
+                        siblingInterrupted.set(true);
+                      }
+                      return null;
+                    }));
+
+    assertSame(failure, e);
+    assertTrue(siblingInterrupted.get());
+    assertEquals(2, started.get());
+  }
+
+  @Test
+  public void a_chunk_that_fails_at_once_is_thrown_while_threads_are_still_being_started() {
+    // the first chunk fails before the other threads have been started; starting them must not
+    // fail in its place
+    for (int attempt = 0; attempt < 20; attempt++) {
+      IllegalStateException failure = new IllegalStateException("bad row");
+
+      Exception e =
+          assertThrows(
+              IllegalStateException.class,
+              () ->
+                  ctx.fanOut(
+                      numbers(100),
+                      1,
+                      50,
+                      chunk -> {
+                        if (chunk.get(0) == 1) {
+                          throw failure;
+                        }
+                        return null;
+                      }));
+
+      assertSame(failure, e);
+    }
+  }
+
+  @Test
+  public void an_error_in_a_chunk_is_thrown_as_it_is() {
+    AssertionError error = new AssertionError("broken");
+
+    assertSame(
+        error,
+        assertThrows(
+            AssertionError.class,
+            () ->
+                ctx.fanOut(
+                    numbers(3),
+                    1,
+                    1,
+                    chunk -> {
+                      throw error;
+                    })));
+  }
+
+  @Test
+  public void no_chunk_starts_once_the_job_is_cancelled() {
+    AtomicInteger started = new AtomicInteger();
+    ctx.cancel("cancelled");
+
+    assertThrows(
+        JobCancelledException.class,
+        () -> ctx.fanOut(numbers(3), 1, 1, chunk -> started.incrementAndGet()));
+    assertEquals(0, started.get());
+  }
+
+  @Test
+  public void a_job_cancelled_by_its_last_chunk_stops_when_the_chunks_are_done() {
+    JobCancelledException e =
+        assertThrows(
+            JobCancelledException.class,
+            () ->
+                ctx.fanOut(
+                    numbers(1),
+                    1,
+                    1,
+                    chunk -> {
+                      ctx.cancel("timeout");
+                      return null;
+                    }));
+
+    assertEquals("Job stopped: timeout", e.getMessage());
+  }
+
+  @Test
+  public void interrupting_the_job_stops_its_chunks() throws Exception {
+    CountDownLatch chunkRunning = new CountDownLatch(1);
+    AtomicBoolean chunkInterrupted = new AtomicBoolean();
+    AtomicReference<Exception> thrown = new AtomicReference<>();
+    Thread jobThread =
+        new Thread(
+            () -> {
+              try {
+                ctx.fanOut(
+                    numbers(1),
+                    1,
+                    1,
+                    chunk -> {
+                      chunkRunning.countDown();
+                      try {
+                        Thread.sleep(10000);
+                      } catch (InterruptedException e) {
+                        chunkInterrupted.set(true);
+                        throw e;
+                      }
+                      return null;
+                    });
+              } catch (Exception e) {
+                thrown.set(e);
+              }
+            });
+    jobThread.start();
+    assertTrue(chunkRunning.await(5, TimeUnit.SECONDS));
+
+    jobThread.interrupt();
+    jobThread.join(5000);
+
+    assertEquals(InterruptedException.class, thrown.get().getClass());
+    assertTrue(chunkInterrupted.get());
+  }
+
+  @Test
+  public void an_empty_list_has_no_chunks() throws Exception {
+    assertEquals(List.of(), ctx.fanOut(List.of(), 10, 4, chunk -> chunk.size()));
+  }
+
+  @Test
+  public void chunk_size_and_parallelism_must_be_positive() {
+    IllegalArgumentException e =
+        assertThrows(
+            IllegalArgumentException.class, () -> ctx.fanOut(numbers(3), 0, 1, List::size));
+    assertEquals("chunkSize and parallelism must be positive (were 0 and 1)", e.getMessage());
+    assertThrows(IllegalArgumentException.class, () -> ctx.fanOut(numbers(3), 1, 0, List::size));
+  }
+}
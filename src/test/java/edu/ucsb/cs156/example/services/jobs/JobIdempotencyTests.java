@@ -0,0 +1,325 @@
+package edu.ucsb.cs156.example.services.jobs;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+import edu.ucsb.cs156.example.entities.Job;
+import edu.ucsb.cs156.example.entities.User;
+import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.errors.InvalidIdempotencyKeyException;
+import edu.ucsb.cs156.example.errors.JobRejectedException;
+import edu.ucsb.cs156.example.repositories.JobsRepository;
+import java.time.ZonedDateTime;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+public class JobIdempotencyTests {
+
+  @Mock private JobsRepository jobsRepository;
+
+  @InjectMocks private JobIdempotency jobIdempotency;
+
+  private final User alice = User.builder().id(1L).build();
+
+  private final String fingerprint = JobIdempotency.fingerprint("TestJob", "{}", "NORMAL", null);
+
+  private final AtomicInteger launches = new AtomicInteger();
+
+  @BeforeEach
+  public void setup() {
+    MockitoAnnotations.openMocks(this);
+    ReflectionTestUtils.setField(jobIdempotency, "windowMs", 60000L);
+    ReflectionTestUtils.setField(jobIdempotency, "cacheSize", 100);
+  }
+
+  private Job job(long id) {
+    return Job.builder().id(id).idempotencyKey("k").launchFingerprint(fingerprint).build();
+  }
+
+  /** A launcher that counts its launches and returns a job with the given id */
+  private Supplier<Job> launcher(long id) {
+    return () -> {
+      launches.incrementAndGet();
+      Job job = job(id);
+      when(jobsRepository.findById(id)).thenReturn(Optional.of(job));
+      return job;
+    };
+  }
+
+  @Test
+  public void fingerprint_depends_on_every_part() {
+    assertEquals(fingerprint, JobIdempotency.fingerprint("TestJob", "{}", "NORMAL", null));
+    assertNotEquals(fingerprint, JobIdempotency.fingerprint("TestJob", "{}", "BULK", null));
+    assertNotEquals(fingerprint, JobIdempotency.fingerprint("TestJob", "{}", "NORMAL", 5L));
+  }
+
+  @Test
+  public void a_repeated_key_returns_the_first_launch_without_asking_the_database_for_it() {
+    Job first = jobIdempotency.launch(alice, "k", fingerprint, launcher(1));
+
+    Job second = jobIdempotency.launch(alice, "k", fingerprint, launcher(2));
+
+    assertEquals(1, launches.get());
+    assertSame(first, second);
+    verify(jobsRepository, times(1)).findByCreatedByIdAndIdempotencyKey(1L, "k");
+    assertEquals(1, jobIdempotency.getCachedKeyCount());
+  }
+
+  @Test
+  public void a_repeated_key_with_other_parameters_is_rejected() {
+    jobIdempotency.launch(alice, "k", fingerprint, launcher(1));
+
+    InvalidIdempotencyKeyException e =
+        assertThrows(
+            InvalidIdempotencyKeyException.class,
+            () -> jobIdempotency.launch(alice, "k", "other", launcher(2)));
+
+    assertEquals(
+        "Idempotency-Key k was already used to launch a job with different parameters",
+        e.getMessage());
+    assertEquals(1, launches.get());
+  }
+
+  @Test
+  public void a_key_that_is_too_long_is_rejected() {
+    String key = "k".repeat(256);
+
+    InvalidIdempotencyKeyException e =
+        assertThrows(
+            InvalidIdempotencyKeyException.class,
+            () -> jobIdempotency.launch(alice, key, fingerprint, launcher(1)));
+
+    assertEquals("Idempotency-Key is longer than 255 characters", e.getMessage());
+    assertEquals(0, launches.get());
+  }
+
+  @Test
+  public void a_key_launched_on_another_node_returns_that_job() {
+    Job launched = job(9);
+    launched.setCreatedAt(ZonedDateTime.now().minusSeconds(30));
+    when(jobsRepository.findByCreatedByIdAndIdempotencyKey(1L, "k"))
+        .thenReturn(Optional.of(launched));
+
+    assertSame(launched, jobIdempotency.launch(alice, "k", fingerprint, launcher(1)));
+    assertEquals(0, launches.get());
+  }
+
+  @Test
+  public void a_key_launched_on_another_node_with_other_parameters_is_rejected() {
+    when(jobsRepository.findByCreatedByIdAndIdempotencyKey(1L, "k"))
+        .thenReturn(Optional.of(job(9)));
+
+    assertThrows(
+        InvalidIdempotencyKeyException.class,
+        () -> jobIdempotency.launch(alice, "k", "other", launcher(1)));
+    // the key is not held for the failed launch
+    assertEquals(0, jobIdempotency.getCachedKeyCount());
+  }
+
+  @Test
+  public void a_key_launched_before_the_window_is_freed_and_launched_again() {
+    Job old = job(9);
+    old.setCreatedAt(ZonedDateTime.now().minusMinutes(2));
+    when(jobsRepository.findByCreatedByIdAndIdempotencyKey(1L, "k")).thenReturn(Optional.of(old));
+
+    Job job = jobIdempotency.launch(alice, "k", "other parameters are fine", launcher(1));
+
+    assertEquals(1, job.getId());
+    verify(jobsRepository).clearIdempotencyKey(9);
+  }
+
+  @Test
+  public void a_launch_from_before_the_window_on_this_node_does_not_count() {
+    ReflectionTestUtils.setField(jobIdempotency, "windowMs", -1000L);
+    jobIdempotency.launch(alice, "k", fingerprint, launcher(1));
+
+    jobIdempotency.launch(alice, "k", fingerprint, launcher(2));
+
+    assertEquals(2, launches.get());
+  }
+
+  @Test
+  public void a_launch_that_loses_the_race_on_the_unique_key_returns_the_winner() {
+    Job winner = job(9);
+    when(jobsRepository.findByCreatedByIdAndIdempotencyKey(1L, "k"))
+        .thenReturn(Optional.empty(), Optional.of(winner));
+
+    Job job =
+        jobIdempotency.launch(
+            alice,
+            "k",
+            fingerprint,
+            () -> {
+              throw new DataIntegrityViolationException("duplicate key");
+            });
+
+    assertSame(winner, job);
+  }
+
+  @Test
+  public void other_integrity_violations_are_rethrown() {
+    DataIntegrityViolationException violation = new DataIntegrityViolationException("other");
+
+    assertSame(
+        violation,
+        assertThrows(
+            DataIntegrityViolationException.class,
+            () ->
+                jobIdempotency.launch(
+                    alice,
+                    "k",
+                    fingerprint,
+                    () -> {
+                      throw violation;
+                    })));
+  }
+
+  @Test
+  public void a_failed_launch_frees_the_key() {
+    assertThrows(
+        JobRejectedException.class,
+        () ->
+            jobIdempotency.launch(
+                alice,
+                "k",
+                fingerprint,
+                () -> {
+                  throw new JobRejectedException("full");
+                }));
+
+    assertEquals(0, jobIdempotency.getCachedKeyCount());
+    assertEquals(1, jobIdempotency.launch(alice, "k", fingerprint, launcher(1)).getId());
+  }
+
+  @Test
+  public void a_duplicate_waits_for_the_launch_in_flight_and_gets_its_job() throws Exception {
+    CountDownLatch launching = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    CompletableFuture<Job> first =
+        CompletableFuture.supplyAsync(
+            () ->
+                jobIdempotency.launch(
+                    alice,
+                    "k",
+                    fingerprint,
+                    () -> {
+                      launching.countDown();
+                      try {
+                        release.await();
+                      } catch (InterruptedException e) {
+                        throw new IllegalStateException(e);
+                      }
+                      return launcher(1).get();
+                    }));
+    launching.await(5, TimeUnit.SECONDS);
+    CompletableFuture<Job> duplicate =
+        CompletableFuture.supplyAsync(
+            () -> jobIdempotency.launch(alice, "k", fingerprint, launcher(2)));
+
+    release.countDown();
+
+    assertEquals(1, first.get(5, TimeUnit.SECONDS).getId());
+    assertEquals(1, duplicate.get(5, TimeUnit.SECONDS).getId());
+    assertEquals(1, launches.get());
+    verify(jobsRepository, times(1)).findByCreatedByIdAndIdempotencyKey(1L, "k");
+  }
+
+  @Test
+  public void a_duplicate_of_a_launch_that_fails_in_flight_fails_the_same_way() throws Exception {
+    CountDownLatch launching = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    CompletableFuture<Job> first =
+        CompletableFuture.supplyAsync(
+            () ->
+                jobIdempotency.launch(
+                    alice,
+                    "k",
+                    fingerprint,
+                    () -> {
+                      launching.countDown();
+                      try {
+                        release.await();
+                      } catch (InterruptedException e) {
+                        throw new IllegalStateException(e);
+                      }
+                      throw new JobRejectedException("full");
+                    }));
+    launching.await(5, TimeUnit.SECONDS);
+    CompletableFuture<Job> duplicate =
+        CompletableFuture.supplyAsync(
+            () -> jobIdempotency.launch(alice, "k", fingerprint, launcher(2)));
+    // give the duplicate time to start waiting for the first launch
+    Thread.sleep(200);
+
+    release.countDown();
+
+    Exception e = assertThrows(Exception.class, () -> duplicate.get(5, TimeUnit.SECONDS));
+    assertEquals(JobRejectedException.class, e.getCause().getClass());
+    assertThrows(Exception.class, () -> first.get(5, TimeUnit.SECONDS));
+    assertEquals(0, launches.get());
+  }
+
+  @Test
+  public void a_repeated_key_whose_job_was_deleted_is_not_found() {
+    jobIdempotency.launch(alice, "k", fingerprint, launcher(1));
+    when(jobsRepository.findById(1L)).thenReturn(Optional.empty());
+
+    assertThrows(
+        EntityNotFoundException.class,
+        () -> jobIdempotency.launch(alice, "k", fingerprint, launcher(2)));
+  }
+
+  @Test
+  public void only_the_most_recent_keys_are_kept_in_memory() {
+    ReflectionTestUtils.setField(jobIdempotency, "cacheSize", 2);
+    jobIdempotency.launch(alice, "a", fingerprint, launcher(1));
+    jobIdempotency.launch(alice, "b", fingerprint, launcher(2));
+    // using "a" makes "b" the least recently used
+    jobIdempotency.launch(alice, "a", fingerprint, launcher(3));
+
+    jobIdempotency.launch(alice, "c", fingerprint, launcher(4));
+    jobIdempotency.launch(alice, "a", fingerprint, launcher(5));
+
+    assertEquals(2, jobIdempotency.getCachedKeyCount());
+    assertEquals(3, launches.get());
+    verify(jobsRepository, never()).clearIdempotencyKey(anyLong());
+  }
+
+  @Test
+  public void each_user_has_their_own_keys() {
+    User bob = User.builder().id(2L).build();
+
+    assertEquals(1, jobIdempotency.launch(alice, "k", fingerprint, launcher(1)).getId());
+    assertEquals(2, jobIdempotency.launch(bob, "k", "other parameters", launcher(2)).getId());
+    assertEquals(1, jobIdempotency.launch(alice, "k", fingerprint, launcher(3)).getId());
+
+    assertEquals(2, launches.get());
+    verify(jobsRepository).findByCreatedByIdAndIdempotencyKey(1L, "k");
+    verify(jobsRepository).findByCreatedByIdAndIdempotencyKey(2L, "k");
+  }
+
+  @Test
+  public void keys_of_jobs_launched_by_the_system_are_looked_up_without_a_user() {
+    Job launched = job(9);
+    when(jobsRepository.findFirstByCreatedByIsNullAndIdempotencyKeyOrderByIdAsc("k"))
+        .thenReturn(Optional.of(launched));
+
+    assertSame(launched, jobIdempotency.launch(null, "k", fingerprint, launcher(1)));
+    assertEquals(0, launches.get());
+  }
+}
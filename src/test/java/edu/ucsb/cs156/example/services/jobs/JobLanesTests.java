@@ -0,0 +1,159 @@
+package edu.ucsb.cs156.example.services.jobs;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.ucsb.cs156.example.entities.Job;
+import edu.ucsb.cs156.example.entities.JobPriority;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+public class JobLanesTests {
+
+  private JobLanes jobLanes;
+
+  @BeforeEach
+  public void setup() {
+    jobLanes = new JobLanes();
+    ReflectionTestUtils.setField(jobLanes, "interactiveWeight", 8);
+    ReflectionTestUtils.setField(jobLanes, "normalWeight", 3);
+    ReflectionTestUtils.setField(jobLanes, "bulkWeight", 1);
+  }
+
+  private Job offer(JobPriority priority) {
+    Job job = Job.builder().priority(priority).build();
+    jobLanes.offer(job, ctx -> {}, () -> {});
+    return job;
+  }
+
+  /** Takes jobs from the lanes until they are empty, and returns the lanes they came from. */
+  private List<JobPriority> drain() {
+    List<JobPriority> order = new ArrayList<>();
+    Optional<JobLanes.Waiting> next;
+    while ((next = jobLanes.poll()).isPresent()) {
+      order.add(next.get().job().getPriority());
+    }
+    return order;
+  }
+
+  @Test
+  public void busy_lanes_share_turns_by_weight_interleaved() {
+    for (int i = 0; i < 24; i++) {
+      offer(JobPriority.BULK);
+      offer(JobPriority.NORMAL);
+      offer(JobPriority.INTERACTIVE);
+    }
+
+    List<JobPriority> order = drain().subList(0, 12);
+
+    assertEquals(8, order.stream().filter(p -> p == JobPriority.INTERACTIVE).count());
+    assertEquals(3, order.stream().filter(p -> p == JobPriority.NORMAL).count());
+    assertEquals(1, order.stream().filter(p -> p == JobPriority.BULK).count());
+    assertEquals(JobPriority.INTERACTIVE, order.get(0));
+    // never more than three interactive jobs in a row while the other lanes wait
+    for (int i = 0; i + 3 < order.size(); i++) {
+      assertTrue(order.subList(i, i + 4).stream().anyMatch(p -> p != JobPriority.INTERACTIVE));
+    }
+  }
+
+  @Test
+  public void jobs_in_a_lane_run_in_the_order_they_were_offered() {
+    Job first = offer(JobPriority.BULK);
+    Job second = offer(JobPriority.BULK);
+
+    assertSame(first, jobLanes.poll().get().job());
+    assertSame(second, jobLanes.poll().get().job());
+    assertTrue(jobLanes.poll().isEmpty());
+  }
+
+  @Test
+  public void an_idle_lane_does_not_bank_turns() {
+    for (int i = 0; i < 100; i++) {
+      offer(JobPriority.BULK);
+      jobLanes.poll();
+    }
+    for (int i = 0; i < 12; i++) {
+      offer(JobPriority.BULK);
+      offer(JobPriority.INTERACTIVE);
+    }
+
+    List<JobPriority> order = drain().subList(0, 9);
+
+    assertEquals(8, order.stream().filter(p -> p == JobPriority.INTERACTIVE).count());
+  }
+
+  @Test
+  public void job_whose_dispatch_is_rejected_is_taken_out_again() {
+    Job kept = offer(JobPriority.NORMAL);
+    Job rejected = Job.builder().build();
+
+    assertThrows(
+        TaskRejectedException.class,
+        () ->
+            jobLanes.offer(
+                rejected,
+                ctx -> {},
+                () -> {
+                  throw new TaskRejectedException("full");
+                }));
+
+    assertEquals(0, jobLanes.positionOf(kept));
+    assertEquals(List.of(JobPriority.NORMAL), drain());
+  }
+
+  @Test
+  public void positionOf_counts_jobs_ahead_and_turns_of_other_lanes() {
+    Job interactive = offer(JobPriority.INTERACTIVE);
+    for (int i = 0; i < 20; i++) {
+      offer(JobPriority.INTERACTIVE);
+      offer(JobPriority.BULK);
+    }
+    Job bulk = Job.builder().priority(JobPriority.BULK).build();
+
+    assertEquals(0, jobLanes.positionOf(interactive));
+    // 20 bulk jobs ahead, during whose 21 turns the 21 interactive jobs all get theirs
+    assertEquals(41, jobLanes.positionOf(bulk));
+  }
+
+  @Test
+  public void positionOf_caps_turns_by_the_jobs_waiting() {
+    Map<JobPriority, Long> waiting = new EnumMap<>(JobPriority.class);
+    waiting.put(JobPriority.INTERACTIVE, 3L);
+
+    assertEquals(4, jobLanes.positionOf(JobPriority.NORMAL, 1, waiting));
+    assertEquals(0, jobLanes.positionOf(JobPriority.INTERACTIVE, 0, Map.of()));
+  }
+
+  @Test
+  public void weights_are_at_least_one() {
+    ReflectionTestUtils.setField(jobLanes, "bulkWeight", 0);
+
+    assertEquals(1, jobLanes.weight(JobPriority.BULK));
+    assertEquals(8, jobLanes.weight(JobPriority.INTERACTIVE));
+  }
+
+  @Test
+  public void claim_tries_lanes_in_turn_until_one_has_a_job() {
+    List<JobPriority> tried = new ArrayList<>();
+
+    Optional<String> claimed =
+        jobLanes.claim(
+            lane -> {
+              tried.add(lane);
+              return lane == JobPriority.BULK ? Optional.of("bulk job") : Optional.empty();
+            });
+
+    assertEquals("bulk job", claimed.get());
+    assertEquals(List.of(JobPriority.INTERACTIVE, JobPriority.NORMAL, JobPriority.BULK), tried);
+    assertTrue(jobLanes.claim(lane -> Optional.empty()).isEmpty());
+  }
+}
@@ -0,0 +1,78 @@
+package edu.ucsb.cs156.example.services.jobs;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Instant;
+import org.junit.jupiter.api.Test;
+
+public class JobLogFilterTests {
+  private static final Instant T1 = Instant.parse("2026-10-17T01:00:00Z");
+  private static final Instant T2 = Instant.parse("2026-10-17T02:00:00Z");
+  private static final Instant T3 = Instant.parse("2026-10-17T03:00:00Z");
+
+  private static final String INFO_AT_T1 = JobLogRecord.format(T1, JobLogLevel.INFO, "started");
+  private static final String WARN_AT_T2 = JobLogRecord.format(T2, JobLogLevel.WARN, "slow");
+  private static final String ERROR_AT_T3 = JobLogRecord.format(T3, JobLogLevel.ERROR, "failed");
+
+  @Test
+  public void an_empty_filter_matches_everything() {
+    JobLogFilter filter = new JobLogFilter(null, null, null, null);
+
+    assertTrue(filter.isEmpty());
+    assertTrue(filter.matches("anything"));
+    assertFalse(new JobLogFilter(null, null, null, "x").isEmpty());
+    assertFalse(new JobLogFilter(JobLogLevel.INFO, null, null, null).isEmpty());
+    assertFalse(new JobLogFilter(null, T1, null, null).isEmpty());
+    assertFalse(new JobLogFilter(null, null, T1, null).isEmpty());
+  }
+
+  @Test
+  public void level_keeps_that_level_and_more_severe_ones() {
+    JobLogFilter filter = new JobLogFilter(JobLogLevel.WARN, null, null, null);
+
+    assertFalse(filter.matches(INFO_AT_T1));
+    assertTrue(filter.matches(WARN_AT_T2));
+    assertTrue(filter.matches(ERROR_AT_T3));
+  }
+
+  @Test
+  public void unstructured_lines_count_as_info() {
+    assertTrue(new JobLogFilter(JobLogLevel.INFO, null, null, null).matches("Hello"));
+    assertFalse(new JobLogFilter(JobLogLevel.WARN, null, null, null).matches("Hello"));
+  }
+
+  @Test
+  public void time_window_includes_since_and_excludes_until() {
+    JobLogFilter filter = new JobLogFilter(null, T2, T3, null);
+
+    assertFalse(filter.matches(INFO_AT_T1));
+    assertTrue(filter.matches(WARN_AT_T2));
+    assertFalse(filter.matches(ERROR_AT_T3));
+    assertTrue(new JobLogFilter(null, T2, null, null).matches(ERROR_AT_T3));
+    assertTrue(new JobLogFilter(null, null, T2, null).matches(INFO_AT_T1));
+  }
+
+  @Test
+  public void unstructured_lines_never_match_a_time_window() {
+    assertFalse(new JobLogFilter(null, T1, null, null).matches("Hello"));
+    assertFalse(new JobLogFilter(null, null, T3, null).matches("Hello"));
+  }
+
+  @Test
+  public void contains_matches_anywhere_in_the_line() {
+    JobLogFilter filter = new JobLogFilter(null, null, null, "fail");
+
+    assertTrue(filter.matches(ERROR_AT_T3));
+    assertFalse(filter.matches(WARN_AT_T2));
+  }
+
+  @Test
+  public void every_condition_must_hold() {
+    JobLogFilter filter = new JobLogFilter(JobLogLevel.WARN, T1, null, "s");
+
+    assertFalse(filter.matches(INFO_AT_T1)); // has an s, but is INFO
+    assertTrue(filter.matches(WARN_AT_T2));
+    assertFalse(filter.matches(ERROR_AT_T3)); // no s
+  }
+}
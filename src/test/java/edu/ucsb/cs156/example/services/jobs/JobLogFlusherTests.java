@@ -0,0 +1,85 @@
+package edu.ucsb.cs156.example.services.jobs;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+import edu.ucsb.cs156.example.entities.Job;
+import edu.ucsb.cs156.example.repositories.JobsRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+public class JobLogFlusherTests {
+
+  @Mock private JobsRepository jobsRepository;
+
+  @InjectMocks private JobLogFlusher jobLogFlusher;
+
+  @BeforeEach
+  public void setup() {
+    MockitoAnnotations.openMocks(this);
+    ReflectionTestUtils.setField(
+        jobLogFlusher, "jobLogStore", new DatabaseJobLogStore(jobsRepository));
+    ReflectionTestUtils.setField(jobLogFlusher, "flushLines", 3);
+  }
+
+  @Test
+  public void lines_are_buffered_until_flushAll() {
+    Job job = Job.builder().id(1L).build();
+    JobLogBuffer buffer = jobLogFlusher.register(job);
+
+    buffer.append("line 1");
+    buffer.append("line 2");
+
+    verifyNoInteractions(jobsRepository);
+
+    jobLogFlusher.flushAll();
+
+    verify(jobsRepository, times(1)).appendLog(1L, "\n", "line 1\nline 2");
+    verify(jobsRepository, never()).save(any(Job.class));
+  }
+
+  @Test
+  public void buffer_flushes_itself_when_flushLines_reached() {
+    Job job = Job.builder().id(1L).build();
+    JobLogBuffer buffer = jobLogFlusher.register(job);
+
+    buffer.append("a");
+    buffer.append("b");
+    buffer.append("c");
+
+    verify(jobsRepository, times(1)).appendLog(1L, "\n", "a\nb\nc");
+  }
+
+  @Test
+  public void close_writes_pending_lines_and_unregisters() {
+    Job job = Job.builder().id(1L).build();
+    JobLogBuffer buffer = jobLogFlusher.register(job);
+    buffer.append("last words");
+
+    assertEquals(1, jobLogFlusher.getBufferCount());
+    jobLogFlusher.close(buffer);
+    assertEquals(0, jobLogFlusher.getBufferCount());
+
+    jobLogFlusher.close(buffer);
+    verify(jobsRepository, times(1)).appendLog(1L, "\n", "last words");
+  }
+
+  @Test
+  public void flushAll_keeps_going_when_a_write_fails() {
+    Job job1 = Job.builder().id(1L).build();
+    Job job2 = Job.builder().id(2L).build();
+    jobLogFlusher.register(job1).append("one");
+    jobLogFlusher.register(job2).append("two");
+    when(jobsRepository.appendLog(1L, "\n", "one")).thenThrow(new RuntimeException("db down"));
+
+    jobLogFlusher.flushAll();
+
+    verify(jobsRepository, times(1)).appendLog(1L, "\n", "one");
+    verify(jobsRepository, times(1)).appendLog(2L, "\n", "two");
+  }
+}
@@ -0,0 +1,240 @@
+package edu.ucsb.cs156.example.services.jobs;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+import edu.ucsb.cs156.example.entities.Job;
+import edu.ucsb.cs156.example.entities.JobLogToken;
+import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.models.JobLogPage;
+import edu.ucsb.cs156.example.models.JobLogSearchResult;
+import edu.ucsb.cs156.example.models.JobLogSnippet;
+import edu.ucsb.cs156.example.repositories.JobLogTokensRepository;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.util.ReflectionTestUtils;
+
+public class JobLogIndexTests {
+
+  @Mock private JobLogTokensRepository jobLogTokensRepository;
+
+  @Mock private JobLogStore jobLogStore;
+
+  @Mock private JobLogReader jobLogReader;
+
+  @InjectMocks private JobLogIndex jobLogIndex;
+
+  @BeforeEach
+  public void setup() {
+    MockitoAnnotations.openMocks(this);
+    ReflectionTestUtils.setField(jobLogIndex, "enabled", true);
+    ReflectionTestUtils.setField(jobLogIndex, "hitsPerToken", 5);
+    ReflectionTestUtils.setField(jobLogIndex, "maxTokensPerJob", 100);
+    ReflectionTestUtils.setField(jobLogIndex, "snippetChars", 200L);
+  }
+
+  private static JobLogToken entry(String token, long jobId, long offset) {
+    return JobLogToken.builder().token(token).jobId(jobId).lineOffset(offset).build();
+  }
+
+  private void stubLine(long jobId, long offset, String text) {
+    when(jobLogReader.readLines(jobId, offset, 1, 200L))
+        .thenReturn(JobLogPage.builder().text(text).startOffset(offset).build());
+  }
+
+  @Test
+  public void tokens_are_lowercased_words_of_at_least_two_characters() {
+    assertEquals(
+        List.of("fail", "row_17", "été", "again"),
+        List.copyOf(JobLogIndex.tokens("Fail! row_17 (été) a fail-again")));
+    assertEquals("x".repeat(64), JobLogIndex.tokens("x".repeat(100)).iterator().next());
+    assertEquals(Set.of(), JobLogIndex.tokens(" ! "));
+  }
+
+  @Test
+  public void open_starts_at_the_end_of_the_stored_log() {
+    when(jobLogStore.getSize(4L)).thenReturn(Optional.of(10L));
+
+    JobLogIndexer indexer = jobLogIndex.open(Job.builder().id(4L).build());
+    indexer.add("more");
+
+    assertEquals(1, jobLogIndex.getIndexerCount());
+    assertEquals(11, indexer.drain().get(0).getLineOffset());
+  }
+
+  @Test
+  public void open_returns_null_when_indexing_is_off() {
+    ReflectionTestUtils.setField(jobLogIndex, "enabled", false);
+
+    assertNull(jobLogIndex.open(Job.builder().id(4L).build()));
+    assertEquals(0, jobLogIndex.getIndexerCount());
+  }
+
+  @Test
+  public void flushAll_saves_pending_entries_and_close_saves_the_rest() {
+    when(jobLogStore.getSize(4L)).thenReturn(Optional.empty());
+    JobLogIndexer indexer = jobLogIndex.open(Job.builder().id(4L).build());
+
+    indexer.add("one");
+    jobLogIndex.flushAll();
+    verify(jobLogTokensRepository).saveAll(List.of(entry("one", 4L, 0)));
+
+    jobLogIndex.flushAll();
+    indexer.add("two");
+    jobLogIndex.close(indexer);
+    verify(jobLogTokensRepository).saveAll(List.of(entry("two", 4L, 4)));
+    verifyNoMoreInteractions(jobLogTokensRepository);
+    assertEquals(0, jobLogIndex.getIndexerCount());
+
+    jobLogIndex.close(null);
+  }
+
+  @Test
+  public void close_saves_a_truncated_index_too() {
+    ReflectionTestUtils.setField(jobLogIndex, "maxTokensPerJob", 1);
+    when(jobLogStore.getSize(4L)).thenReturn(Optional.empty());
+    JobLogIndexer indexer = jobLogIndex.open(Job.builder().id(4L).build());
+    indexer.add("one two");
+
+    jobLogIndex.close(indexer);
+
+    assertTrue(indexer.isTruncated());
+    verify(jobLogTokensRepository).saveAll(List.of(entry("one", 4L, 0)));
+  }
+
+  @Test
+  public void a_failure_to_save_does_not_fail_the_job() {
+    when(jobLogStore.getSize(4L)).thenReturn(Optional.empty());
+    when(jobLogTokensRepository.saveAll(any())).thenThrow(new RuntimeException("down"));
+    JobLogIndexer indexer = jobLogIndex.open(Job.builder().id(4L).build());
+    indexer.add("one");
+
+    jobLogIndex.close(indexer);
+
+    verify(jobLogTokensRepository).saveAll(any());
+  }
+
+  @Test
+  public void delete_removes_the_entries_of_deleted_jobs() {
+    jobLogIndex.delete(List.of());
+    verifyNoInteractions(jobLogTokensRepository);
+
+    jobLogIndex.delete(List.of(1L, 2L));
+    verify(jobLogTokensRepository).deleteByJobIds(List.of(1L, 2L));
+  }
+
+  @Test
+  public void search_returns_jobs_with_their_best_lines() {
+    Set<String> tokens = Set.of("import", "failed");
+    when(jobLogTokensRepository.findJobIdsWithAllTokens(
+            tokens,
+            2,
+            Long.MAX_VALUE,
+            JobLogIndex.BEGINNING_OF_TIME,
+            JobLogIndex.END_OF_TIME,
+            Limit.of(10)))
+        .thenReturn(List.of(9L, 7L));
+    when(jobLogTokensRepository.findByTokensAndJobIds(tokens, List.of(9L, 7L)))
+        .thenReturn(
+            List.of(
+                entry("import", 9L, 0),
+                entry("failed", 9L, 20),
+                entry("import", 9L, 20),
+                entry("failed", 9L, 40),
+                entry("import", 7L, 5),
+                entry("failed", 7L, 5)));
+    stubLine(9L, 0, "Import started");
+    stubLine(9L, 20, "Import failed");
+    stubLine(7L, 5, "import failed too");
+
+    List<JobLogSearchResult> results = jobLogIndex.search("Import failed", null, null, null, 10, 2);
+
+    // the line with both words comes first, then the earliest of the rest; shown in log order
+    assertEquals(
+        List.of(
+            JobLogSearchResult.builder()
+                .jobId(9L)
+                .snippets(
+                    List.of(
+                        JobLogSnippet.builder().offset(0).text("Import started").build(),
+                        JobLogSnippet.builder().offset(20).text("Import failed").build()))
+                .build(),
+            JobLogSearchResult.builder()
+                .jobId(7L)
+                .snippets(
+                    List.of(JobLogSnippet.builder().offset(5).text("import failed too").build()))
+                .build()),
+        results);
+  }
+
+  @Test
+  public void search_pages_with_before_limits_the_window_and_skips_jobs_deleted_meanwhile() {
+    when(jobLogTokensRepository.findJobIdsWithAllTokens(
+            Set.of("fail"),
+            1,
+            9L,
+            ZonedDateTime.of(2026, 10, 1, 0, 0, 0, 0, ZoneOffset.UTC),
+            ZonedDateTime.of(2026, 10, 8, 0, 0, 0, 0, ZoneOffset.UTC),
+            Limit.of(2)))
+        .thenReturn(List.of(8L, 6L));
+    when(jobLogTokensRepository.findByTokensAndJobIds(Set.of("fail"), List.of(8L, 6L)))
+        .thenReturn(List.of(entry("fail", 8L, 0), entry("fail", 6L, 3)));
+    when(jobLogReader.readLines(8L, 0, 1, 200L))
+        .thenThrow(new EntityNotFoundException(Job.class, 8L));
+    stubLine(6L, 3, "Fail!");
+
+    List<JobLogSearchResult> results =
+        jobLogIndex.search(
+            "Fail!",
+            9L,
+            Instant.parse("2026-10-01T00:00:00Z"),
+            Instant.parse("2026-10-08T00:00:00Z"),
+            2,
+            3);
+
+    assertEquals(1, results.size());
+    assertEquals(6L, results.get(0).getJobId());
+  }
+
+  @Test
+  public void search_without_snippets_returns_just_the_jobs() {
+    when(jobLogTokensRepository.findJobIdsWithAllTokens(
+            any(), anyLong(), anyLong(), any(), any(), any()))
+        .thenReturn(List.of(8L));
+    when(jobLogTokensRepository.findByTokensAndJobIds(any(), any()))
+        .thenReturn(List.of(entry("fail", 8L, 0)));
+
+    List<JobLogSearchResult> results = jobLogIndex.search("fail", null, null, null, 2, -1);
+
+    assertEquals(
+        List.of(JobLogSearchResult.builder().jobId(8L).snippets(List.of()).build()), results);
+    verifyNoInteractions(jobLogReader);
+  }
+
+  @Test
+  public void search_finds_nothing_for_an_empty_query_or_no_matches() {
+    assertEquals(List.of(), jobLogIndex.search("!", null, null, null, 10, 3));
+    assertEquals(List.of(), jobLogIndex.search("fail", null, null, null, 0, 3));
+    verifyNoInteractions(jobLogTokensRepository);
+
+    when(jobLogTokensRepository.findJobIdsWithAllTokens(
+            any(), anyLong(), anyLong(), any(), any(), any()))
+        .thenReturn(List.of());
+    assertEquals(List.of(), jobLogIndex.search("fail", null, null, null, 10, 3));
+    verify(jobLogTokensRepository, never()).findByTokensAndJobIds(any(), any());
+  }
+}
@@ -0,0 +1,89 @@
+package edu.ucsb.cs156.example.services.jobs;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.ucsb.cs156.example.entities.JobLogToken;
+import java.time.Instant;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+public class JobLogIndexerTests {
+
+  private static List<String> entries(JobLogIndexer indexer) {
+    return indexer.drain().stream().map(t -> t.getToken() + "@" + t.getLineOffset()).toList();
+  }
+
+  @Test
+  public void tokens_are_indexed_at_the_offset_of_their_line() {
+    JobLogIndexer indexer = new JobLogIndexer(3L, 0, 5, 100);
+
+    indexer.add("Hello world");
+    indexer.add("Fail! world\nx\nfail again");
+
+    assertEquals(
+        List.of("hello@0", "world@0", "fail@12", "world@12", "fail@26", "again@26"),
+        entries(indexer));
+  }
+
+  @Test
+  public void offsets_continue_from_an_existing_log() {
+    JobLogIndexer indexer = new JobLogIndexer(3L, 10, 5, 100);
+
+    indexer.add("next");
+
+    JobLogToken entry = indexer.drain().get(0);
+    assertEquals(3L, entry.getJobId());
+    assertEquals(11, entry.getLineOffset());
+  }
+
+  @Test
+  public void structured_records_are_indexed_by_level_without_their_timestamp() {
+    JobLogIndexer indexer = new JobLogIndexer(3L, 0, 5, 100);
+
+    indexer.add(JobLogRecord.format(Instant.EPOCH, JobLogLevel.ERROR, "Failed", "row", 17));
+
+    assertEquals(List.of("error@0", "failed@0", "row@0", "17@0"), entries(indexer));
+  }
+
+  @Test
+  public void each_token_is_indexed_on_at_most_hitsPerToken_lines() {
+    JobLogIndexer indexer = new JobLogIndexer(3L, 0, 2, 100);
+
+    indexer.add("ab\nab\nab");
+
+    assertEquals(List.of("ab@0", "ab@3"), entries(indexer));
+  }
+
+  @Test
+  public void tokens_past_maxTokens_are_not_indexed() {
+    JobLogIndexer indexer = new JobLogIndexer(3L, 0, 5, 2);
+
+    indexer.add("aa bb cc");
+    indexer.add("aa cc");
+
+    assertEquals(List.of("aa@0", "bb@0", "aa@9"), entries(indexer));
+    assertTrue(indexer.isTruncated());
+  }
+
+  @Test
+  public void a_job_within_maxTokens_is_not_truncated() {
+    JobLogIndexer indexer = new JobLogIndexer(3L, 0, 1, 2);
+
+    indexer.add("aa bb");
+    indexer.add("aa bb");
+
+    assertEquals(List.of("aa@0", "bb@0"), entries(indexer));
+    assertFalse(indexer.isTruncated());
+  }
+
+  @Test
+  public void drain_empties_the_pending_entries() {
+    JobLogIndexer indexer = new JobLogIndexer(3L, 0, 5, 100);
+    indexer.add("hello");
+
+    assertEquals(1, indexer.drain().size());
+    assertEquals(List.of(), indexer.drain());
+  }
+}
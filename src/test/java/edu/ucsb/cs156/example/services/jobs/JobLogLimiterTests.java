@@ -0,0 +1,82 @@
+package edu.ucsb.cs156.example.services.jobs;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import org.junit.jupiter.api.Test;
+
+public class JobLogLimiterTests {
+
+  @Test
+  public void lines_that_fit_in_the_head_are_written_at_once() {
+    JobLogLimiter limiter = new JobLogLimiter(10, 10);
+
+    assertEquals("abc", limiter.accept("abc"));
+    assertEquals("de\n", limiter.accept("de\n"));
+
+    assertNull(limiter.finish());
+    assertEquals(0, limiter.getDroppedLines());
+  }
+
+  @Test
+  public void once_the_head_is_full_lines_are_held_and_written_when_the_job_finishes() {
+    JobLogLimiter limiter = new JobLogLimiter(8, 20);
+
+    // "one\ntwo\n" fills the head; "three" does not fit, nor does anything after it
+    assertEquals("one\ntwo", limiter.accept("one\ntwo\nthree"));
+    assertNull(limiter.accept("x"));
+
+    assertEquals("three\nx", limiter.finish());
+    assertEquals(0, limiter.getDroppedLines());
+  }
+
+  @Test
+  public void the_oldest_held_lines_are_dropped_and_counted() {
+    JobLogLimiter limiter = new JobLogLimiter(5, 8);
+
+    assertEquals("head", limiter.accept("head"));
+    for (int i = 1; i <= 5; i++) {
+      assertNull(limiter.accept("l" + i + "!"));
+    }
+
+    // each line costs 4, so the ring holds the last two
+    assertEquals("[... 3 lines (12 characters) dropped ...]\nl4!\nl5!", limiter.finish());
+    assertEquals(3, limiter.getDroppedLines());
+  }
+
+  @Test
+  public void a_line_longer_than_the_ring_buffer_keeps_its_end() {
+    JobLogLimiter limiter = new JobLogLimiter(0, 5);
+
+    assertNull(limiter.accept("0123456789"));
+
+    assertEquals("[... 0 lines (6 characters) dropped ...]\n6789", limiter.finish());
+  }
+
+  @Test
+  public void without_a_tail_every_line_after_the_head_is_dropped() {
+    JobLogLimiter limiter = new JobLogLimiter(3, 0);
+
+    assertEquals("ab", limiter.accept("ab\ncd\nef"));
+
+    assertEquals("[... 2 lines (6 characters) dropped ...]", limiter.finish());
+    assertEquals(2, limiter.getDroppedLines());
+  }
+
+  @Test
+  public void finish_empties_the_ring_buffer() {
+    JobLogLimiter limiter = new JobLogLimiter(0, 100);
+    limiter.accept("held");
+
+    assertEquals("held", limiter.finish());
+    assertNull(limiter.finish());
+  }
+
+  @Test
+  public void markers_are_recognised_with_the_number_of_lines_they_stand_for() {
+    assertEquals(3, JobLogLimiter.droppedLinesIn("[... 3 lines (12 characters) dropped ...]"));
+    assertEquals(0, JobLogLimiter.droppedLinesIn("[... 0 lines (6 characters) dropped ...]"));
+    assertEquals(-1, JobLogLimiter.droppedLinesIn("[... 3 lines dropped ...]"));
+    assertEquals(-1, JobLogLimiter.droppedLinesIn("a line"));
+  }
+}
@@ -0,0 +1,196 @@
+package edu.ucsb.cs156.example.services.jobs;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+import edu.ucsb.cs156.example.entities.Job;
+import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.models.JobLogPage;
+import edu.ucsb.cs156.example.repositories.JobsRepository;
+import java.time.Instant;
+import java.util.Optional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+public class JobLogReaderTests {
+
+  private static final String LOG = "line0\nline1\nline2\nline3\nline4";
+
+  @Mock private JobsRepository jobsRepository;
+
+  @InjectMocks private JobLogReader jobLogReader;
+
+  @BeforeEach
+  public void setup() {
+    MockitoAnnotations.openMocks(this);
+    ReflectionTestUtils.setField(
+        jobLogReader, "jobLogStore", new DatabaseJobLogStore(jobsRepository));
+    // small chunks so that reads span several SUBSTRING queries
+    ReflectionTestUtils.setField(jobLogReader, "chunkSize", 7);
+    stubLog(1L, LOG);
+  }
+
+  /** Makes the mocked repository answer LENGTH and SUBSTRING queries the way the database does */
+  private void stubLog(long id, String log) {
+    when(jobsRepository.findLogLength(id)).thenReturn(Optional.of((long) log.length()));
+    when(jobsRepository.findLogSlice(eq(id), anyInt(), anyInt()))
+        .thenAnswer(
+            invocation -> {
+              int start = invocation.getArgument(1);
+              int length = invocation.getArgument(2);
+              int from = Math.min(log.length(), start - 1);
+              return log.substring(from, Math.min(log.length(), from + length));
+            });
+  }
+
+  private void assertPage(String text, long start, long next, JobLogPage page) {
+    assertEquals(text, page.getText());
+    assertEquals(start, page.getStartOffset());
+    assertEquals(next, page.getNextOffset());
+    assertEquals(LOG.length(), page.getTotalSize());
+  }
+
+  @Test
+  public void readAll_returns_the_whole_log() {
+    when(jobsRepository.findById(1L))
+        .thenReturn(Optional.of(Job.builder().id(1L).log(LOG).build()));
+    when(jobsRepository.findById(2L)).thenReturn(Optional.of(Job.builder().id(2L).build()));
+
+    assertPage(LOG, 0, LOG.length(), jobLogReader.readAll(1L));
+    assertEquals("", jobLogReader.readAll(2L).getText());
+    EntityNotFoundException e =
+        assertThrows(EntityNotFoundException.class, () -> jobLogReader.readAll(3L));
+    assertEquals("Job with id 3 not found", e.getMessage());
+  }
+
+  @Test
+  public void missing_job_throws() {
+    when(jobsRepository.findLogLength(2L)).thenReturn(Optional.empty());
+
+    assertThrows(EntityNotFoundException.class, () -> jobLogReader.readTail(2L, 3));
+  }
+
+  @Test
+  public void readRange_reads_characters() {
+    assertPage("line1", 6, 11, jobLogReader.readRange(1L, 6, 11L));
+    assertPage("line4", 24, 29, jobLogReader.readRange(1L, 24, null));
+    assertPage("", 29, 29, jobLogReader.readRange(1L, 100, 200L));
+    assertPage("line0", 0, 5, jobLogReader.readRange(1L, -3, 5L));
+  }
+
+  @Test
+  public void readTail_returns_last_lines() {
+    assertPage("line3\nline4", 18, 29, jobLogReader.readTail(1L, 2));
+    assertPage(LOG, 0, 29, jobLogReader.readTail(1L, 10));
+    assertPage("", 29, 29, jobLogReader.readTail(1L, 0));
+  }
+
+  @Test
+  public void readTail_does_not_read_the_start_of_a_long_log() {
+    jobLogReader.readTail(1L, 1);
+
+    // "line4" plus the newline before it fit in the last chunk
+    verify(jobsRepository, times(1)).findLogSlice(eq(1L), anyInt(), anyInt());
+  }
+
+  @Test
+  public void readLines_reads_whole_lines_from_an_offset() {
+    assertPage("line2\nline3", 12, 24, jobLogReader.readLines(1L, 12, 2, null));
+    assertPage("line3\nline4", 18, 29, jobLogReader.readLines(1L, 18, null, null));
+    assertPage("line4", 24, 29, jobLogReader.readLines(1L, 24, 5, null));
+    assertPage("", 6, 6, jobLogReader.readLines(1L, 6, 0, null));
+  }
+
+  @Test
+  public void readLines_stops_at_character_limit() {
+    assertPage("lin", 0, 3, jobLogReader.readLines(1L, 0, 1, 3L));
+  }
+
+  @Test
+  public void readLinesAt_skips_to_line_number() {
+    assertPage("line1\nline2", 6, 18, jobLogReader.readLinesAt(1L, 1, 2, null));
+    assertPage("line0", 0, 6, jobLogReader.readLinesAt(1L, 0, 1, null));
+    assertPage("", 29, 29, jobLogReader.readLinesAt(1L, 9, 1, null));
+  }
+
+  @Test
+  public void job_without_log_has_empty_pages() {
+    when(jobsRepository.findLogLength(3L)).thenReturn(Optional.of(0L));
+
+    JobLogPage page = jobLogReader.readTail(3L, 5);
+
+    assertEquals("", page.getText());
+    assertEquals(0, page.getTotalSize());
+    verify(jobsRepository, never()).findLogSlice(eq(3L), anyInt(), anyInt());
+  }
+
+  @Test
+  public void null_slice_is_treated_as_empty() {
+    when(jobsRepository.findLogLength(4L)).thenReturn(Optional.of(10L));
+
+    assertEquals("", jobLogReader.readRange(4L, 0, null).getText());
+    assertEquals("", jobLogReader.readLines(4L, 0, 2, null).getText());
+    assertEquals("", jobLogReader.readLinesAt(4L, 2, 2, null).getText());
+    assertEquals(
+        "",
+        jobLogReader.readMatching(4L, 0, new JobLogFilter(null, null, null, "x"), null).getText());
+  }
+
+  @Test
+  public void readMatching_finds_lines_across_chunks() {
+    JobLogFilter line = new JobLogFilter(null, null, null, "line");
+
+    assertPage(LOG, 0, 29, jobLogReader.readMatching(1L, 0, line, null));
+    assertPage("line2\nline3\nline4", 12, 29, jobLogReader.readMatching(1L, 12, line, null));
+    assertPage(
+        "line4",
+        0,
+        29,
+        jobLogReader.readMatching(1L, 0, new JobLogFilter(null, null, null, "4"), 5));
+    assertPage(
+        "", 0, 29, jobLogReader.readMatching(1L, 0, new JobLogFilter(null, null, null, "x"), 5));
+  }
+
+  @Test
+  public void readMatching_stops_after_maxLines_and_continues_from_nextOffset() {
+    JobLogFilter line = new JobLogFilter(null, null, null, "line");
+
+    assertPage("line0\nline1", 0, 12, jobLogReader.readMatching(1L, 0, line, 2));
+    assertPage("line2\nline3", 12, 24, jobLogReader.readMatching(1L, 12, line, 2));
+    assertPage(
+        "line1",
+        0,
+        12,
+        jobLogReader.readMatching(1L, 0, new JobLogFilter(null, null, null, "e1"), 1));
+    assertPage("", 6, 6, jobLogReader.readMatching(1L, 6, line, 0));
+  }
+
+  @Test
+  public void readMatching_filters_structured_records_by_level() {
+    String error1 = JobLogRecord.format(Instant.EPOCH, JobLogLevel.ERROR, "first");
+    String error2 = JobLogRecord.format(Instant.EPOCH, JobLogLevel.ERROR, "second");
+    String log =
+        "plain\n"
+            + JobLogRecord.format(Instant.EPOCH, JobLogLevel.WARN, "careful")
+            + "\n"
+            + error1
+            + "\nplain\n"
+            + error2
+            + "\n";
+    stubLog(5L, log);
+
+    JobLogPage page =
+        jobLogReader.readMatching(
+            5L, 0, new JobLogFilter(JobLogLevel.ERROR, null, null, null), null);
+
+    assertEquals(error1 + "\n" + error2, page.getText());
+    assertEquals(log.length(), page.getNextOffset());
+  }
+}
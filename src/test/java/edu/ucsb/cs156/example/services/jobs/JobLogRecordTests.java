@@ -0,0 +1,79 @@
+package edu.ucsb.cs156.example.services.jobs;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.Instant;
+import org.junit.jupiter.api.Test;
+
+public class JobLogRecordTests {
+  private static final Instant TIME = Instant.parse("2026-10-17T05:08:45.946Z");
+
+  @Test
+  public void format_writes_timestamp_level_message_and_key_values() {
+    assertEquals(
+        "2026-10-17T05:08:45.946Z ERROR Import failed row=17 file=\"a b.csv\"",
+        JobLogRecord.format(
+            TIME, JobLogLevel.ERROR, "Import failed", "row", 17, "file", "a b.csv"));
+  }
+
+  @Test
+  public void format_quotes_values_that_would_be_ambiguous() {
+    assertEquals(
+        "2026-10-17T05:08:45.946Z INFO m a=\"\" b=\"x=y\" c=\"\\\"hi\\\"\" d=\"\\\\ \" e=null",
+        JobLogRecord.format(
+            TIME,
+            JobLogLevel.INFO,
+            "m",
+            "a",
+            "",
+            "b",
+            "x=y",
+            "c",
+            "\"hi\"",
+            "d",
+            "\\ ",
+            "e",
+            null));
+  }
+
+  @Test
+  public void format_keeps_each_record_on_one_line() {
+    assertEquals(
+        "2026-10-17T05:08:45.946Z WARN one\\ntwo\\nthree\\nfour k=a\\nb",
+        JobLogRecord.format(TIME, JobLogLevel.WARN, "one\ntwo\r\nthree\rfour", "k", "a\nb"));
+  }
+
+  @Test
+  public void format_rejects_a_key_without_a_value() {
+    IllegalArgumentException e =
+        assertThrows(
+            IllegalArgumentException.class,
+            () -> JobLogRecord.format(TIME, JobLogLevel.INFO, "m", "row"));
+
+    assertEquals("key/values must come in pairs, but got 1", e.getMessage());
+  }
+
+  @Test
+  public void parse_reads_a_formatted_record() {
+    String line = JobLogRecord.format(TIME, JobLogLevel.WARN, "Slow", "ms", 1200);
+
+    assertEquals(
+        new JobLogRecord(TIME, JobLogLevel.WARN, "Slow ms=1200"), JobLogRecord.parse(line));
+  }
+
+  @Test
+  public void parse_treats_other_lines_as_unstructured() {
+    assertEquals(new JobLogRecord(null, null, "Hello World!"), JobLogRecord.parse("Hello World!"));
+    assertEquals(
+        new JobLogRecord(null, null, "2026-10-17T05:08:45Z DEBUG x"),
+        JobLogRecord.parse("2026-10-17T05:08:45Z DEBUG x"));
+  }
+
+  @Test
+  public void parse_treats_an_invalid_timestamp_as_unstructured() {
+    assertEquals(
+        new JobLogRecord(null, null, "2026-13-45T99:99Z INFO x"),
+        JobLogRecord.parse("2026-13-45T99:99Z INFO x"));
+  }
+}
@@ -0,0 +1,429 @@
+package edu.ucsb.cs156.example.services.jobs;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+import edu.ucsb.cs156.example.entities.Job;
+import edu.ucsb.cs156.example.entities.JobStatus;
+import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.repositories.JobsRepository;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+public class JobLogStreamerTests {
+
+  @Mock private JobsRepository jobsRepository;
+
+  @InjectMocks private JobLogStreamer jobLogStreamer;
+
+  /** Collects what is sent to an emitter, in SSE wire format. */
+  private static class RecordingEmitter extends SseEmitter {
+    final StringBuilder sent = new StringBuilder();
+    final List<Runnable> callbacks = new ArrayList<>();
+    boolean completed = false;
+    boolean broken = false;
+
+    @Override
+    public synchronized void onCompletion(Runnable callback) {
+      callbacks.add(callback);
+    }
+
+    @Override
+    public synchronized void onTimeout(Runnable callback) {
+      callbacks.add(callback);
+    }
+
+    @Override
+    public synchronized void onError(Consumer<Throwable> callback) {
+      callbacks.add(() -> callback.accept(new IOException("reset")));
+    }
+
+    @Override
+    public void send(SseEventBuilder builder) throws IOException {
+      if (broken) {
+        throw new IOException("client went away");
+      }
+      Set<DataWithMediaType> data = builder.build();
+      for (DataWithMediaType d : data) {
+        sent.append(d.getData());
+      }
+    }
+
+    @Override
+    public void complete() {
+      completed = true;
+    }
+  }
+
+  @BeforeEach
+  public void setup() {
+    MockitoAnnotations.openMocks(this);
+    ReflectionTestUtils.setField(
+        jobLogStreamer, "jobLogStore", new DatabaseJobLogStore(jobsRepository));
+    ReflectionTestUtils.setField(jobLogStreamer, "tailLines", 3);
+    ReflectionTestUtils.setField(jobLogStreamer, "streamTimeoutMs", 1000L);
+    ReflectionTestUtils.setField(jobLogStreamer, "streamRetryMs", 2000L);
+    ReflectionTestUtils.setField(jobLogStreamer, "streamQueueLines", 100);
+    ReflectionTestUtils.setField(jobLogStreamer, "sender", (Executor) Runnable::run);
+  }
+
+  @Test
+  public void subscriber_gets_backlog_then_new_lines_then_end() {
+    Job job = Job.builder().id(1L).status(JobStatus.RUNNING).build();
+    JobLogTail tail = jobLogStreamer.open(job);
+    tail.append("a");
+    tail.append("b");
+
+    RecordingEmitter emitter = new RecordingEmitter();
+    assertTrue(tail.subscribe(emitter, 1, () -> null));
+    tail.append("c");
+    job.setStatus(JobStatus.COMPLETE);
+    jobLogStreamer.close(job, tail);
+
+    assertEquals(
+        "id:2\nevent:log\ndata:b\n\nid:3\nevent:log\ndata:c\n\nevent:end\ndata:complete\n\n",
+        emitter.sent.toString());
+    assertTrue(emitter.completed);
+    assertEquals(0, tail.getSubscriberCount());
+    assertEquals(0, jobLogStreamer.getTailCount());
+  }
+
+  @Test
+  public void lines_that_left_the_tail_are_read_from_storage() {
+    JobLogTail tail = new JobLogTail(2, 0, 100, Runnable::run);
+    tail.append("a\nb\nc\nd");
+
+    RecordingEmitter emitter = new RecordingEmitter();
+    tail.subscribe(emitter, 0, () -> "a\nb");
+
+    assertEquals(
+        "id:1\nevent:log\ndata:a\n\nid:2\nevent:log\ndata:b\n\n"
+            + "id:3\nevent:log\ndata:c\n\nid:4\nevent:log\ndata:d\n\n",
+        emitter.sent.toString());
+  }
+
+  @Test
+  public void tail_of_retried_job_continues_numbering_after_stored_lines() {
+    Job job = Job.builder().id(2L).status(JobStatus.RUNNING).log("attempt 1\nfailed").build();
+    when(jobsRepository.findLogLineCount(2L, "\n")).thenReturn(Optional.of(2L));
+    JobLogTail tail = jobLogStreamer.open(job);
+    tail.append("attempt 2");
+
+    assertEquals(3, tail.getLineCount());
+    verify(jobsRepository, never()).findById(anyLong());
+  }
+
+  @Test
+  public void replay_of_a_headTail_log_gives_the_tail_the_numbers_it_was_streamed_with() {
+    Job job =
+        Job.builder()
+            .id(5L)
+            .status(JobStatus.COMPLETE)
+            .log("h1\nh2\n[... 3 lines (9 characters) dropped ...]\nt1\nt2")
+            .build();
+    when(jobsRepository.findById(5L)).thenReturn(Optional.of(job));
+
+    RecordingEmitter all = new RecordingEmitter();
+    jobLogStreamer.stream(5L, 0, all);
+    RecordingEmitter resumed = new RecordingEmitter();
+    jobLogStreamer.stream(5L, 5, resumed);
+
+    assertEquals(
+        "id:1\nevent:log\ndata:h1\n\nid:2\nevent:log\ndata:h2\n\n"
+            + "id:5\nevent:log\ndata:[... 3 lines (9 characters) dropped ...]\n\n"
+            + "id:6\nevent:log\ndata:t1\n\nid:7\nevent:log\ndata:t2\n\n"
+            + "event:end\ndata:complete\n\n",
+        all.sent.toString());
+    assertEquals(
+        "id:6\nevent:log\ndata:t1\n\nid:7\nevent:log\ndata:t2\n\n" + "event:end\ndata:complete\n\n",
+        resumed.sent.toString());
+  }
+
+  @Test
+  public void only_stored_lines_older_than_the_tail_are_replayed_from_storage() {
+    JobLogTail tail = new JobLogTail(2, 0, 100, Runnable::run);
+    tail.append("a\nb\nc\nd");
+
+    RecordingEmitter emitter = new RecordingEmitter();
+    tail.subscribe(emitter, 1, () -> "a\nb\nc");
+
+    assertEquals(
+        "id:2\nevent:log\ndata:b\n\nid:3\nevent:log\ndata:c\n\nid:4\nevent:log\ndata:d\n\n",
+        emitter.sent.toString());
+  }
+
+  @Test
+  public void broken_subscriber_is_dropped() {
+    JobLogTail tail = new JobLogTail(5, 0, 100, Runnable::run);
+    RecordingEmitter emitter = new RecordingEmitter();
+    tail.subscribe(emitter, 0, () -> null);
+    emitter.broken = true;
+
+    tail.append("a");
+
+    assertEquals(0, tail.getSubscriberCount());
+  }
+
+  @Test
+  public void lines_are_sent_by_the_sender_not_the_job_thread() {
+    List<Runnable> tasks = new ArrayList<>();
+    JobLogTail tail = new JobLogTail(5, 0, 100, tasks::add);
+    RecordingEmitter emitter = new RecordingEmitter();
+    tail.subscribe(emitter, 0, () -> null);
+
+    tail.append("a");
+    tail.append("b");
+    tail.close(JobStatus.COMPLETE);
+
+    assertEquals("", emitter.sent.toString());
+    // one task sends everything queued
+    assertEquals(1, tasks.size());
+    tasks.get(0).run();
+    assertEquals(
+        "id:1\nevent:log\ndata:a\n\nid:2\nevent:log\ndata:b\n\nevent:end\ndata:complete\n\n",
+        emitter.sent.toString());
+    assertTrue(emitter.completed);
+  }
+
+  @Test
+  public void subscriber_that_falls_behind_is_dropped_and_its_stream_closed() {
+    List<Runnable> tasks = new ArrayList<>();
+    JobLogTail tail = new JobLogTail(5, 0, 2, tasks::add);
+    RecordingEmitter slow = new RecordingEmitter();
+    tail.subscribe(slow, 0, () -> null);
+
+    tail.append("a\nb");
+    assertEquals(1, tail.getSubscriberCount());
+    tail.append("c");
+
+    assertEquals(0, tail.getSubscriberCount());
+    tasks.forEach(Runnable::run);
+    // the queued lines are discarded; the client reconnects with Last-Event-ID
+    assertEquals("", slow.sent.toString());
+    assertTrue(slow.completed);
+  }
+
+  @Test
+  public void replay_is_sent_outside_the_lock_and_lines_logged_meanwhile_follow_it()
+      throws Exception {
+    JobLogTail tail = new JobLogTail(1, 0, 100, Runnable::run);
+    tail.append("a\nb");
+
+    RecordingEmitter emitter = new RecordingEmitter();
+    tail.subscribe(
+        emitter,
+        0,
+        () -> {
+          // the job logs from its own thread while storage is read; it must not wait for the replay
+          CompletableFuture.runAsync(() -> tail.append("c")).orTimeout(5, TimeUnit.SECONDS).join();
+          return "a";
+        });
+
+    assertEquals(
+        "id:1\nevent:log\ndata:a\n\nid:2\nevent:log\ndata:b\n\nid:3\nevent:log\ndata:c\n\n",
+        emitter.sent.toString());
+    assertEquals(1, tail.getSubscriberCount());
+  }
+
+  @Test
+  public void subscriber_that_breaks_while_sending_queued_lines_is_dropped() {
+    List<Runnable> tasks = new ArrayList<>();
+    JobLogTail tail = new JobLogTail(5, 0, 100, tasks::add);
+    RecordingEmitter emitter = new RecordingEmitter();
+    tail.subscribe(emitter, 0, () -> null);
+    tail.append("a\nb");
+    emitter.broken = true;
+
+    tasks.forEach(Runnable::run);
+
+    assertEquals(0, tail.getSubscriberCount());
+    assertEquals("", emitter.sent.toString());
+  }
+
+  @Test
+  public void closed_tail_refuses_subscribers() {
+    JobLogTail tail = new JobLogTail(5, 0, 100, Runnable::run);
+    tail.close(JobStatus.COMPLETE);
+
+    assertFalse(tail.subscribe(new RecordingEmitter(), 0, () -> null));
+  }
+
+  @Test
+  public void stream_of_running_job_uses_its_tail() {
+    Job job = Job.builder().id(4L).status(JobStatus.RUNNING).build();
+    JobLogTail tail = jobLogStreamer.open(job);
+
+    jobLogStreamer.stream(4L, 0);
+
+    assertEquals(1, tail.getSubscriberCount());
+    verify(jobsRepository, never()).findById(any());
+  }
+
+  @Test
+  public void stream_of_finished_job_replays_from_storage() {
+    Job job = Job.builder().id(5L).status(JobStatus.COMPLETE).log("x").build();
+    when(jobsRepository.findById(5L)).thenReturn(Optional.of(job));
+
+    SseEmitter emitter = jobLogStreamer.stream(5L, 0);
+
+    assertEquals(1000L, emitter.getTimeout());
+    verify(jobsRepository, times(1)).findById(5L);
+  }
+
+  @Test
+  public void stream_of_job_running_elsewhere_replays_and_closes() {
+    Job job = Job.builder().id(7L).status(JobStatus.RUNNING).log("x").build();
+    when(jobsRepository.findById(7L)).thenReturn(Optional.of(job));
+
+    jobLogStreamer.stream(7L, 0);
+
+    verify(jobsRepository, times(1)).findById(7L);
+    assertEquals(0, jobLogStreamer.getTailCount());
+  }
+
+  @Test
+  public void stream_of_missing_job_throws() {
+    when(jobsRepository.findById(6L)).thenReturn(Optional.empty());
+
+    assertThrows(EntityNotFoundException.class, () -> jobLogStreamer.stream(6L, 0));
+  }
+
+  @Test
+  public void finished_means_neither_running_nor_waiting() {
+    assertFalse(JobLogStreamer.isFinished(JobStatus.RUNNING));
+    assertFalse(JobLogStreamer.isFinished(JobStatus.QUEUED));
+    assertFalse(JobLogStreamer.isFinished(JobStatus.PENDING));
+    assertTrue(JobLogStreamer.isFinished(JobStatus.COMPLETE));
+    assertTrue(JobLogStreamer.isFinished(JobStatus.ERROR));
+    // a job saved without a status never changes, so its stream ends
+    assertTrue(JobLogStreamer.isFinished(null));
+  }
+
+  @Test
+  public void splitLines_handles_null_and_multiline_logs() {
+    assertEquals(List.of(), JobLogStreamer.splitLines(null));
+    assertEquals(List.of("a", "b"), JobLogStreamer.splitLines("a\nb"));
+  }
+
+  @Test
+  public void completion_timeout_and_error_unsubscribe() {
+    JobLogTail tail = new JobLogTail(5, 0, 100, Runnable::run);
+    RecordingEmitter emitter = new RecordingEmitter();
+    tail.subscribe(emitter, 0, () -> null);
+    assertEquals(1, tail.getSubscriberCount());
+
+    assertEquals(3, emitter.callbacks.size());
+    emitter.callbacks.forEach(Runnable::run);
+
+    assertEquals(0, tail.getSubscriberCount());
+  }
+
+  @Test
+  public void subscriber_that_breaks_during_replay_is_not_kept() {
+    JobLogTail tail = new JobLogTail(2, 0, 100, Runnable::run);
+    tail.append("a\nb\nc");
+
+    RecordingEmitter fromStorage = new RecordingEmitter();
+    fromStorage.broken = true;
+    assertTrue(tail.subscribe(fromStorage, 0, () -> "a"));
+    RecordingEmitter fromTail = new RecordingEmitter();
+    fromTail.broken = true;
+    assertTrue(tail.subscribe(fromTail, 1, () -> "a"));
+
+    assertEquals(0, tail.getSubscriberCount());
+  }
+
+  @Test
+  public void stream_reads_lines_older_than_the_tail_from_storage() {
+    Job job = Job.builder().id(8L).status(JobStatus.RUNNING).build();
+    JobLogTail tail = jobLogStreamer.open(job);
+    tail.append("1\n2\n3\n4\n5");
+    when(jobsRepository.findById(8L))
+        .thenReturn(Optional.of(Job.builder().id(8L).log("1\n2").build()));
+
+    RecordingEmitter emitter = new RecordingEmitter();
+    jobLogStreamer.stream(8L, 0, emitter);
+
+    assertTrue(emitter.sent.toString().startsWith("id:1\nevent:log\ndata:1\n\n"));
+    assertTrue(emitter.sent.toString().endsWith("id:5\nevent:log\ndata:5\n\n"));
+  }
+
+  @Test
+  public void stream_falls_back_to_storage_when_tail_was_just_closed() {
+    Job job = Job.builder().id(9L).status(JobStatus.RUNNING).build();
+    JobLogTail tail = jobLogStreamer.open(job);
+    tail.close(JobStatus.COMPLETE);
+    when(jobsRepository.findById(9L))
+        .thenReturn(
+            Optional.of(Job.builder().id(9L).status(JobStatus.COMPLETE).log("done").build()));
+
+    RecordingEmitter emitter = new RecordingEmitter();
+    jobLogStreamer.stream(9L, 0, emitter);
+
+    assertEquals(
+        "id:1\nevent:log\ndata:done\n\nevent:end\ndata:complete\n\n", emitter.sent.toString());
+    assertTrue(emitter.completed);
+  }
+
+  @Test
+  public void stream_of_running_job_without_tail_asks_client_to_reconnect() {
+    when(jobsRepository.findById(10L))
+        .thenReturn(Optional.of(Job.builder().id(10L).status(JobStatus.QUEUED).build()));
+
+    RecordingEmitter emitter = new RecordingEmitter();
+    jobLogStreamer.stream(10L, 0, emitter);
+
+    assertEquals("retry:2000\n:running\n\n", emitter.sent.toString());
+    assertTrue(emitter.completed);
+  }
+
+  @Test
+  public void stream_stops_when_client_goes_away() {
+    when(jobsRepository.findById(11L))
+        .thenReturn(Optional.of(Job.builder().id(11L).status(JobStatus.COMPLETE).log("a").build()));
+    when(jobsRepository.findById(12L))
+        .thenReturn(Optional.of(Job.builder().id(12L).status(JobStatus.RUNNING).build()));
+
+    RecordingEmitter replaying = new RecordingEmitter();
+    replaying.broken = true;
+    jobLogStreamer.stream(11L, 0, replaying);
+    RecordingEmitter waiting = new RecordingEmitter();
+    waiting.broken = true;
+    jobLogStreamer.stream(12L, 0, waiting);
+
+    assertFalse(replaying.completed);
+    assertFalse(waiting.completed);
+  }
+
+  @Test
+  public void end_sends_empty_status_and_skips_complete_on_failure() {
+    RecordingEmitter emitter = new RecordingEmitter();
+    JobLogStreamer.end(emitter, null);
+    assertEquals("event:end\ndata:\n\n", emitter.sent.toString());
+
+    RecordingEmitter broken = new RecordingEmitter();
+    broken.broken = true;
+    JobLogStreamer.end(broken, JobStatus.COMPLETE);
+    assertFalse(broken.completed);
+  }
+}
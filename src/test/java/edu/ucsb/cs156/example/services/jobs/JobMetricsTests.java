@@ -0,0 +1,207 @@
+package edu.ucsb.cs156.example.services.jobs;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.*;
+
+import edu.ucsb.cs156.example.entities.Job;
+import edu.ucsb.cs156.example.entities.JobStatus;
+import edu.ucsb.cs156.example.jobs.TestJob;
+import edu.ucsb.cs156.example.models.JobClassMetrics;
+import edu.ucsb.cs156.example.models.JobMetricsSummary;
+import edu.ucsb.cs156.example.models.JobQuotaSummary;
+import edu.ucsb.cs156.example.repositories.JobsRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+public class JobMetricsTests {
+
+  private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+  @Mock private JobsRepository jobsRepository;
+
+  @Mock private JobQueue jobQueue;
+
+  @Mock private JobQuotas jobQuotas;
+
+  @Mock private ThreadPoolTaskExecutor jobExecutor;
+
+  @InjectMocks private JobMetrics jobMetrics;
+
+  @BeforeEach
+  public void setup() {
+    MockitoAnnotations.openMocks(this);
+    ReflectionTestUtils.setField(jobMetrics, "meterRegistry", meterRegistry);
+    jobMetrics.registerGauges();
+  }
+
+  @Test
+  public void jobName_is_the_simple_name() {
+    assertEquals("TestJob", JobMetrics.jobName(TestJob.class));
+    assertEquals("TestJob", JobMetrics.jobName(TestJob.class.getName()));
+    assertEquals("Inner", JobMetrics.jobName("edu.ucsb.Outer$Inner"));
+    assertEquals("TestJob", JobMetrics.jobName("TestJob"));
+  }
+
+  @Test
+  public void jobName_drops_the_per_instance_suffix_of_lambdas() {
+    JobContextConsumer lambda = ctx -> {};
+    assertEquals("JobMetricsTests$$Lambda", JobMetrics.jobName(lambda.getClass()));
+  }
+
+  @Test
+  public void started_and_finished_jobs_are_timed_by_job_class() {
+    Job job = Job.builder().createdAt(ZonedDateTime.now().minusSeconds(2)).build();
+
+    jobMetrics.jobStarted(job, "TestJob");
+    assertEquals(1.0, meterRegistry.get(JobMetrics.RUNNING).gauge().value());
+
+    jobMetrics.jobFinished("TestJob", JobStatus.COMPLETE, Duration.ofMillis(300));
+    assertEquals(0.0, meterRegistry.get(JobMetrics.RUNNING).gauge().value());
+
+    Timer wait = meterRegistry.get(JobMetrics.QUEUE_WAIT).tag("job", "TestJob").timer();
+    assertEquals(1, wait.count());
+    assertTrue(wait.totalTime(TimeUnit.MILLISECONDS) >= 2000);
+
+    Timer run = meterRegistry.get(JobMetrics.RUN).tag("job", "TestJob").timer();
+    assertEquals(1, run.count());
+    assertEquals(300.0, run.totalTime(TimeUnit.MILLISECONDS));
+
+    assertEquals(
+        1.0,
+        meterRegistry
+            .get(JobMetrics.FINISHED)
+            .tag("job", "TestJob")
+            .tag("status", "complete")
+            .counter()
+            .count());
+  }
+
+  @Test
+  public void job_without_createdAt_has_no_queue_wait() {
+    jobMetrics.jobStarted(Job.builder().build(), "TestJob");
+
+    assertNull(meterRegistry.find(JobMetrics.QUEUE_WAIT).timer());
+    assertEquals(1, jobMetrics.getRunningCount());
+  }
+
+  @Test
+  public void createdAt_in_the_future_counts_as_no_wait() {
+    Job job = Job.builder().createdAt(ZonedDateTime.now().plusMinutes(1)).build();
+
+    jobMetrics.jobStarted(job, "TestJob");
+
+    assertEquals(0.0, meterRegistry.get(JobMetrics.QUEUE_WAIT).timer().totalTime(TimeUnit.SECONDS));
+  }
+
+  @Test
+  public void queued_gauge_counts_the_executor_queue_in_memory_mode() {
+    when(jobExecutor.getQueueSize()).thenReturn(3);
+    when(jobQueue.isDatabaseMode()).thenReturn(false);
+
+    assertEquals(3.0, meterRegistry.get(JobMetrics.QUEUED).gauge().value());
+    verify(jobsRepository, never()).countByStatus(any());
+  }
+
+  @Test
+  public void queued_gauge_adds_queued_rows_in_database_mode() {
+    when(jobExecutor.getQueueSize()).thenReturn(1);
+    when(jobQueue.isDatabaseMode()).thenReturn(true);
+    when(jobsRepository.countByStatus(JobStatus.QUEUED)).thenReturn(5L);
+
+    assertEquals(6L, jobMetrics.getQueuedCount());
+  }
+
+  @Test
+  public void summary_with_no_jobs_reports_zero_counts() {
+    JobMetricsSummary summary = jobMetrics.getSummary();
+
+    assertEquals(0, summary.getRunning());
+    assertEquals(0L, summary.getQueued());
+    assertEquals(
+        Map.of("complete", 0L, "error", 0L, "cancelled", 0L, "timeout", 0L), summary.getFinished());
+    assertTrue(summary.getJobs().isEmpty());
+  }
+
+  @Test
+  public void summary_includes_the_quotas() {
+    JobQuotaSummary quotas = JobQuotaSummary.builder().maxConcurrentPerUser(10).build();
+    when(jobQuotas.getSummary()).thenReturn(quotas);
+
+    assertSame(quotas, jobMetrics.getSummary().getQuotas());
+  }
+
+  @Test
+  public void summary_groups_statistics_by_job_class() {
+    Job waited = Job.builder().createdAt(ZonedDateTime.now().minusSeconds(1)).build();
+    jobMetrics.jobStarted(waited, "TestJob");
+    jobMetrics.jobFinished("TestJob", JobStatus.COMPLETE, Duration.ofMillis(100));
+    jobMetrics.jobStarted(waited, "TestJob");
+    jobMetrics.jobFinished("TestJob", JobStatus.ERROR, Duration.ofMillis(300));
+    jobMetrics.jobStarted(Job.builder().build(), "Other");
+    jobMetrics.jobFinished("Other", JobStatus.COMPLETE, Duration.ofMillis(50));
+    jobMetrics.jobStarted(waited, "StillRunning");
+
+    JobMetricsSummary summary = jobMetrics.getSummary();
+
+    assertEquals(1, summary.getRunning());
+    assertEquals(
+        Map.of("complete", 2L, "error", 1L, "cancelled", 0L, "timeout", 0L), summary.getFinished());
+    assertEquals(3, summary.getJobs().size());
+
+    JobClassMetrics other = summary.getJobs().get(0);
+    assertEquals("Other", other.getJob());
+    assertEquals(1L, other.getFinished());
+    assertNull(other.getQueueWaitMeanMs());
+
+    JobClassMetrics stillRunning = summary.getJobs().get(1);
+    assertEquals("StillRunning", stillRunning.getJob());
+    assertEquals(0L, stillRunning.getFinished());
+    assertNull(stillRunning.getRunMeanMs());
+
+    JobClassMetrics testJob = summary.getJobs().get(2);
+    assertEquals("TestJob", testJob.getJob());
+    assertEquals(2L, testJob.getFinished());
+    assertEquals(200.0, testJob.getRunMeanMs());
+    assertEquals(300.0, testJob.getRunMaxMs());
+    assertTrue(testJob.getRunP50Ms() > 0);
+    assertTrue(testJob.getRunP95Ms() >= testJob.getRunP50Ms());
+    assertTrue(testJob.getRunP99Ms() >= testJob.getRunP95Ms());
+    assertTrue(testJob.getQueueWaitMeanMs() >= 1000);
+    assertTrue(testJob.getQueueWaitMaxMs() >= 1000);
+    assertTrue(testJob.getQueueWaitP95Ms() > 0);
+  }
+
+  @Test
+  public void dropped_log_lines_are_counted_by_job_class() {
+    jobMetrics.logLinesDropped("TestJob", 40);
+    jobMetrics.logLinesDropped("TestJob", 2);
+
+    assertEquals(
+        42.0,
+        meterRegistry.get(JobMetrics.LOG_LINES_DROPPED).tag("job", "TestJob").counter().count());
+  }
+
+  @Test
+  public void truncated_log_indexes_are_counted_by_job_class() {
+    jobMetrics.logIndexTruncated("TestJob");
+
+    assertEquals(
+        1.0,
+        meterRegistry.get(JobMetrics.LOG_INDEX_TRUNCATED).tag("job", "TestJob").counter().count());
+  }
+}
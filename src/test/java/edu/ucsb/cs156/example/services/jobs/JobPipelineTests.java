@@ -0,0 +1,75 @@
+package edu.ucsb.cs156.example.services.jobs;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+public class JobPipelineTests {
+
+  private final JobContextConsumer job = ctx -> {};
+
+  @Test
+  public void steps_are_kept_in_the_order_they_were_added() {
+    JobPipeline pipeline =
+        new JobPipeline("nightly")
+            .step("import", job)
+            .step("reindex", job, "import")
+            .step("thumbnails", job, "import")
+            .step("export", job, "reindex", "thumbnails");
+
+    assertEquals("nightly", pipeline.getName());
+    assertEquals(
+        List.of("import", "reindex", "thumbnails", "export"),
+        pipeline.getSteps().stream().map(JobPipeline.Step::name).toList());
+    assertEquals(List.of("reindex", "thumbnails"), pipeline.getStep("export").dependsOn());
+    assertSame(job, pipeline.getStep("import").jobFunction());
+    assertNull(pipeline.getStep("missing"));
+  }
+
+  @Test
+  public void a_step_cannot_depend_on_a_step_that_has_not_been_added() {
+    JobPipeline pipeline = new JobPipeline("nightly").step("import", job);
+
+    IllegalArgumentException e =
+        assertThrows(IllegalArgumentException.class, () -> pipeline.step("export", job, "reindex"));
+
+    assertEquals("Step export depends on reindex, which has not been added", e.getMessage());
+  }
+
+  @Test
+  public void a_step_cannot_depend_on_itself() {
+    assertThrows(IllegalArgumentException.class, () -> new JobPipeline("loop").step("a", job, "a"));
+  }
+
+  @Test
+  public void step_names_must_be_unique() {
+    JobPipeline pipeline = new JobPipeline("nightly").step("import", job);
+
+    IllegalArgumentException e =
+        assertThrows(IllegalArgumentException.class, () -> pipeline.step("import", job));
+
+    assertEquals("Duplicate step: import", e.getMessage());
+  }
+
+  @Test
+  public void step_names_must_not_be_blank_or_contain_commas() {
+    JobPipeline pipeline = new JobPipeline("nightly");
+
+    assertEquals(
+        "Invalid step name: null",
+        assertThrows(IllegalArgumentException.class, () -> pipeline.step(null, job)).getMessage());
+    assertThrows(IllegalArgumentException.class, () -> pipeline.step(" ", job));
+    assertThrows(IllegalArgumentException.class, () -> pipeline.step("a,b", job));
+  }
+
+  @Test
+  public void steps_cannot_be_changed_from_outside() {
+    JobPipeline pipeline = new JobPipeline("nightly").step("import", job);
+
+    assertThrows(UnsupportedOperationException.class, () -> pipeline.getSteps().clear());
+  }
+}
@@ -0,0 +1,266 @@
+package edu.ucsb.cs156.example.services.jobs;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.same;
+import static org.mockito.Mockito.*;
+
+import edu.ucsb.cs156.example.entities.Job;
+import edu.ucsb.cs156.example.entities.JobStatus;
+import edu.ucsb.cs156.example.errors.JobRejectedException;
+import edu.ucsb.cs156.example.repositories.JobsRepository;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+public class JobPipelinesTests {
+
+  @Mock private JobsRepository jobsRepository;
+
+  @Mock private JobQueue jobQueue;
+
+  @Mock private JobService jobService;
+
+  @InjectMocks private JobPipelines jobPipelines;
+
+  private final JobContextConsumer importJob = ctx -> {};
+  private final JobContextConsumer reindexJob = ctx -> {};
+  private final JobContextConsumer thumbnailsJob = ctx -> {};
+  private final JobContextConsumer exportJob = ctx -> {};
+
+  private final JobPipeline pipeline =
+      new JobPipeline("nightly")
+          .step("import", importJob)
+          .step("reindex", reindexJob, "import")
+          .step("thumbnails", thumbnailsJob, "import")
+          .step("export", exportJob, "reindex", "thumbnails");
+
+  private final Job pipelineJob = Job.builder().id(10L).status(JobStatus.RUNNING).build();
+
+  private final Map<String, Job> steps = new LinkedHashMap<>();
+
+  @BeforeEach
+  public void setup() {
+    MockitoAnnotations.openMocks(this);
+    ReflectionTestUtils.setField(
+        jobPipelines, "jobLogStore", new DatabaseJobLogStore(jobsRepository));
+    long id = 11;
+    for (JobPipeline.Step step : pipeline.getSteps()) {
+      steps.put(
+          step.name(),
+          Job.builder()
+              .id(id++)
+              .status(JobStatus.PENDING)
+              .pipelineId(10L)
+              .stepName(step.name())
+              .build());
+    }
+  }
+
+  private Job step(String name) {
+    return steps.get(name);
+  }
+
+  /** What JobService does when a step's job finishes */
+  private void finish(String name, JobStatus status) {
+    step(name).setStatus(status);
+    jobPipelines.stepFinished(step(name));
+  }
+
+  @Test
+  public void only_the_steps_that_depend_on_nothing_start_at_once() {
+    jobPipelines.start(pipelineJob, pipeline, steps);
+
+    verify(jobService).launchInMemory(step("import"), importJob);
+    verify(jobService, times(1)).launchInMemory(any(), any());
+    assertEquals(JobStatus.RUNNING, step("import").getStatus());
+    assertEquals(JobStatus.PENDING, step("export").getStatus());
+    assertEquals(1, jobPipelines.getRunningCount());
+  }
+
+  @Test
+  public void a_step_starts_once_all_its_dependencies_complete() {
+    jobPipelines.start(pipelineJob, pipeline, steps);
+
+    finish("import", JobStatus.COMPLETE);
+    // the two branches run in parallel
+    verify(jobService).launchInMemory(step("reindex"), reindexJob);
+    verify(jobService).launchInMemory(step("thumbnails"), thumbnailsJob);
+
+    finish("reindex", JobStatus.COMPLETE);
+    verify(jobService, never()).launchInMemory(same(step("export")), any());
+
+    finish("thumbnails", JobStatus.COMPLETE);
+    verify(jobService).launchInMemory(step("export"), exportJob);
+    assertEquals(JobStatus.RUNNING, pipelineJob.getStatus());
+
+    finish("export", JobStatus.COMPLETE);
+    assertEquals(JobStatus.COMPLETE, pipelineJob.getStatus());
+    verify(jobsRepository)
+        .appendLog(
+            10L,
+            "\n",
+            "Pipeline nightly\n"
+                + "import (job 11): complete\n"
+                + "reindex (job 12): complete\n"
+                + "thumbnails (job 13): complete\n"
+                + "export (job 14): complete");
+    verify(jobQueue).release(pipelineJob);
+    verify(jobsRepository).save(pipelineJob);
+    assertEquals(0, jobPipelines.getRunningCount());
+  }
+
+  @Test
+  public void steps_after_a_failed_step_are_skipped_and_the_pipeline_fails() {
+    jobPipelines.start(pipelineJob, pipeline, steps);
+    finish("import", JobStatus.COMPLETE);
+
+    finish("reindex", JobStatus.ERROR);
+    // skipped at once, without waiting for the other branch
+    assertEquals(JobStatus.SKIPPED, step("export").getStatus());
+    verify(jobsRepository).save(step("export"));
+    assertEquals(JobStatus.RUNNING, pipelineJob.getStatus());
+
+    finish("thumbnails", JobStatus.COMPLETE);
+    verify(jobService, never()).launchInMemory(same(step("export")), any());
+    assertEquals(JobStatus.ERROR, pipelineJob.getStatus());
+    verify(jobsRepository).appendLog(eq(10L), eq("\n"), endsWith("export (job 14): skipped"));
+  }
+
+  @Test
+  public void a_rejected_step_skips_the_steps_that_depend_on_it() {
+    when(jobService.launchInMemory(same(step("import")), any()))
+        .thenAnswer(
+            invocation -> {
+              step("import").setStatus(JobStatus.REJECTED);
+              throw new JobRejectedException("full");
+            });
+
+    jobPipelines.start(pipelineJob, pipeline, steps);
+
+    assertEquals(JobStatus.SKIPPED, step("reindex").getStatus());
+    assertEquals(JobStatus.SKIPPED, step("thumbnails").getStatus());
+    assertEquals(JobStatus.SKIPPED, step("export").getStatus());
+    assertEquals(JobStatus.ERROR, pipelineJob.getStatus());
+    assertEquals(0, jobPipelines.getRunningCount());
+  }
+
+  @Test
+  public void cancel_cancels_the_running_steps_and_skips_the_rest() {
+    jobPipelines.start(pipelineJob, pipeline, steps);
+
+    assertTrue(jobPipelines.cancel(10L));
+
+    verify(jobService).cancelHeld(11L);
+    verify(jobService, times(1)).cancelHeld(anyLong());
+    assertEquals(JobStatus.SKIPPED, step("reindex").getStatus());
+    assertEquals(JobStatus.SKIPPED, step("export").getStatus());
+    // still waiting for the cancelled step to stop
+    assertEquals(JobStatus.RUNNING, pipelineJob.getStatus());
+
+    finish("import", JobStatus.CANCELLED);
+    assertEquals(JobStatus.CANCELLED, pipelineJob.getStatus());
+  }
+
+  @Test
+  public void cancelling_a_pending_step_skips_the_steps_that_depend_on_it() {
+    jobPipelines.start(pipelineJob, pipeline, steps);
+
+    assertTrue(jobPipelines.cancel(13L));
+    assertEquals(JobStatus.CANCELLED, step("thumbnails").getStatus());
+    verify(jobsRepository).save(step("thumbnails"));
+    // a running step, or a step that has already finished, is not cancelled here
+    assertFalse(jobPipelines.cancel(11L));
+    assertFalse(jobPipelines.cancel(13L));
+    assertFalse(jobPipelines.cancel(99L));
+
+    finish("import", JobStatus.COMPLETE);
+    verify(jobService).launchInMemory(step("reindex"), reindexJob);
+    verify(jobService, never()).launchInMemory(same(step("thumbnails")), any());
+    assertEquals(JobStatus.SKIPPED, step("export").getStatus());
+
+    finish("reindex", JobStatus.COMPLETE);
+    assertEquals(JobStatus.ERROR, pipelineJob.getStatus());
+    verify(jobsRepository).appendLog(eq(10L), eq("\n"), contains("thumbnails (job 13): cancelled"));
+  }
+
+  @Test
+  public void a_pipeline_whose_steps_all_completed_before_the_cancel_is_complete() {
+    steps.keySet().retainAll(Set.of("import"));
+    jobPipelines.start(pipelineJob, new JobPipeline("one").step("import", importJob), steps);
+
+    step("import").setStatus(JobStatus.COMPLETE);
+    assertTrue(jobPipelines.cancel(10L));
+
+    verify(jobService, never()).cancelHeld(anyLong());
+    assertEquals(JobStatus.COMPLETE, pipelineJob.getStatus());
+  }
+
+  @Test
+  public void cancel_and_stepFinished_ignore_pipelines_not_running_here() {
+    assertFalse(jobPipelines.cancel(10L));
+
+    jobPipelines.stepFinished(step("import"));
+
+    verifyNoInteractions(jobService, jobsRepository, jobQueue);
+  }
+
+  @Test
+  public void a_pipeline_whose_lease_was_lost_is_not_saved() {
+    when(jobQueue.isLeaseLost(pipelineJob)).thenReturn(true);
+    jobPipelines.start(pipelineJob, pipeline, steps);
+    finish("import", JobStatus.COMPLETE);
+    finish("reindex", JobStatus.COMPLETE);
+    finish("thumbnails", JobStatus.COMPLETE);
+
+    finish("export", JobStatus.COMPLETE);
+
+    assertEquals(JobStatus.RUNNING, pipelineJob.getStatus());
+    verify(jobQueue).release(pipelineJob);
+    verify(jobsRepository, never()).save(pipelineJob);
+    assertEquals(0, jobPipelines.getRunningCount());
+  }
+
+  @Test
+  public void a_pipeline_is_finished_only_once() {
+    // a step that finishes while another step's finish is still starting the steps after it
+    when(jobService.launchInMemory(same(step("export")), any()))
+        .thenAnswer(
+            invocation -> {
+              finish("export", JobStatus.COMPLETE);
+              return step("export");
+            });
+    jobPipelines.start(pipelineJob, pipeline, steps);
+    finish("import", JobStatus.COMPLETE);
+    finish("reindex", JobStatus.COMPLETE);
+
+    finish("thumbnails", JobStatus.COMPLETE);
+
+    assertEquals(JobStatus.COMPLETE, pipelineJob.getStatus());
+    verify(jobQueue, times(1)).release(pipelineJob);
+    verify(jobsRepository, times(1)).save(pipelineJob);
+  }
+
+  @Test
+  public void a_finished_pipeline_is_saved_when_the_log_store_does_not_save_it() {
+    JobLogStore store = mock(JobLogStore.class);
+    ReflectionTestUtils.setField(jobPipelines, "jobLogStore", store);
+    jobPipelines.start(pipelineJob, pipeline, steps);
+
+    finish("import", JobStatus.ERROR);
+
+    assertEquals(JobStatus.ERROR, pipelineJob.getStatus());
+    verify(store).append(same(pipelineJob), startsWith("Pipeline nightly\n"));
+    verify(store).close(pipelineJob);
+    verify(jobsRepository).save(pipelineJob);
+  }
+}
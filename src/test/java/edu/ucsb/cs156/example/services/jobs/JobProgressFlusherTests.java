@@ -0,0 +1,117 @@
+package edu.ucsb.cs156.example.services.jobs;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.ucsb.cs156.example.entities.Job;
+import edu.ucsb.cs156.example.repositories.JobsRepository;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+
+public class JobProgressFlusherTests {
+
+  @Mock private JobsRepository jobsRepository;
+
+  @Spy private ObjectMapper mapper = new ObjectMapper();
+
+  @InjectMocks private JobProgressFlusher jobProgressFlusher;
+
+  @BeforeEach
+  public void setup() {
+    MockitoAnnotations.openMocks(this);
+  }
+
+  @Test
+  public void progress_is_held_until_flushAll_and_written_once() {
+    Job job = Job.builder().id(4L).build();
+    JobProgressTracker tracker = jobProgressFlusher.register(job);
+
+    for (int i = 1; i <= 1000; i++) {
+      tracker.progress(i, 1000);
+      tracker.increment("rows", 1);
+    }
+    tracker.increment("skipped", 2);
+
+    assertNull(job.getProgressDone());
+    verifyNoInteractions(jobsRepository);
+
+    jobProgressFlusher.flushAll();
+    jobProgressFlusher.flushAll();
+
+    assertEquals(1000L, job.getProgressDone());
+    assertEquals(1000L, job.getProgressTotal());
+    assertEquals("{\"rows\":1000,\"skipped\":2}", job.getCounters());
+    assertEquals(Map.of("rows", 1000L, "skipped", 2L), tracker.getCounters());
+    verify(jobsRepository, times(1))
+        .updateProgress(eq(4L), eq(1000L), eq(1000L), eq("{\"rows\":1000,\"skipped\":2}"), any());
+    verify(jobsRepository, never()).save(any());
+  }
+
+  @Test
+  public void progress_without_counters_writes_no_counters() {
+    Job job = Job.builder().id(4L).build();
+    jobProgressFlusher.register(job).progress(1, 0);
+
+    jobProgressFlusher.flushAll();
+
+    assertNull(job.getCounters());
+    verify(jobsRepository, times(1)).updateProgress(eq(4L), eq(1L), eq(0L), eq(null), any());
+  }
+
+  @Test
+  public void close_copies_progress_onto_the_job_without_writing_and_unregisters() {
+    Job job = Job.builder().id(4L).build();
+    JobProgressTracker tracker = jobProgressFlusher.register(job);
+    tracker.progress(3, 10);
+
+    assertEquals(1, jobProgressFlusher.getTrackerCount());
+    jobProgressFlusher.close(tracker);
+    assertEquals(0, jobProgressFlusher.getTrackerCount());
+
+    assertEquals(3L, job.getProgressDone());
+    assertFalse(tracker.flush());
+    verifyNoInteractions(jobsRepository);
+  }
+
+  @Test
+  public void flushAll_keeps_going_when_a_write_fails() {
+    Job job1 = Job.builder().id(1L).build();
+    Job job2 = Job.builder().id(2L).build();
+    jobProgressFlusher.register(job1).progress(1, 2);
+    jobProgressFlusher.register(job2).progress(1, 2);
+    when(jobsRepository.updateProgress(eq(1L), any(), any(), any(), any()))
+        .thenThrow(new RuntimeException("db down"));
+
+    jobProgressFlusher.flushAll();
+
+    verify(jobsRepository, times(2)).updateProgress(anyLong(), any(), any(), any(), any());
+    assertEquals(1L, job2.getProgressDone());
+  }
+
+  @Test
+  public void counters_that_cannot_be_written_are_an_error() throws Exception {
+    Job job = Job.builder().id(4L).build();
+    JobProgressTracker tracker = jobProgressFlusher.register(job);
+    tracker.increment("rows", 1);
+    doThrow(new JsonProcessingException("broken") {}).when(mapper).writeValueAsString(any());
+
+    IllegalStateException e = assertThrows(IllegalStateException.class, tracker::flush);
+
+    assertEquals("Cannot write counters of job 4", e.getMessage());
+    assertTrue(e.getCause() instanceof JsonProcessingException);
+  }
+}
@@ -0,0 +1,332 @@
+package edu.ucsb.cs156.example.services.jobs;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+import edu.ucsb.cs156.example.entities.Job;
+import edu.ucsb.cs156.example.entities.JobPriority;
+import edu.ucsb.cs156.example.entities.JobStatus;
+import edu.ucsb.cs156.example.repositories.JobsRepository;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.Optional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+public class JobQueueTests {
+
+  @Mock private JobsRepository jobsRepository;
+
+  @Mock private PlatformTransactionManager transactionManager;
+
+  @Mock private ThreadPoolTaskExecutor jobExecutor;
+
+  @Mock private JobService jobService;
+
+  @Spy private JobLanes jobLanes = new JobLanes();
+
+  @InjectMocks private JobQueue jobQueue;
+
+  @BeforeEach
+  public void setup() {
+    MockitoAnnotations.openMocks(this);
+    ReflectionTestUtils.setField(jobQueue, "mode", "database");
+    ReflectionTestUtils.setField(jobQueue, "leaseMs", 30000L);
+    ReflectionTestUtils.setField(jobQueue, "maxAttempts", 3);
+    ReflectionTestUtils.setField(jobQueue, "configuredWorkerId", "");
+    ReflectionTestUtils.setField(jobLanes, "interactiveWeight", 8);
+    ReflectionTestUtils.setField(jobLanes, "normalWeight", 3);
+    ReflectionTestUtils.setField(jobLanes, "bulkWeight", 1);
+  }
+
+  @Test
+  public void node_id_uses_configured_worker_id() {
+    ReflectionTestUtils.setField(jobQueue, "configuredWorkerId", "worker-7");
+    assertEquals("worker-7", jobQueue.getNodeId());
+  }
+
+  @Test
+  public void node_id_is_generated_once_when_not_configured() {
+    String nodeId = jobQueue.getNodeId();
+    assertNotNull(nodeId);
+    assertEquals(nodeId, jobQueue.getNodeId());
+  }
+
+  @Test
+  public void hold_and_release_manage_the_lease() {
+    Job job = Job.builder().build();
+
+    jobQueue.hold(job, "me");
+    assertEquals("me", job.getLockedBy());
+    assertTrue(job.getLeaseExpiresAt().isAfter(ZonedDateTime.now()));
+    assertEquals(1, jobQueue.getHeldCount());
+
+    jobQueue.release(job);
+    assertNull(job.getLockedBy());
+    assertNull(job.getLeaseExpiresAt());
+    assertEquals(0, jobQueue.getHeldCount());
+  }
+
+  @Test
+  public void claimNext_claims_the_oldest_queued_job_in_the_next_lane_with_jobs() {
+    Job job = Job.builder().id(12L).status(JobStatus.RUNNING).lockedBy("me").build();
+    when(jobsRepository.findNextQueuedIdForUpdate("NORMAL")).thenReturn(Optional.of(12L));
+    when(jobsRepository.findById(12L)).thenReturn(Optional.of(job));
+
+    Optional<Job> claimed = jobQueue.claimNext("me");
+
+    assertSame(job, claimed.get());
+    verify(jobsRepository, times(1)).claim(eq(12L), eq("me"), any(), any());
+    assertEquals(1, jobQueue.getHeldCount());
+    verify(jobsRepository, times(1)).findNextQueuedIdForUpdate("INTERACTIVE");
+    verify(jobsRepository, never()).findNextQueuedIdForUpdate("BULK");
+  }
+
+  @Test
+  public void claimNext_returns_empty_when_nothing_is_queued() {
+    when(jobsRepository.findNextQueuedIdForUpdate(any())).thenReturn(Optional.empty());
+
+    assertFalse(jobQueue.claimNext("me").isPresent());
+    verify(jobsRepository, times(3)).findNextQueuedIdForUpdate(any());
+    verify(jobsRepository, never()).claim(anyLong(), any(), any(), any());
+  }
+
+  @Test
+  public void requeue_releases_and_requeues() {
+    Job job = Job.builder().id(3L).build();
+    jobQueue.hold(job, "me");
+
+    jobQueue.requeue(job);
+
+    assertNull(job.getLockedBy());
+    verify(jobsRepository, times(1)).requeue(3L);
+  }
+
+  @Test
+  public void positionOf_counts_queued_jobs_ahead_in_its_lane_and_turns_of_the_others() {
+    when(jobsRepository.countByStatusAndPriority(JobStatus.QUEUED, JobPriority.INTERACTIVE))
+        .thenReturn(10L);
+    when(jobsRepository.countByStatusAndPriority(JobStatus.QUEUED, JobPriority.BULK))
+        .thenReturn(10L);
+    when(jobsRepository.countByStatusAndPriorityAndIdLessThan(
+            JobStatus.QUEUED, JobPriority.NORMAL, 9L))
+        .thenReturn(2L);
+
+    // 2 normal jobs ahead; in 3 normal turns, interactive gets 8 and bulk 1
+    assertEquals(11L, jobQueue.positionOf(Job.builder().id(9L).build()));
+  }
+
+  @Test
+  public void renewLeases_extends_held_leases() {
+    Job job = Job.builder().id(5L).build();
+    jobQueue.hold(job, "me");
+    ZonedDateTime before = job.getLeaseExpiresAt();
+    when(jobsRepository.renewLease(eq(5L), eq("me"), any())).thenReturn(1);
+
+    jobQueue.renewLeases();
+
+    assertFalse(job.getLeaseExpiresAt().isBefore(before));
+    verify(jobsRepository, times(1)).renewLease(5L, "me", job.getLeaseExpiresAt());
+  }
+
+  @Test
+  public void renewLeases_cancels_jobs_whose_lease_was_lost_and_keeps_going() {
+    Job lost = Job.builder().id(5L).build();
+    Job kept = Job.builder().id(6L).build();
+    jobQueue.hold(lost, "me");
+    jobQueue.hold(kept, "me");
+    when(jobsRepository.renewLease(eq(5L), eq("me"), any())).thenReturn(0);
+    when(jobsRepository.renewLease(eq(6L), eq("me"), any())).thenReturn(1);
+
+    jobQueue.renewLeases();
+
+    verify(jobsRepository, times(1)).renewLease(eq(6L), eq("me"), any());
+    verify(jobService, times(1)).cancelHeld(5L);
+    verify(jobService, never()).cancelHeld(6L);
+    assertEquals(1, jobQueue.getHeldCount());
+
+    // the job is cancelled once, not on every heartbeat until it stops
+    jobQueue.renewLeases();
+    verify(jobService, times(1)).cancelHeld(5L);
+  }
+
+  @Test
+  public void renewLeases_does_not_cancel_a_job_released_while_renewing() {
+    Job job = Job.builder().id(5L).build();
+    jobQueue.hold(job, "me");
+    // the job finishes (and is released) just as its lease is renewed
+    when(jobsRepository.renewLease(eq(5L), eq("me"), any()))
+        .thenAnswer(
+            invocation -> {
+              jobQueue.release(job);
+              return 0;
+            });
+
+    jobQueue.renewLeases();
+
+    verify(jobService, never()).cancelHeld(anyLong());
+  }
+
+  @Test
+  public void renewLeases_skips_jobs_not_saved_yet() {
+    Job job = Job.builder().build();
+    jobQueue.hold(job, "me");
+
+    jobQueue.renewLeases();
+
+    verify(jobsRepository, never()).renewLease(anyLong(), any(), any());
+    verify(jobService, never()).cancelHeld(anyLong());
+  }
+
+  @Test
+  public void isLeaseLost_renews_the_lease() {
+    Job job = Job.builder().id(5L).build();
+    jobQueue.hold(job, "me");
+    when(jobsRepository.renewLease(eq(5L), eq("me"), any())).thenReturn(1);
+
+    assertFalse(jobQueue.isLeaseLost(job));
+    verify(jobsRepository, times(1)).renewLease(5L, "me", job.getLeaseExpiresAt());
+  }
+
+  @Test
+  public void isLeaseLost_when_another_node_holds_the_job() {
+    Job job = Job.builder().id(5L).build();
+    jobQueue.hold(job, "me");
+
+    assertTrue(jobQueue.isLeaseLost(job));
+  }
+
+  @Test
+  public void isLeaseLost_is_false_without_a_lease() {
+    assertFalse(jobQueue.isLeaseLost(Job.builder().id(5L).build()));
+    verify(jobsRepository, never()).renewLease(anyLong(), any(), any());
+  }
+
+  @Test
+  public void the_lease_scheduler_renews_and_reaps_on_its_own_threads() throws Exception {
+    ReflectionTestUtils.setField(jobQueue, "heartbeatMs", 10L);
+    ReflectionTestUtils.setField(jobQueue, "reapIntervalMs", 10L);
+    Job job = Job.builder().id(5L).build();
+    jobQueue.hold(job, "me");
+    when(jobsRepository.renewLease(eq(5L), eq("me"), any())).thenReturn(1);
+    // a failing run must not stop the next ones
+    when(jobsRepository.requeueExpiredLeases(any(), eq(3)))
+        .thenThrow(new RuntimeException("database down"))
+        .thenReturn(0);
+
+    jobQueue.startLeaseScheduler();
+    try {
+      verify(jobsRepository, timeout(5000).atLeast(2)).renewLease(eq(5L), eq("me"), any());
+      verify(jobsRepository, timeout(5000).atLeast(2)).requeueExpiredLeases(any(), eq(3));
+      verify(jobsRepository, timeout(5000).atLeastOnce()).failExpiredLeases(any());
+    } finally {
+      jobQueue.stopLeaseScheduler();
+    }
+  }
+
+  @Test
+  public void renewLeases_passes_on_cancel_requests_for_held_jobs() {
+    Job job = Job.builder().id(5L).build();
+    Job other = Job.builder().id(6L).build();
+    jobQueue.hold(job, "me");
+    jobQueue.hold(other, "me");
+    when(jobsRepository.renewLease(anyLong(), eq("me"), any())).thenReturn(1);
+    when(jobsRepository.findCancelRequestedIds(any())).thenReturn(List.of(5L));
+
+    jobQueue.renewLeases();
+
+    verify(jobService, times(1)).cancelHeld(5L);
+    verify(jobService, never()).cancelHeld(6L);
+  }
+
+  @Test
+  public void renewLeases_with_no_held_jobs_does_not_look_for_cancel_requests() {
+    jobQueue.renewLeases();
+
+    verify(jobsRepository, never()).findCancelRequestedIds(any());
+  }
+
+  @Test
+  public void renewLeases_skips_jobs_without_a_holder() {
+    Job job = Job.builder().id(5L).build();
+    jobQueue.hold(job, null);
+
+    jobQueue.renewLeases();
+
+    verify(jobsRepository, never()).renewLease(anyLong(), any(), any());
+  }
+
+  @Test
+  public void reapExpiredLeases_with_nothing_expired() {
+    jobQueue.reapExpiredLeases();
+
+    verify(jobsRepository, times(1)).requeueExpiredLeases(any(), eq(3));
+    verify(jobsRepository, times(1)).failExpiredLeases(any());
+  }
+
+  @Test
+  public void reapExpiredLeases_requeues_then_fails() {
+    when(jobsRepository.requeueExpiredLeases(any(), eq(3))).thenReturn(2);
+    when(jobsRepository.failExpiredLeases(any())).thenReturn(1);
+
+    jobQueue.reapExpiredLeases();
+
+    verify(jobsRepository, times(1)).requeueExpiredLeases(any(), eq(3));
+    verify(jobsRepository, times(1)).failExpiredLeases(any());
+  }
+
+  @Test
+  public void reapExpiredLeases_only_fails() {
+    when(jobsRepository.failExpiredLeases(any())).thenReturn(1);
+
+    jobQueue.reapExpiredLeases();
+
+    verify(jobsRepository, times(1)).requeueExpiredLeases(any(), eq(3));
+    verify(jobsRepository, times(1)).failExpiredLeases(any());
+  }
+
+  @Test
+  public void reapExpiredLeases_skips_the_pending_steps_of_stopped_pipelines() {
+    when(jobsRepository.skipOrphanedSteps(any())).thenReturn(3);
+
+    jobQueue.reapExpiredLeases();
+
+    InOrder inOrder = inOrder(jobsRepository);
+    inOrder.verify(jobsRepository).failExpiredLeases(any());
+    inOrder.verify(jobsRepository).skipOrphanedSteps(any());
+  }
+
+  @Test
+  public void poll_does_nothing_in_memory_mode() {
+    ReflectionTestUtils.setField(jobQueue, "mode", "memory");
+
+    jobQueue.poll();
+
+    verify(jobsRepository, never()).findNextQueuedIdForUpdate(any());
+  }
+
+  @Test
+  public void poll_claims_jobs_in_database_mode() {
+    when(jobExecutor.getMaxPoolSize()).thenReturn(2);
+    when(jobsRepository.findNextQueuedIdForUpdate(any())).thenReturn(Optional.empty());
+
+    jobQueue.poll();
+
+    verify(jobsRepository, times(3)).findNextQueuedIdForUpdate(any());
+    assertSame(jobQueue.getWorker(), jobQueue.getWorker());
+  }
+}
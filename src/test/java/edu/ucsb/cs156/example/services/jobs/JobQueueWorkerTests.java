@@ -0,0 +1,75 @@
+package edu.ucsb.cs156.example.services.jobs;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+import edu.ucsb.cs156.example.entities.Job;
+import java.util.Optional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+public class JobQueueWorkerTests {
+
+  @Mock private JobQueue jobQueue;
+
+  @Mock private JobService jobService;
+
+  @Mock private ThreadPoolTaskExecutor executor;
+
+  private JobQueueWorker worker;
+
+  @BeforeEach
+  public void setup() {
+    MockitoAnnotations.openMocks(this);
+    worker = new JobQueueWorker(jobQueue, jobService, executor, "worker-a");
+    when(executor.getMaxPoolSize()).thenReturn(2);
+  }
+
+  @Test
+  public void claims_no_more_than_executor_capacity() {
+    Job job1 = Job.builder().id(1L).build();
+    Job job2 = Job.builder().id(2L).build();
+    when(jobQueue.claimNext("worker-a")).thenReturn(Optional.of(job1), Optional.of(job2));
+
+    assertEquals(2, worker.pollOnce());
+    assertEquals(2, worker.getInFlight());
+    verify(jobQueue, times(2)).claimNext("worker-a");
+    verify(executor, times(2)).execute(any(Runnable.class));
+  }
+
+  @Test
+  public void finished_jobs_free_capacity() {
+    Job job = Job.builder().id(1L).build();
+    when(jobQueue.claimNext("worker-a")).thenReturn(Optional.of(job), Optional.empty());
+    doAnswer(
+            invocation -> {
+              ((Runnable) invocation.getArgument(0)).run();
+              return null;
+            })
+        .when(executor)
+        .execute(any(Runnable.class));
+
+    assertEquals(1, worker.pollOnce());
+
+    verify(jobService, times(1)).runClaimedJob(job);
+    assertEquals(0, worker.getInFlight());
+    assertEquals("worker-a", worker.getWorkerId());
+  }
+
+  @Test
+  public void rejected_job_goes_back_to_the_queue() {
+    Job job = Job.builder().id(1L).build();
+    when(jobQueue.claimNext("worker-a")).thenReturn(Optional.of(job));
+    doThrow(new TaskRejectedException("full")).when(executor).execute(any(Runnable.class));
+
+    assertEquals(0, worker.pollOnce());
+
+    verify(jobQueue, times(1)).requeue(job);
+    assertEquals(0, worker.getInFlight());
+  }
+}
@@ -0,0 +1,207 @@
+package edu.ucsb.cs156.example.services.jobs;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.*;
+
+import edu.ucsb.cs156.example.entities.User;
+import edu.ucsb.cs156.example.errors.JobQuotaExceededException;
+import edu.ucsb.cs156.example.models.JobQuotaSummary;
+import edu.ucsb.cs156.example.models.JobUserQuota;
+import edu.ucsb.cs156.example.repositories.JobsRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+public class JobQuotasTests {
+
+  private static final long SECOND = 1_000_000_000L;
+
+  private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+  @Mock private JobsRepository jobsRepository;
+
+  @InjectMocks private JobQuotas jobQuotas;
+
+  private final User alice = User.builder().id(1L).email("alice@example.org").build();
+  private final User bob = User.builder().id(2L).email("bob@example.org").build();
+
+  @BeforeEach
+  public void setup() {
+    MockitoAnnotations.openMocks(this);
+    ReflectionTestUtils.setField(jobQuotas, "meterRegistry", meterRegistry);
+    ReflectionTestUtils.setField(jobQuotas, "maxConcurrentPerUser", 2);
+    ReflectionTestUtils.setField(jobQuotas, "launchesPerMinute", 3);
+  }
+
+  private double rejected(String reason) {
+    return meterRegistry.get(JobQuotas.REJECTED).tag("reason", reason).counter().count();
+  }
+
+  @Test
+  public void a_user_at_the_concurrent_limit_cannot_launch() {
+    when(jobsRepository.countActiveByCreatedBy(1L)).thenReturn(1L, 2L);
+
+    jobQuotas.checkLaunch(alice, 0);
+    JobQuotaExceededException e =
+        assertThrows(JobQuotaExceededException.class, () -> jobQuotas.checkLaunch(alice, 0));
+
+    assertEquals(
+        "alice@example.org already has 2 jobs queued or running (limit 2); try again when one"
+            + " finishes",
+        e.getMessage());
+    assertEquals(JobQuotas.CONCURRENT_RETRY_AFTER_SECONDS, e.getRetryAfterSeconds());
+    assertEquals(1.0, rejected("concurrent"));
+    // the launch turned away did not use up one of the user's launches
+    assertEquals(2, jobQuotas.getSummary(0).getUsers().get(0).getLaunchesAvailable());
+  }
+
+  @Test
+  public void a_user_may_launch_a_minute_s_launches_at_once_and_then_one_at_a_time() {
+    for (int i = 0; i < 3; i++) {
+      jobQuotas.checkLaunch(alice, 0);
+    }
+
+    JobQuotaExceededException e =
+        assertThrows(JobQuotaExceededException.class, () -> jobQuotas.checkLaunch(alice, 0));
+    assertEquals(
+        "alice@example.org has launched too many jobs (limit 3 per minute); try again in 20"
+            + " seconds",
+        e.getMessage());
+    assertEquals(20, e.getRetryAfterSeconds());
+    assertEquals(1.0, rejected("rate"));
+
+    // one launch every 20 seconds
+    e =
+        assertThrows(
+            JobQuotaExceededException.class, () -> jobQuotas.checkLaunch(alice, 15 * SECOND));
+    assertEquals(5, e.getRetryAfterSeconds());
+    jobQuotas.checkLaunch(alice, 20 * SECOND);
+    assertThrows(JobQuotaExceededException.class, () -> jobQuotas.checkLaunch(alice, 20 * SECOND));
+  }
+
+  @Test
+  public void retry_after_is_at_least_a_second() {
+    ReflectionTestUtils.setField(jobQuotas, "launchesPerMinute", 600);
+    for (int i = 0; i < 600; i++) {
+      jobQuotas.checkLaunch(alice, 0);
+    }
+
+    JobQuotaExceededException e =
+        assertThrows(
+            JobQuotaExceededException.class, () -> jobQuotas.checkLaunch(alice, SECOND / 20));
+
+    assertEquals(1, e.getRetryAfterSeconds());
+  }
+
+  @Test
+  public void the_bucket_holds_no_more_than_a_minute_s_launches() {
+    jobQuotas.checkLaunch(alice, 0);
+
+    assertEquals(3, jobQuotas.getSummary(3600 * SECOND).getUsers().get(0).getLaunchesAvailable());
+  }
+
+  @Test
+  public void each_user_has_their_own_bucket() {
+    for (int i = 0; i < 3; i++) {
+      jobQuotas.checkLaunch(alice, 0);
+    }
+
+    jobQuotas.checkLaunch(bob, 0);
+  }
+
+  @Test
+  public void a_refunded_launch_can_be_used_again() {
+    for (int i = 0; i < 3; i++) {
+      jobQuotas.checkLaunch(alice, 0);
+    }
+
+    jobQuotas.refundLaunch(alice);
+    jobQuotas.checkLaunch(alice, 0);
+    assertThrows(JobQuotaExceededException.class, () -> jobQuotas.checkLaunch(alice, 0));
+
+    // no more than a minute's launches, and nothing for users who have not launched
+    jobQuotas.refundLaunch(alice);
+    jobQuotas.refundLaunch(alice);
+    jobQuotas.refundLaunch(alice);
+    jobQuotas.refundLaunch(alice);
+    jobQuotas.refundLaunch(bob);
+    jobQuotas.refundLaunch(null);
+    assertEquals(1, jobQuotas.getSummary(0).getUsers().size());
+    assertEquals(3, jobQuotas.getSummary(0).getUsers().get(0).getLaunchesAvailable());
+  }
+
+  @Test
+  public void a_refund_without_a_rate_limit_does_nothing() {
+    ReflectionTestUtils.setField(jobQuotas, "launchesPerMinute", 0);
+    jobQuotas.checkLaunch(alice, 0);
+
+    jobQuotas.refundLaunch(alice);
+
+    assertNull(jobQuotas.getSummary(0).getUsers().get(0).getLaunchesAvailable());
+  }
+
+  @Test
+  public void jobs_launched_by_the_system_are_not_limited() {
+    for (int i = 0; i < 10; i++) {
+      jobQuotas.checkLaunch(null, 0);
+    }
+
+    verifyNoInteractions(jobsRepository);
+    assertEquals(0, jobQuotas.getSummary().getUsers().size());
+  }
+
+  @Test
+  public void a_limit_of_zero_is_off() {
+    ReflectionTestUtils.setField(jobQuotas, "maxConcurrentPerUser", 0);
+    ReflectionTestUtils.setField(jobQuotas, "launchesPerMinute", 0);
+
+    for (int i = 0; i < 10; i++) {
+      jobQuotas.checkLaunch(alice, 0);
+    }
+
+    verifyNoInteractions(jobsRepository);
+    JobUserQuota quota = jobQuotas.getSummary(0).getUsers().get(0);
+    assertNull(quota.getLaunchesAvailable());
+    assertEquals(0L, quota.getRejected());
+  }
+
+  @Test
+  public void summary_reports_the_limits_and_each_user_s_usage() {
+    when(jobsRepository.countActiveByCreatedBy(1L)).thenReturn(0L, 0L, 2L, 2L);
+    when(jobsRepository.countActiveByCreatedBy(2L)).thenReturn(0L);
+    jobQuotas.checkLaunch(bob, 0);
+    jobQuotas.checkLaunch(alice, 0);
+    jobQuotas.checkLaunch(alice, 0);
+    assertThrows(JobQuotaExceededException.class, () -> jobQuotas.checkLaunch(alice, 0));
+
+    JobQuotaSummary summary = jobQuotas.getSummary(0);
+
+    assertEquals(2, summary.getMaxConcurrentPerUser());
+    assertEquals(3, summary.getLaunchesPerMinute());
+    assertEquals(Map.of("concurrent", 1L, "rate", 0L), summary.getRejected());
+    assertEquals(
+        JobUserQuota.builder()
+            .email("alice@example.org")
+            .activeJobs(2L)
+            .launchesAvailable(1)
+            .rejected(1L)
+            .build(),
+        summary.getUsers().get(0));
+    assertEquals(
+        JobUserQuota.builder()
+            .email("bob@example.org")
+            .activeJobs(0L)
+            .launchesAvailable(2)
+            .rejected(0L)
+            .build(),
+        summary.getUsers().get(1));
+  }
+}
@@ -0,0 +1,153 @@
+package edu.ucsb.cs156.example.services.jobs;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+import edu.ucsb.cs156.example.entities.JobStatus;
+import edu.ucsb.cs156.example.models.JobSummary;
+import edu.ucsb.cs156.example.repositories.JobsRepository;
+import java.time.ZonedDateTime;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+
+public class JobRetentionTests {
+
+  @Mock private JobsRepository jobsRepository;
+
+  @Mock private JobLogStore jobLogStore;
+
+  @Mock private JobLogIndex jobLogIndex;
+
+  @Mock private JobArtifacts jobArtifacts;
+
+  @InjectMocks private JobRetention jobRetention;
+
+  @BeforeEach
+  public void setup() {
+    MockitoAnnotations.openMocks(this);
+    ReflectionTestUtils.setField(jobRetention, "maxAgeDays", 30);
+    ReflectionTestUtils.setField(jobRetention, "failedMaxAgeDays", 90);
+    ReflectionTestUtils.setField(jobRetention, "maxCount", 100);
+    ReflectionTestUtils.setField(jobRetention, "batchSize", 2);
+    when(jobsRepository.deleteByIds(any())).thenAnswer(i -> i.<List<?>>getArgument(0).size());
+  }
+
+  @Test
+  public void purge_deletes_old_jobs_in_batches_until_a_batch_is_short() {
+    when(jobsRepository.findCompleteIdsCreatedBefore(any(), eq(Limit.of(2))))
+        .thenReturn(List.of(1L, 2L), List.of(3L, 4L), List.of(5L));
+
+    jobRetention.purge();
+
+    verify(jobsRepository, times(3)).findCompleteIdsCreatedBefore(any(), any());
+    verify(jobsRepository).deleteByIds(List.of(1L, 2L));
+    verify(jobsRepository).deleteByIds(List.of(3L, 4L));
+    verify(jobsRepository).deleteByIds(List.of(5L));
+    // each batch's logs and search index entries go with it
+    verify(jobLogStore).delete(List.of(1L, 2L));
+    verify(jobLogStore).delete(List.of(3L, 4L));
+    verify(jobLogStore).delete(List.of(5L));
+    verify(jobLogIndex).delete(List.of(1L, 2L));
+    verify(jobArtifacts).delete(List.of(1L, 2L));
+    verify(jobLogIndex).delete(List.of(3L, 4L));
+    verify(jobLogIndex).delete(List.of(5L));
+    verify(jobArtifacts).delete(List.of(5L));
+  }
+
+  @Test
+  public void purge_stops_when_there_is_nothing_left() {
+    when(jobsRepository.findCompleteIdsCreatedBefore(any(), any()))
+        .thenReturn(List.of(1L, 2L), List.of());
+
+    jobRetention.purge();
+
+    verify(jobsRepository, times(2)).findCompleteIdsCreatedBefore(any(), any());
+    verify(jobsRepository, times(1)).deleteByIds(any());
+  }
+
+  @Test
+  public void failed_jobs_are_kept_longer() {
+    ArgumentCaptor<ZonedDateTime> completeBefore = ArgumentCaptor.forClass(ZonedDateTime.class);
+    ArgumentCaptor<ZonedDateTime> failedBefore = ArgumentCaptor.forClass(ZonedDateTime.class);
+    when(jobsRepository.findFailedIdsCreatedBefore(any(), any())).thenReturn(List.of(9L));
+
+    jobRetention.purge();
+
+    verify(jobsRepository).findCompleteIdsCreatedBefore(completeBefore.capture(), any());
+    verify(jobsRepository).findFailedIdsCreatedBefore(failedBefore.capture(), any());
+    assertEquals(
+        60,
+        completeBefore.getValue().toLocalDate().toEpochDay()
+            - failedBefore.getValue().toLocalDate().toEpochDay());
+    verify(jobsRepository).deleteByIds(List.of(9L));
+  }
+
+  @Test
+  public void purge_keeps_the_newest_maxCount_completed_jobs() {
+    ZonedDateTime createdAt = ZonedDateTime.now().minusDays(1);
+    JobSummary firstToDelete =
+        new JobSummary(42L, JobStatus.COMPLETE, createdAt, createdAt, null, 0L, null);
+    when(jobsRepository.findCompleteSummaries(PageRequest.of(100, 1)))
+        .thenReturn(List.of(firstToDelete));
+    when(jobsRepository.findCompleteIdsFrom(createdAt, 42L, Limit.of(2)))
+        .thenReturn(List.of(42L, 41L), List.of());
+
+    jobRetention.purge();
+
+    verify(jobsRepository).deleteByIds(List.of(42L, 41L));
+  }
+
+  @Test
+  public void purge_by_count_does_nothing_when_there_are_few_jobs() {
+    when(jobsRepository.findCompleteSummaries(any())).thenReturn(List.of());
+
+    jobRetention.purge();
+
+    verify(jobsRepository, never()).findCompleteIdsFrom(any(), anyLong(), any());
+    verify(jobsRepository, never()).deleteByIds(any());
+  }
+
+  @Test
+  public void rules_set_to_zero_are_off() {
+    ReflectionTestUtils.setField(jobRetention, "maxAgeDays", 0);
+    ReflectionTestUtils.setField(jobRetention, "failedMaxAgeDays", 0);
+    ReflectionTestUtils.setField(jobRetention, "maxCount", 0);
+
+    jobRetention.purge();
+
+    verifyNoInteractions(jobsRepository, jobLogStore, jobLogIndex, jobArtifacts);
+  }
+
+  @Test
+  public void deleteAll_deletes_every_job_in_batches() {
+    ReflectionTestUtils.setField(jobRetention, "batchSize", 0);
+    when(jobsRepository.findIds(Limit.of(1))).thenReturn(List.of(1L), List.of(2L), List.of());
+
+    assertEquals(2, jobRetention.deleteAll());
+  }
+
+  @Test
+  public void delete_reports_whether_the_job_existed() {
+    when(jobsRepository.deleteByIds(List.of(5L))).thenReturn(1);
+    when(jobsRepository.deleteByIds(List.of(6L))).thenReturn(0);
+
+    assertTrue(jobRetention.delete(5L));
+    assertFalse(jobRetention.delete(6L));
+    verify(jobLogStore).delete(List.of(5L));
+    verify(jobLogIndex).delete(List.of(5L));
+    verify(jobArtifacts).delete(List.of(5L));
+  }
+}
@@ -0,0 +1,190 @@
+package edu.ucsb.cs156.example.services.jobs;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.ucsb.cs156.example.entities.Job;
+import edu.ucsb.cs156.example.entities.JobPriority;
+import edu.ucsb.cs156.example.entities.JobSchedule;
+import edu.ucsb.cs156.example.entities.JobStatus;
+import edu.ucsb.cs156.example.errors.InvalidJobScheduleException;
+import edu.ucsb.cs156.example.errors.JobRejectedException;
+import edu.ucsb.cs156.example.jobs.TestJob;
+import edu.ucsb.cs156.example.repositories.JobSchedulesRepository;
+import edu.ucsb.cs156.example.repositories.JobsRepository;
+import java.time.ZonedDateTime;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+
+public class JobSchedulerTests {
+
+  @Mock private JobSchedulesRepository jobSchedulesRepository;
+
+  @Mock private JobsRepository jobsRepository;
+
+  @Mock private JobService jobService;
+
+  @Spy private ObjectMapper mapper = new ObjectMapper();
+
+  @InjectMocks private JobScheduler jobScheduler;
+
+  private final ZonedDateTime now = ZonedDateTime.parse("2025-01-01T10:00:30Z");
+
+  @BeforeEach
+  public void setup() {
+    MockitoAnnotations.openMocks(this);
+    when(jobSchedulesRepository.save(any())).thenAnswer(i -> i.getArgument(0));
+    when(jobSchedulesRepository.claimFiring(anyLong(), any(), any())).thenReturn(1);
+  }
+
+  private JobSchedule.JobScheduleBuilder schedule() {
+    return JobSchedule.builder()
+        .id(7L)
+        .name("nightly")
+        .jobType(TestJob.class.getName())
+        .jobParams("{\"sleepMs\":10}")
+        .cron("0 * * * * *");
+  }
+
+  @Test
+  public void save_works_out_the_next_run() {
+    JobSchedule saved = jobScheduler.save(schedule().build());
+
+    assertTrue(saved.getNextRunAt().isAfter(ZonedDateTime.now()));
+    assertEquals(0, saved.getNextRunAt().getSecond());
+    verify(jobSchedulesRepository).save(saved);
+  }
+
+  @Test
+  public void save_clears_the_next_run_of_a_disabled_schedule() {
+    JobSchedule saved =
+        jobScheduler.save(schedule().enabled(false).nextRunAt(ZonedDateTime.now()).build());
+
+    assertNull(saved.getNextRunAt());
+  }
+
+  @Test
+  public void save_defaults_blank_job_params_to_an_empty_object() {
+    assertEquals("{}", jobScheduler.save(schedule().jobParams(null).build()).getJobParams());
+    assertEquals("{}", jobScheduler.save(schedule().jobParams(" ").build()).getJobParams());
+  }
+
+  private void assertInvalid(JobSchedule schedule, String message) {
+    InvalidJobScheduleException e =
+        assertThrows(InvalidJobScheduleException.class, () -> jobScheduler.save(schedule));
+    assertTrue(e.getMessage().startsWith(message), e.getMessage());
+    verify(jobSchedulesRepository, never()).save(any());
+  }
+
+  @Test
+  public void save_rejects_an_invalid_cron_expression() {
+    assertInvalid(schedule().cron("every day").build(), "Invalid cron expression every day");
+  }
+
+  @Test
+  public void save_rejects_a_cron_expression_that_never_fires() {
+    assertInvalid(schedule().cron("0 0 0 30 2 *").build(), "Cron expression never fires");
+  }
+
+  @Test
+  public void a_disabled_schedule_may_have_a_cron_expression_that_never_fires() {
+    assertNull(
+        jobScheduler.save(schedule().cron("0 0 0 30 2 *").enabled(false).build()).getNextRunAt());
+  }
+
+  @Test
+  public void save_rejects_an_unknown_job_type() {
+    assertInvalid(schedule().jobType("no.such.Job").build(), "Unknown job type: no.such.Job");
+    assertInvalid(schedule().jobType(null).build(), "Unknown job type: null");
+  }
+
+  @Test
+  public void save_rejects_a_class_that_is_not_a_job() {
+    assertInvalid(
+        schedule().jobType("java.lang.String").build(),
+        "java.lang.String is not a JobContextConsumer");
+  }
+
+  @Test
+  public void save_rejects_invalid_job_params() {
+    assertInvalid(
+        schedule().jobParams("{\"sleepMs\":\"soon\"}").build(),
+        "Invalid job params for " + TestJob.class.getName());
+  }
+
+  @Test
+  public void fire_launches_the_job_and_records_the_run() {
+    JobSchedule schedule =
+        schedule().priority(JobPriority.BULK).timeoutMs(5000L).lastJobId(3L).build();
+    when(jobService.runAsJob(any(), any(), any())).thenReturn(Job.builder().id(12L).build());
+    ArgumentCaptor<JobContextConsumer> jobFunction =
+        ArgumentCaptor.forClass(JobContextConsumer.class);
+
+    jobScheduler.fire(schedule, now);
+
+    verify(jobSchedulesRepository)
+        .claimFiring(7L, now, ZonedDateTime.parse("2025-01-01T10:01:00Z"));
+    verify(jobsRepository).existsByIdAndStatusIn(3L, List.of(JobStatus.QUEUED, JobStatus.RUNNING));
+    verify(jobService).runAsJob(jobFunction.capture(), eq(JobPriority.BULK), eq(5000L));
+    assertEquals(10, ((TestJob) jobFunction.getValue()).getSleepMs());
+    verify(jobSchedulesRepository).recordRun(7L, 12L, now);
+  }
+
+  @Test
+  public void fire_does_nothing_when_another_node_fired_the_schedule() {
+    when(jobSchedulesRepository.claimFiring(anyLong(), any(), any())).thenReturn(0);
+
+    jobScheduler.fire(schedule().build(), now);
+
+    verifyNoInteractions(jobService, jobsRepository);
+    verify(jobSchedulesRepository, never()).recordSkip(anyLong());
+  }
+
+  @Test
+  public void fire_skips_while_the_previous_run_is_still_active() {
+    when(jobsRepository.existsByIdAndStatusIn(eq(3L), any())).thenReturn(true);
+
+    jobScheduler.fire(schedule().lastJobId(3L).build(), now);
+
+    verifyNoInteractions(jobService);
+    verify(jobSchedulesRepository).recordSkip(7L);
+    verify(jobSchedulesRepository, never()).recordRun(anyLong(), anyLong(), any());
+  }
+
+  @Test
+  public void fire_skips_when_the_job_executor_is_full() {
+    when(jobService.runAsJob(any(), any(), any())).thenThrow(new JobRejectedException("full"));
+
+    jobScheduler.fire(schedule().build(), now);
+
+    verify(jobSchedulesRepository).recordSkip(7L);
+    verify(jobSchedulesRepository, never()).recordRun(anyLong(), anyLong(), any());
+  }
+
+  @Test
+  public void fireDueSchedules_fires_each_due_schedule_and_keeps_going_after_a_failure() {
+    JobSchedule broken = schedule().id(1L).cron("every day").build();
+    JobSchedule due = schedule().id(2L).build();
+    when(jobSchedulesRepository.findByEnabledTrueAndNextRunAtLessThanEqual(any()))
+        .thenReturn(List.of(broken, due));
+    when(jobService.runAsJob(any(), any(), any())).thenReturn(Job.builder().id(12L).build());
+
+    jobScheduler.fireDueSchedules();
+
+    verify(jobSchedulesRepository, never()).claimFiring(eq(1L), any(), any());
+    verify(jobSchedulesRepository).recordRun(eq(2L), eq(12L), any());
+  }
+}
@@ -0,0 +1,1228 @@
+package edu.ucsb.cs156.example.services.jobs;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.ucsb.cs156.example.entities.Job;
+import edu.ucsb.cs156.example.entities.JobLogToken;
+import edu.ucsb.cs156.example.entities.JobPriority;
+import edu.ucsb.cs156.example.entities.JobStatus;
+import edu.ucsb.cs156.example.entities.User;
+import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.errors.InvalidCursorException;
+import edu.ucsb.cs156.example.errors.InvalidJobTransitionException;
+import edu.ucsb.cs156.example.errors.JobQuotaExceededException;
+import edu.ucsb.cs156.example.errors.JobRejectedException;
+import edu.ucsb.cs156.example.jobs.TestJob;
+import edu.ucsb.cs156.example.models.JobExecutorStats;
+import edu.ucsb.cs156.example.models.JobStatusCount;
+import edu.ucsb.cs156.example.models.JobSummary;
+import edu.ucsb.cs156.example.models.JobSummaryPage;
+import edu.ucsb.cs156.example.repositories.JobsRepository;
+import edu.ucsb.cs156.example.services.CurrentUserService;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+public class JobServiceTests {
+
+  @Mock private JobsRepository jobsRepository;
+
+  @Mock private JobLogFlusher jobLogFlusher;
+
+  @Mock private JobProgressFlusher jobProgressFlusher;
+
+  @Mock private JobLogStreamer jobLogStreamer;
+
+  @Mock private JobLogIndex jobLogIndex;
+
+  @Mock private JobArtifacts jobArtifacts;
+
+  @Mock private CurrentUserService currentUserService;
+
+  @Mock private ThreadPoolTaskExecutor jobExecutor;
+
+  @Mock private JobService self;
+
+  @Mock private JobQueue jobQueue;
+
+  @Mock private JobMetrics jobMetrics;
+
+  @Mock private JobIdempotency jobIdempotency;
+
+  @Mock private JobPipelines jobPipelines;
+
+  @Mock private JobQuotas jobQuotas;
+
+  @Spy private ObjectMapper mapper = new ObjectMapper();
+
+  @Spy private JobLanes jobLanes = new JobLanes();
+
+  @InjectMocks private JobService jobService;
+
+  @BeforeEach
+  public void setup() {
+    MockitoAnnotations.openMocks(this);
+    ReflectionTestUtils.setField(
+        jobService, "jobLogStore", new DatabaseJobLogStore(jobsRepository));
+    ReflectionTestUtils.setField(jobService, "logMode", "buffered");
+    ReflectionTestUtils.setField(jobLanes, "interactiveWeight", 8);
+    ReflectionTestUtils.setField(jobLanes, "normalWeight", 3);
+    ReflectionTestUtils.setField(jobLanes, "bulkWeight", 1);
+  }
+
+  /** The log a job's lines add up to, as appended to the database by the log store */
+  private String logOf(Job job) {
+    ArgumentCaptor<String> lines = ArgumentCaptor.forClass(String.class);
+    verify(jobsRepository, atLeast(0)).appendLog(eq(job.getId()), eq("\n"), lines.capture());
+    return lines.getAllValues().isEmpty() ? null : String.join("\n", lines.getAllValues());
+  }
+
+  @Test
+  public void buffered_job_that_completes_is_flushed_and_saved_once() throws Exception {
+    Job job = Job.builder().status(JobStatus.RUNNING).build();
+    JobLogBuffer buffer = new JobLogBuffer(new DatabaseJobLogStore(jobsRepository), job, 100);
+    when(jobLogFlusher.register(job)).thenReturn(buffer);
+    doAnswer(
+            invocation -> {
+              buffer.flush();
+              return null;
+            })
+        .when(jobLogFlusher)
+        .close(buffer);
+
+    jobService.runJob(job, ctx -> ctx.log("hello"));
+
+    assertEquals(JobStatus.COMPLETE, job.getStatus());
+    assertEquals("hello", logOf(job));
+    verify(jobLogFlusher, times(1)).close(buffer);
+    verify(jobsRepository, times(1)).save(job);
+  }
+
+  @Test
+  public void final_progress_is_copied_onto_the_job_before_it_is_saved() throws Exception {
+    ReflectionTestUtils.setField(jobService, "logMode", "sync");
+    Job job = Job.builder().id(3L).status(JobStatus.RUNNING).build();
+    JobProgressTracker tracker = new JobProgressTracker(jobsRepository, mapper, job);
+    when(jobProgressFlusher.register(job)).thenReturn(tracker);
+    doAnswer(invocation -> tracker.apply()).when(jobProgressFlusher).close(tracker);
+
+    jobService.runJob(
+        job,
+        ctx -> {
+          ctx.progress(10, 10);
+          ctx.increment("rows", 10);
+        });
+
+    InOrder inOrder = inOrder(jobProgressFlusher, jobsRepository);
+    inOrder.verify(jobProgressFlusher).close(tracker);
+    inOrder.verify(jobsRepository).save(job);
+    assertEquals(10L, job.getProgressDone());
+    assertEquals("{\"rows\":10}", job.getCounters());
+  }
+
+  @Test
+  public void job_log_lines_are_pushed_to_the_tail_which_is_closed_at_the_end() throws Exception {
+    ReflectionTestUtils.setField(jobService, "logMode", "sync");
+    Job job = Job.builder().status(JobStatus.RUNNING).build();
+    JobLogTail tail = new JobLogTail(10, 0, 100, Runnable::run);
+    when(jobLogStreamer.open(job)).thenReturn(tail);
+
+    jobService.runJob(job, ctx -> ctx.log("one\ntwo"));
+
+    assertEquals(2, tail.getLineCount());
+    verify(jobLogStreamer, times(1)).close(job, tail);
+  }
+
+  @Test
+  public void tail_is_closed_when_job_fails() throws Exception {
+    ReflectionTestUtils.setField(jobService, "logMode", "sync");
+    Job job = Job.builder().status(JobStatus.RUNNING).build();
+    JobLogTail tail = new JobLogTail(10, 0, 100, Runnable::run);
+    when(jobLogStreamer.open(job)).thenReturn(tail);
+
+    jobService.runJob(
+        job,
+        ctx -> {
+          throw new Exception("boom");
+        });
+
+    assertEquals(JobStatus.ERROR, job.getStatus());
+    assertEquals(1, tail.getLineCount());
+    verify(jobLogStreamer, times(1)).close(job, tail);
+    verify(jobMetrics, times(1)).jobStarted(eq(job), any());
+    verify(jobMetrics, times(1)).jobFinished(any(), eq(JobStatus.ERROR), any());
+  }
+
+  @Test
+  public void job_that_throws_an_error_is_recorded_as_error_and_cleaned_up() {
+    ReflectionTestUtils.setField(jobService, "logMode", "sync");
+    Job job = Job.builder().id(5L).status(JobStatus.RUNNING).build();
+    JobLogTail tail = new JobLogTail(10, 0, 100, Runnable::run);
+    when(jobLogStreamer.open(job)).thenReturn(tail);
+
+    jobService.runJob(
+        job,
+        ctx -> {
+          throw new StackOverflowError();
+        });
+
+    assertEquals(JobStatus.ERROR, job.getStatus());
+    assertEquals("java.lang.StackOverflowError", logOf(job));
+    verify(jobsRepository, times(1)).save(job);
+    verify(jobQueue, times(1)).release(job);
+    verify(jobLogStreamer, times(1)).close(job, tail);
+    verify(jobMetrics, times(1)).jobFinished(any(), eq(JobStatus.ERROR), any());
+    assertFalse(jobService.cancelRunning(5L));
+  }
+
+  @Test
+  public void a_failing_cleanup_step_does_not_skip_the_others() {
+    Job job = Job.builder().id(5L).status(JobStatus.RUNNING).build();
+    JobLogBuffer buffer = new JobLogBuffer(new DatabaseJobLogStore(jobsRepository), job, 100);
+    when(jobLogFlusher.register(job)).thenReturn(buffer);
+    JobLogIndexer indexer = mock(JobLogIndexer.class);
+    when(jobLogIndex.open(job)).thenReturn(indexer);
+    IllegalStateException failure = new IllegalStateException("disk full");
+    doThrow(failure).when(jobLogIndex).close(indexer);
+
+    assertSame(
+        failure,
+        assertThrows(IllegalStateException.class, () -> jobService.runJob(job, ctx -> {})));
+
+    assertEquals(JobStatus.COMPLETE, job.getStatus());
+    InOrder inOrder = inOrder(jobLogFlusher, jobQueue, jobsRepository, jobLogStreamer, jobMetrics);
+    inOrder.verify(jobLogFlusher).close(buffer);
+    inOrder.verify(jobQueue).clearLease(job);
+    inOrder.verify(jobsRepository).save(job);
+    inOrder.verify(jobQueue).release(job);
+    inOrder.verify(jobLogStreamer).close(same(job), any());
+    inOrder.verify(jobMetrics).jobFinished(any(), eq(JobStatus.COMPLETE), any());
+    assertFalse(jobService.cancelRunning(5L));
+  }
+
+  @Test
+  public void a_job_whose_status_could_not_be_recorded_is_saved_as_error() {
+    Job job = Job.builder().id(5L).status(JobStatus.RUNNING).build();
+    doThrow(new IllegalStateException("boom")).when(jobProgressFlusher).close(any());
+
+    assertThrows(IllegalStateException.class, () -> jobService.runJob(job, ctx -> {}));
+
+    assertEquals(JobStatus.ERROR, job.getStatus());
+    verify(jobsRepository, times(1)).save(job);
+    verify(jobQueue, times(1)).release(job);
+    verify(jobMetrics, times(1)).jobFinished(any(), eq(JobStatus.ERROR), any());
+  }
+
+  @Test
+  public void runEach_runs_every_step_and_throws_the_first_failure() {
+    AssertionError first = new AssertionError("first");
+    IllegalStateException second = new IllegalStateException("second");
+    AtomicInteger ran = new AtomicInteger();
+
+    AssertionError e =
+        assertThrows(
+            AssertionError.class,
+            () ->
+                JobService.runEach(
+                    () -> {
+                      throw first;
+                    },
+                    () -> {
+                      throw second;
+                    },
+                    ran::incrementAndGet));
+
+    assertSame(first, e);
+    assertEquals(List.of(second), List.of(e.getSuppressed()));
+    assertEquals(1, ran.get());
+  }
+
+  @Test
+  public void jobs_logging_to_the_file_store_are_always_buffered(@TempDir Path dir) {
+    ReflectionTestUtils.setField(jobService, "logMode", "sync");
+    FileJobLogStore store = new FileJobLogStore(jobsRepository, dir, 1 << 20);
+    ReflectionTestUtils.setField(jobService, "jobLogStore", store);
+    Job job = Job.builder().id(5L).status(JobStatus.RUNNING).build();
+    JobLogBuffer buffer = new JobLogBuffer(store, job, 100);
+    when(jobLogFlusher.register(job)).thenReturn(buffer);
+    doAnswer(
+            invocation -> {
+              buffer.flush();
+              return null;
+            })
+        .when(jobLogFlusher)
+        .close(buffer);
+
+    jobService.runJob(
+        job,
+        ctx -> {
+          ctx.log("one");
+          ctx.log("two");
+        });
+
+    assertEquals("one\ntwo", store.readLog(job));
+    assertEquals(0, store.getOpenLogCount());
+  }
+
+  @Test
+  public void buffered_job_with_nothing_pending_is_still_saved() throws Exception {
+    Job job = Job.builder().status(JobStatus.RUNNING).build();
+    JobLogBuffer buffer = new JobLogBuffer(new DatabaseJobLogStore(jobsRepository), job, 100);
+    when(jobLogFlusher.register(job)).thenReturn(buffer);
+
+    jobService.runJob(job, ctx -> {});
+
+    assertEquals(JobStatus.COMPLETE, job.getStatus());
+    verify(jobsRepository, times(1)).save(job);
+  }
+
+  @Test
+  public void buffered_job_that_fails_flushes_error_message() throws Exception {
+    Job job = Job.builder().status(JobStatus.RUNNING).build();
+    JobLogBuffer buffer = new JobLogBuffer(new DatabaseJobLogStore(jobsRepository), job, 100);
+    when(jobLogFlusher.register(job)).thenReturn(buffer);
+    doAnswer(
+            invocation -> {
+              buffer.flush();
+              return null;
+            })
+        .when(jobLogFlusher)
+        .close(buffer);
+
+    jobService.runJob(
+        job,
+        ctx -> {
+          ctx.log("starting");
+          throw new Exception("boom");
+        });
+
+    assertEquals(JobStatus.ERROR, job.getStatus());
+    assertEquals("starting\nboom", logOf(job));
+    verify(jobsRepository, times(1)).save(any(Job.class));
+  }
+
+  @Test
+  public void fan_out_parallelism_comes_from_the_configuration() throws Exception {
+    ReflectionTestUtils.setField(jobService, "fanOutParallelism", 1);
+    Job job = Job.builder().status(JobStatus.RUNNING).build();
+    AtomicInteger running = new AtomicInteger();
+    AtomicInteger mostRunning = new AtomicInteger();
+
+    jobService.runJob(
+        job,
+        ctx ->
+            ctx.fanOut(
+                List.of(1, 2, 3, 4),
+                1,
+                chunk -> {
+                  mostRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                  Thread.sleep(5);
+                  return running.decrementAndGet();
+                }));
+
+    assertEquals(JobStatus.COMPLETE, job.getStatus());
+    assertEquals(1, mostRunning.get());
+  }
+
+  @Test
+  public void runAsJob_reports_queue_position_when_workers_are_busy() {
+    when(jobExecutor.getActiveCount()).thenReturn(4);
+    when(jobExecutor.getMaxPoolSize()).thenReturn(4);
+    jobService.runAsJob(ctx -> {});
+    jobService.runAsJob(ctx -> {});
+
+    Job job = jobService.runAsJob(ctx -> {});
+
+    assertEquals(2, job.getQueuePosition());
+    assertEquals(JobStatus.RUNNING, job.getStatus());
+    verify(jobQueue, times(1)).hold(same(job), any());
+    verify(self, times(3)).runNextJobAsync();
+  }
+
+  @Test
+  public void runAsJob_reports_position_by_priority_lane() {
+    when(jobExecutor.getActiveCount()).thenReturn(4);
+    when(jobExecutor.getMaxPoolSize()).thenReturn(4);
+    for (int i = 0; i < 5; i++) {
+      jobService.runAsJob(ctx -> {}, JobPriority.BULK, null);
+    }
+
+    Job interactive = jobService.runAsJob(ctx -> {}, JobPriority.INTERACTIVE, null);
+    Job bulk = jobService.runAsJob(ctx -> {}, JobPriority.BULK, null);
+
+    assertEquals(JobPriority.INTERACTIVE, interactive.getPriority());
+    assertEquals(0, interactive.getQueuePosition());
+    assertEquals(6, bulk.getQueuePosition());
+  }
+
+  @Test
+  public void runNextJobAsync_runs_the_job_the_lanes_pick() {
+    ReflectionTestUtils.setField(jobService, "logMode", "sync");
+    when(jobExecutor.getMaxPoolSize()).thenReturn(4);
+    AtomicInteger ids = new AtomicInteger();
+    when(jobsRepository.save(any()))
+        .thenAnswer(
+            invocation -> {
+              Job saved = invocation.getArgument(0);
+              if (saved.getId() == 0) {
+                saved.setId((long) ids.incrementAndGet());
+              }
+              return saved;
+            });
+    Job bulk = jobService.runAsJob(ctx -> ctx.log("bulk"), JobPriority.BULK, null);
+    Job normal = jobService.runAsJob(ctx -> ctx.log("normal"), null, null);
+
+    jobService.runNextJobAsync();
+    assertEquals("normal", logOf(normal));
+    assertEquals(JobPriority.NORMAL, normal.getPriority());
+    assertEquals(JobStatus.RUNNING, bulk.getStatus());
+
+    jobService.runNextJobAsync();
+    assertEquals("bulk", logOf(bulk));
+
+    // nothing left to run
+    jobService.runNextJobAsync();
+    verify(jobMetrics, times(2)).jobStarted(any(), any());
+  }
+
+  @Test
+  public void runAsJob_reports_position_zero_when_a_worker_is_free() {
+    when(jobExecutor.getActiveCount()).thenReturn(1);
+    when(jobExecutor.getMaxPoolSize()).thenReturn(4);
+
+    Job job = jobService.runAsJob(ctx -> {});
+
+    assertEquals(0, job.getQueuePosition());
+  }
+
+  @Test
+  public void runAsJob_marks_job_rejected_when_executor_is_full() {
+    when(jobExecutor.getActiveCount()).thenReturn(4);
+    when(jobExecutor.getMaxPoolSize()).thenReturn(4);
+    doThrow(new TaskRejectedException("full")).when(self).runNextJobAsync();
+
+    JobRejectedException e =
+        assertThrows(JobRejectedException.class, () -> jobService.runAsJob(ctx -> {}));
+
+    assertEquals(
+        "Job executor is at capacity (4 running, 0 queued); try again later", e.getMessage());
+    verify(jobsRepository, times(2)).save(argThat(j -> j.getStatus() == JobStatus.REJECTED));
+    verify(jobQueue, times(1)).release(any(Job.class));
+    assertTrue(jobLanes.poll().isEmpty());
+  }
+
+  @Test
+  public void runAsJob_with_an_idempotency_key_launches_through_JobIdempotency() {
+    when(jobExecutor.getMaxPoolSize()).thenReturn(4);
+    when(jobIdempotency.launch(any(), any(), any(), any()))
+        .thenAnswer(invocation -> invocation.<Supplier<Job>>getArgument(3).get());
+    String fingerprint =
+        JobIdempotency.fingerprint(
+            TestJob.class.getName(), "{\"fail\":false,\"sleepMs\":10}", JobPriority.BULK, 500L);
+
+    Job job =
+        jobService.runAsJob(
+            TestJob.builder().fail(false).sleepMs(10).build(), JobPriority.BULK, 500L, "key-1");
+
+    assertEquals("key-1", job.getIdempotencyKey());
+    assertEquals(fingerprint, job.getLaunchFingerprint());
+    verify(jobIdempotency).launch(isNull(), eq("key-1"), eq(fingerprint), any());
+    verify(jobsRepository).save(job);
+    verify(self).runNextJobAsync();
+  }
+
+  @Test
+  public void runAsJob_with_a_blank_idempotency_key_launches_directly() {
+    when(jobExecutor.getMaxPoolSize()).thenReturn(4);
+
+    Job job = jobService.runAsJob(ctx -> {}, null, null, " ");
+
+    assertNull(job.getIdempotencyKey());
+    verifyNoInteractions(jobIdempotency);
+  }
+
+  @Test
+  public void runAsJob_releases_the_job_when_it_cannot_be_saved() {
+    DataIntegrityViolationException duplicate = new DataIntegrityViolationException("duplicate");
+    when(jobsRepository.save(any())).thenThrow(duplicate);
+
+    assertSame(
+        duplicate, assertThrows(RuntimeException.class, () -> jobService.runAsJob(ctx -> {})));
+
+    verify(jobQueue).release(any(Job.class));
+    verify(self, never()).runNextJobAsync();
+  }
+
+  @Test
+  public void getExecutorStats_reads_from_executor() {
+    ThreadPoolExecutor executor = mock(ThreadPoolExecutor.class);
+    when(jobExecutor.getThreadPoolExecutor()).thenReturn(executor);
+    when(executor.getCompletedTaskCount()).thenReturn(7L);
+    when(jobExecutor.getMaxPoolSize()).thenReturn(4);
+    when(jobExecutor.getActiveCount()).thenReturn(2);
+    when(jobExecutor.getQueueSize()).thenReturn(1);
+    when(jobExecutor.getQueueCapacity()).thenReturn(100);
+
+    JobExecutorStats expected =
+        JobExecutorStats.builder()
+            .maxConcurrency(4)
+            .activeWorkers(2)
+            .queueDepth(1)
+            .queueCapacity(100)
+            .completedTasks(7L)
+            .build();
+    assertEquals(expected, jobService.getExecutorStats());
+  }
+
+  @Test
+  public void runAsJob_in_database_mode_queues_serializable_job() {
+    when(jobQueue.isDatabaseMode()).thenReturn(true);
+    when(jobQueue.positionOf(any(Job.class))).thenReturn(5L);
+
+    Job job = jobService.runAsJob(TestJob.builder().fail(false).sleepMs(10).build());
+
+    assertEquals(JobStatus.QUEUED, job.getStatus());
+    assertEquals(TestJob.class.getName(), job.getJobType());
+    assertEquals("{\"fail\":false,\"sleepMs\":10}", job.getJobParams());
+    assertEquals(5, job.getQueuePosition());
+    verify(self, never()).runNextJobAsync();
+    verify(jobQueue, never()).hold(any(), any());
+  }
+
+  @Test
+  public void runAsJob_in_database_mode_runs_lambda_in_memory() {
+    when(jobQueue.isDatabaseMode()).thenReturn(true);
+    when(jobExecutor.getMaxPoolSize()).thenReturn(4);
+
+    Job job = jobService.runAsJob(ctx -> ctx.log("hi"));
+
+    assertEquals(JobStatus.RUNNING, job.getStatus());
+    assertNull(job.getJobType());
+    verify(self, times(1)).runNextJobAsync();
+    assertEquals(job, jobLanes.poll().get().job());
+  }
+
+  @Test
+  public void runAsJob_in_database_mode_runs_anonymous_class_in_memory() {
+    when(jobQueue.isDatabaseMode()).thenReturn(true);
+    when(jobExecutor.getMaxPoolSize()).thenReturn(4);
+
+    Job job =
+        jobService.runAsJob(
+            new JobContextConsumer() {
+              @Override
+              public void accept(JobContext c) {}
+            });
+
+    assertEquals(JobStatus.RUNNING, job.getStatus());
+    assertNull(job.getJobType());
+  }
+
+  @Test
+  public void runAsJob_in_database_mode_runs_unserializable_job_in_memory() {
+    when(jobQueue.isDatabaseMode()).thenReturn(true);
+    when(jobExecutor.getMaxPoolSize()).thenReturn(4);
+
+    Job job = jobService.runAsJob(new UnserializableJob("x"));
+
+    assertEquals(JobStatus.RUNNING, job.getStatus());
+    assertNull(job.getJobParams());
+  }
+
+  @Test
+  public void runClaimedJob_rebuilds_and_runs_the_job() {
+    ReflectionTestUtils.setField(jobService, "logMode", "sync");
+    Job job =
+        Job.builder()
+            .status(JobStatus.RUNNING)
+            .jobType(TestJob.class.getName())
+            .jobParams("{\"fail\":false,\"sleepMs\":0}")
+            .build();
+
+    jobService.runClaimedJob(job);
+
+    assertEquals(JobStatus.COMPLETE, job.getStatus());
+    assertEquals("Hello World! from test job!\nGoodbye from test job!", logOf(job));
+    verify(jobQueue, times(1)).release(job);
+    verify(jobMetrics, times(1)).jobStarted(job, "TestJob");
+    verify(jobMetrics, times(1)).jobFinished(eq("TestJob"), eq(JobStatus.COMPLETE), any());
+  }
+
+  @Test
+  public void runClaimedJob_marks_job_as_error_when_it_cannot_be_rebuilt() {
+    Job job =
+        Job.builder().status(JobStatus.RUNNING).jobType("no.such.Job").jobParams("{}").build();
+
+    jobService.runClaimedJob(job);
+
+    assertEquals(JobStatus.ERROR, job.getStatus());
+    assertEquals("Cannot rebuild job: no.such.Job", logOf(job));
+    verify(jobQueue, times(1)).release(job);
+    verify(jobMetrics, times(1)).jobStarted(job, "Job");
+    verify(jobMetrics, times(1)).jobFinished("Job", JobStatus.ERROR, Duration.ZERO);
+  }
+
+  @Test
+  public void runAsJob_sets_the_timeout_or_the_default() {
+    assertEquals(500L, jobService.runAsJob(ctx -> {}, JobPriority.NORMAL, 500L).getTimeoutMs());
+    assertNull(jobService.runAsJob(ctx -> {}).getTimeoutMs());
+
+    ReflectionTestUtils.setField(jobService, "defaultTimeoutMs", 60000L);
+    assertEquals(60000L, jobService.runAsJob(ctx -> {}, JobPriority.NORMAL, 0L).getTimeoutMs());
+  }
+
+  /** Runs a job on its own thread, and returns once the job has started. */
+  private Thread startJob(Job job, JobContextConsumer jobFunction) throws Exception {
+    CountDownLatch started = new CountDownLatch(1);
+    Thread thread =
+        new Thread(
+            () ->
+                jobService.runJob(
+                    job,
+                    ctx -> {
+                      started.countDown();
+                      jobFunction.accept(ctx);
+                    }));
+    thread.start();
+    assertTrue(started.await(5, TimeUnit.SECONDS));
+    return thread;
+  }
+
+  @Test
+  public void cancel_interrupts_a_running_job_and_records_it_as_cancelled() throws Exception {
+    ReflectionTestUtils.setField(jobService, "logMode", "sync");
+    Job job = Job.builder().id(7L).status(JobStatus.RUNNING).build();
+    Thread thread = startJob(job, ctx -> Thread.sleep(60000));
+
+    assertTrue(jobService.cancel(7L));
+    thread.join(5000);
+
+    assertEquals(JobStatus.CANCELLED, job.getStatus());
+    assertEquals("Job cancelled", logOf(job));
+    verify(jobMetrics, times(1)).jobFinished(any(), eq(JobStatus.CANCELLED), any());
+    verify(jobsRepository, never()).findById(any());
+    // the job is no longer known once it has finished
+    assertFalse(jobService.cancelRunning(7L));
+  }
+
+  @Test
+  public void job_that_polls_for_cancellation_is_recorded_as_cancelled() throws Exception {
+    ReflectionTestUtils.setField(jobService, "logMode", "sync");
+    Job job = Job.builder().id(7L).status(JobStatus.RUNNING).build();
+    Thread thread =
+        startJob(
+            job,
+            ctx -> {
+              while (!ctx.isCancelled()) {
+                Thread.onSpinWait();
+              }
+              ctx.log("stopping");
+            });
+
+    assertTrue(jobService.cancelRunning(7L));
+    thread.join(5000);
+
+    assertEquals(JobStatus.CANCELLED, job.getStatus());
+    assertEquals("stopping\nJob cancelled", logOf(job));
+  }
+
+  @Test
+  public void job_that_runs_past_its_timeout_is_recorded_as_timeout() throws Exception {
+    Job job = Job.builder().id(7L).status(JobStatus.RUNNING).timeoutMs(1L).build();
+    JobLogBuffer buffer = new JobLogBuffer(new DatabaseJobLogStore(jobsRepository), job, 100);
+    when(jobLogFlusher.register(job)).thenReturn(buffer);
+    doAnswer(
+            invocation -> {
+              buffer.flush();
+              return null;
+            })
+        .when(jobLogFlusher)
+        .close(buffer);
+    Thread thread = startJob(job, ctx -> Thread.sleep(60000));
+
+    Thread.sleep(10);
+    jobService.cancelTimedOutJobs();
+    thread.join(5000);
+
+    assertEquals(JobStatus.TIMEOUT, job.getStatus());
+    assertEquals("Job timed out after 1 ms", logOf(job));
+    verify(jobsRepository, times(1)).save(job);
+  }
+
+  @Test
+  public void jobs_within_their_timeout_are_left_running() throws Exception {
+    Job limited = Job.builder().id(7L).status(JobStatus.RUNNING).timeoutMs(60000L).build();
+    Job unlimited = Job.builder().id(8L).status(JobStatus.RUNNING).build();
+    CountDownLatch done = new CountDownLatch(1);
+    Thread first = startJob(limited, ctx -> done.await());
+    Thread second = startJob(unlimited, ctx -> done.await());
+
+    jobService.cancelTimedOutJobs();
+    done.countDown();
+    first.join(5000);
+    second.join(5000);
+
+    assertEquals(JobStatus.COMPLETE, limited.getStatus());
+    assertEquals(JobStatus.COMPLETE, unlimited.getStatus());
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void job_that_finished_but_is_not_yet_forgotten_is_not_cancelled() {
+    RunningJob finished = new RunningJob();
+    finished.start(
+        new JobContext(null, Job.builder().build()), Thread.currentThread(), System.nanoTime() - 1);
+    finished.finish();
+    ((Map<Long, RunningJob>) ReflectionTestUtils.getField(jobService, "running")).put(7L, finished);
+
+    assertFalse(jobService.cancelRunning(7L));
+    jobService.cancelTimedOutJobs();
+    assertFalse(Thread.currentThread().isInterrupted());
+  }
+
+  @Test
+  public void job_cancelled_before_it_starts_is_not_run() {
+    ReflectionTestUtils.setField(jobService, "logMode", "sync");
+    Job job = Job.builder().id(7L).status(JobStatus.RUNNING).build();
+    JobContextConsumer jobFunction = mock(JobContextConsumer.class);
+
+    jobService.cancelHeld(7L);
+    jobService.runJob(job, jobFunction);
+
+    verifyNoInteractions(jobFunction);
+    assertEquals(JobStatus.CANCELLED, job.getStatus());
+    assertEquals("Job cancelled", logOf(job));
+  }
+
+  @Test
+  public void runPipeline_saves_a_pending_job_per_step_and_starts_the_pipeline() {
+    ReflectionTestUtils.setField(jobService, "defaultTimeoutMs", 5000L);
+    when(jobQueue.getNodeId()).thenReturn("node-1");
+    when(jobsRepository.save(any()))
+        .thenAnswer(
+            invocation -> {
+              invocation.<Job>getArgument(0).setId(10L);
+              return invocation.getArgument(0);
+            });
+    JobPipeline pipeline =
+        new JobPipeline("nightly").step("import", ctx -> {}).step("export", ctx -> {}, "import");
+
+    Job pipelineJob = jobService.runPipeline(pipeline, JobPriority.BULK);
+
+    assertEquals(JobStatus.RUNNING, pipelineJob.getStatus());
+    verify(jobQueue).hold(pipelineJob, "node-1");
+    Map<String, Job> steps = captureSteps(pipelineJob, pipeline);
+    Job export = steps.get("export");
+    assertEquals(JobStatus.PENDING, export.getStatus());
+    assertEquals(10L, export.getPipelineId());
+    assertEquals("export", export.getStepName());
+    assertEquals("import", export.getDependsOn());
+    assertEquals(JobPriority.BULK, export.getPriority());
+    assertEquals(5000L, export.getTimeoutMs());
+    assertNull(steps.get("import").getDependsOn());
+    verify(jobsRepository).saveAll(steps.values());
+  }
+
+  @SuppressWarnings("unchecked")
+  private Map<String, Job> captureSteps(Job pipelineJob, JobPipeline pipeline) {
+    ArgumentCaptor<Map<String, Job>> steps = ArgumentCaptor.forClass(Map.class);
+    verify(jobPipelines).start(same(pipelineJob), same(pipeline), steps.capture());
+    return steps.getValue();
+  }
+
+  @Test
+  public void runPipeline_defaults_to_normal_priority_and_no_timeout() {
+    JobPipeline pipeline = new JobPipeline("nightly").step("import", ctx -> {});
+
+    Job pipelineJob = jobService.runPipeline(pipeline, null);
+
+    assertEquals(JobPriority.NORMAL, pipelineJob.getPriority());
+    Job step = captureSteps(pipelineJob, pipeline).get("import");
+    assertEquals(JobPriority.NORMAL, step.getPriority());
+    assertNull(step.getTimeoutMs());
+  }
+
+  @Test
+  public void runPipeline_rejects_a_pipeline_without_steps() {
+    IllegalArgumentException e =
+        assertThrows(
+            IllegalArgumentException.class,
+            () -> jobService.runPipeline(new JobPipeline("empty"), null));
+
+    assertEquals("Pipeline empty has no steps", e.getMessage());
+    verifyNoInteractions(jobsRepository, jobPipelines);
+  }
+
+  @Test
+  public void a_launch_is_checked_against_the_launching_user_s_quotas() {
+    User user = User.builder().id(1L).email("user@example.org").build();
+    when(currentUserService.getUser()).thenReturn(user);
+    JobQuotaExceededException quotaExceeded = new JobQuotaExceededException("too many", 5);
+    doThrow(quotaExceeded).when(jobQuotas).checkLaunch(user);
+
+    assertSame(
+        quotaExceeded,
+        assertThrows(JobQuotaExceededException.class, () -> jobService.runAsJob(ctx -> {})));
+
+    verifyNoInteractions(jobsRepository, jobExecutor);
+  }
+
+  @Test
+  public void a_launch_that_loses_the_race_for_its_idempotency_key_gives_back_its_quota() {
+    User user = User.builder().id(1L).email("user@example.org").build();
+    when(currentUserService.getUser()).thenReturn(user);
+    when(jobExecutor.getMaxPoolSize()).thenReturn(4);
+    DataIntegrityViolationException duplicate = new DataIntegrityViolationException("duplicate");
+    when(jobsRepository.save(any(Job.class))).thenThrow(duplicate);
+    when(jobIdempotency.launch(any(), any(), any(), any()))
+        .thenAnswer(invocation -> invocation.<Supplier<Job>>getArgument(3).get());
+
+    assertSame(
+        duplicate,
+        assertThrows(
+            DataIntegrityViolationException.class,
+            () -> jobService.runAsJob(ctx -> {}, null, null, "key-1")));
+
+    verify(jobIdempotency).launch(same(user), eq("key-1"), any(), any());
+    InOrder inOrder = inOrder(jobQuotas);
+    inOrder.verify(jobQuotas).checkLaunch(user);
+    inOrder.verify(jobQuotas).refundLaunch(user);
+  }
+
+  @Test
+  public void a_pipeline_is_checked_against_the_quotas_once() {
+    User user = User.builder().id(1L).email("user@example.org").build();
+    when(currentUserService.getUser()).thenReturn(user);
+    doThrow(new JobQuotaExceededException("too many", 5)).when(jobQuotas).checkLaunch(user);
+    JobPipeline pipeline =
+        new JobPipeline("nightly").step("import", ctx -> {}).step("export", ctx -> {}, "import");
+
+    assertThrows(JobQuotaExceededException.class, () -> jobService.runPipeline(pipeline, null));
+
+    verify(jobQuotas, times(1)).checkLaunch(user);
+    verifyNoInteractions(jobsRepository, jobPipelines);
+  }
+
+  @Test
+  public void a_step_that_finishes_tells_its_pipeline() {
+    Job step = Job.builder().id(11L).status(JobStatus.RUNNING).pipelineId(10L).build();
+
+    jobService.runJob(step, ctx -> {});
+
+    InOrder inOrder = inOrder(jobsRepository, jobPipelines);
+    inOrder.verify(jobsRepository).save(step);
+    inOrder.verify(jobPipelines).stepFinished(step);
+  }
+
+  @Test
+  public void a_job_whose_lease_was_lost_is_not_saved() {
+    Job step = Job.builder().id(11L).status(JobStatus.RUNNING).pipelineId(10L).build();
+    when(jobQueue.isLeaseLost(step)).thenReturn(true);
+
+    jobService.runJob(step, ctx -> ctx.log("hello"));
+
+    assertEquals(JobStatus.CANCELLED, step.getStatus());
+    verify(jobQueue, times(1)).release(step);
+    verify(jobsRepository, never()).save(any());
+    verify(jobPipelines, never()).stepFinished(any());
+    verify(jobLogStreamer, times(1)).close(same(step), any());
+    verify(jobMetrics, times(1)).jobFinished(any(), eq(JobStatus.CANCELLED), any());
+  }
+
+  @Test
+  public void cancel_of_a_pipeline_running_here_cancels_it() {
+    when(jobPipelines.cancel(10L)).thenReturn(true);
+
+    assertTrue(jobService.cancel(10L));
+
+    verify(jobsRepository, never()).findById(anyLong());
+  }
+
+  @Test
+  public void cancelHeld_of_a_pipeline_cancels_the_pipeline() {
+    when(jobPipelines.cancel(10L)).thenReturn(true);
+
+    jobService.cancelHeld(10L);
+
+    // no job with the pipeline's id is left waiting to be cancelled
+    assertFalse(jobService.cancelRunning(10L));
+  }
+
+  @Test
+  public void cancel_of_unknown_job_throws() {
+    when(jobsRepository.findById(7L)).thenReturn(Optional.empty());
+
+    EntityNotFoundException e =
+        assertThrows(EntityNotFoundException.class, () -> jobService.cancel(7L));
+    assertEquals("Job with id 7 not found", e.getMessage());
+  }
+
+  @Test
+  public void cancel_of_queued_job_cancels_it_in_the_database() {
+    when(jobsRepository.findById(7L))
+        .thenReturn(Optional.of(Job.builder().id(7L).status(JobStatus.QUEUED).build()));
+    when(jobsRepository.cancelQueued(eq(7L), any())).thenReturn(1);
+
+    assertTrue(jobService.cancel(7L));
+    verify(jobsRepository, never()).requestCancel(anyLong());
+  }
+
+  @Test
+  public void cancel_of_job_claimed_meanwhile_asks_its_node_to_cancel_it() {
+    when(jobsRepository.findById(7L))
+        .thenReturn(Optional.of(Job.builder().id(7L).status(JobStatus.QUEUED).build()));
+    when(jobsRepository.cancelQueued(eq(7L), any())).thenReturn(0);
+    when(jobsRepository.requestCancel(7L)).thenReturn(1);
+
+    assertTrue(jobService.cancel(7L));
+  }
+
+  @Test
+  public void cancel_of_job_running_elsewhere_asks_its_node_to_cancel_it() {
+    when(jobsRepository.findById(7L))
+        .thenReturn(Optional.of(Job.builder().id(7L).status(JobStatus.RUNNING).build()));
+    when(jobsRepository.requestCancel(7L)).thenReturn(1);
+
+    assertTrue(jobService.cancel(7L));
+    verify(jobsRepository, never()).cancelQueued(anyLong(), any());
+  }
+
+  @Test
+  public void cancel_of_finished_job_returns_false() {
+    when(jobsRepository.findById(7L))
+        .thenReturn(Optional.of(Job.builder().id(7L).status(JobStatus.COMPLETE).build()));
+    when(jobsRepository.requestCancel(7L)).thenReturn(0);
+
+    assertFalse(jobService.cancel(7L));
+  }
+
+  /** Jackson can write this job but cannot read it back: there is no constructor it can use */
+  private static class UnserializableJob implements JobContextConsumer {
+    private final String name;
+
+    UnserializableJob(String name) {
+      this.name = name;
+    }
+
+    public String getName() {
+      return name;
+    }
+
+    @Override
+    public void accept(JobContext c) {}
+  }
+
+  @Test
+  public void getJobSummaries_returns_cursor_for_next_page_only_when_page_is_full() {
+    ZonedDateTime createdAt = ZonedDateTime.parse("2025-01-02T03:04:05.123456Z");
+    JobSummary newer = JobSummary.builder().id(9L).createdAt(createdAt.plusSeconds(1)).build();
+    JobSummary older = JobSummary.builder().id(8L).createdAt(createdAt).build();
+    when(jobsRepository.findSummariesBefore(any(), eq(Long.MAX_VALUE), eq(Limit.of(2))))
+        .thenReturn(List.of(newer, older));
+    when(jobsRepository.findSummariesBefore(createdAt, 8L, Limit.of(2)))
+        .thenReturn(List.of(JobSummary.builder().id(3L).createdAt(createdAt).build()));
+
+    JobSummaryPage first = jobService.getJobSummaries(null, null, 2);
+    JobSummaryPage second = jobService.getJobSummaries(List.of(), first.getNext(), 2);
+
+    assertEquals(List.of(newer, older), first.getJobs());
+    assertEquals(1, second.getJobs().size());
+    assertNull(second.getNext());
+  }
+
+  @Test
+  public void summaries_get_their_log_sizes_from_the_store() {
+    JobLogStore store = mock(JobLogStore.class);
+    ReflectionTestUtils.setField(jobService, "jobLogStore", store);
+    JobSummary summary = JobSummary.builder().id(7L).build();
+    when(jobsRepository.findSummariesBefore(any(), anyLong(), any())).thenReturn(List.of(summary));
+    when(jobsRepository.findSummaryById(7L)).thenReturn(Optional.of(summary));
+
+    jobService.getJobSummaries(null, null, 10);
+    assertSame(summary, jobService.getJobSummary(7L));
+
+    verify(store, times(2)).fillLogSizes(List.of(summary));
+    assertThrows(EntityNotFoundException.class, () -> jobService.getJobSummary(8L));
+  }
+
+  @Test
+  public void getJobSummaries_filters_by_status() {
+    jobService.getJobSummaries(List.of(JobStatus.RUNNING), "", 10);
+
+    verify(jobsRepository, times(1))
+        .findSummariesBeforeWithStatus(
+            eq(List.of(JobStatus.RUNNING)), any(), eq(Long.MAX_VALUE), eq(Limit.of(10)));
+    verify(jobsRepository, never()).findSummariesBefore(any(), anyLong(), any());
+  }
+
+  @Test
+  public void getStatusCounts_includes_every_status() {
+    when(jobsRepository.countGroupedByStatus())
+        .thenReturn(
+            List.of(
+                new JobStatusCount(JobStatus.RUNNING, 3L),
+                new JobStatusCount(JobStatus.ERROR, 2L),
+                new JobStatusCount(null, 1L)));
+
+    Map<String, Long> counts = jobService.getStatusCounts();
+
+    assertEquals(
+        List.of(
+            "queued",
+            "pending",
+            "running",
+            "complete",
+            "error",
+            "cancelled",
+            "timeout",
+            "rejected",
+            "skipped"),
+        List.copyOf(counts.keySet()));
+    assertEquals(3L, counts.get("running"));
+    assertEquals(2L, counts.get("error"));
+    assertEquals(0L, counts.get("complete"));
+    verify(jobsRepository, times(1)).countGroupedByStatus();
+  }
+
+  @Test
+  public void transition_changes_the_status_when_the_life_cycle_allows_it() {
+    Job job = Job.builder().id(5L).status(JobStatus.QUEUED).build();
+
+    JobService.transition(job, JobStatus.RUNNING);
+    JobService.transition(job, JobStatus.COMPLETE);
+
+    assertEquals(JobStatus.COMPLETE, job.getStatus());
+  }
+
+  @Test
+  public void transition_rejects_leaving_a_finished_status() {
+    Job job = Job.builder().id(5L).status(JobStatus.COMPLETE).build();
+
+    InvalidJobTransitionException e =
+        assertThrows(
+            InvalidJobTransitionException.class,
+            () -> JobService.transition(job, JobStatus.RUNNING));
+
+    assertEquals("Job 5 cannot go from complete to running", e.getMessage());
+    assertEquals(JobStatus.COMPLETE, job.getStatus());
+  }
+
+  @Test
+  public void transition_rejects_a_job_without_a_status() {
+    Job job = Job.builder().id(6L).build();
+
+    InvalidJobTransitionException e =
+        assertThrows(
+            InvalidJobTransitionException.class,
+            () -> JobService.transition(job, JobStatus.COMPLETE));
+
+    assertEquals("Job 6 cannot go from new to complete", e.getMessage());
+  }
+
+  @Test
+  public void getJobSummaries_rejects_malformed_cursor() {
+    String noComma = Base64.getUrlEncoder().encodeToString("2025-01-01T00:00:00Z".getBytes());
+
+    assertThrows(InvalidCursorException.class, () -> jobService.getJobSummaries(null, "%%%", 10));
+    assertThrows(InvalidCursorException.class, () -> jobService.getJobSummaries(null, noComma, 10));
+  }
+
+  @Test
+  public void job_logging_to_a_store_that_does_not_save_the_job_is_saved_at_the_end() {
+    ReflectionTestUtils.setField(jobService, "logMode", "sync");
+    JobLogStore store = mock(JobLogStore.class);
+    ReflectionTestUtils.setField(jobService, "jobLogStore", store);
+    Job job = Job.builder().id(5L).status(JobStatus.RUNNING).build();
+
+    jobService.runJob(
+        job,
+        ctx -> {
+          throw new Exception("boom");
+        });
+
+    verify(store).append(job, "boom");
+    assertEquals(JobStatus.ERROR, job.getStatus());
+    verify(jobsRepository, times(1)).save(job);
+  }
+
+  @Test
+  public void runClaimedJob_saves_a_job_that_cannot_be_rebuilt_when_the_store_does_not() {
+    JobLogStore store = mock(JobLogStore.class);
+    ReflectionTestUtils.setField(jobService, "jobLogStore", store);
+    Job job = Job.builder().id(6L).status(JobStatus.RUNNING).jobType("no.such.Job").build();
+
+    jobService.runClaimedJob(job);
+
+    verify(store).append(job, "Cannot rebuild job: no.such.Job");
+    assertEquals(JobStatus.ERROR, job.getStatus());
+    verify(jobsRepository, times(1)).save(job);
+  }
+
+  @Test
+  public void with_headTail_a_chatty_job_keeps_the_head_and_tail_of_its_log() {
+    ReflectionTestUtils.setField(jobService, "logMode", "sync");
+    ReflectionTestUtils.setField(jobService, "logKeep", "headTail");
+    ReflectionTestUtils.setField(jobService, "logHeadKb", 1L);
+    ReflectionTestUtils.setField(jobService, "logTailKb", 1L);
+    Job job = Job.builder().id(8L).status(JobStatus.RUNNING).build();
+
+    jobService.runJob(
+        job,
+        ctx -> {
+          for (int i = 0; i < 10000; i++) {
+            ctx.log("line %04d".formatted(i));
+          }
+        });
+
+    // 10 characters a line: 102 lines in each of the head and the tail
+    List<String> lines = List.of(logOf(job).split("\n"));
+    assertEquals(102 + 1 + 102, lines.size());
+    assertEquals("line 0000", lines.get(0));
+    assertEquals("line 0101", lines.get(101));
+    assertEquals("[... 9796 lines (97960 characters) dropped ...]", lines.get(102));
+    assertEquals("line 9898", lines.get(103));
+    assertEquals("line 9999", lines.get(204));
+    assertEquals(JobStatus.COMPLETE, job.getStatus());
+    verify(jobMetrics).logLinesDropped(any(), eq(9796L));
+  }
+
+  @Test
+  public void with_headTail_a_quiet_job_keeps_its_whole_log() {
+    ReflectionTestUtils.setField(jobService, "logMode", "sync");
+    ReflectionTestUtils.setField(jobService, "logKeep", "headTail");
+    ReflectionTestUtils.setField(jobService, "logHeadKb", 0L);
+    ReflectionTestUtils.setField(jobService, "logTailKb", 1L);
+    Job job = Job.builder().id(9L).status(JobStatus.RUNNING).build();
+
+    jobService.runJob(
+        job,
+        ctx -> {
+          throw new Exception("boom");
+        });
+
+    // the error message was held in the tail, and written when the job finished
+    assertEquals("boom", logOf(job));
+    verify(jobsRepository, times(1)).save(job);
+    verify(jobMetrics, never()).logLinesDropped(any(), anyLong());
+  }
+
+  @Test
+  public void log_lines_are_indexed_and_the_index_is_closed_when_the_job_finishes() {
+    ReflectionTestUtils.setField(jobService, "logMode", "sync");
+    Job job = Job.builder().id(10L).status(JobStatus.RUNNING).build();
+    JobLogIndexer indexer = new JobLogIndexer(10L, 0, 5, 100);
+    when(jobLogIndex.open(job)).thenReturn(indexer);
+
+    jobService.runJob(job, ctx -> ctx.log("Fail!"));
+
+    assertEquals(List.of("fail"), indexer.drain().stream().map(JobLogToken::getToken).toList());
+    verify(jobLogIndex).close(indexer);
+    verify(jobMetrics, never()).logIndexTruncated(any());
+  }
+
+  @Test
+  public void a_job_with_too_many_words_to_index_is_counted() {
+    ReflectionTestUtils.setField(jobService, "logMode", "sync");
+    Job job = Job.builder().id(10L).status(JobStatus.RUNNING).build();
+    when(jobLogIndex.open(job)).thenReturn(new JobLogIndexer(10L, 0, 5, 1));
+
+    jobService.runJob(job, ctx -> ctx.log("Fail! again"));
+
+    verify(jobMetrics).logIndexTruncated(any());
+  }
+
+  /** An artifact stream that records what was written to it, and whether it was committed */
+  private static class RecordingArtifact extends JobArtifactOutputStream {
+    boolean committed;
+
+    RecordingArtifact() {
+      super(new ByteArrayOutputStream());
+    }
+
+    @Override
+    public void commit() {
+      committed = true;
+    }
+
+    @Override
+    public String toString() {
+      return out.toString();
+    }
+  }
+
+  @Test
+  public void jobs_can_write_artifacts() throws Exception {
+    ReflectionTestUtils.setField(jobService, "logMode", "sync");
+    Job job = Job.builder().id(11L).status(JobStatus.RUNNING).build();
+    RecordingArtifact out = new RecordingArtifact();
+    when(jobArtifacts.create(job, "export.csv", "text/csv")).thenReturn(out);
+
+    jobService.runJob(
+        job,
+        ctx -> {
+          try (JobArtifactOutputStream artifact = ctx.artifact("export.csv", "text/csv")) {
+            artifact.write('x');
+            artifact.commit();
+          }
+        });
+
+    assertEquals(JobStatus.COMPLETE, job.getStatus());
+    assertEquals("x", out.toString());
+    assertTrue(out.committed);
+  }
+
+  @Test
+  public void an_artifact_a_job_fails_to_finish_is_not_committed() throws Exception {
+    ReflectionTestUtils.setField(jobService, "logMode", "sync");
+    Job job = Job.builder().id(11L).status(JobStatus.RUNNING).build();
+    RecordingArtifact out = new RecordingArtifact();
+    when(jobArtifacts.create(job, "export.csv", "text/csv")).thenReturn(out);
+
+    jobService.runJob(
+        job,
+        ctx -> {
+          try (JobArtifactOutputStream artifact = ctx.artifact("export.csv", "text/csv")) {
+            artifact.write('x');
+            throw new IOException("disk full");
+          }
+        });
+
+    assertEquals(JobStatus.ERROR, job.getStatus());
+    assertFalse(out.committed);
+  }
+}
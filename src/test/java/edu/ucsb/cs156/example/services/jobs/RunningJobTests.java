@@ -0,0 +1,49 @@
+package edu.ucsb.cs156.example.services.jobs;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.ucsb.cs156.example.entities.Job;
+import org.junit.jupiter.api.Test;
+
+public class RunningJobTests {
+
+  @Test
+  public void cancel_before_start_stops_the_job_from_starting() {
+    RunningJob runningJob = new RunningJob();
+    JobContext context = new JobContext(null, Job.builder().build());
+
+    assertTrue(runningJob.cancel("cancelled"));
+
+    assertFalse(runningJob.start(context, Thread.currentThread(), null));
+    assertTrue(context.isCancelled());
+    assertFalse(Thread.currentThread().isInterrupted());
+  }
+
+  @Test
+  public void cancel_interrupts_the_thread_until_the_job_finishes() {
+    RunningJob runningJob = new RunningJob();
+    JobContext context = new JobContext(null, Job.builder().build());
+    assertTrue(runningJob.start(context, Thread.currentThread(), null));
+
+    assertTrue(runningJob.cancel("timeout"));
+    assertTrue(runningJob.cancel("cancelled"));
+    assertTrue(Thread.currentThread().isInterrupted());
+    assertEquals("timeout", context.getCancelReason());
+
+    runningJob.finish();
+    assertFalse(Thread.currentThread().isInterrupted());
+    assertFalse(runningJob.cancel("cancelled"));
+    assertFalse(Thread.currentThread().isInterrupted());
+  }
+
+  @Test
+  public void deadline_is_reached_at_the_given_time() {
+    RunningJob runningJob = new RunningJob();
+    runningJob.start(new JobContext(null, Job.builder().build()), Thread.currentThread(), 100L);
+
+    assertFalse(runningJob.isPastDeadline(99L));
+    assertTrue(runningJob.isPastDeadline(100L));
+  }
+}